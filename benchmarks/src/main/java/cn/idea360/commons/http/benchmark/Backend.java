@@ -0,0 +1,44 @@
+package cn.idea360.commons.http.benchmark;
+
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.HttpConfig;
+import cn.idea360.commons.http.apache.ApacheHttpClientWrapper;
+import cn.idea360.commons.http.jdk.JdkHttpClientWrapper;
+
+/**
+ * 被测的client实现, 绕过HttpClientFactory以便在同一进程中对比两种实现
+ *
+ * @author cuishiying
+ */
+public enum Backend {
+
+	JDK {
+		@Override
+		HttpClientWrapper create(HttpConfig httpConfig) {
+			return new JdkHttpClientWrapper(httpConfig);
+		}
+	},
+
+	APACHE {
+		@Override
+		HttpClientWrapper create(HttpConfig httpConfig) {
+			return new ApacheHttpClientWrapper(httpConfig);
+		}
+	};
+
+	abstract HttpClientWrapper create(HttpConfig httpConfig);
+
+	/**
+	 * 基准测试使用的配置, 连接池足够大, 避免并发测试退化为测量排队时间
+	 * @return 配置
+	 */
+	static HttpConfig benchmarkConfig() {
+		HttpConfig httpConfig = new HttpConfig();
+		httpConfig.setMaxTotal(256);
+		httpConfig.setDefaultMaxPerRoute(256);
+		httpConfig.setSocketTimeout(30000);
+		httpConfig.setConnectionRequestTimeout(30000);
+		return httpConfig;
+	}
+
+}
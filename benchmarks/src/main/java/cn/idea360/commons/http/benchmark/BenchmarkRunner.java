@@ -0,0 +1,61 @@
+package cn.idea360.commons.http.benchmark;
+
+import cn.idea360.commons.http.VirtualThreads;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口: 在1/16/64并发下依次运行所有基准并启用gc profiler统计分配速率(gc.alloc.rate.norm),
+ * {@link VirtualThreadBenchmark}在JDK21+上单独运行一次.
+ *
+ * <pre>
+ * mvn install -Dgpg.skip                       # 项目根目录
+ * mvn -f benchmarks/pom.xml package
+ * java -jar benchmarks/target/benchmarks.jar  # 完整矩阵
+ * java -jar benchmarks/target/benchmarks.jar ClientBenchmark.get -p backend=JDK  # 参数与JMH命令行相同
+ * </pre>
+ *
+ * 指定了命令行参数时只按参数运行一次, 不再遍历并发度(可用-t指定)
+ *
+ * @author cuishiying
+ */
+public final class BenchmarkRunner {
+
+	private static final int[] THREADS = { 1, 16, 64 };
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (args.length > 0) {
+			new Runner(new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class).build()).run();
+			return;
+		}
+		for (int threads : THREADS) {
+			ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine)
+				.include(BenchmarkRunner.class.getPackage().getName() + ".*")
+				.exclude(VirtualThreadBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.threads(threads)
+				.resultFormat(ResultFormatType.JSON)
+				.result("jmh-result-t" + threads + ".json");
+			new Runner(options.build()).run();
+		}
+		// 并发由基准内部的虚拟线程产生, 只运行一次
+		if (VirtualThreads.isSupported()) {
+			new Runner(new OptionsBuilder().parent(commandLine)
+				.include(VirtualThreadBenchmark.class.getSimpleName())
+				.resultFormat(ResultFormatType.JSON)
+				.result("jmh-result-virtual-threads.json")
+				.build()).run();
+		}
+	}
+
+	private BenchmarkRunner() {
+	}
+
+}
@@ -0,0 +1,91 @@
+package cn.idea360.commons.http.benchmark;
+
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.HttpConfig;
+import cn.idea360.commons.http.HttpProtocol;
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端基准: 通过本地https桩服务对比两种client在不同协议、响应体/请求体大小下的吞吐量与延迟分布(SampleTime模式给出p50/p99).
+ * HTTP/1.1与HTTP/2由ALPN协商, TLS开销相同; HTTP/2每个host使用一个多路复用连接(h2ConnectionsPerHost默认值),
+ * 大响应体受流控窗口影响. 并发度通过{@link BenchmarkRunner}或命令行-t参数指定
+ *
+ * @author cuishiying
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ClientBenchmark {
+
+	@Param({ "JDK", "APACHE" })
+	private Backend backend;
+
+	@Param({ "HTTP_1_1", "HTTP_2" })
+	private HttpProtocol protocol;
+
+	@Param({ "128", "16384", "1048576" })
+	private int payloadSize;
+
+	private TlsStubServer server;
+
+	private HttpClientWrapper client;
+
+	private Request getRequest;
+
+	private Request postRequest;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		server = new TlsStubServer(payloadSize);
+		HttpConfig httpConfig = Backend.benchmarkConfig();
+		httpConfig.setProtocol(protocol);
+		client = backend.create(httpConfig);
+		getRequest = Request.builder().url(server.getBaseUrl() + "/payload").param("size", payloadSize).build();
+		byte[] body = new byte[payloadSize];
+		Arrays.fill(body, (byte) 'a');
+		postRequest = Request.builder().url(server.getBaseUrl() + "/echo").bytes(body).build();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		client.close();
+		server.close();
+	}
+
+	@Benchmark
+	public Response get() throws Exception {
+		return client.get(getRequest);
+	}
+
+	@Benchmark
+	public Response getAsync() throws Exception {
+		return client.getAsync(getRequest).get();
+	}
+
+	@Benchmark
+	public Response post() throws Exception {
+		return client.post(postRequest);
+	}
+
+}
@@ -0,0 +1,135 @@
+package cn.idea360.commons.http.benchmark;
+
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.RequestTemplate;
+import cn.idea360.commons.http.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求构建路径的基准: build只测量{@link Request}的构建, execute额外包含client内部的URI拼接与请求头设置,
+ * 响应体为空以突出参数/请求头处理的开销. template前缀的基准使用{@link RequestTemplate}, 参数为模板变量, 请求头为模板请求头
+ *
+ * @author cuishiying
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RequestBuildingBenchmark {
+
+	@Param({ "0", "8", "32" })
+	private int paramCount;
+
+	private String[] names;
+
+	private Object[] values;
+
+	private RequestTemplate template;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		names = new String[paramCount];
+		values = new Object[paramCount + 1];
+		values[0] = 0;
+		for (int i = 0; i < paramCount; i++) {
+			names[i] = "name" + i;
+			values[i + 1] = "value-" + i;
+		}
+		template = template("http://127.0.0.1:8080");
+	}
+
+	@Benchmark
+	public Request build() {
+		return build("http://127.0.0.1:8080/payload");
+	}
+
+	@Benchmark
+	public Response execute(ClientState state) throws Exception {
+		return state.client.get(build(state.server.getBaseUrl() + "/payload"));
+	}
+
+	@Benchmark
+	public Request templateBuild() {
+		return template.bind(values).build();
+	}
+
+	@Benchmark
+	public Response templateExecute(ClientState state) throws Exception {
+		if (Objects.isNull(state.template)) {
+			state.template = template(state.server.getBaseUrl());
+		}
+		return state.client.get(state.template.bind(values).build());
+	}
+
+	private RequestTemplate template(String baseUrl) {
+		StringBuilder url = new StringBuilder(baseUrl).append("/payload?size={size}");
+		for (String name : names) {
+			url.append('&').append(name).append("={").append(name).append('}');
+		}
+		RequestTemplate.Builder builder = RequestTemplate.builder(url.toString());
+		for (int i = 0; i < names.length; i++) {
+			builder.header("X-" + names[i], "value-" + i);
+		}
+		return builder.build();
+	}
+
+	private Request build(String url) {
+		Request.RequestBuilder builder = Request.builder().url(url).param("size", 0);
+		for (int i = 0; i < names.length; i++) {
+			builder.param(names[i], "value-" + i).header("X-" + names[i], "value-" + i);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * 只有execute依赖client, 避免build按backend重复运行
+	 */
+	@State(Scope.Benchmark)
+	public static class ClientState {
+
+		@Param({ "JDK", "APACHE" })
+		private Backend backend;
+
+		private StubServer server;
+
+		private HttpClientWrapper client;
+
+		/**
+		 * 依赖server的端口, 首次调用时创建
+		 */
+		private RequestTemplate template;
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException {
+			server = new StubServer(0);
+			client = backend.create(Backend.benchmarkConfig());
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws IOException {
+			client.close();
+			server.close();
+		}
+
+	}
+
+}
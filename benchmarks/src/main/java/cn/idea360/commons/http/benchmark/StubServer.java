@@ -0,0 +1,122 @@
+package cn.idea360.commons.http.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 进程内的HTTP/1.1桩服务, 响应体预先分配, 避免服务端开销干扰客户端的测量结果
+ *
+ * <ul>
+ * <li>GET /payload?size=N 返回N字节的响应体</li>
+ * <li>POST /echo 丢弃请求体, 返回固定的短响应</li>
+ * <li>GET /slow?ms=N 等待N毫秒后返回固定的短响应, 模拟占用连接的慢服务</li>
+ * </ul>
+ *
+ * @author cuishiying
+ */
+public class StubServer implements AutoCloseable {
+
+	private static final byte[] OK = "{\"code\":0}".getBytes();
+
+	static {
+		// 默认未开启TCP_NODELAY, 响应头与响应体分两次写出时会触发约40ms的延迟确认, 掩盖客户端本身的开销
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private final HttpServer server;
+
+	private final ExecutorService executor;
+
+	private final byte[] payload;
+
+	/**
+	 * 启动桩服务
+	 * @param maxPayloadSize 最大响应体大小
+	 * @throws IOException 端口绑定失败
+	 */
+	public StubServer(int maxPayloadSize) throws IOException {
+		this.payload = new byte[maxPayloadSize];
+		Arrays.fill(this.payload, (byte) 'a');
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+		this.server.createContext("/payload", this::payload);
+		this.server.createContext("/echo", this::echo);
+		this.server.createContext("/slow", this::slow);
+		this.executor = Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "stub-server");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.server.setExecutor(executor);
+		this.server.start();
+	}
+
+	/**
+	 * @return 服务地址, 如http://127.0.0.1:8080
+	 */
+	public String getBaseUrl() {
+		InetSocketAddress address = server.getAddress();
+		return "http://" + address.getHostString() + ":" + address.getPort();
+	}
+
+	private void payload(HttpExchange exchange) throws IOException {
+		drain(exchange);
+		String query = exchange.getRequestURI().getRawQuery();
+		int size = payload.length;
+		if (query != null && query.startsWith("size=")) {
+			int end = query.indexOf('&');
+			size = Math.min(size, Integer.parseInt(end < 0 ? query.substring(5) : query.substring(5, end)));
+		}
+		exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+		exchange.sendResponseHeaders(200, size == 0 ? -1 : size);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(payload, 0, size);
+		}
+	}
+
+	private void echo(HttpExchange exchange) throws IOException {
+		drain(exchange);
+		exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+		exchange.sendResponseHeaders(200, OK.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(OK);
+		}
+	}
+
+	private void slow(HttpExchange exchange) throws IOException {
+		String query = exchange.getRequestURI().getRawQuery();
+		if (query != null && query.startsWith("ms=")) {
+			try {
+				Thread.sleep(Long.parseLong(query.substring(3)));
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		echo(exchange);
+	}
+
+	private static void drain(HttpExchange exchange) throws IOException {
+		byte[] buffer = new byte[8192];
+		try (InputStream in = exchange.getRequestBody()) {
+			while (in.read(buffer) != -1) {
+				// 丢弃请求体
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+}
@@ -0,0 +1,198 @@
+package cn.idea360.commons.http.benchmark;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
+import org.apache.hc.core5.http.nio.entity.DiscardingEntityConsumer;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.nio.support.BasicResponseProducer;
+import org.apache.hc.core5.http.nio.support.BasicServerExchangeHandler;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.http2.ssl.H2ServerTlsStrategy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+import org.apache.hc.core5.ssl.SSLContexts;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import javax.net.ssl.SSLContext;
+
+/**
+ * 进程内的https桩服务, 通过ALPN同时支持HTTP/1.1与HTTP/2, 用于在相同的TLS开销下对比两种协议. 接口与{@link StubServer}一致:
+ *
+ * <ul>
+ * <li>GET /payload?size=N 返回N字节的响应体</li>
+ * <li>POST /echo 丢弃请求体, 返回固定的短响应</li>
+ * </ul>
+ *
+ * 证书在首次启动时由keytool生成(自签名, localhost/127.0.0.1), 并设置为进程的javax.net.ssl.trustStore, 两种client使用默认信任库即可连接.
+ * 需要在创建client前启动
+ *
+ * @author cuishiying
+ */
+public class TlsStubServer implements AutoCloseable {
+
+	private static final byte[] OK = "{\"code\":0}".getBytes();
+
+	private static final String PASSWORD = "benchmark";
+
+	private static Path keyStore;
+
+	private final HttpAsyncServer server;
+
+	private final byte[] payload;
+
+	/**
+	 * 按大小缓存的响应体, 避免在被测进程中为每个响应分配
+	 */
+	private final Map<Integer, byte[]> payloads = new ConcurrentHashMap<>();
+
+	private final int port;
+
+	/**
+	 * 启动桩服务
+	 * @param maxPayloadSize 最大响应体大小
+	 * @throws IOException 证书生成或端口绑定失败
+	 */
+	public TlsStubServer(int maxPayloadSize) throws IOException {
+		this.payload = new byte[maxPayloadSize];
+		Arrays.fill(this.payload, (byte) 'a');
+		SSLContext sslContext;
+		try {
+			sslContext = SSLContexts.custom()
+				.loadKeyMaterial(keyStore().toFile(), PASSWORD.toCharArray(), PASSWORD.toCharArray())
+				.build();
+		}
+		catch (Exception e) {
+			throw new IOException("load benchmark certificate failed", e);
+		}
+		this.server = H2ServerBootstrap.bootstrap()
+			.setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+			.setTlsStrategy(new H2ServerTlsStrategy(sslContext))
+			.register("/payload", () -> new BasicServerExchangeHandler<>(new Handler(this::payload)))
+			.register("/echo", () -> new BasicServerExchangeHandler<>(new Handler(request -> OK)))
+			.create();
+		this.server.start();
+		try {
+			ListenerEndpoint endpoint = server
+				.listen(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), URIScheme.HTTPS)
+				.get();
+			this.port = ((InetSocketAddress) endpoint.getAddress()).getPort();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			server.close(CloseMode.IMMEDIATE);
+			throw new IOException(e);
+		}
+		catch (ExecutionException e) {
+			server.close(CloseMode.IMMEDIATE);
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * @return 服务地址, 如https://localhost:8443
+	 */
+	public String getBaseUrl() {
+		return "https://localhost:" + port;
+	}
+
+	/**
+	 * 生成自签名证书并设置为信任库, 每个进程只生成一次
+	 */
+	private static synchronized Path keyStore() throws IOException {
+		if (keyStore != null) {
+			return keyStore;
+		}
+		Path file = Files.createTempFile("benchmark", ".p12");
+		Files.delete(file);
+		file.toFile().deleteOnExit();
+		String keytool = Paths.get(System.getProperty("java.home"), "bin", "keytool").toString();
+		Process process = new ProcessBuilder(List.of(keytool, "-genkeypair", "-alias", "stub", "-keyalg", "EC",
+				"-groupname", "secp256r1", "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+				"-validity", "1", "-storetype", "PKCS12", "-keystore", file.toString(), "-storepass", PASSWORD,
+				"-keypass", PASSWORD))
+			.redirectErrorStream(true)
+			.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+			.start();
+		try {
+			if (process.waitFor() != 0) {
+				throw new IOException("keytool exited with " + process.exitValue());
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+		// 默认SSLContext首次使用时读取, client创建前设置
+		System.setProperty("javax.net.ssl.trustStore", file.toString());
+		System.setProperty("javax.net.ssl.trustStorePassword", PASSWORD);
+		System.setProperty("javax.net.ssl.trustStoreType", "PKCS12");
+		keyStore = file;
+		return file;
+	}
+
+	private byte[] payload(HttpRequest request) {
+		String path = request.getPath();
+		String query = path.indexOf('?') < 0 ? null : path.substring(path.indexOf('?') + 1);
+		int size = payload.length;
+		if (query != null && query.startsWith("size=")) {
+			int end = query.indexOf('&');
+			size = Math.min(size, Integer.parseInt(end < 0 ? query.substring(5) : query.substring(5, end)));
+		}
+		if (size == payload.length) {
+			return payload;
+		}
+		return payloads.computeIfAbsent(size, length -> Arrays.copyOf(payload, length));
+	}
+
+	@Override
+	public void close() {
+		server.close(CloseMode.IMMEDIATE);
+	}
+
+	private static final class Handler implements AsyncServerRequestHandler<Message<HttpRequest, Void>> {
+
+		private final Function<HttpRequest, byte[]> body;
+
+		private Handler(Function<HttpRequest, byte[]> body) {
+			this.body = body;
+		}
+
+		@Override
+		public AsyncRequestConsumer<Message<HttpRequest, Void>> prepare(HttpRequest request,
+				EntityDetails entityDetails, HttpContext context) {
+			// 丢弃请求体
+			return new BasicRequestConsumer<>(entityDetails == null ? null : new DiscardingEntityConsumer<>());
+		}
+
+		@Override
+		public void handle(Message<HttpRequest, Void> message, ResponseTrigger responseTrigger, HttpContext context)
+				throws HttpException, IOException {
+			responseTrigger.submitResponse(new BasicResponseProducer(200, new BasicAsyncEntityProducer(
+					body.apply(message.getHead()), ContentType.APPLICATION_JSON.withCharset("UTF-8"))), context);
+		}
+
+	}
+
+}
@@ -0,0 +1,123 @@
+package cn.idea360.commons.http.benchmark;
+
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.HttpConfig;
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.VirtualThreads;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 虚拟线程调用方的基准: 每次调用由callers个虚拟线程同时对慢服务(每个请求{@code delay}毫秒)发起同步GET,
+ * 连接池远小于调用方数量(10/5), 对比开启virtualThreads前后完成全部请求的耗时与失败数(failures计数器).
+ * 未开启时Apache连接池在synchronized中等待连接, 占住载体线程, 请求会等到connectionRequestTimeout.
+ * 需要JDK21+, 更早的JDK上setUp直接失败
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar VirtualThreadBenchmark
+ * </pre>
+ *
+ * @author cuishiying
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Threads(1)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+	@Param({ "JDK", "APACHE" })
+	private Backend backend;
+
+	@Param({ "false", "true" })
+	private boolean virtualThreads;
+
+	@Param({ "500" })
+	private int callers;
+
+	@Param({ "20" })
+	private int delay;
+
+	private StubServer server;
+
+	private HttpClientWrapper client;
+
+	private ExecutorService executor;
+
+	private Request request;
+
+	/**
+	 * 每次调用中失败的请求数
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Failures {
+
+		public long failures;
+
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		executor = VirtualThreads.newExecutor("benchmark-caller-");
+		if (executor == null) {
+			throw new IllegalStateException("VirtualThreadBenchmark requires JDK 21+");
+		}
+		server = new StubServer(0);
+		HttpConfig httpConfig = new HttpConfig();
+		httpConfig.setMaxTotal(10);
+		httpConfig.setDefaultMaxPerRoute(5);
+		httpConfig.setSocketTimeout(30000);
+		httpConfig.setConnectionRequestTimeout(10000);
+		httpConfig.setVirtualThreads(virtualThreads);
+		client = backend.create(httpConfig);
+		request = Request.builder().url(server.getBaseUrl() + "/slow").param("ms", delay).build();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		client.close();
+		server.close();
+		executor.shutdownNow();
+	}
+
+	@Benchmark
+	public void callers(Failures failures) throws InterruptedException {
+		List<Future<?>> futures = new ArrayList<>(callers);
+		for (int i = 0; i < callers; i++) {
+			futures.add(executor.submit(() -> client.get(request)));
+		}
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			}
+			catch (ExecutionException e) {
+				failures.failures++;
+			}
+		}
+	}
+
+}
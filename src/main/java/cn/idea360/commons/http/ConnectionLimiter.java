@@ -0,0 +1,341 @@
+package cn.idea360.commons.http;
+
+import cn.idea360.commons.http.metrics.HttpMetrics;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 连接并发限制, 同时限制总数与每个路由的数量. 等待方按FIFO排队, 先获取路由许可再获取总许可, 避免繁忙路由占用总许可.
+ * <p>
+ * 排队不占用线程: 异步获取返回的future由{@link #release(String)}完成, 超时由定时任务完成; 同步获取阻塞在该future上,
+ * 基于j.u.c实现, 等待时虚拟线程可以让出载体线程
+ *
+ * @author cuishiying
+ */
+public class ConnectionLimiter {
+
+	/**
+	 * 异步等待的超时任务, 只负责完成future, 不执行其它逻辑
+	 */
+	private static final ScheduledThreadPoolExecutor TIMEOUT_SCHEDULER;
+
+	static {
+		TIMEOUT_SCHEDULER = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "connection-limiter-timeout");
+			thread.setDaemon(true);
+			return thread;
+		});
+		TIMEOUT_SCHEDULER.setRemoveOnCancelPolicy(true);
+	}
+
+	private final int maxPerRoute;
+
+	/**
+	 * 按路由覆盖的最大数量, key为scheme://host:port
+	 */
+	private final Map<String, Integer> routeOverrides;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Map<String, Route> routes = new HashMap<>();
+
+	/**
+	 * 已持有路由许可、等待总许可的调用方
+	 */
+	private final ArrayDeque<Waiter> totalWaiters = new ArrayDeque<>();
+
+	private int totalAvailable;
+
+	/**
+	 * 构造方法
+	 * @param maxTotal 最大总数
+	 * @param maxPerRoute 每个路由最大数量
+	 */
+	public ConnectionLimiter(int maxTotal, int maxPerRoute) {
+		this(maxTotal, maxPerRoute, null);
+	}
+
+	/**
+	 * 构造方法, 允许按路由覆盖最大数量
+	 * @param maxTotal 最大总数
+	 * @param maxPerRoute 每个路由默认最大数量
+	 * @param routeOverrides 按路由覆盖的最大数量, key为scheme://host[:port]
+	 */
+	public ConnectionLimiter(int maxTotal, int maxPerRoute, Map<String, Integer> routeOverrides) {
+		this.totalAvailable = maxTotal;
+		this.maxPerRoute = maxPerRoute;
+		this.routeOverrides = new HashMap<>();
+		if (Objects.nonNull(routeOverrides)) {
+			routeOverrides.forEach((route, max) -> this.routeOverrides.put(HttpMetrics.route(URI.create(route)), max));
+		}
+	}
+
+	/**
+	 * 获取许可, 阻塞直到获取成功或超时
+	 * @param route 路由
+	 * @param timeoutMillis 最大等待时间(ms), 小于等于0时无限等待
+	 * @return true获取成功, false超时
+	 * @throws InterruptedException 异常
+	 */
+	public boolean acquire(String route, long timeoutMillis) throws InterruptedException {
+		Waiter waiter = enqueue(route);
+		if (Objects.isNull(waiter)) {
+			return true;
+		}
+		try {
+			if (timeoutMillis <= 0) {
+				return waiter.future.get();
+			}
+			return waiter.future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		}
+		catch (TimeoutException e) {
+			// 超时与获取成功同时发生时以获取成功为准
+			return !cancel(waiter) && waiter.future.join();
+		}
+		catch (InterruptedException e) {
+			if (!cancel(waiter) && waiter.future.join()) {
+				release(route);
+			}
+			throw e;
+		}
+		catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * 不等待地获取许可, 遵循公平性, 有调用方在排队时直接失败
+	 * @param route 路由
+	 * @return true获取成功
+	 */
+	public boolean tryAcquire(String route) {
+		lock.lock();
+		try {
+			return tryGrant(route(route));
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 异步获取许可, 不占用线程: 有空闲许可时直接返回已完成的future, 否则排队, 由{@link #release(String)}或超时完成.
+	 * 在获取成功前取消返回的future会退出排队
+	 * @param route 路由
+	 * @param timeoutMillis 最大等待时间(ms), 小于等于0时无限等待
+	 * @return true获取成功, false超时
+	 */
+	public CompletableFuture<Boolean> acquireAsync(String route, long timeoutMillis) {
+		Waiter waiter = enqueue(route);
+		if (Objects.isNull(waiter)) {
+			return CompletableFuture.completedFuture(true);
+		}
+		if (timeoutMillis > 0) {
+			waiter.timeout = TIMEOUT_SCHEDULER.schedule(() -> {
+				if (cancel(waiter)) {
+					waiter.future.complete(false);
+				}
+			}, timeoutMillis, TimeUnit.MILLISECONDS);
+			// 定时任务创建前已获取成功
+			if (waiter.future.isDone()) {
+				waiter.timeout.cancel(false);
+			}
+		}
+		waiter.future.whenComplete((acquired, ex) -> {
+			if (waiter.future.isCancelled()) {
+				cancel(waiter);
+			}
+		});
+		return waiter.future;
+	}
+
+	/**
+	 * 释放许可, 许可直接交给排队的调用方
+	 * @param route 路由
+	 */
+	public void release(String route) {
+		List<Waiter> granted = new ArrayList<>(2);
+		lock.lock();
+		try {
+			releaseTotal(granted);
+			releaseRoute(route(route), granted);
+		}
+		finally {
+			lock.unlock();
+		}
+		complete(granted);
+	}
+
+	/**
+	 * 路由的最大数量
+	 * @param route 路由, scheme://host:port
+	 * @return 最大数量
+	 */
+	public int maxPerRoute(String route) {
+		return routeOverrides.getOrDefault(route, maxPerRoute);
+	}
+
+	/**
+	 * 有空闲许可时直接获取, 否则排队
+	 * @return 排队的调用方, 直接获取成功时返回null
+	 */
+	private Waiter enqueue(String route) {
+		lock.lock();
+		try {
+			Route state = route(route);
+			if (tryGrant(state)) {
+				return null;
+			}
+			Waiter waiter = new Waiter(state);
+			if (state.waiters.isEmpty() && state.available > 0) {
+				state.available--;
+				waiter.holdsRoute = true;
+				totalWaiters.add(waiter);
+			}
+			else {
+				state.waiters.add(waiter);
+			}
+			return waiter;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private boolean tryGrant(Route state) {
+		if (state.waiters.isEmpty() && state.available > 0 && totalWaiters.isEmpty() && totalAvailable > 0) {
+			state.available--;
+			totalAvailable--;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 退出排队
+	 * @return true已退出, false已获取成功或已退出
+	 */
+	private boolean cancel(Waiter waiter) {
+		List<Waiter> granted = new ArrayList<>(1);
+		lock.lock();
+		try {
+			if (waiter.done) {
+				return false;
+			}
+			waiter.done = true;
+			if (waiter.holdsRoute) {
+				totalWaiters.remove(waiter);
+				releaseRoute(waiter.route, granted);
+			}
+			else {
+				waiter.route.waiters.remove(waiter);
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+		if (Objects.nonNull(waiter.timeout)) {
+			waiter.timeout.cancel(false);
+		}
+		complete(granted);
+		return true;
+	}
+
+	private void releaseTotal(List<Waiter> granted) {
+		Waiter waiter = totalWaiters.poll();
+		if (Objects.isNull(waiter)) {
+			totalAvailable++;
+			return;
+		}
+		waiter.done = true;
+		granted.add(waiter);
+	}
+
+	private void releaseRoute(Route state, List<Waiter> granted) {
+		Waiter waiter = state.waiters.poll();
+		if (Objects.isNull(waiter)) {
+			state.available++;
+			return;
+		}
+		waiter.holdsRoute = true;
+		if (totalWaiters.isEmpty() && totalAvailable > 0) {
+			totalAvailable--;
+			waiter.done = true;
+			granted.add(waiter);
+		}
+		else {
+			totalWaiters.add(waiter);
+		}
+	}
+
+	/**
+	 * 在锁外完成future, 避免在锁内执行调用方的后续逻辑. 调用方已取消时归还许可
+	 */
+	private void complete(List<Waiter> granted) {
+		for (Waiter waiter : granted) {
+			if (Objects.nonNull(waiter.timeout)) {
+				waiter.timeout.cancel(false);
+			}
+			if (!waiter.future.complete(true)) {
+				release(waiter.route.name);
+			}
+		}
+	}
+
+	private Route route(String route) {
+		return routes.computeIfAbsent(route, key -> new Route(key, maxPerRoute(key)));
+	}
+
+	private static final class Route {
+
+		private final String name;
+
+		private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+		private int available;
+
+		private Route(String name, int available) {
+			this.name = name;
+			this.available = available;
+		}
+
+	}
+
+	private static final class Waiter {
+
+		private final Route route;
+
+		private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+		/**
+		 * 已持有路由许可, 在totalWaiters中等待总许可
+		 */
+		private boolean holdsRoute;
+
+		/**
+		 * 已获取成功或已退出排队
+		 */
+		private boolean done;
+
+		private volatile ScheduledFuture<?> timeout;
+
+		private Waiter(Route route) {
+			this.route = route;
+		}
+
+	}
+
+}
@@ -0,0 +1,99 @@
+package cn.idea360.commons.http;
+
+import cn.idea360.commons.http.json.JsonCodec;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 装饰器基类, 默认将所有请求委托给被装饰的client, 子类只需覆盖需要增强的方法
+ *
+ * @author cuishiying
+ */
+public abstract class DelegatingHttpClientWrapper implements HttpClientWrapper {
+
+	protected final HttpClientWrapper delegate;
+
+	/**
+	 * 构造方法
+	 * @param delegate 被装饰的client
+	 */
+	protected DelegatingHttpClientWrapper(HttpClientWrapper delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Response get(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return delegate.get(request);
+	}
+
+	@Override
+	public Response post(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return delegate.post(request);
+	}
+
+	@Override
+	public Response put(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return delegate.put(request);
+	}
+
+	@Override
+	public Response patch(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return delegate.patch(request);
+	}
+
+	@Override
+	public Response delete(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return delegate.delete(request);
+	}
+
+	@Override
+	public Response download(Request request, Path target)
+			throws IOException, URISyntaxException, InterruptedException {
+		return delegate.download(request, target);
+	}
+
+	@Override
+	public CompletableFuture<Response> getAsync(Request request) {
+		return delegate.getAsync(request);
+	}
+
+	@Override
+	public CompletableFuture<Response> postAsync(Request request) {
+		return delegate.postAsync(request);
+	}
+
+	@Override
+	public CompletableFuture<Response> putAsync(Request request) {
+		return delegate.putAsync(request);
+	}
+
+	@Override
+	public CompletableFuture<Response> patchAsync(Request request) {
+		return delegate.patchAsync(request);
+	}
+
+	@Override
+	public CompletableFuture<Response> deleteAsync(Request request) {
+		return delegate.deleteAsync(request);
+	}
+
+	@Override
+	public JsonCodec getJsonCodec() {
+		return delegate.getJsonCodec();
+	}
+
+	@Override
+	public int warmUp(Collection<String> urls, int connections) throws InterruptedException {
+		return delegate.warmUp(urls, connections);
+	}
+
+	@Override
+	public void close() throws IOException {
+		delegate.close();
+	}
+
+}
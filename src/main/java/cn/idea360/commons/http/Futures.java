@@ -0,0 +1,101 @@
+package cn.idea360.commons.http;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * CompletableFuture工具. 取消thenApply、whenComplete等派生的future不会取消上游, 装饰器与client实现返回派生future时,
+ * 通过这里的方法把调用方的取消传递到底层请求, 使其中止并释放连接与许可
+ *
+ * @author cuishiying
+ */
+public final class Futures {
+
+	private Futures() {
+	}
+
+	/**
+	 * derived被取消时取消source
+	 * @param derived 返回给调用方的future
+	 * @param source derived的上游
+	 * @param <T> 结果类型
+	 * @return derived
+	 */
+	public static <T> CompletableFuture<T> propagateCancel(CompletableFuture<T> derived, Future<?> source) {
+		derived.whenComplete((result, ex) -> {
+			if (derived.isCancelled()) {
+				source.cancel(true);
+			}
+		});
+		return derived;
+	}
+
+	/**
+	 * 等同于{@code source.thenCompose(fn)}, 返回的future被取消时取消当前执行中的阶段: fn返回的future,
+	 * 或尚未完成的source
+	 * @param source 上游
+	 * @param fn 上游成功后执行的下一阶段
+	 * @param <T> 上游结果类型
+	 * @param <U> 结果类型
+	 * @return 下一阶段的结果
+	 */
+	public static <T, U> CompletableFuture<U> thenCompose(CompletableFuture<T> source,
+			Function<? super T, ? extends CompletableFuture<U>> fn) {
+		return handleCompose(source, (value, ex) -> {
+			if (Objects.nonNull(ex)) {
+				return CompletableFuture.failedFuture(ex);
+			}
+			return fn.apply(value);
+		});
+	}
+
+	/**
+	 * 等同于{@code source.handle(fn).thenCompose(Function.identity())},
+	 * 返回的future被取消时取消当前执行中的阶段
+	 * @param source 上游
+	 * @param fn 上游完成后执行的下一阶段, 参数为上游的结果或异常
+	 * @param <T> 上游结果类型
+	 * @param <U> 结果类型
+	 * @return 下一阶段的结果
+	 */
+	public static <T, U> CompletableFuture<U> handleCompose(CompletableFuture<T> source,
+			BiFunction<? super T, Throwable, ? extends CompletableFuture<U>> fn) {
+		CompletableFuture<U> result = new CompletableFuture<>();
+		AtomicReference<Future<?>> current = new AtomicReference<>(source);
+		source.whenComplete((value, ex) -> {
+			CompletableFuture<U> next;
+			try {
+				next = fn.apply(value, ex);
+			}
+			catch (Throwable e) {
+				result.completeExceptionally(e);
+				return;
+			}
+			current.set(next);
+			// 先发布next再检查, 与取消方先取消再读取current配合, 保证next不会漏掉取消
+			if (result.isCancelled()) {
+				next.cancel(true);
+				return;
+			}
+			next.whenComplete((nextValue, nextEx) -> {
+				if (Objects.nonNull(nextEx)) {
+					result.completeExceptionally(nextEx);
+				}
+				else {
+					result.complete(nextValue);
+				}
+			});
+		});
+		result.whenComplete((value, ex) -> {
+			if (result.isCancelled()) {
+				current.get().cancel(true);
+			}
+		});
+		return result;
+	}
+
+}
@@ -1,10 +1,21 @@
 package cn.idea360.commons.http;
 
 import cn.idea360.commons.http.apache.ApacheHttpClientWrapper;
+import cn.idea360.commons.http.cache.CachingHttpClientWrapper;
+import cn.idea360.commons.http.cache.DiskResponseCache;
+import cn.idea360.commons.http.cache.MemoryResponseCache;
+import cn.idea360.commons.http.cache.ResponseCache;
+import cn.idea360.commons.http.cache.TieredResponseCache;
+import cn.idea360.commons.http.circuitbreaker.CircuitBreakerHttpClientWrapper;
+import cn.idea360.commons.http.coalesce.CoalescingHttpClientWrapper;
+import cn.idea360.commons.http.hedge.HedgingHttpClientWrapper;
 import cn.idea360.commons.http.jdk.JdkHttpClientWrapper;
+import cn.idea360.commons.http.lb.LoadBalancingHttpClientWrapper;
+import cn.idea360.commons.http.token.TokenHttpClientWrapper;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Objects;
 
 /**
  * @author cuishiying
@@ -14,6 +25,11 @@ public class HttpClientFactory {
 
 	private static final String APACHE_HTTP_CLIENT_SPI = "org.apache.hc.client5.http.classic.HttpClient";
 
+	/**
+	 * classpath在运行期不变, 只探测一次
+	 */
+	private static final boolean APACHE_HTTP_CLIENT_PRESENT = isPresent(APACHE_HTTP_CLIENT_SPI);
+
 	/**
 	 * 无参入口
 	 * @return client
@@ -28,33 +44,63 @@ public class HttpClientFactory {
 	 * @return client
 	 */
 	public static HttpClientWrapper createHttpClient(HttpConfig httpConfig) {
-		HttpClientWrapper httpClientWrapper;
-		if (isPresent(APACHE_HTTP_CLIENT_SPI)) {
+		HttpClientWrapper client;
+		if (APACHE_HTTP_CLIENT_PRESENT) {
 			log.info("ApacheHttpClient初始化...");
-			httpClientWrapper = ApacheHttpClientAdapter.createHttpClientWrapper(httpConfig);
+			client = ApacheHttpClientAdapter.createHttpClientWrapper(httpConfig);
 		}
 		else {
 			log.info("JdkHttpClient初始化...");
-			httpClientWrapper = JdkClientAdapter.createHttpClientWrapper(httpConfig);
+			client = JdkClientAdapter.createHttpClientWrapper(httpConfig);
 		}
-
-		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-			try {
-				httpClientWrapper.close();
-			}
-			catch (IOException e) {
-				log.error("close http client error.", e);
-			}
-		}));
+		HttpClientWrapper httpClientWrapper = decorate(client, httpConfig);
+		ShutdownRegistry.register(httpClientWrapper);
 		return httpClientWrapper;
 	}
 
 	private HttpClientFactory() {
 	}
 
+	private static HttpClientWrapper decorate(HttpClientWrapper httpClientWrapper, HttpConfig httpConfig) {
+		// token放在最内层, 缓存与合并的key不包含token
+		if (Objects.nonNull(httpConfig.getTokenStore())) {
+			httpClientWrapper = new TokenHttpClientWrapper(httpClientWrapper, httpConfig.getTokenStore(),
+					httpConfig.getTokenHeader());
+		}
+		// 熔断在token外层, 401重放计为一次调用; 在缓存内层, 缓存命中不计入统计
+		if (Objects.nonNull(httpConfig.getCircuitBreaker()) || httpConfig.getBulkheadMaxConcurrentCalls() > 0) {
+			httpClientWrapper = new CircuitBreakerHttpClientWrapper(httpClientWrapper, httpConfig.getCircuitBreaker(),
+					httpConfig.getBulkheadMaxConcurrentCalls(), httpConfig.getBulkheadMaxWait());
+		}
+		// 负载均衡在熔断外层, 熔断与舱壁按实例生效
+		if (Objects.nonNull(httpConfig.getServices()) && !httpConfig.getServices().isEmpty()) {
+			httpClientWrapper = new LoadBalancingHttpClientWrapper(httpClientWrapper, httpConfig.getServices(),
+					httpConfig.getLoadBalancer(), httpConfig.getOutlierConsecutiveFailures(),
+					httpConfig.getOutlierEjectionTime());
+		}
+		// 对冲在负载均衡外层, 对冲请求可以发往另一个实例; 在熔断外层, 对冲请求同样受舱壁限制
+		if (httpConfig.isHedgeRequests()) {
+			httpClientWrapper = new HedgingHttpClientWrapper(httpClientWrapper, httpConfig.getHedgeDelayPercentile(),
+					httpConfig.getHedgeMinDelay());
+		}
+		if (httpConfig.getCacheMaxBytes() > 0) {
+			ResponseCache cache = new MemoryResponseCache(httpConfig.getCacheMaxBytes());
+			if (Objects.nonNull(httpConfig.getCacheDirectory())) {
+				cache = new TieredResponseCache(cache, new DiskResponseCache(Paths.get(httpConfig.getCacheDirectory()),
+						httpConfig.getCacheDiskMaxBytes()));
+			}
+			httpClientWrapper = new CachingHttpClientWrapper(httpClientWrapper, cache, httpConfig.getTokenHeader());
+		}
+		// 合并放在缓存外层, 缓存未命中时的并发请求只回源一次
+		if (httpConfig.isCoalesceRequests()) {
+			httpClientWrapper = new CoalescingHttpClientWrapper(httpClientWrapper);
+		}
+		return httpClientWrapper;
+	}
+
 	private static boolean isPresent(String className) {
 		try {
-			Class.forName(className, false, HttpUtils.class.getClassLoader());
+			Class.forName(className, false, HttpClientFactory.class.getClassLoader());
 			return true;
 		}
 		catch (ClassNotFoundException ex) {
@@ -1,8 +1,22 @@
 package cn.idea360.commons.http;
 
+import cn.idea360.commons.http.batch.BatchExecutor;
+import cn.idea360.commons.http.batch.BatchOptions;
+import cn.idea360.commons.http.batch.BatchResult;
+import cn.idea360.commons.http.json.JsonCodec;
+import cn.idea360.commons.http.json.JsonCodecs;
+import cn.idea360.commons.http.json.TypeRef;
+
 import java.io.Closeable;
 import java.io.IOException;
+import java.lang.reflect.Type;
 import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 /**
  * @author cuishiying
@@ -69,6 +83,409 @@ public interface HttpClientWrapper extends Closeable {
 		throw new UnSupportException();
 	}
 
+	/**
+	 * 下载文件, 2xx响应体直接写入目标文件, 其余响应体作为body返回
+	 * @param request 请求参数
+	 * @param target 目标文件
+	 * @return 响应
+	 * @throws IOException 异常
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	default Response download(Request request, Path target)
+			throws IOException, URISyntaxException, InterruptedException {
+		throw new UnSupportException();
+	}
+
+	/**
+	 * 异步get请求
+	 * @param request 请求参数
+	 * @return 响应
+	 */
+	default CompletableFuture<Response> getAsync(Request request) {
+		throw new UnSupportException();
+	}
+
+	/**
+	 * 异步post请求
+	 * @param request 请求参数
+	 * @return 响应
+	 */
+	default CompletableFuture<Response> postAsync(Request request) {
+		throw new UnSupportException();
+	}
+
+	/**
+	 * 异步put请求
+	 * @param request 请求参数
+	 * @return 响应
+	 */
+	default CompletableFuture<Response> putAsync(Request request) {
+		throw new UnSupportException();
+	}
+
+	/**
+	 * 异步patch请求
+	 * @param request 请求参数
+	 * @return 响应
+	 */
+	default CompletableFuture<Response> patchAsync(Request request) {
+		throw new UnSupportException();
+	}
+
+	/**
+	 * 异步delete请求
+	 * @param request 请求参数
+	 * @return 响应
+	 */
+	default CompletableFuture<Response> deleteAsync(Request request) {
+		throw new UnSupportException();
+	}
+
+	/**
+	 * get请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 响应体为空时返回null
+	 * @throws HttpStatusException 非2xx响应
+	 * @throws IOException 异常
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	default <T> T get(Request request, Class<T> type) throws IOException, URISyntaxException, InterruptedException {
+		return JsonCodecs.read(getJsonCodec(), get(request), type);
+	}
+
+	/**
+	 * get请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 响应体为空时返回null
+	 * @throws HttpStatusException 非2xx响应
+	 * @throws IOException 异常
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	default <T> T get(Request request, TypeRef<T> typeRef)
+			throws IOException, URISyntaxException, InterruptedException {
+		return JsonCodecs.read(getJsonCodec(), get(request), typeRef.getType());
+	}
+
+	/**
+	 * post请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 响应体为空时返回null
+	 * @throws HttpStatusException 非2xx响应
+	 * @throws IOException 异常
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	default <T> T post(Request request, Class<T> type) throws IOException, URISyntaxException, InterruptedException {
+		return JsonCodecs.read(getJsonCodec(), post(request), type);
+	}
+
+	/**
+	 * post请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 响应体为空时返回null
+	 * @throws HttpStatusException 非2xx响应
+	 * @throws IOException 异常
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	default <T> T post(Request request, TypeRef<T> typeRef)
+			throws IOException, URISyntaxException, InterruptedException {
+		return JsonCodecs.read(getJsonCodec(), post(request), typeRef.getType());
+	}
+
+	/**
+	 * put请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 响应体为空时返回null
+	 * @throws HttpStatusException 非2xx响应
+	 * @throws IOException 异常
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	default <T> T put(Request request, Class<T> type) throws IOException, URISyntaxException, InterruptedException {
+		return JsonCodecs.read(getJsonCodec(), put(request), type);
+	}
+
+	/**
+	 * put请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 响应体为空时返回null
+	 * @throws HttpStatusException 非2xx响应
+	 * @throws IOException 异常
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	default <T> T put(Request request, TypeRef<T> typeRef)
+			throws IOException, URISyntaxException, InterruptedException {
+		return JsonCodecs.read(getJsonCodec(), put(request), typeRef.getType());
+	}
+
+	/**
+	 * patch请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 响应体为空时返回null
+	 * @throws HttpStatusException 非2xx响应
+	 * @throws IOException 异常
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	default <T> T patch(Request request, Class<T> type) throws IOException, URISyntaxException, InterruptedException {
+		return JsonCodecs.read(getJsonCodec(), patch(request), type);
+	}
+
+	/**
+	 * patch请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 响应体为空时返回null
+	 * @throws HttpStatusException 非2xx响应
+	 * @throws IOException 异常
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	default <T> T patch(Request request, TypeRef<T> typeRef)
+			throws IOException, URISyntaxException, InterruptedException {
+		return JsonCodecs.read(getJsonCodec(), patch(request), typeRef.getType());
+	}
+
+	/**
+	 * delete请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 响应体为空时返回null
+	 * @throws HttpStatusException 非2xx响应
+	 * @throws IOException 异常
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	default <T> T delete(Request request, Class<T> type) throws IOException, URISyntaxException, InterruptedException {
+		return JsonCodecs.read(getJsonCodec(), delete(request), type);
+	}
+
+	/**
+	 * delete请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 响应体为空时返回null
+	 * @throws HttpStatusException 非2xx响应
+	 * @throws IOException 异常
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	default <T> T delete(Request request, TypeRef<T> typeRef)
+			throws IOException, URISyntaxException, InterruptedException {
+		return JsonCodecs.read(getJsonCodec(), delete(request), typeRef.getType());
+	}
+
+	/**
+	 * 异步get请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 非2xx响应以{@link HttpStatusException}失败
+	 */
+	default <T> CompletableFuture<T> getAsync(Request request, Class<T> type) {
+		return readJsonAsync(getAsync(request), type);
+	}
+
+	/**
+	 * 异步get请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 非2xx响应以{@link HttpStatusException}失败
+	 */
+	default <T> CompletableFuture<T> getAsync(Request request, TypeRef<T> typeRef) {
+		return readJsonAsync(getAsync(request), typeRef.getType());
+	}
+
+	/**
+	 * 异步post请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 非2xx响应以{@link HttpStatusException}失败
+	 */
+	default <T> CompletableFuture<T> postAsync(Request request, Class<T> type) {
+		return readJsonAsync(postAsync(request), type);
+	}
+
+	/**
+	 * 异步post请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 非2xx响应以{@link HttpStatusException}失败
+	 */
+	default <T> CompletableFuture<T> postAsync(Request request, TypeRef<T> typeRef) {
+		return readJsonAsync(postAsync(request), typeRef.getType());
+	}
+
+	/**
+	 * 异步put请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 非2xx响应以{@link HttpStatusException}失败
+	 */
+	default <T> CompletableFuture<T> putAsync(Request request, Class<T> type) {
+		return readJsonAsync(putAsync(request), type);
+	}
+
+	/**
+	 * 异步put请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 非2xx响应以{@link HttpStatusException}失败
+	 */
+	default <T> CompletableFuture<T> putAsync(Request request, TypeRef<T> typeRef) {
+		return readJsonAsync(putAsync(request), typeRef.getType());
+	}
+
+	/**
+	 * 异步patch请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 非2xx响应以{@link HttpStatusException}失败
+	 */
+	default <T> CompletableFuture<T> patchAsync(Request request, Class<T> type) {
+		return readJsonAsync(patchAsync(request), type);
+	}
+
+	/**
+	 * 异步patch请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 非2xx响应以{@link HttpStatusException}失败
+	 */
+	default <T> CompletableFuture<T> patchAsync(Request request, TypeRef<T> typeRef) {
+		return readJsonAsync(patchAsync(request), typeRef.getType());
+	}
+
+	/**
+	 * 异步delete请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 非2xx响应以{@link HttpStatusException}失败
+	 */
+	default <T> CompletableFuture<T> deleteAsync(Request request, Class<T> type) {
+		return readJsonAsync(deleteAsync(request), type);
+	}
+
+	/**
+	 * 异步delete请求, 2xx响应体按JSON解析为目标类型
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象, 非2xx响应以{@link HttpStatusException}失败
+	 */
+	default <T> CompletableFuture<T> deleteAsync(Request request, TypeRef<T> typeRef) {
+		return readJsonAsync(deleteAsync(request), typeRef.getType());
+	}
+
+	/**
+	 * JSON编解码, 用于json请求体与类型化响应
+	 * @return 编解码
+	 */
+	default JsonCodec getJsonCodec() {
+		return JsonCodecs.getDefault();
+	}
+
+	/**
+	 * 预热连接: 为每个url的路由建立connections个连接(含TLS握手)并放回连接池, 避免启动后的首批请求承担建连开销. 单个连接失败只记录日志
+	 * @param urls 目标地址, 只使用scheme、host与port
+	 * @param connections 每个路由的连接数, 不超过该路由的最大连接数
+	 * @return 成功建立(或已存在)的连接数
+	 * @throws InterruptedException 异常
+	 */
+	default int warmUp(Collection<String> urls, int connections) throws InterruptedException {
+		throw new UnSupportException();
+	}
+
+	/**
+	 * 异步批量执行, 请求按路由分组并限制并发, 通过异步接口执行, 经过当前client的全部装饰器
+	 * @param method 请求方法
+	 * @param requests 请求
+	 * @param options 并发、截止时间与完成回调
+	 * @return 与请求一一对应的结果, 不会异常完成
+	 */
+	default CompletableFuture<List<BatchResult>> executeAllAsync(HttpMethod method, List<Request> requests,
+			BatchOptions options) {
+		return BatchExecutor.execute(this, method, requests, options);
+	}
+
+	/**
+	 * 批量执行, 阻塞直到所有请求完成或超过截止时间
+	 * @param method 请求方法
+	 * @param requests 请求
+	 * @param options 并发、截止时间与完成回调
+	 * @return 与请求一一对应的结果
+	 * @throws InterruptedException 等待时被中断, 此时停止发送并取消执行中的请求
+	 */
+	default List<BatchResult> executeAll(HttpMethod method, List<Request> requests, BatchOptions options)
+			throws InterruptedException {
+		CompletableFuture<List<BatchResult>> future = executeAllAsync(method, requests, options);
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			future.cancel(true);
+			throw e;
+		}
+		catch (ExecutionException e) {
+			// 批量结果不会异常完成
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * 批量执行, 使用默认配置
+	 * @param method 请求方法
+	 * @param requests 请求
+	 * @return 与请求一一对应的结果
+	 * @throws InterruptedException 等待时被中断
+	 */
+	default List<BatchResult> executeAll(HttpMethod method, List<Request> requests) throws InterruptedException {
+		return executeAll(method, requests, new BatchOptions());
+	}
+
+	private <T> CompletableFuture<T> readJsonAsync(CompletableFuture<Response> future, Type type) {
+		return Futures.propagateCancel(future.thenApply(response -> readJson(response, type)), future);
+	}
+
+	private <T> T readJson(Response response, Type type) {
+		try {
+			return JsonCodecs.read(getJsonCodec(), response, type);
+		}
+		catch (IOException e) {
+			throw new CompletionException(e);
+		}
+	}
+
 	@Override
 	default void close() throws IOException {
 
@@ -1,13 +1,42 @@
 package cn.idea360.commons.http;
 
+import cn.idea360.commons.http.circuitbreaker.CircuitBreakerConfig;
+import cn.idea360.commons.http.dns.CachingHostResolver;
+import cn.idea360.commons.http.dns.HostResolver;
+import cn.idea360.commons.http.lb.LeastOutstandingLoadBalancer;
+import cn.idea360.commons.http.lb.LoadBalancer;
+import cn.idea360.commons.http.lb.PowerOfTwoChoicesLoadBalancer;
+import cn.idea360.commons.http.lb.RoundRobinLoadBalancer;
+import cn.idea360.commons.http.json.JsonCodec;
+import cn.idea360.commons.http.metrics.HttpMetrics;
+import cn.idea360.commons.http.token.TokenStore;
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * @author cuishiying
  */
+@Slf4j
 @Data
 public class HttpConfig {
 
+	/**
+	 * 系统属性前缀, 如-Dcommons.http.connectTimeout=3000
+	 */
+	public static final String PROPERTY_PREFIX = "commons.http.";
+
+	/**
+	 * 环境变量前缀, 如COMMONS_HTTP_CONNECT_TIMEOUT=3000
+	 */
+	public static final String ENV_PREFIX = "COMMONS_HTTP_";
+
 	/**
 	 * 用于设置与服务器建立连接的最大等待时间(ms)
 	 */
@@ -33,9 +62,290 @@ public class HttpConfig {
 	 */
 	private int defaultMaxPerRoute = 20;
 
+	/**
+	 * 按路由覆盖每个路由的最大连接数, key为scheme://host[:port], 如https://api.example.com -> 50
+	 */
+	private Map<String, Integer> maxPerRoute;
+
+	/**
+	 * 连接最长存活时间(ms), 超过后不再复用, 使负载均衡器后的连接定期重新分布, 小于等于0时不限制. 仅Apache客户端
+	 */
+	private long connectionTimeToLive = 0;
+
+	/**
+	 * 连接空闲超过该时间(ms)后, 复用前先检查是否已被对端关闭, 避免复用失效连接导致NoHttpResponseException, 小于0时不检查.
+	 * 仅Apache客户端
+	 */
+	private long validateAfterInactivity = 2000;
+
+	/**
+	 * 后台定期关闭空闲超过该时间(ms)的连接与过期连接, 应小于服务端及负载均衡器的空闲超时, 小于等于0时不回收. 仅Apache客户端,
+	 * JDK客户端使用系统属性jdk.httpclient.keepalive.timeout
+	 */
+	private long maxIdleTime = 0;
+
+	/**
+	 * 自定义域名解析, 为空时使用系统解析. 仅Apache客户端, JDK的HttpClient不支持自定义解析
+	 */
+	private HostResolver hostResolver;
+
+	/**
+	 * DNS缓存时间(ms), 大于0时在进程内缓存解析结果, 过期前后台刷新, 见{@link CachingHostResolver}. 仅Apache客户端,
+	 * JDK客户端使用安全属性networkaddress.cache.ttl
+	 */
+	private long dnsCacheTtl = 0;
+
+	/**
+	 * 解析失败的缓存时间(ms), 避免无法解析的域名反复阻塞请求线程
+	 */
+	private long dnsNegativeCacheTtl = 0;
+
+	/**
+	 * DNS缓存最多缓存的域名数
+	 */
+	private int dnsCacheMaxEntries = CachingHostResolver.DEFAULT_MAX_ENTRIES;
+
+	/**
+	 * 域名有多个地址时并行建连的尝试间隔(ms), IPv6与IPv4地址交替尝试, 先连上的胜出, RFC 8305推荐250. 小于等于0时按解析顺序逐个尝试.
+	 * 仅Apache同步客户端
+	 */
+	private long happyEyeballsDelay = 0;
+
+	/**
+	 * HTTP协议, 为空时使用各客户端的默认值: JDK客户端为{@link HttpProtocol#HTTP_2},
+	 * Apache客户端为{@link HttpProtocol#HTTP_1_1}
+	 */
+	private HttpProtocol protocol;
+
+	/**
+	 * 每个host打开的HTTP/2连接数, 请求在连接间轮询. 单个连接上的所有流共享拥塞与流控窗口, 高并发时可适当增加
+	 */
+	private int h2ConnectionsPerHost = 1;
+
+	/**
+	 * HTTP/2 SETTINGS_MAX_CONCURRENT_STREAMS, 仅Apache客户端,
+	 * JDK客户端使用系统属性jdk.httpclient.maxstreams
+	 */
+	private int h2MaxConcurrentStreams = 100;
+
+	/**
+	 * HTTP/2 SETTINGS_INITIAL_WINDOW_SIZE(字节), 仅Apache客户端,
+	 * JDK客户端使用系统属性jdk.httpclient.windowsize与jdk.httpclient.connectionWindowSize
+	 */
+	private int h2InitialWindowSize = 65535;
+
 	/**
 	 * 最大重试次数
 	 */
 	private int maxRetries = 0;
 
+	/**
+	 * 首次重试的退避上限(ms), 之后每次翻倍, 实际间隔在[0, 上限]内随机
+	 */
+	private long retryBaseDelay = 100;
+
+	/**
+	 * 最大重试间隔(ms), Retry-After超过该值时放弃重试
+	 */
+	private long retryMaxDelay = 2000;
+
+	/**
+	 * 重试预算, 重试量最多为请求量的该比例, 小于等于0时不限制
+	 */
+	private double retryBudgetRatio = 0.1;
+
+	/**
+	 * 重试预算的令牌桶容量, 即允许的突发重试次数
+	 */
+	private int retryBudgetBurst = 10;
+
+	/**
+	 * 是否启用虚拟线程模式(需JDK21+): JDK客户端使用虚拟线程执行异步任务, Apache客户端在连接池前排队避免pin住载体线程
+	 */
+	private boolean virtualThreads = false;
+
+	/**
+	 * 响应缓存(内存)最大字节数, 大于0时启用get请求缓存
+	 */
+	private long cacheMaxBytes = 0;
+
+	/**
+	 * 响应缓存磁盘目录, 不为空时启用磁盘二级缓存
+	 */
+	private String cacheDirectory;
+
+	/**
+	 * 响应缓存(磁盘)最大字节数
+	 */
+	private long cacheDiskMaxBytes = 256L * 1024 * 1024;
+
+	/**
+	 * 是否合并并发的相同get请求(url、参数、请求头均相同), 只发出一次上游请求并共享响应
+	 */
+	private boolean coalesceRequests = false;
+
+	/**
+	 * 按路由熔断的配置, 不为空时开启熔断
+	 */
+	private CircuitBreakerConfig circuitBreaker;
+
+	/**
+	 * 每个路由(scheme+host+port)的最大并发调用数, 小于等于0时不限制
+	 */
+	private int bulkheadMaxConcurrentCalls = 0;
+
+	/**
+	 * 同步调用等待舱壁许可的最长时间(ms), 异步调用不等待
+	 */
+	private long bulkheadMaxWait = 0;
+
+	/**
+	 * 是否对get请求开启对冲: 超过对冲延迟仍未响应时再发出一个相同请求, 先返回的响应胜出
+	 */
+	private boolean hedgeRequests = false;
+
+	/**
+	 * 对冲延迟取该路由最近响应耗时的分位数
+	 */
+	private double hedgeDelayPercentile = 95;
+
+	/**
+	 * 最小对冲延迟(ms), 样本不足时使用
+	 */
+	private long hedgeMinDelay = 10;
+
+	/**
+	 * 逻辑服务名与实例地址, 如user-service -> [http://10.0.0.1:8080, http://10.0.0.2:8080],
+	 * 请求url使用lb://user-service/path时按负载均衡策略选择实例
+	 */
+	private Map<String, List<String>> services;
+
+	/**
+	 * 负载均衡策略,
+	 * 可选{@link LeastOutstandingLoadBalancer}、{@link PowerOfTwoChoicesLoadBalancer}
+	 */
+	private LoadBalancer loadBalancer = new RoundRobinLoadBalancer();
+
+	/**
+	 * 实例连续失败多少次被摘除
+	 */
+	private int outlierConsecutiveFailures = 5;
+
+	/**
+	 * 实例摘除时长(ms), 随摘除次数递增
+	 */
+	private long outlierEjectionTime = 30000;
+
+	/**
+	 * 是否发送Accept-Encoding并自动解压响应体, 支持gzip、deflate与通过
+	 * {@link cn.idea360.commons.http.compression.ContentCodec}注册的编码
+	 */
+	private boolean responseCompression = true;
+
+	/**
+	 * 请求体压缩阈值(字节), 请求体大于等于阈值时压缩发送, 小于等于0时不压缩. 服务端需支持Content-Encoding请求体
+	 */
+	private long requestCompressionThreshold = 0;
+
+	/**
+	 * 请求体压缩编码
+	 */
+	private String requestCompressionEncoding = "gzip";
+
+	/**
+	 * JSON编解码, 用于{@link Request}的json请求体与类型化响应, 为空时按classpath自动选择Jackson、Gson或DSL-JSON
+	 */
+	private JsonCodec jsonCodec;
+
+	/**
+	 * 指标采集, 默认不采集, 可使用{@link cn.idea360.commons.http.metrics.MicrometerHttpMetrics}
+	 */
+	private HttpMetrics metrics = HttpMetrics.NOOP;
+
+	/**
+	 * token存储, 不为空时为每个请求设置token请求头, 收到401时刷新token并重放一次请求
+	 */
+	private TokenStore tokenStore;
+
+	/**
+	 * token请求头名称
+	 */
+	private String tokenHeader = "access-token";
+
+	/**
+	 * 从系统属性与环境变量加载配置, 系统属性优先, 未设置的项使用默认值. 只支持数值、布尔、字符串与枚举类型的配置项, 无法解析的值记录日志后忽略
+	 * @return 配置
+	 */
+	public static HttpConfig fromEnvironment() {
+		HttpConfig httpConfig = new HttpConfig();
+		for (Field field : HttpConfig.class.getDeclaredFields()) {
+			if (Modifier.isStatic(field.getModifiers())) {
+				continue;
+			}
+			String key = PROPERTY_PREFIX + field.getName();
+			String value = System.getProperty(key);
+			if (Objects.isNull(value)) {
+				key = ENV_PREFIX + envName(field.getName());
+				value = System.getenv(key);
+			}
+			if (Objects.isNull(value)) {
+				continue;
+			}
+			try {
+				Object parsed = parse(field.getType(), value.trim());
+				if (Objects.isNull(parsed)) {
+					log.warn("不支持通过{}设置的配置项类型: {}", key, field.getType().getSimpleName());
+					continue;
+				}
+				field.setAccessible(true);
+				field.set(httpConfig, parsed);
+			}
+			catch (IllegalArgumentException | IllegalAccessException e) {
+				log.warn("配置项{}的值无效: {}", key, value);
+			}
+		}
+		return httpConfig;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Object parse(Class<?> type, String value) {
+		if (type == int.class) {
+			return Integer.parseInt(value);
+		}
+		if (type == long.class) {
+			return Long.parseLong(value);
+		}
+		if (type == double.class) {
+			return Double.parseDouble(value);
+		}
+		if (type == boolean.class) {
+			if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+				throw new IllegalArgumentException(value);
+			}
+			return Boolean.parseBoolean(value);
+		}
+		if (type == String.class) {
+			return value;
+		}
+		if (type.isEnum()) {
+			return Enum.valueOf((Class) type, value.toUpperCase(Locale.ROOT));
+		}
+		return null;
+	}
+
+	/**
+	 * connectTimeout -> CONNECT_TIMEOUT
+	 */
+	private static String envName(String fieldName) {
+		StringBuilder name = new StringBuilder(fieldName.length() + 8);
+		for (int i = 0; i < fieldName.length(); i++) {
+			char c = fieldName.charAt(i);
+			if (Character.isUpperCase(c)) {
+				name.append('_');
+			}
+			name.append(Character.toUpperCase(c));
+		}
+		return name.toString();
+	}
+
 }
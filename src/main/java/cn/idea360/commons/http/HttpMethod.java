@@ -0,0 +1,12 @@
+package cn.idea360.commons.http;
+
+/**
+ * 请求方法, 用于批量执行等需要按方法分派的场景
+ *
+ * @author cuishiying
+ */
+public enum HttpMethod {
+
+	GET, POST, PUT, PATCH, DELETE
+
+}
@@ -0,0 +1,27 @@
+package cn.idea360.commons.http;
+
+/**
+ * 请求使用的HTTP协议. Apache的经典客户端只支持HTTP/1.1, 使用HTTP/2时同步请求由HTTP/2异步客户端执行, download始终使用HTTP/1.1
+ *
+ * @author cuishiying
+ */
+public enum HttpProtocol {
+
+	/**
+	 * 只使用HTTP/1.1
+	 */
+	HTTP_1_1,
+
+	/**
+	 * https通过ALPN协商HTTP/2. JDK客户端协商失败时回退HTTP/1.1, http尝试h2c升级;
+	 * Apache客户端的https请求使用HTTP/2客户端(服务端需支持h2), http请求仍使用HTTP/1.1
+	 */
+	HTTP_2,
+
+	/**
+	 * 明文HTTP/2, 用于内部服务. Apache客户端以prior knowledge方式直接发送HTTP/2帧, 服务端必须支持h2c;
+	 * JDK客户端不支持prior knowledge, 退化为Upgrade: h2c升级
+	 */
+	H2C
+
+}
@@ -0,0 +1,44 @@
+package cn.idea360.commons.http;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * 期望2xx响应时收到其他状态码, 如类型化请求的响应无法解析为目标类型
+ *
+ * @author cuishiying
+ */
+public class HttpStatusException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int statusCode;
+
+	private final String body;
+
+	/**
+	 * 构造方法
+	 * @param statusCode 状态码
+	 * @param reasonPhrase 状态描述
+	 * @param body 响应体
+	 */
+	public HttpStatusException(int statusCode, String reasonPhrase, String body) {
+		super("unexpected http status " + statusCode
+				+ (Objects.isNull(reasonPhrase) || reasonPhrase.isEmpty() ? "" : " " + reasonPhrase));
+		this.statusCode = statusCode;
+		this.body = body;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * 响应体, 便于排查
+	 * @return 响应体, 可能为null
+	 */
+	public String getBody() {
+		return body;
+	}
+
+}
@@ -1,23 +1,36 @@
 package cn.idea360.commons.http;
 
+import cn.idea360.commons.http.batch.BatchOptions;
+import cn.idea360.commons.http.batch.BatchResult;
+import cn.idea360.commons.http.json.TypeRef;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
+ * 使用共享client的静态入口. client在首次调用时创建, 配置通过{@link HttpConfig#fromEnvironment()}从系统属性与环境变量加载
+ *
  * @author cuishiying
  */
 @Slf4j
 public class HttpUtils {
 
-	private static final HttpClientWrapper HTTP_CLIENT_WRAPPER;
-
-	static {
-		HTTP_CLIENT_WRAPPER = HttpClientFactory.createHttpClient();
+	private HttpUtils() {
 	}
 
-	private HttpUtils() {
+	/**
+	 * 共享的client, 首次使用时由类加载机制保证只初始化一次, 加载HttpUtils本身不创建client
+	 */
+	private static class Holder {
+
+		private static final HttpClientWrapper HTTP_CLIENT_WRAPPER = HttpClientFactory
+				.createHttpClient(HttpConfig.fromEnvironment());
+
 	}
 
 	/**
@@ -29,7 +42,7 @@ public class HttpUtils {
 	 * @throws InterruptedException 异常
 	 */
 	public static Response get(Request request) throws IOException, URISyntaxException, InterruptedException {
-		return HTTP_CLIENT_WRAPPER.get(request);
+		return Holder.HTTP_CLIENT_WRAPPER.get(request);
 	}
 
 	/**
@@ -41,7 +54,7 @@ public class HttpUtils {
 	 * @throws InterruptedException 异常
 	 */
 	public static Response post(Request request) throws IOException, URISyntaxException, InterruptedException {
-		return HTTP_CLIENT_WRAPPER.post(request);
+		return Holder.HTTP_CLIENT_WRAPPER.post(request);
 	}
 
 	/**
@@ -53,7 +66,7 @@ public class HttpUtils {
 	 * @throws InterruptedException 异常
 	 */
 	public static Response put(Request request) throws IOException, URISyntaxException, InterruptedException {
-		return HTTP_CLIENT_WRAPPER.put(request);
+		return Holder.HTTP_CLIENT_WRAPPER.put(request);
 	}
 
 	/**
@@ -65,7 +78,7 @@ public class HttpUtils {
 	 * @throws InterruptedException 异常
 	 */
 	public static Response patch(Request request) throws IOException, URISyntaxException, InterruptedException {
-		return HTTP_CLIENT_WRAPPER.patch(request);
+		return Holder.HTTP_CLIENT_WRAPPER.patch(request);
 	}
 
 	/**
@@ -77,7 +90,362 @@ public class HttpUtils {
 	 * @throws InterruptedException 异常
 	 */
 	public static Response delete(Request request) throws IOException, URISyntaxException, InterruptedException {
-		return HTTP_CLIENT_WRAPPER.delete(request);
+		return Holder.HTTP_CLIENT_WRAPPER.delete(request);
+	}
+
+	/**
+	 * 下载文件
+	 * @param request 请求参数
+	 * @param target 目标文件
+	 * @return 响应
+	 * @throws IOException 异常
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	public static Response download(Request request, Path target)
+			throws IOException, URISyntaxException, InterruptedException {
+		return Holder.HTTP_CLIENT_WRAPPER.download(request, target);
+	}
+
+	/**
+	 * 异步get请求
+	 * @param request 请求参数
+	 * @return 响应
+	 */
+	public static CompletableFuture<Response> getAsync(Request request) {
+		return Holder.HTTP_CLIENT_WRAPPER.getAsync(request);
+	}
+
+	/**
+	 * 异步post请求
+	 * @param request 请求参数
+	 * @return 响应
+	 */
+	public static CompletableFuture<Response> postAsync(Request request) {
+		return Holder.HTTP_CLIENT_WRAPPER.postAsync(request);
+	}
+
+	/**
+	 * 异步put请求
+	 * @param request 请求参数
+	 * @return 响应
+	 */
+	public static CompletableFuture<Response> putAsync(Request request) {
+		return Holder.HTTP_CLIENT_WRAPPER.putAsync(request);
+	}
+
+	/**
+	 * 异步patch请求
+	 * @param request 请求参数
+	 * @return 响应
+	 */
+	public static CompletableFuture<Response> patchAsync(Request request) {
+		return Holder.HTTP_CLIENT_WRAPPER.patchAsync(request);
+	}
+
+	/**
+	 * 异步delete请求
+	 * @param request 请求参数
+	 * @return 响应
+	 */
+	public static CompletableFuture<Response> deleteAsync(Request request) {
+		return Holder.HTTP_CLIENT_WRAPPER.deleteAsync(request);
+	}
+
+	/**
+	 * get请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 * @throws IOException 异常, 非2xx响应为{@link HttpStatusException}
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	public static <T> T get(Request request, Class<T> type)
+			throws IOException, URISyntaxException, InterruptedException {
+		return Holder.HTTP_CLIENT_WRAPPER.get(request, type);
+	}
+
+	/**
+	 * get请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 * @throws IOException 异常, 非2xx响应为{@link HttpStatusException}
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	public static <T> T get(Request request, TypeRef<T> typeRef)
+			throws IOException, URISyntaxException, InterruptedException {
+		return Holder.HTTP_CLIENT_WRAPPER.get(request, typeRef);
+	}
+
+	/**
+	 * post请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 * @throws IOException 异常, 非2xx响应为{@link HttpStatusException}
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	public static <T> T post(Request request, Class<T> type)
+			throws IOException, URISyntaxException, InterruptedException {
+		return Holder.HTTP_CLIENT_WRAPPER.post(request, type);
+	}
+
+	/**
+	 * post请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 * @throws IOException 异常, 非2xx响应为{@link HttpStatusException}
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	public static <T> T post(Request request, TypeRef<T> typeRef)
+			throws IOException, URISyntaxException, InterruptedException {
+		return Holder.HTTP_CLIENT_WRAPPER.post(request, typeRef);
+	}
+
+	/**
+	 * put请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 * @throws IOException 异常, 非2xx响应为{@link HttpStatusException}
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	public static <T> T put(Request request, Class<T> type)
+			throws IOException, URISyntaxException, InterruptedException {
+		return Holder.HTTP_CLIENT_WRAPPER.put(request, type);
+	}
+
+	/**
+	 * put请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 * @throws IOException 异常, 非2xx响应为{@link HttpStatusException}
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	public static <T> T put(Request request, TypeRef<T> typeRef)
+			throws IOException, URISyntaxException, InterruptedException {
+		return Holder.HTTP_CLIENT_WRAPPER.put(request, typeRef);
+	}
+
+	/**
+	 * patch请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 * @throws IOException 异常, 非2xx响应为{@link HttpStatusException}
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	public static <T> T patch(Request request, Class<T> type)
+			throws IOException, URISyntaxException, InterruptedException {
+		return Holder.HTTP_CLIENT_WRAPPER.patch(request, type);
+	}
+
+	/**
+	 * patch请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 * @throws IOException 异常, 非2xx响应为{@link HttpStatusException}
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	public static <T> T patch(Request request, TypeRef<T> typeRef)
+			throws IOException, URISyntaxException, InterruptedException {
+		return Holder.HTTP_CLIENT_WRAPPER.patch(request, typeRef);
+	}
+
+	/**
+	 * delete请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 * @throws IOException 异常, 非2xx响应为{@link HttpStatusException}
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	public static <T> T delete(Request request, Class<T> type)
+			throws IOException, URISyntaxException, InterruptedException {
+		return Holder.HTTP_CLIENT_WRAPPER.delete(request, type);
+	}
+
+	/**
+	 * delete请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 * @throws IOException 异常, 非2xx响应为{@link HttpStatusException}
+	 * @throws URISyntaxException 异常
+	 * @throws InterruptedException 异常
+	 */
+	public static <T> T delete(Request request, TypeRef<T> typeRef)
+			throws IOException, URISyntaxException, InterruptedException {
+		return Holder.HTTP_CLIENT_WRAPPER.delete(request, typeRef);
+	}
+
+	/**
+	 * 异步get请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 */
+	public static <T> CompletableFuture<T> getAsync(Request request, Class<T> type) {
+		return Holder.HTTP_CLIENT_WRAPPER.getAsync(request, type);
+	}
+
+	/**
+	 * 异步get请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 */
+	public static <T> CompletableFuture<T> getAsync(Request request, TypeRef<T> typeRef) {
+		return Holder.HTTP_CLIENT_WRAPPER.getAsync(request, typeRef);
+	}
+
+	/**
+	 * 异步post请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 */
+	public static <T> CompletableFuture<T> postAsync(Request request, Class<T> type) {
+		return Holder.HTTP_CLIENT_WRAPPER.postAsync(request, type);
+	}
+
+	/**
+	 * 异步post请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 */
+	public static <T> CompletableFuture<T> postAsync(Request request, TypeRef<T> typeRef) {
+		return Holder.HTTP_CLIENT_WRAPPER.postAsync(request, typeRef);
+	}
+
+	/**
+	 * 异步put请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 */
+	public static <T> CompletableFuture<T> putAsync(Request request, Class<T> type) {
+		return Holder.HTTP_CLIENT_WRAPPER.putAsync(request, type);
+	}
+
+	/**
+	 * 异步put请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 */
+	public static <T> CompletableFuture<T> putAsync(Request request, TypeRef<T> typeRef) {
+		return Holder.HTTP_CLIENT_WRAPPER.putAsync(request, typeRef);
+	}
+
+	/**
+	 * 异步patch请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 */
+	public static <T> CompletableFuture<T> patchAsync(Request request, Class<T> type) {
+		return Holder.HTTP_CLIENT_WRAPPER.patchAsync(request, type);
+	}
+
+	/**
+	 * 异步patch请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 */
+	public static <T> CompletableFuture<T> patchAsync(Request request, TypeRef<T> typeRef) {
+		return Holder.HTTP_CLIENT_WRAPPER.patchAsync(request, typeRef);
+	}
+
+	/**
+	 * 异步delete请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 */
+	public static <T> CompletableFuture<T> deleteAsync(Request request, Class<T> type) {
+		return Holder.HTTP_CLIENT_WRAPPER.deleteAsync(request, type);
+	}
+
+	/**
+	 * 异步delete请求, 响应体按json反序列化
+	 * @param request 请求参数
+	 * @param typeRef 泛型目标类型, 如{@code new TypeRef<List<User>>() {}}
+	 * @param <T> 目标类型
+	 * @return 响应体对象
+	 */
+	public static <T> CompletableFuture<T> deleteAsync(Request request, TypeRef<T> typeRef) {
+		return Holder.HTTP_CLIENT_WRAPPER.deleteAsync(request, typeRef);
+	}
+
+	/**
+	 * 预热连接, 应用启动时调用
+	 * @param urls 目标地址
+	 * @param connections 每个路由的连接数
+	 * @return 成功建立的连接数
+	 * @throws InterruptedException 异常
+	 */
+	public static int warmUp(Collection<String> urls, int connections) throws InterruptedException {
+		return Holder.HTTP_CLIENT_WRAPPER.warmUp(urls, connections);
+	}
+
+	/**
+	 * 批量执行, 请求按路由分组并限制并发, 代替循环调用同步接口
+	 * @param method 请求方法
+	 * @param requests 请求
+	 * @param options 并发、截止时间与完成回调
+	 * @return 与请求一一对应的结果
+	 * @throws InterruptedException 异常
+	 */
+	public static List<BatchResult> executeAll(HttpMethod method, List<Request> requests, BatchOptions options)
+			throws InterruptedException {
+		return Holder.HTTP_CLIENT_WRAPPER.executeAll(method, requests, options);
+	}
+
+	/**
+	 * 异步批量执行
+	 * @param method 请求方法
+	 * @param requests 请求
+	 * @param options 并发、截止时间与完成回调
+	 * @return 与请求一一对应的结果
+	 */
+	public static CompletableFuture<List<BatchResult>> executeAllAsync(HttpMethod method, List<Request> requests,
+			BatchOptions options) {
+		return Holder.HTTP_CLIENT_WRAPPER.executeAllAsync(method, requests, options);
 	}
 
 }
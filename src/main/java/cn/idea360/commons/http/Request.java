@@ -3,6 +3,10 @@ package cn.idea360.commons.http;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -24,26 +28,101 @@ public class Request implements Serializable {
 	private Map<String, String> headers;
 
 	/**
-	 * 表单参数
+	 * 表单参数, 按{@link UrlEncoder}编码, 值为Iterable或数组时按重复的key发送
 	 */
 	private Map<String, Object> params;
 
+	/**
+	 * 为true时POST、PUT、PATCH的params作为application/x-www-form-urlencoded请求体发送而不拼接到url,
+	 * 优先于body
+	 */
+	private boolean form;
+
 	/**
 	 * 请求体(支持POST、PUT、PATCH)
 	 */
 	private String body;
 
-	Request(String url, Map<String, String> headers, Map<String, Object> params, String body) {
+	/**
+	 * JSON请求体(支持POST、PUT、PATCH), 由client配置的JsonCodec直接序列化为字节, 优先于body
+	 */
+	private transient Object json;
+
+	/**
+	 * 二进制请求体(支持POST、PUT、PATCH), 优先于body, 原样发送不做字符集转换
+	 */
+	private byte[] bytes;
+
+	/**
+	 * 上传文件(支持POST、PUT、PATCH), 优先于bytes和body, 以文件流的方式发送而不加载到内存
+	 */
+	private transient Path file;
+
+	/**
+	 * 是否以流的方式读取响应体, 为true时响应体通过{@code Response.getContent()}返回
+	 */
+	private boolean stream;
+
+	/**
+	 * 创建请求的模板, 由模板创建的请求url已编码, client跳过解析并复用按模板缓存的请求原型
+	 */
+	private transient RequestTemplate template;
+
+	Request(String url, Map<String, String> headers, Map<String, Object> params, boolean form, String body, Object json,
+			byte[] bytes, Path file, boolean stream, RequestTemplate template) {
 		this.url = url;
 		this.headers = headers;
 		this.params = params;
+		this.form = form;
 		this.body = body;
+		this.json = json;
+		this.bytes = bytes;
+		this.file = file;
+		this.stream = stream;
+		this.template = template;
 	}
 
 	public static Request.RequestBuilder builder() {
 		return new Request.RequestBuilder();
 	}
 
+	/**
+	 * 基于当前请求创建builder, headers与params会被复制, 修改不影响当前请求
+	 * @return builder
+	 */
+	public Request.RequestBuilder toBuilder() {
+		Request.RequestBuilder builder = new Request.RequestBuilder().url(this.url).form(this.form).body(this.body)
+				.json(this.json).bytes(this.bytes).file(this.file).stream(this.stream);
+		builder.template = this.template;
+		if (Objects.nonNull(this.headers)) {
+			builder.headers(new HashMap<>(this.headers));
+		}
+		if (Objects.nonNull(this.params)) {
+			Map<String, Object> params = new HashMap<>(this.params);
+			// addParam会修改重复参数的列表, 一并复制
+			params.replaceAll(
+					(key, value) -> value instanceof ParamValues ? new ParamValues((ParamValues) value) : value);
+			builder.params(params);
+		}
+		return builder;
+	}
+
+	/**
+	 * addParam创建的重复参数值
+	 */
+	private static final class ParamValues extends ArrayList<Object> {
+
+		private static final long serialVersionUID = 1L;
+
+		ParamValues() {
+		}
+
+		ParamValues(ParamValues values) {
+			super(values);
+		}
+
+	}
+
 	public static class RequestBuilder {
 
 		private String url;
@@ -52,11 +131,35 @@ public class Request implements Serializable {
 
 		private Map<String, Object> params;
 
+		private boolean form;
+
 		private String body;
 
+		private Object json;
+
+		private byte[] bytes;
+
+		private Path file;
+
+		private boolean stream;
+
+		private RequestTemplate template;
+
+		/**
+		 * headers为模板的只读请求头, 修改前需复制
+		 */
+		private boolean sharedHeaders;
+
 		RequestBuilder() {
 		}
 
+		Request.RequestBuilder template(RequestTemplate template) {
+			this.template = template;
+			this.headers = template.getHeaders();
+			this.sharedHeaders = true;
+			return this;
+		}
+
 		public Request.RequestBuilder url(String url) {
 			this.url = url;
 			return this;
@@ -64,6 +167,7 @@ public class Request implements Serializable {
 
 		public Request.RequestBuilder headers(Map<String, String> headers) {
 			this.headers = headers;
+			this.sharedHeaders = false;
 			return this;
 		}
 
@@ -72,11 +176,49 @@ public class Request implements Serializable {
 			return this;
 		}
 
+		public Request.RequestBuilder form(boolean form) {
+			this.form = form;
+			return this;
+		}
+
 		public Request.RequestBuilder body(String body) {
 			this.body = body;
 			return this;
 		}
 
+		public Request.RequestBuilder json(Object json) {
+			this.json = json;
+			return this;
+		}
+
+		public Request.RequestBuilder bytes(byte[] bytes) {
+			this.bytes = bytes;
+			return this;
+		}
+
+		public Request.RequestBuilder bytes(ByteBuffer buffer) {
+			if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+					&& buffer.remaining() == buffer.array().length) {
+				// 完整的堆内buffer直接复用底层数组
+				this.bytes = buffer.array();
+			}
+			else {
+				this.bytes = new byte[buffer.remaining()];
+				buffer.duplicate().get(this.bytes);
+			}
+			return this;
+		}
+
+		public Request.RequestBuilder file(Path file) {
+			this.file = file;
+			return this;
+		}
+
+		public Request.RequestBuilder stream(boolean stream) {
+			this.stream = stream;
+			return this;
+		}
+
 		public Request.RequestBuilder param(String key, Object value) {
 			if (Objects.isNull(params)) {
 				this.params = new HashMap<>();
@@ -85,16 +227,58 @@ public class Request implements Serializable {
 			return this;
 		}
 
+		/**
+		 * 追加参数, key已存在时按重复的key发送(如a=1&amp;a=2)
+		 * @param key 参数名
+		 * @param value 参数值
+		 * @return builder
+		 */
+		public Request.RequestBuilder addParam(String key, Object value) {
+			if (Objects.isNull(params)) {
+				this.params = new HashMap<>();
+			}
+			Object previous = this.params.get(key);
+			if (!this.params.containsKey(key)) {
+				this.params.put(key, value);
+			}
+			else if (previous instanceof ParamValues) {
+				((ParamValues) previous).add(value);
+			}
+			else {
+				// 调用方传入的集合与数组不做修改, 复制到新的列表
+				ParamValues values = new ParamValues();
+				if (previous instanceof Iterable) {
+					((Iterable<?>) previous).forEach(values::add);
+				}
+				else if (Objects.nonNull(previous) && previous.getClass().isArray()) {
+					for (int i = 0; i < Array.getLength(previous); i++) {
+						values.add(Array.get(previous, i));
+					}
+				}
+				else {
+					values.add(previous);
+				}
+				values.add(value);
+				this.params.put(key, values);
+			}
+			return this;
+		}
+
 		public Request.RequestBuilder header(String key, String value) {
 			if (Objects.isNull(headers)) {
 				this.headers = new HashMap<>();
 			}
+			else if (sharedHeaders) {
+				this.headers = new HashMap<>(headers);
+				this.sharedHeaders = false;
+			}
 			this.headers.put(key, value);
 			return this;
 		}
 
 		public Request build() {
-			return new Request(this.url, this.headers, this.params, this.body);
+			return new Request(this.url, this.headers, this.params, this.form, this.body, this.json, this.bytes,
+					this.file, this.stream, this.template);
 		}
 
 	}
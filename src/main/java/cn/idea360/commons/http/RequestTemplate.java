@@ -0,0 +1,233 @@
+package cn.idea360.commons.http;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 预编译的请求模板: url模板只解析一次, 静态部分与请求头预先校验, 调用时只编码并填充变量, 生成的url无需client再次解析与编码. 适用于高QPS的固定接口,
+ * 模板应复用(如static final), client按模板缓存请求原型
+ *
+ * <pre>
+ * static final RequestTemplate GET_USER = RequestTemplate.builder("http://127.0.0.1:8080/users/{id}?fields={fields}")
+ * 		.header("app-id", "demo")
+ * 		.build();
+ *
+ * Response response = client.get(GET_USER.bind(42, "name,age").build());
+ * </pre>
+ *
+ * @author cuishiying
+ */
+public final class RequestTemplate {
+
+	/**
+	 * 变量之间的静态部分, 比变量多一个
+	 */
+	private final String[] literals;
+
+	private final String[] variables;
+
+	private final Map<String, String> headers;
+
+	private final boolean contentType;
+
+	private final int literalLength;
+
+	/**
+	 * client按模板缓存的数据, 随模板一起回收
+	 */
+	private volatile Attachment attachment;
+
+	private RequestTemplate(String[] literals, String[] variables, Map<String, String> headers) {
+		this.literals = literals;
+		this.variables = variables;
+		this.headers = headers;
+		this.contentType = headers.keySet().stream().anyMatch("Content-Type"::equalsIgnoreCase);
+		this.literalLength = Arrays.stream(literals).mapToInt(String::length).sum();
+	}
+
+	/**
+	 * 创建模板
+	 * @param url url模板, 变量使用{name}表示, 静态部分需为合法的url
+	 * @return builder
+	 */
+	public static Builder builder(String url) {
+		return new Builder(url);
+	}
+
+	/**
+	 * 按变量出现的顺序填充变量
+	 * @param values 变量值, 数量与变量一致
+	 * @return 请求builder, 可继续设置请求体等
+	 */
+	public Request.RequestBuilder bind(Object... values) {
+		if (values.length != variables.length) {
+			throw new IllegalArgumentException("expected " + variables.length + " variables "
+					+ Arrays.toString(variables) + ", got " + values.length);
+		}
+		StringBuilder url = new StringBuilder(literalLength + values.length * 16);
+		for (int i = 0; i < variables.length; i++) {
+			url.append(literals[i]);
+			encode(variables[i], values[i], url);
+		}
+		url.append(literals[variables.length]);
+		return Request.builder().template(this).url(url.toString());
+	}
+
+	/**
+	 * 按名称填充变量
+	 * @param values 变量值
+	 * @return 请求builder, 可继续设置请求体等
+	 */
+	public Request.RequestBuilder expand(Map<String, ?> values) {
+		Object[] ordered = new Object[variables.length];
+		for (int i = 0; i < variables.length; i++) {
+			ordered[i] = values.get(variables[i]);
+		}
+		return bind(ordered);
+	}
+
+	/**
+	 * 变量名称, 按出现的顺序
+	 * @return 变量名称
+	 */
+	public List<String> getVariables() {
+		return List.of(variables);
+	}
+
+	/**
+	 * 静态请求头, 由模板创建的请求共享, 修改请求头时请求会复制一份
+	 * @return 只读的请求头
+	 */
+	public Map<String, String> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * 静态请求头中是否包含Content-Type, 包含时client不再设置默认的Content-Type
+	 * @return true包含
+	 */
+	public boolean hasContentType() {
+		return contentType;
+	}
+
+	/**
+	 * client按模板缓存的数据(如请求原型), 保存在模板上, 模板不再使用时随之回收. 每个模板只保存一份, 同一模板交替用于多个client时重新创建
+	 * @param owner 数据所属的client
+	 * @param factory 创建方法
+	 * @param <T> 数据类型
+	 * @return 数据
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T attachment(Object owner, Function<RequestTemplate, T> factory) {
+		Attachment current = attachment;
+		if (Objects.nonNull(current) && current.owner == owner) {
+			return (T) current.value;
+		}
+		T value = factory.apply(this);
+		attachment = new Attachment(owner, value);
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder template = new StringBuilder();
+		for (int i = 0; i < variables.length; i++) {
+			template.append(literals[i]).append('{').append(variables[i]).append('}');
+		}
+		return template.append(literals[variables.length]).toString();
+	}
+
+	private void encode(String name, Object value, StringBuilder url) {
+		if (Objects.isNull(value)) {
+			throw new IllegalArgumentException("variable " + name + " is null");
+		}
+		// 路径与查询串中的变量都按单个组成部分编码, /、&、=等同样被编码
+		UrlEncoder.encode(value instanceof CharSequence ? (CharSequence) value : value.toString(), url);
+	}
+
+	private static final class Attachment {
+
+		private final Object owner;
+
+		private final Object value;
+
+		private Attachment(Object owner, Object value) {
+			this.owner = owner;
+			this.value = value;
+		}
+
+	}
+
+	public static class Builder {
+
+		private final String url;
+
+		private final Map<String, String> headers = new LinkedHashMap<>();
+
+		Builder(String url) {
+			this.url = url;
+		}
+
+		/**
+		 * 静态请求头
+		 * @param name 名称
+		 * @param value 值
+		 * @return builder
+		 */
+		public Builder header(String name, String value) {
+			this.headers.put(name, value);
+			return this;
+		}
+
+		/**
+		 * 解析并校验url模板
+		 * @return 模板
+		 * @throws IllegalArgumentException 变量未闭合、重名或静态部分不是合法的url
+		 */
+		public RequestTemplate build() {
+			List<String> literals = new ArrayList<>();
+			List<String> variables = new ArrayList<>();
+			int start = 0;
+			int open;
+			while ((open = url.indexOf('{', start)) != -1) {
+				int close = url.indexOf('}', open);
+				if (close == -1) {
+					throw new IllegalArgumentException("unclosed variable in url template: " + url);
+				}
+				String name = url.substring(open + 1, close);
+				if (name.isEmpty() || variables.contains(name)) {
+					throw new IllegalArgumentException("empty or duplicate variable '" + name + "': " + url);
+				}
+				literals.add(url.substring(start, open));
+				variables.add(name);
+				start = close + 1;
+			}
+			literals.add(url.substring(start));
+			validate(String.join("x", literals));
+			return new RequestTemplate(literals.toArray(new String[0]), variables.toArray(new String[0]),
+					Collections.unmodifiableMap(new LinkedHashMap<>(headers)));
+		}
+
+		private static void validate(String sample) {
+			try {
+				URI uri = new URI(sample);
+				if (!uri.isAbsolute()) {
+					throw new IllegalArgumentException("url template must be absolute: " + sample);
+				}
+			}
+			catch (URISyntaxException e) {
+				throw new IllegalArgumentException("invalid url template: " + e.getMessage(), e);
+			}
+		}
+
+	}
+
+}
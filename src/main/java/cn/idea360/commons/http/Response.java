@@ -1,14 +1,20 @@
 package cn.idea360.commons.http;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * @author cuishiying
  */
-@AllArgsConstructor
 @Data
 public class Response implements Serializable, AutoCloseable {
 
@@ -22,14 +28,96 @@ public class Response implements Serializable, AutoCloseable {
 	 */
 	private String reasonPhrase;
 
+	/**
+	 * 响应头, key忽略大小写
+	 */
+	private Map<String, List<String>> headers;
+
 	/**
 	 * response data
 	 */
 	private String body;
 
+	/**
+	 * 原始响应体, body在首次访问时按charset解码
+	 */
+	private byte[] bytes;
+
+	/**
+	 * 响应体编码, 默认UTF-8
+	 */
+	private transient Charset charset;
+
+	/**
+	 * 流式响应体, 仅在{@link Request#isStream()}为true时存在, 使用完毕后需调用{@link #close()}释放连接
+	 */
+	private transient InputStream content;
+
+	public Response(int statusCode, String reasonPhrase, String body) {
+		this.statusCode = statusCode;
+		this.reasonPhrase = reasonPhrase;
+		this.body = body;
+	}
+
+	public Response(int statusCode, String reasonPhrase, byte[] bytes, Charset charset) {
+		this.statusCode = statusCode;
+		this.reasonPhrase = reasonPhrase;
+		this.bytes = bytes;
+		this.charset = charset;
+	}
+
+	/**
+	 * 获取字符串响应体, 原始响应体在首次调用时解码
+	 * @return 响应体
+	 */
+	public String getBody() {
+		if (Objects.isNull(body) && Objects.nonNull(bytes)) {
+			body = new String(bytes, getCharset());
+		}
+		return body;
+	}
+
+	/**
+	 * 获取原始响应体, 避免二进制内容(protobuf、msgpack等)的解码开销与损坏
+	 * @return 原始响应体
+	 */
+	public byte[] getBytes() {
+		if (Objects.isNull(bytes) && Objects.nonNull(body)) {
+			bytes = body.getBytes(getCharset());
+		}
+		return bytes;
+	}
+
+	/**
+	 * 获取响应头的第一个值
+	 * @param name 响应头名称, 忽略大小写
+	 * @return 响应头, 不存在时返回null
+	 */
+	public String getHeader(String name) {
+		if (Objects.isNull(headers)) {
+			return null;
+		}
+		List<String> values = headers.get(name);
+		return Objects.isNull(values) || values.isEmpty() ? null : values.get(0);
+	}
+
+	public Charset getCharset() {
+		return Objects.isNull(charset) ? StandardCharsets.UTF_8 : charset;
+	}
+
+	/**
+	 * 以channel方式读取流式响应体
+	 * @return channel, 非流式响应返回null
+	 */
+	public ReadableByteChannel getChannel() {
+		return Objects.isNull(content) ? null : Channels.newChannel(content);
+	}
+
 	@Override
 	public void close() throws Exception {
-
+		if (Objects.nonNull(content)) {
+			content.close();
+		}
 	}
 
 }
@@ -0,0 +1,63 @@
+package cn.idea360.commons.http;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * JVM退出时统一关闭client, 整个JVM只注册一个shutdown hook. 弱引用持有, 已被回收的client不会因注册而泄漏, 关闭是幂等的,
+ * 已手动关闭的client无需注销
+ *
+ * @author cuishiying
+ */
+@Slf4j
+public final class ShutdownRegistry {
+
+	private static final Map<Closeable, Boolean> CLOSEABLES = new WeakHashMap<>();
+
+	private static boolean hookRegistered;
+
+	private ShutdownRegistry() {
+	}
+
+	/**
+	 * 注册JVM退出时关闭
+	 * @param closeable 待关闭的client
+	 */
+	public static synchronized void register(Closeable closeable) {
+		if (!hookRegistered) {
+			Runtime.getRuntime().addShutdownHook(new Thread(ShutdownRegistry::closeAll, "http-client-shutdown"));
+			hookRegistered = true;
+		}
+		CLOSEABLES.put(closeable, Boolean.TRUE);
+	}
+
+	/**
+	 * 注销, 之后不再在JVM退出时关闭
+	 * @param closeable 已注册的client
+	 */
+	public static synchronized void unregister(Closeable closeable) {
+		CLOSEABLES.remove(closeable);
+	}
+
+	private static void closeAll() {
+		List<Closeable> closeables;
+		synchronized (ShutdownRegistry.class) {
+			closeables = new ArrayList<>(CLOSEABLES.keySet());
+		}
+		for (Closeable closeable : closeables) {
+			try {
+				closeable.close();
+			}
+			catch (IOException | RuntimeException e) {
+				log.error("close http client error.", e);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,161 @@
+package cn.idea360.commons.http;
+
+import java.lang.reflect.Array;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 百分号编码, 两种client共用. 只保留RFC 3986的非保留字符, 其余字符按UTF-8编码, /、&amp;、=、+等同样被编码.
+ * 直接逐字符写入目标StringBuilder, 不创建中间字符串与字节数组
+ *
+ * <p>
+ * 参数值为{@link Iterable}或数组时按重复的key依次编码, 为null时只输出key
+ *
+ * @author cuishiying
+ */
+public final class UrlEncoder {
+
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+	private UrlEncoder() {
+	}
+
+	/**
+	 * 按url的单个组成部分(路径段、查询参数名或值)编码, 空格编码为%20
+	 * @param text 原文
+	 * @param out 输出
+	 */
+	public static void encode(CharSequence text, StringBuilder out) {
+		encode(text, out, false);
+	}
+
+	/**
+	 * 将参数追加到url的查询串, url已有的查询串与编码保持不变, 片段(#)保留在末尾
+	 * @param url 请求地址
+	 * @param params 参数
+	 * @return 追加参数后的url
+	 */
+	public static String appendQuery(String url, Map<String, ?> params) {
+		if (Objects.isNull(params) || params.isEmpty()) {
+			return url;
+		}
+		int fragment = url.indexOf('#');
+		int end = fragment < 0 ? url.length() : fragment;
+		StringBuilder out = new StringBuilder(url.length() + params.size() * 16);
+		out.append(url, 0, end);
+		int query = url.indexOf('?');
+		if (query < 0 || query > end) {
+			out.append('?');
+		}
+		else if (query != end - 1 && url.charAt(end - 1) != '&') {
+			out.append('&');
+		}
+		appendParams(params, out, false);
+		return out.append(url, end, url.length()).toString();
+	}
+
+	/**
+	 * 编码application/x-www-form-urlencoded请求体, 空格编码为+
+	 * @param params 参数
+	 * @return 请求体
+	 */
+	public static String form(Map<String, ?> params) {
+		if (Objects.isNull(params) || params.isEmpty()) {
+			return "";
+		}
+		StringBuilder out = new StringBuilder(params.size() * 16);
+		appendParams(params, out, true);
+		return out.toString();
+	}
+
+	/**
+	 * 按key=value&amp;key=value追加参数, 首个参数前不加分隔符
+	 * @param params 参数
+	 * @param out 输出
+	 * @param form true时按表单编码, 空格编码为+
+	 */
+	public static void appendParams(Map<String, ?> params, StringBuilder out, boolean form) {
+		int start = out.length();
+		for (Map.Entry<String, ?> param : params.entrySet()) {
+			Object value = param.getValue();
+			if (value instanceof Iterable) {
+				for (Object element : (Iterable<?>) value) {
+					appendParam(param.getKey(), element, out, form, start);
+				}
+			}
+			else if (Objects.nonNull(value) && value.getClass().isArray()) {
+				int length = Array.getLength(value);
+				for (int i = 0; i < length; i++) {
+					appendParam(param.getKey(), Array.get(value, i), out, form, start);
+				}
+			}
+			else {
+				appendParam(param.getKey(), value, out, form, start);
+			}
+		}
+	}
+
+	private static void appendParam(String name, Object value, StringBuilder out, boolean form, int start) {
+		if (out.length() > start) {
+			out.append('&');
+		}
+		encode(name, out, form);
+		if (Objects.isNull(value)) {
+			return;
+		}
+		out.append('=');
+		if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+			// 整数只包含数字与-, 无需编码
+			out.append(((Number) value).longValue());
+		}
+		else {
+			encode(value instanceof CharSequence ? (CharSequence) value : value.toString(), out, form);
+		}
+	}
+
+	private static void encode(CharSequence text, StringBuilder out, boolean form) {
+		int length = text.length();
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if (isUnreserved(c)) {
+				out.append(c);
+			}
+			else if (c == ' ' && form) {
+				out.append('+');
+			}
+			else if (c < 0x80) {
+				appendByte(c, out);
+			}
+			else if (c < 0x800) {
+				appendByte(0xc0 | (c >> 6), out);
+				appendByte(0x80 | (c & 0x3f), out);
+			}
+			else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, text.charAt(++i));
+				appendByte(0xf0 | (codePoint >> 18), out);
+				appendByte(0x80 | ((codePoint >> 12) & 0x3f), out);
+				appendByte(0x80 | ((codePoint >> 6) & 0x3f), out);
+				appendByte(0x80 | (codePoint & 0x3f), out);
+			}
+			else if (Character.isSurrogate(c)) {
+				// 不成对的代理字符与String.getBytes一致替换为?
+				appendByte('?', out);
+			}
+			else {
+				appendByte(0xe0 | (c >> 12), out);
+				appendByte(0x80 | ((c >> 6) & 0x3f), out);
+				appendByte(0x80 | (c & 0x3f), out);
+			}
+		}
+	}
+
+	private static void appendByte(int b, StringBuilder out) {
+		out.append('%').append(HEX[(b >> 4) & 0x0f]).append(HEX[b & 0x0f]);
+	}
+
+	private static boolean isUnreserved(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '.'
+				|| c == '_' || c == '~';
+	}
+
+}
@@ -0,0 +1,83 @@
+package cn.idea360.commons.http;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程工具, 编译目标为JDK11, 通过反射在JDK21+上创建虚拟线程
+ *
+ * @author cuishiying
+ */
+@Slf4j
+public final class VirtualThreads {
+
+	private static final boolean SUPPORTED;
+
+	static {
+		boolean supported;
+		try {
+			Thread.class.getMethod("ofVirtual");
+			supported = true;
+		}
+		catch (NoSuchMethodException e) {
+			supported = false;
+		}
+		SUPPORTED = supported;
+	}
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * 当前JVM是否支持虚拟线程
+	 * @return true支持
+	 */
+	public static boolean isSupported() {
+		return SUPPORTED;
+	}
+
+	/**
+	 * 判断当前线程是否为虚拟线程
+	 * @return true虚拟线程
+	 */
+	public static boolean isVirtual() {
+		if (!SUPPORTED) {
+			return false;
+		}
+		try {
+			return (boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+		}
+		catch (ReflectiveOperationException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * 创建每个任务一个虚拟线程的线程池
+	 * @param namePrefix 线程名前缀
+	 * @return 线程池, 不支持虚拟线程时返回null
+	 */
+	public static ExecutorService newExecutor(String namePrefix) {
+		if (!SUPPORTED) {
+			log.warn("当前JDK不支持虚拟线程, 使用默认线程池");
+			return null;
+		}
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+			ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+			Method newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			return (ExecutorService) newExecutor.invoke(null, threadFactory);
+		}
+		catch (ReflectiveOperationException e) {
+			log.warn("创建虚拟线程池失败, 使用默认线程池", e);
+			return null;
+		}
+	}
+
+}
@@ -2,35 +2,100 @@ package cn.idea360.commons.http.apache;
 
 import cn.idea360.commons.http.HttpClientWrapper;
 import cn.idea360.commons.http.HttpConfig;
+import cn.idea360.commons.http.HttpProtocol;
 import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.RequestTemplate;
 import cn.idea360.commons.http.Response;
+import cn.idea360.commons.http.UrlEncoder;
+import cn.idea360.commons.http.compression.ContentCodec;
+import cn.idea360.commons.http.compression.ContentCodecs;
+import cn.idea360.commons.http.dns.CachingHostResolver;
+import cn.idea360.commons.http.dns.HostResolver;
+import cn.idea360.commons.http.json.JsonCodec;
+import cn.idea360.commons.http.json.JsonCodecs;
+import cn.idea360.commons.http.metrics.HttpMetrics;
+import cn.idea360.commons.http.metrics.PoolStats;
+import cn.idea360.commons.http.metrics.TimeoutType;
+import cn.idea360.commons.http.retry.RetryPolicy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.HttpRequestRetryStrategy;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.async.methods.*;
 import org.apache.hc.client5.http.classic.methods.*;
+import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
-import org.apache.hc.client5.http.impl.DefaultHttpRequestRetryStrategy;
+import org.apache.hc.client5.http.entity.InputStreamFactory;
+import org.apache.hc.client5.http.impl.IdleConnectionEvictor;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.*;
+import org.apache.hc.core5.http.config.Registry;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.FileEntity;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.apache.hc.core5.http.message.BasicHeader;
-import org.apache.hc.core5.http.message.BasicNameValuePair;
-import org.apache.hc.core5.net.URIBuilder;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.entity.AsyncEntityProducers;
+import org.apache.hc.core5.http.nio.support.AsyncRequestBuilder;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.reactor.IOReactorConfig;
 import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 /**
  * @author cuishiying
@@ -40,6 +105,75 @@ public class ApacheHttpClientWrapper implements HttpClientWrapper {
 
 	private final CloseableHttpClient httpClient;
 
+	/**
+	 * 同步客户端的连接池, 用于预热
+	 */
+	private final PoolingHttpClientConnectionManager connectionManager;
+
+	/**
+	 * 空闲连接回收, 未配置maxIdleTime时为null
+	 */
+	private final IdleConnectionEvictor idleConnectionEvictor;
+
+	/**
+	 * 未配置自定义解析与DNS缓存时为null, 使用Apache默认的系统解析
+	 */
+	private final DnsResolver dnsResolver;
+
+	private final HttpConfig httpConfig;
+
+	private final HttpRequestInterceptor requestInterceptor;
+
+	private final HttpResponseInterceptor responseInterceptor;
+
+	private final HttpMetrics metrics;
+
+	/**
+	 * 重试策略, 未开启重试时为null
+	 */
+	private final RetryPolicy retryPolicy;
+
+	/**
+	 * 是否发送Accept-Encoding并解压响应体
+	 */
+	private final boolean responseCompression;
+
+	/**
+	 * 请求体压缩编码, 未开启请求压缩时为null
+	 */
+	private final ContentCodec requestCodec;
+
+	private final long requestCompressionThreshold;
+
+	/**
+	 * 未配置时为null, 使用自动选择的默认编解码
+	 */
+	private final JsonCodec jsonCodec;
+
+	/**
+	 * 异步客户端, 首次发起异步请求时创建
+	 */
+	private volatile CloseableHttpAsyncClient asyncClient;
+
+	private final Lock asyncClientLock = new ReentrantLock();
+
+	/**
+	 * 为null时按HTTP/1.1处理
+	 */
+	private final HttpProtocol protocol;
+
+	/**
+	 * HTTP/2异步客户端, 每个客户端对每个host只打开一个连接, 按h2ConnectionsPerHost创建多个并轮询, 首次发起HTTP/2请求时创建
+	 */
+	private volatile CloseableHttpAsyncClient[] h2Clients;
+
+	private final AtomicInteger nextH2Client = new AtomicInteger();
+
+	/**
+	 * 预热连接归还连接池后的保持时间, 与默认的keep-alive策略一致, 仍受connectionTimeToLive与maxIdleTime约束
+	 */
+	private static final TimeValue WARM_UP_KEEP_ALIVE = TimeValue.ofMinutes(3);
+
 	/**
 	 * 默认构造方法, 默认配置
 	 */
@@ -68,12 +202,22 @@ public class ApacheHttpClientWrapper implements HttpClientWrapper {
 			httpConfig = new HttpConfig();
 		}
 		log.info("http配置: {}", httpConfig.toString());
-		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		this.metrics = Objects.isNull(httpConfig.getMetrics()) ? HttpMetrics.NOOP : httpConfig.getMetrics();
+		this.retryPolicy = RetryPolicy.of(httpConfig);
+		this.responseCompression = httpConfig.isResponseCompression();
+		this.requestCompressionThreshold = httpConfig.getRequestCompressionThreshold();
+		this.requestCodec = requestCompressionThreshold > 0
+				? ContentCodecs.get(httpConfig.getRequestCompressionEncoding()) : null;
+		this.dnsResolver = dnsResolver(httpConfig);
+		PoolingHttpClientConnectionManager connectionManager = newConnectionManager(dnsResolver,
+				httpConfig.getHappyEyeballsDelay());
 		connectionManager.setMaxTotal(httpConfig.getMaxTotal());
 		connectionManager.setDefaultMaxPerRoute(httpConfig.getDefaultMaxPerRoute());
+		connectionManager.setDefaultConnectionConfig(connectionConfig(httpConfig));
+		setMaxPerRoute(connectionManager, httpConfig);
+		this.connectionManager = connectionManager;
 
 		RequestConfig requestConfig = RequestConfig.custom()
-				.setConnectTimeout(httpConfig.getConnectTimeout(), TimeUnit.MILLISECONDS)
 				.setConnectionRequestTimeout(httpConfig.getConnectionRequestTimeout(), TimeUnit.MILLISECONDS)
 				.setResponseTimeout(httpConfig.getSocketTimeout(), TimeUnit.MILLISECONDS).build();
 
@@ -82,7 +226,19 @@ public class ApacheHttpClientWrapper implements HttpClientWrapper {
 		headers.add(new BasicHeader(HttpHeaders.CONTENT_TYPE, "application/json"));
 
 		HttpClientBuilder builder = HttpClients.custom().setDefaultHeaders(headers)
-				.setConnectionManager(connectionManager).setDefaultRequestConfig(requestConfig);
+				.setConnectionManager(
+						httpConfig.isVirtualThreads()
+								? new VirtualThreadConnectionManager(connectionManager, httpConfig.getMaxTotal(),
+										httpConfig.getDefaultMaxPerRoute(), httpConfig.getMaxPerRoute())
+								: connectionManager)
+				.setDefaultRequestConfig(requestConfig);
+
+		if (responseCompression) {
+			builder.setContentDecoderRegistry(contentDecoderRegistry());
+		}
+		else {
+			builder.disableContentCompression();
+		}
 
 		if (Objects.nonNull(requestInterceptor)) {
 			builder.addRequestInterceptorFirst(requestInterceptor);
@@ -92,95 +248,768 @@ public class ApacheHttpClientWrapper implements HttpClientWrapper {
 			builder.addResponseInterceptorFirst(responseInterceptor);
 		}
 
-		if (httpConfig.getMaxRetries() > 0) {
-			builder.setRetryStrategy(
-					new DefaultHttpRequestRetryStrategy(httpConfig.getMaxRetries(), TimeValue.ofSeconds(2)));
+		if (Objects.nonNull(retryPolicy)) {
+			builder.setRetryStrategy(retryStrategy());
 		}
 
 		this.httpClient = builder.build();
+		bindPool("apache-classic", connectionManager);
+		if (httpConfig.getMaxIdleTime() > 0) {
+			// 不使用builder.evictIdleConnections, 虚拟线程模式下连接管理器被包装, builder无法识别连接池
+			TimeValue maxIdleTime = TimeValue.ofMilliseconds(httpConfig.getMaxIdleTime());
+			this.idleConnectionEvictor = new IdleConnectionEvictor(connectionManager, maxIdleTime, maxIdleTime);
+			idleConnectionEvictor.start();
+		}
+		else {
+			this.idleConnectionEvictor = null;
+		}
+		this.httpConfig = httpConfig;
+		this.protocol = httpConfig.getProtocol();
+		this.jsonCodec = httpConfig.getJsonCodec();
+		this.requestInterceptor = requestInterceptor;
+		this.responseInterceptor = responseInterceptor;
 		log.info("httpclient初始化完成");
 	}
 
+	@Override
+	public JsonCodec getJsonCodec() {
+		return Objects.nonNull(jsonCodec) ? jsonCodec : JsonCodecs.getDefault();
+	}
+
 	@Override
 	public Response get(Request request) throws IOException, URISyntaxException {
-		URI uri = new URIBuilder(request.getUrl()).addParameters(convertParams(request.getParams())).build();
+		if (isH2(request.getUrl())) {
+			return await(executeRequestAsync(Method.GET, request));
+		}
+		URI uri = buildUri(request, true);
 		HttpUriRequestBase httpRequest = new HttpGet(uri);
 		httpRequest.setHeader(HttpHeaders.CONTENT_TYPE, "application/x-www-form-urlencoded");
-		addHeaders(httpRequest, request.getHeaders());
-		return executeRequest(httpRequest);
+		addHeaders(httpRequest, request);
+		return executeRequest(httpRequest, request.isStream());
 	}
 
 	@Override
 	public Response post(Request request) throws IOException, URISyntaxException {
-		URI uri = new URIBuilder(request.getUrl()).addParameters(convertParams(request.getParams())).build();
-		HttpUriRequestBase httpRequest = new HttpPost(uri);
-		addHeaders(httpRequest, request.getHeaders());
-		if (Objects.nonNull(request.getBody())) {
-			httpRequest.setEntity(new StringEntity(request.getBody(), StandardCharsets.UTF_8));
+		if (isH2(request.getUrl())) {
+			return await(executeRequestAsync(Method.POST, request));
 		}
-		return executeRequest(httpRequest);
+		URI uri = buildUri(request, !request.isForm());
+		HttpUriRequestBase httpRequest = new HttpPost(uri);
+		setEntity(httpRequest, request);
+		addHeaders(httpRequest, request);
+		return executeRequest(httpRequest, request.isStream());
 	}
 
 	@Override
 	public Response put(Request request) throws IOException, URISyntaxException {
-		URI uri = new URIBuilder(request.getUrl()).addParameters(convertParams(request.getParams())).build();
-		HttpUriRequestBase httpRequest = new HttpPut(uri);
-		addHeaders(httpRequest, request.getHeaders());
-		if (Objects.nonNull(request.getBody())) {
-			httpRequest.setEntity(new StringEntity(request.getBody(), StandardCharsets.UTF_8));
+		if (isH2(request.getUrl())) {
+			return await(executeRequestAsync(Method.PUT, request));
 		}
-		return executeRequest(httpRequest);
+		URI uri = buildUri(request, !request.isForm());
+		HttpUriRequestBase httpRequest = new HttpPut(uri);
+		setEntity(httpRequest, request);
+		addHeaders(httpRequest, request);
+		return executeRequest(httpRequest, request.isStream());
 	}
 
 	@Override
 	public Response patch(Request request) throws IOException, URISyntaxException {
-		URI uri = new URIBuilder(request.getUrl()).addParameters(convertParams(request.getParams())).build();
-		HttpUriRequestBase httpRequest = new HttpPatch(uri);
-		addHeaders(httpRequest, request.getHeaders());
-		if (Objects.nonNull(request.getBody())) {
-			httpRequest.setEntity(new StringEntity(request.getBody(), StandardCharsets.UTF_8));
+		if (isH2(request.getUrl())) {
+			return await(executeRequestAsync(Method.PATCH, request));
 		}
-		return executeRequest(httpRequest);
+		URI uri = buildUri(request, !request.isForm());
+		HttpUriRequestBase httpRequest = new HttpPatch(uri);
+		setEntity(httpRequest, request);
+		addHeaders(httpRequest, request);
+		return executeRequest(httpRequest, request.isStream());
 	}
 
 	@Override
 	public Response delete(Request request) throws IOException, URISyntaxException {
-		URI uri = new URIBuilder(request.getUrl()).addParameters(convertParams(request.getParams())).build();
+		if (isH2(request.getUrl())) {
+			return await(executeRequestAsync(Method.DELETE, request));
+		}
+		URI uri = buildUri(request, true);
 		HttpUriRequestBase httpRequest = new HttpDelete(uri);
 		httpRequest.setHeader(HttpHeaders.CONTENT_TYPE, "application/x-www-form-urlencoded");
-		addHeaders(httpRequest, request.getHeaders());
-		return executeRequest(httpRequest);
+		addHeaders(httpRequest, request);
+		return executeRequest(httpRequest, request.isStream());
+	}
+
+	@Override
+	public Response download(Request request, Path target) throws IOException, URISyntaxException {
+		URI uri = buildUri(request, true);
+		HttpUriRequestBase httpRequest = new HttpGet(uri);
+		httpRequest.setHeader(HttpHeaders.CONTENT_TYPE, "application/x-www-form-urlencoded");
+		addHeaders(httpRequest, request);
+		return executeRequest(httpRequest, new FileResponseHandler(target));
+	}
+
+	@Override
+	public CompletableFuture<Response> getAsync(Request request) {
+		return executeRequestAsync(Method.GET, request);
+	}
+
+	@Override
+	public CompletableFuture<Response> postAsync(Request request) {
+		return executeRequestAsync(Method.POST, request);
+	}
+
+	@Override
+	public CompletableFuture<Response> putAsync(Request request) {
+		return executeRequestAsync(Method.PUT, request);
+	}
+
+	@Override
+	public CompletableFuture<Response> patchAsync(Request request) {
+		return executeRequestAsync(Method.PATCH, request);
+	}
+
+	@Override
+	public CompletableFuture<Response> deleteAsync(Request request) {
+		return executeRequestAsync(Method.DELETE, request);
+	}
+
+	private Response executeRequest(HttpUriRequestBase request, boolean stream) throws IOException {
+		return executeRequest(request, stream ? null : new CustomResponseHandler());
 	}
 
 	@SuppressWarnings("all")
-	private Response executeRequest(HttpUriRequestBase request) throws IOException {
-		try (Response response = httpClient.execute(request, new CustomResponseHandler())) {
+	private Response executeRequest(HttpUriRequestBase request, HttpClientResponseHandler<Response> responseHandler)
+			throws IOException {
+		String method = request.getMethod();
+		String route = route(request);
+		long bytesSent = Objects.isNull(request.getEntity()) ? 0 : request.getEntity().getContentLength();
+		long start = System.nanoTime();
+		metrics.requestStarted(method, route);
+		if (Objects.nonNull(retryPolicy)) {
+			retryPolicy.onRequest();
+		}
+		try {
+			// 未指定响应处理器时以流的方式返回响应
+			Response response = Objects.isNull(responseHandler) ? executeStreamRequest(request)
+					: httpClient.execute(request, responseHandler);
+			recordCompleted(method, route, response, bytesSent, start);
 			return response;
 		}
 		catch (ConnectTimeoutException e) {
 			log.error("Connection timeout: " + e.getMessage());
+			recordFailed(method, route, e, start);
 			throw e;
 		}
 		catch (SocketTimeoutException e) {
 			log.error("Socket timeout: " + e.getMessage());
+			recordFailed(method, route, e, start);
 			throw e;
 		}
 		catch (IOException e) {
 			log.error("I/O error: " + e.getMessage());
+			recordFailed(method, route, e, start);
 			throw e;
 		}
 		catch (Exception e) {
 			log.error("Unexpected error: " + e.getMessage());
+			recordFailed(method, route, e, start);
 			throw new IOException("Unexpected error", e);
 		}
 	}
 
-	private List<NameValuePair> convertParams(Map<String, Object> params) {
-		if (Objects.nonNull(params)) {
-			return params.entrySet().stream().map(e -> new BasicNameValuePair(e.getKey(), e.getValue().toString()))
-					.collect(Collectors.toList());
+	private Response executeStreamRequest(HttpUriRequestBase request) throws IOException {
+		ClassicHttpResponse httpResponse = httpClient.executeOpen(null, request, null);
+		Response response = new Response(httpResponse.getCode(), httpResponse.getReasonPhrase(), null);
+		response.setHeaders(CustomResponseHandler.headers(httpResponse));
+		HttpEntity entity = httpResponse.getEntity();
+		if (Objects.isNull(entity)) {
+			httpResponse.close();
+			return response;
+		}
+		// 未读完时中断请求直接丢弃连接, 避免关闭时读完剩余的响应体; 已读完时连接已归还连接池
+		response.setContent(new FilterInputStream(entity.getContent()) {
+
+			private boolean endOfStream;
+
+			@Override
+			public int read() throws IOException {
+				return checkEndOfStream(super.read());
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				return checkEndOfStream(super.read(b, off, len));
+			}
+
+			@Override
+			public void close() throws IOException {
+				if (endOfStream) {
+					httpResponse.close();
+					return;
+				}
+				request.cancel();
+				try {
+					httpResponse.close();
+				}
+				catch (IOException e) {
+					// 请求已中断, 连接已丢弃, 忽略关闭已断开连接时的异常
+					log.debug("close aborted response: " + e.getMessage());
+				}
+			}
+
+			private int checkEndOfStream(int result) {
+				if (result == -1) {
+					endOfStream = true;
+				}
+				return result;
+			}
+
+		});
+		return response;
+	}
+
+	private CompletableFuture<Response> executeRequestAsync(Method method, Request request) {
+		URI uri;
+		AsyncEntityProducer entityProducer;
+		try {
+			uri = buildUri(request, method == Method.GET || method == Method.DELETE || !request.isForm());
+			entityProducer = newAsyncEntity(method, request);
+		}
+		catch (URISyntaxException | IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		AsyncRequestProducer requestProducer = newAsyncRequest(method, uri, entityProducer, request);
+		CompletableFuture<Response> future = new CompletableFuture<>();
+		String route = HttpMetrics.route(uri);
+		long bytesSent = Objects.isNull(entityProducer) ? 0 : entityProducer.getContentLength();
+		long start = System.nanoTime();
+		metrics.requestStarted(method.name(), route);
+		if (Objects.nonNull(retryPolicy)) {
+			retryPolicy.onRequest();
+		}
+		future.whenComplete((response, ex) -> {
+			if (Objects.nonNull(ex)) {
+				recordFailed(method.name(), route, ex, start);
+			}
+			else {
+				recordCompleted(method.name(), route, response, bytesSent, start);
+			}
+		});
+		CloseableHttpAsyncClient client = isH2(request.getUrl()) ? getH2Client() : getAsyncClient();
+		if (request.isStream()) {
+			// 响应头在IO线程上回调, 切换线程避免调用方在IO线程上阻塞读取响应体
+			StreamingResponseConsumer responseConsumer = new StreamingResponseConsumer(
+					response -> future.completeAsync(() -> decompress(response)));
+			Future<Response> execution = executeAsync(client, requestProducer, responseConsumer, Function.identity(),
+					future);
+			responseConsumer.setExecution(execution);
+		}
+		else {
+			executeAsync(client, requestProducer, SimpleResponseConsumer.create(), this::toResponse, future);
+		}
+		return future;
+	}
+
+	private <T> Future<T> executeAsync(CloseableHttpAsyncClient client, AsyncRequestProducer requestProducer,
+			AsyncResponseConsumer<T> responseConsumer, Function<T, Response> converter,
+			CompletableFuture<Response> future) {
+		Future<T> execution = client.execute(requestProducer, responseConsumer, new FutureCallback<>() {
+
+			@Override
+			public void completed(T result) {
+				try {
+					future.complete(converter.apply(result));
+				}
+				catch (UncheckedIOException e) {
+					logAsyncError(e.getCause());
+					future.completeExceptionally(e.getCause());
+				}
+			}
+
+			@Override
+			public void failed(Exception ex) {
+				logAsyncError(ex);
+				future.completeExceptionally(ex);
+			}
+
+			@Override
+			public void cancelled() {
+				future.cancel(false);
+			}
+
+		});
+		// 调用方取消时同步取消底层请求, 释放连接
+		future.whenComplete((response, ex) -> {
+			if (future.isCancelled()) {
+				execution.cancel(true);
+			}
+		});
+		return execution;
+	}
+
+	private AsyncEntityProducer newAsyncEntity(Method method, Request request) throws IOException {
+		if (method == Method.GET || method == Method.DELETE) {
+			return null;
+		}
+		HttpEntity entity = Objects.nonNull(requestCodec) ? newEntity(request) : null;
+		if (isCompressible(entity)) {
+			return new CompressingAsyncEntityProducer(entity, contentType(request), requestCodec);
+		}
+		if (request.isForm()) {
+			return AsyncEntityProducers.create(UrlEncoder.form(request.getParams()),
+					ContentType.APPLICATION_FORM_URLENCODED);
+		}
+		if (Objects.nonNull(request.getFile())) {
+			return AsyncEntityProducers.create(request.getFile().toFile(), ContentType.APPLICATION_OCTET_STREAM);
+		}
+		if (Objects.nonNull(request.getBytes())) {
+			return AsyncEntityProducers.create(request.getBytes(), ContentType.APPLICATION_OCTET_STREAM);
+		}
+		if (Objects.nonNull(request.getJson())) {
+			return AsyncEntityProducers.create(getJsonCodec().encode(request.getJson()), ContentType.APPLICATION_JSON);
+		}
+		if (Objects.nonNull(request.getBody())) {
+			return AsyncEntityProducers.create(request.getBody(), ContentType.APPLICATION_JSON);
+		}
+		return null;
+	}
+
+	private AsyncRequestProducer newAsyncRequest(Method method, URI uri, AsyncEntityProducer entityProducer,
+			Request request) {
+		AsyncRequestBuilder requestBuilder = AsyncRequestBuilder.create(method.name()).setUri(uri);
+		if (method == Method.GET || method == Method.DELETE) {
+			requestBuilder.setHeader(HttpHeaders.CONTENT_TYPE, "application/x-www-form-urlencoded");
+		}
+		else if (request.isForm()) {
+			requestBuilder.setHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_FORM_URLENCODED.getMimeType());
+		}
+		else if (Objects.nonNull(request.getFile()) || Objects.nonNull(request.getBytes())) {
+			requestBuilder.setHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_OCTET_STREAM.getMimeType());
+		}
+		requestBuilder.setEntity(entityProducer);
+		Header[] headers = templateHeaders(request);
+		if (Objects.nonNull(headers)) {
+			for (Header header : headers) {
+				requestBuilder.setHeader(header);
+			}
+		}
+		else if (Objects.nonNull(request.getHeaders())) {
+			request.getHeaders().forEach(requestBuilder::setHeader);
+		}
+		return requestBuilder.build();
+	}
+
+	private Response toResponse(SimpleHttpResponse httpResponse) {
+		SimpleBody body = httpResponse.getBody();
+		Response response;
+		if (Objects.isNull(body)) {
+			response = new Response(httpResponse.getCode(), httpResponse.getReasonPhrase(), null);
+		}
+		else {
+			ContentType contentType = body.getContentType();
+			response = new Response(httpResponse.getCode(), httpResponse.getReasonPhrase(), body.getBodyBytes(),
+					CustomResponseHandler.charset(Objects.nonNull(contentType) ? contentType.toString() : null));
+		}
+		response.setHeaders(CustomResponseHandler.headers(httpResponse));
+		return decompress(response);
+	}
+
+	/**
+	 * 异步响应按Content-Encoding解压, 并去掉Content-Encoding与Content-Length, 与同步客户端一致.
+	 * 流式响应体在首次读取时才创建解压流
+	 */
+	private Response decompress(Response response) {
+		ContentCodec codec = responseCompression ? ContentCodecs.get(response.getHeader(HttpHeaders.CONTENT_ENCODING))
+				: null;
+		if (Objects.isNull(codec)) {
+			return response;
+		}
+		response.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+		response.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+		if (Objects.nonNull(response.getContent())) {
+			response.setContent(ContentCodecs.decodeLazily(codec, response.getContent()));
+		}
+		else if (Objects.nonNull(response.getBytes())) {
+			try {
+				response.setBytes(ContentCodecs.decode(codec, response.getBytes()));
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return response;
+	}
+
+	/**
+	 * 同步客户端的解压注册表, 包含通过ServiceLoader注册的编码, Accept-Encoding由注册表生成
+	 */
+	private static LinkedHashMap<String, InputStreamFactory> contentDecoderRegistry() {
+		LinkedHashMap<String, InputStreamFactory> registry = new LinkedHashMap<>();
+		ContentCodecs.all().forEach((encoding, codec) -> registry.put(encoding, codec::decode));
+		return registry;
+	}
+
+	private void logAsyncError(Exception ex) {
+		if (ex instanceof ConnectTimeoutException) {
+			log.error("Connection timeout: " + ex.getMessage());
+		}
+		else if (ex instanceof SocketTimeoutException) {
+			log.error("Socket timeout: " + ex.getMessage());
+		}
+		else if (ex instanceof IOException) {
+			log.error("I/O error: " + ex.getMessage());
+		}
+		else {
+			log.error("Unexpected error: " + ex.getMessage());
+		}
+	}
+
+	private void recordCompleted(String method, String route, Response response, long bytesSent, long start) {
+		long bytesReceived = -1;
+		if (Objects.isNull(response.getContent()) && Objects.nonNull(response.getBytes())) {
+			bytesReceived = response.getBytes().length;
+		}
+		else if (Objects.nonNull(response.getHeader(HttpHeaders.CONTENT_LENGTH))) {
+			// 流式响应与下载的响应体不在内存中, 以Content-Length为准
+			bytesReceived = Long.parseLong(response.getHeader(HttpHeaders.CONTENT_LENGTH));
+		}
+		metrics.requestCompleted(method, route, response.getStatusCode(), System.nanoTime() - start, bytesSent,
+				bytesReceived);
+	}
+
+	private void recordFailed(String method, String route, Throwable ex, long start) {
+		TimeoutType timeoutType = null;
+		if (ex instanceof ConnectionRequestTimeoutException) {
+			timeoutType = TimeoutType.CONNECTION_REQUEST;
+		}
+		else if (ex instanceof ConnectTimeoutException) {
+			timeoutType = TimeoutType.CONNECT;
+		}
+		else if (ex instanceof SocketTimeoutException) {
+			timeoutType = TimeoutType.RESPONSE;
+		}
+		metrics.requestFailed(method, route, ex, timeoutType, System.nanoTime() - start);
+	}
+
+	private String route(HttpUriRequestBase request) {
+		try {
+			return HttpMetrics.route(request.getUri());
+		}
+		catch (URISyntaxException e) {
+			return request.getAuthority().toString();
+		}
+	}
+
+	private HttpRequestRetryStrategy retryStrategy() {
+		HttpRequestRetryStrategy retryStrategy = new RetryPolicyStrategy(retryPolicy);
+		return metrics == HttpMetrics.NOOP ? retryStrategy : new MetricsRetryStrategy(retryStrategy, metrics);
+	}
+
+	private void bindPool(String name, ConnPoolControl<?> pool) {
+		metrics.bindPool(name + "@" + Integer.toHexString(System.identityHashCode(this)), () -> {
+			org.apache.hc.core5.pool.PoolStats stats = pool.getTotalStats();
+			return new PoolStats(stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
+		});
+	}
+
+	/**
+	 * 获取异步客户端, 延迟创建避免仅使用同步接口时启动额外的IO线程
+	 * @return 异步客户端
+	 */
+	@SuppressWarnings("all")
+	private CloseableHttpAsyncClient getAsyncClient() {
+		CloseableHttpAsyncClient client = this.asyncClient;
+		if (Objects.isNull(client)) {
+			asyncClientLock.lock();
+			try {
+				client = this.asyncClient;
+				if (Objects.isNull(client)) {
+					PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder
+							.create().setMaxConnTotal(httpConfig.getMaxTotal())
+							.setMaxConnPerRoute(httpConfig.getDefaultMaxPerRoute())
+							.setDefaultConnectionConfig(connectionConfig(httpConfig)).setDnsResolver(dnsResolver)
+							.build();
+					setMaxPerRoute(connectionManager, httpConfig);
+
+					HttpAsyncClientBuilder builder = HttpAsyncClients.custom().setDefaultHeaders(asyncHeaders())
+							.setConnectionManager(connectionManager).setDefaultRequestConfig(asyncRequestConfig());
+
+					if (httpConfig.getMaxIdleTime() > 0) {
+						builder.evictIdleConnections(TimeValue.ofMilliseconds(httpConfig.getMaxIdleTime()));
+					}
+
+					if (Objects.nonNull(requestInterceptor)) {
+						builder.addRequestInterceptorFirst(requestInterceptor);
+					}
+
+					if (Objects.nonNull(responseInterceptor)) {
+						builder.addResponseInterceptorFirst(responseInterceptor);
+					}
+
+					if (Objects.nonNull(retryPolicy)) {
+						builder.setRetryStrategy(retryStrategy());
+					}
+
+					client = builder.build();
+					bindPool("apache-async", connectionManager);
+					client.start();
+					this.asyncClient = client;
+					log.info("async httpclient初始化完成");
+				}
+			}
+			finally {
+				asyncClientLock.unlock();
+			}
 		}
-		return List.of();
+		return client;
+	}
+
+	/**
+	 * 获取HTTP/2客户端, 延迟创建, 多个客户端时轮询
+	 * @return HTTP/2客户端
+	 */
+	private CloseableHttpAsyncClient getH2Client() {
+		CloseableHttpAsyncClient[] clients = this.h2Clients;
+		if (Objects.isNull(clients)) {
+			asyncClientLock.lock();
+			try {
+				clients = this.h2Clients;
+				if (Objects.isNull(clients)) {
+					clients = new CloseableHttpAsyncClient[Math.max(1, httpConfig.getH2ConnectionsPerHost())];
+					H2Config h2Config = H2Config.custom().setPushEnabled(false)
+							.setMaxConcurrentStreams(httpConfig.getH2MaxConcurrentStreams())
+							.setInitialWindowSize(httpConfig.getH2InitialWindowSize()).build();
+					// 每个客户端各自的IO线程, 总数与单个客户端的默认值相当
+					IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+							.setIoThreadCount(Math.max(1, Runtime.getRuntime().availableProcessors() / clients.length))
+							.build();
+					for (int i = 0; i < clients.length; i++) {
+						H2AsyncClientBuilder builder = HttpAsyncClients.customHttp2().setDefaultHeaders(asyncHeaders())
+								.setDefaultRequestConfig(asyncRequestConfig())
+								.setDefaultConnectionConfig(connectionConfig(httpConfig)).setH2Config(h2Config)
+								.setIOReactorConfig(ioReactorConfig);
+						if (Objects.nonNull(requestInterceptor)) {
+							builder.addRequestInterceptorFirst(requestInterceptor);
+						}
+						if (Objects.nonNull(responseInterceptor)) {
+							builder.addResponseInterceptorFirst(responseInterceptor);
+						}
+						if (Objects.nonNull(retryPolicy)) {
+							builder.setRetryStrategy(retryStrategy());
+						}
+						if (httpConfig.getMaxIdleTime() > 0) {
+							builder.evictIdleConnections(TimeValue.ofMilliseconds(httpConfig.getMaxIdleTime()));
+						}
+						if (Objects.nonNull(dnsResolver)) {
+							builder.setDnsResolver(dnsResolver);
+						}
+						clients[i] = builder.build();
+						clients[i].start();
+					}
+					this.h2Clients = clients;
+					log.info("h2 httpclient初始化完成, 每个host连接数: {}", clients.length);
+				}
+			}
+			finally {
+				asyncClientLock.unlock();
+			}
+		}
+		if (clients.length == 1) {
+			return clients[0];
+		}
+		return clients[Math.floorMod(nextH2Client.getAndIncrement(), clients.length)];
+	}
+
+	/**
+	 * 自定义解析外包一层缓存, 都未配置但开启了并行建连时使用系统解析
+	 */
+	private static DnsResolver dnsResolver(HttpConfig httpConfig) {
+		HostResolver hostResolver = httpConfig.getHostResolver();
+		if (httpConfig.getDnsCacheTtl() > 0) {
+			hostResolver = new CachingHostResolver(Objects.nonNull(hostResolver) ? hostResolver : HostResolver.SYSTEM,
+					httpConfig.getDnsCacheTtl(), httpConfig.getDnsNegativeCacheTtl(),
+					httpConfig.getDnsCacheMaxEntries());
+		}
+		if (Objects.nonNull(hostResolver)) {
+			return new HostResolverDnsResolver(hostResolver);
+		}
+		return httpConfig.getHappyEyeballsDelay() > 0 ? SystemDefaultDnsResolver.INSTANCE : null;
+	}
+
+	/**
+	 * 同步客户端的连接池. 并行建连需替换连接器, 对应的构造方法为protected
+	 */
+	private static PoolingHttpClientConnectionManager newConnectionManager(DnsResolver dnsResolver,
+			long happyEyeballsDelay) {
+		if (Objects.isNull(dnsResolver)) {
+			return new PoolingHttpClientConnectionManager();
+		}
+		Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+				.register(URIScheme.HTTP.id, PlainConnectionSocketFactory.getSocketFactory())
+				.register(URIScheme.HTTPS.id, SSLConnectionSocketFactory.getSocketFactory()).build();
+		if (happyEyeballsDelay <= 0) {
+			return new PoolingHttpClientConnectionManager(socketFactoryRegistry, PoolConcurrencyPolicy.STRICT,
+					PoolReusePolicy.LIFO, TimeValue.NEG_ONE_MILLISECOND, null, dnsResolver, null);
+		}
+		return new PoolingHttpClientConnectionManager(
+				new HappyEyeballsConnectionOperator(socketFactoryRegistry, dnsResolver, happyEyeballsDelay),
+				PoolConcurrencyPolicy.STRICT, PoolReusePolicy.LIFO, TimeValue.NEG_ONE_MILLISECOND, null) {
+		};
+	}
+
+	/**
+	 * 连接超时、连接存活时间与复用前的失效检查, 同步、异步与HTTP/2客户端共用
+	 */
+	private static ConnectionConfig connectionConfig(HttpConfig httpConfig) {
+		ConnectionConfig.Builder builder = ConnectionConfig.custom()
+				.setConnectTimeout(httpConfig.getConnectTimeout(), TimeUnit.MILLISECONDS)
+				.setValidateAfterInactivity(httpConfig.getValidateAfterInactivity(), TimeUnit.MILLISECONDS);
+		if (httpConfig.getConnectionTimeToLive() > 0) {
+			builder.setTimeToLive(httpConfig.getConnectionTimeToLive(), TimeUnit.MILLISECONDS);
+		}
+		return builder.build();
+	}
+
+	private static void setMaxPerRoute(ConnPoolControl<HttpRoute> pool, HttpConfig httpConfig) {
+		if (Objects.nonNull(httpConfig.getMaxPerRoute())) {
+			httpConfig.getMaxPerRoute().forEach((route, max) -> pool.setMaxPerRoute(httpRoute(URI.create(route)), max));
+		}
+	}
+
+	/**
+	 * 与默认路由规划一致的路由: 补全默认端口, 无代理
+	 */
+	private static HttpRoute httpRoute(URI uri) {
+		boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+		int port = uri.getPort() == -1 ? (secure ? 443 : 80) : uri.getPort();
+		return new HttpRoute(new HttpHost(uri.getScheme(), uri.getHost(), port), null, secure);
+	}
+
+	private RequestConfig asyncRequestConfig() {
+		return RequestConfig.custom()
+				.setConnectionRequestTimeout(httpConfig.getConnectionRequestTimeout(), TimeUnit.MILLISECONDS)
+				.setResponseTimeout(httpConfig.getSocketTimeout(), TimeUnit.MILLISECONDS).build();
+	}
+
+	private List<Header> asyncHeaders() {
+		List<Header> headers = new ArrayList<>();
+		headers.add(new BasicHeader(HttpHeaders.ACCEPT, "application/json"));
+		headers.add(new BasicHeader(HttpHeaders.CONTENT_TYPE, "application/json"));
+		// 异步客户端不会自动解压, 由toResponse解压
+		if (responseCompression) {
+			headers.add(new BasicHeader(HttpHeaders.ACCEPT_ENCODING, ContentCodecs.acceptEncoding()));
+		}
+		return headers;
+	}
+
+	/**
+	 * H2C的所有请求与HTTP_2的https请求使用HTTP/2客户端
+	 */
+	private boolean isH2(String url) {
+		return protocol == HttpProtocol.H2C
+				|| (protocol == HttpProtocol.HTTP_2 && url.regionMatches(true, 0, "https:", 0, 6));
+	}
+
+	/**
+	 * 同步等待异步请求, 经典客户端只支持HTTP/1.1, 同步的HTTP/2请求由异步客户端执行
+	 */
+	private static Response await(CompletableFuture<Response> future) throws IOException, URISyntaxException {
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("request interrupted");
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof URISyntaxException) {
+				throw (URISyntaxException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	private void setEntity(HttpUriRequestBase httpRequest, Request request) throws IOException {
+		if (request.isForm()) {
+			httpRequest.setHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_FORM_URLENCODED.getMimeType());
+		}
+		else if (Objects.nonNull(request.getFile()) || Objects.nonNull(request.getBytes())) {
+			httpRequest.setHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_OCTET_STREAM.getMimeType());
+		}
+		HttpEntity entity = newEntity(request);
+		httpRequest.setEntity(isCompressible(entity) ? new CompressingEntity(entity, requestCodec) : entity);
+	}
+
+	private HttpEntity newEntity(Request request) throws IOException {
+		if (request.isForm()) {
+			return new StringEntity(UrlEncoder.form(request.getParams()), ContentType.APPLICATION_FORM_URLENCODED);
+		}
+		if (Objects.nonNull(request.getFile())) {
+			return new FileEntity(request.getFile().toFile(), ContentType.APPLICATION_OCTET_STREAM);
+		}
+		if (Objects.nonNull(request.getBytes())) {
+			return new ByteArrayEntity(request.getBytes(), ContentType.APPLICATION_OCTET_STREAM);
+		}
+		if (Objects.nonNull(request.getJson())) {
+			return new ByteArrayEntity(getJsonCodec().encode(request.getJson()), ContentType.APPLICATION_JSON);
+		}
+		if (Objects.nonNull(request.getBody())) {
+			return new StringEntity(request.getBody(), StandardCharsets.UTF_8);
+		}
+		return null;
+	}
+
+	/**
+	 * 请求体是否超过压缩阈值
+	 */
+	private boolean isCompressible(HttpEntity entity) {
+		return Objects.nonNull(requestCodec) && Objects.nonNull(entity)
+				&& entity.getContentLength() >= requestCompressionThreshold;
+	}
+
+	private static ContentType contentType(Request request) {
+		if (request.isForm()) {
+			return ContentType.APPLICATION_FORM_URLENCODED;
+		}
+		return Objects.nonNull(request.getFile()) || Objects.nonNull(request.getBytes())
+				? ContentType.APPLICATION_OCTET_STREAM : ContentType.APPLICATION_JSON;
+	}
+
+	/**
+	 * 参数编码后直接拼接, 只解析一次, url原有的查询串与编码保持不变
+	 * @param queryParams 是否将params拼接到url, 表单请求体为false
+	 */
+	private URI buildUri(Request request, boolean queryParams) throws URISyntaxException {
+		return new URI(queryParams ? UrlEncoder.appendQuery(request.getUrl(), request.getParams()) : request.getUrl());
+	}
+
+	private void addHeaders(HttpUriRequestBase request, Request source) {
+		Header[] headers = templateHeaders(source);
+		if (Objects.isNull(headers)) {
+			addHeaders(request, source.getHeaders());
+			return;
+		}
+		for (Header header : headers) {
+			request.setHeader(header);
+		}
+	}
+
+	/**
+	 * 由模板创建且请求头未被修改的请求, 复用缓存在模板上的请求头. Header不可变且与配置无关, 可在请求与client间共享
+	 * @return 请求头, 其余请求返回null
+	 */
+	private Header[] templateHeaders(Request request) {
+		RequestTemplate template = request.getTemplate();
+		if (Objects.isNull(template) || request.getHeaders() != template.getHeaders()) {
+			return null;
+		}
+		return template.attachment(ApacheHttpClientWrapper.class, t -> t.getHeaders().entrySet().stream()
+				.map(e -> new BasicHeader(e.getKey(), e.getValue())).toArray(Header[]::new));
 	}
 
 	private void addHeaders(HttpUriRequestBase request, Map<String, String> headers) {
@@ -189,9 +1018,126 @@ public class ApacheHttpClientWrapper implements HttpClientWrapper {
 		}
 	}
 
+	/**
+	 * 预热连接. HTTP/1.1路由直接从同步客户端的连接池租用连接并建连, 连接数受该路由的最大连接数限制; HTTP/2路由的连接由客户端内部管理,
+	 * 通过HEAD请求建立, 每个HTTP/2客户端一个连接. 异步客户端的HTTP/1.1连接池不预热
+	 */
+	@Override
+	public int warmUp(Collection<String> urls, int connections) throws InterruptedException {
+		List<Callable<Boolean>> tasks = new ArrayList<>();
+		List<ConnectionEndpoint> endpoints = Collections.synchronizedList(new ArrayList<>());
+		for (String url : urls) {
+			URI uri;
+			try {
+				uri = new URI(url);
+			}
+			catch (URISyntaxException e) {
+				log.warn("预热地址无效: {}", url);
+				continue;
+			}
+			if (isH2(url)) {
+				getH2Client();
+				for (CloseableHttpAsyncClient client : h2Clients) {
+					tasks.add(() -> warmUpH2(client, uri));
+				}
+			}
+			else {
+				HttpRoute route = httpRoute(uri);
+				int count = Math.min(connections, connectionManager.getMaxPerRoute(route));
+				for (int i = 0; i < count; i++) {
+					tasks.add(() -> warmUp(route, endpoints));
+				}
+			}
+		}
+		if (tasks.isEmpty()) {
+			return 0;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(tasks.size(), 16), runnable -> {
+			Thread thread = new Thread(runnable, "apache-httpclient-warmup");
+			thread.setDaemon(true);
+			return thread;
+		});
+		int warmed = 0;
+		try {
+			for (Future<Boolean> future : executor.invokeAll(tasks)) {
+				if (Boolean.TRUE.equals(getQuietly(future))) {
+					warmed++;
+				}
+			}
+		}
+		finally {
+			executor.shutdownNow();
+			// 全部建连后再归还, 否则后续任务会复用先归还的连接
+			for (ConnectionEndpoint endpoint : endpoints) {
+				connectionManager.release(endpoint, null, WARM_UP_KEEP_ALIVE);
+			}
+		}
+		log.info("连接预热完成, 成功{}个, 共{}个", warmed, tasks.size());
+		return warmed;
+	}
+
+	private boolean warmUp(HttpRoute route, List<ConnectionEndpoint> endpoints) throws InterruptedException {
+		Timeout requestTimeout = Timeout.ofMilliseconds(httpConfig.getConnectionRequestTimeout());
+		ConnectionEndpoint endpoint;
+		try {
+			endpoint = connectionManager.lease("warm-up", route, requestTimeout, null).get(requestTimeout);
+		}
+		catch (ExecutionException | TimeoutException e) {
+			log.warn("连接预热失败, 无法租用连接: {}", route.getTargetHost(), e);
+			return false;
+		}
+		try {
+			if (!endpoint.isConnected()) {
+				connectionManager.connect(endpoint, TimeValue.ofMilliseconds(httpConfig.getConnectTimeout()),
+						HttpClientContext.create());
+			}
+		}
+		catch (IOException | RuntimeException e) {
+			log.warn("连接预热失败: {}, {}", route.getTargetHost(), e.toString());
+			connectionManager.release(endpoint, null, null);
+			return false;
+		}
+		endpoints.add(endpoint);
+		return true;
+	}
+
+	private boolean warmUpH2(CloseableHttpAsyncClient client, URI uri) throws InterruptedException {
+		try {
+			client.execute(SimpleRequestBuilder.head(uri).build(), null)
+					.get(httpConfig.getConnectTimeout() + httpConfig.getSocketTimeout(), TimeUnit.MILLISECONDS);
+			return true;
+		}
+		catch (ExecutionException | TimeoutException e) {
+			log.warn("HTTP/2连接预热失败: {}, {}", HttpMetrics.route(uri), e.toString());
+			return false;
+		}
+	}
+
+	private static Boolean getQuietly(Future<Boolean> future) throws InterruptedException {
+		try {
+			return future.get();
+		}
+		catch (ExecutionException | CancellationException e) {
+			return false;
+		}
+	}
+
 	@Override
 	public void close() throws IOException {
+		if (Objects.nonNull(idleConnectionEvictor)) {
+			idleConnectionEvictor.shutdown();
+		}
 		httpClient.close();
+		CloseableHttpAsyncClient client = this.asyncClient;
+		if (Objects.nonNull(client)) {
+			client.close(CloseMode.GRACEFUL);
+		}
+		CloseableHttpAsyncClient[] clients = this.h2Clients;
+		if (Objects.nonNull(clients)) {
+			for (CloseableHttpAsyncClient h2Client : clients) {
+				h2Client.close(CloseMode.GRACEFUL);
+			}
+		}
 	}
 
 }
@@ -0,0 +1,120 @@
+package cn.idea360.commons.http.apache;
+
+import cn.idea360.commons.http.compression.CompressingInputStream;
+import cn.idea360.commons.http.compression.ContentCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.nio.StreamChannel;
+import org.apache.hc.core5.http.nio.entity.AbstractBinAsyncEntityProducer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * 异步压缩请求体, 每次输出时压缩一块数据, 不缓存整个请求体. 每次重试重新读取被包装的请求体
+ *
+ * @author cuishiying
+ */
+@Slf4j
+class CompressingAsyncEntityProducer extends AbstractBinAsyncEntityProducer {
+
+	private static final int CHUNK_SIZE = 8192;
+
+	private final HttpEntity entity;
+
+	private final ContentCodec codec;
+
+	private final byte[] chunk = new byte[CHUNK_SIZE];
+
+	private InputStream content;
+
+	private ByteBuffer pending;
+
+	/**
+	 * 构造方法
+	 * @param entity 原始请求体, 需可重复读取
+	 * @param contentType 请求体类型
+	 * @param codec 压缩编码
+	 */
+	CompressingAsyncEntityProducer(HttpEntity entity, ContentType contentType, ContentCodec codec) {
+		super(CHUNK_SIZE, contentType);
+		this.entity = entity;
+		this.codec = codec;
+	}
+
+	@Override
+	public String getContentEncoding() {
+		return codec.encoding();
+	}
+
+	@Override
+	public long getContentLength() {
+		return -1;
+	}
+
+	@Override
+	public boolean isChunked() {
+		return true;
+	}
+
+	@Override
+	public boolean isRepeatable() {
+		return entity.isRepeatable();
+	}
+
+	@Override
+	protected int availableData() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	protected void produceData(StreamChannel<ByteBuffer> channel) throws IOException {
+		if (Objects.isNull(content)) {
+			content = new CompressingInputStream(entity.getContent(), codec);
+		}
+		while (true) {
+			if (Objects.nonNull(pending) && pending.hasRemaining()) {
+				channel.write(pending);
+				// 输出缓冲区已满, 等待下次回调
+				if (pending.hasRemaining()) {
+					return;
+				}
+			}
+			int n = content.read(chunk);
+			if (n == -1) {
+				closeContent();
+				channel.endStream();
+				return;
+			}
+			pending = ByteBuffer.wrap(chunk, 0, n);
+		}
+	}
+
+	@Override
+	public void failed(Exception cause) {
+		releaseResources();
+	}
+
+	@Override
+	public void releaseResources() {
+		closeContent();
+		pending = null;
+		super.releaseResources();
+	}
+
+	private void closeContent() {
+		if (Objects.nonNull(content)) {
+			try {
+				content.close();
+			}
+			catch (IOException e) {
+				log.debug("close request content: " + e.getMessage());
+			}
+			content = null;
+		}
+	}
+
+}
@@ -0,0 +1,54 @@
+package cn.idea360.commons.http.apache;
+
+import cn.idea360.commons.http.compression.CompressingInputStream;
+import cn.idea360.commons.http.compression.ContentCodec;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 压缩请求体, 写出时边读边压缩, 不缓存整个请求体. 是否可重复与被包装的请求体一致
+ *
+ * @author cuishiying
+ */
+class CompressingEntity extends HttpEntityWrapper {
+
+	private final ContentCodec codec;
+
+	CompressingEntity(HttpEntity entity, ContentCodec codec) {
+		super(entity);
+		this.codec = codec;
+	}
+
+	@Override
+	public String getContentEncoding() {
+		return codec.encoding();
+	}
+
+	@Override
+	public long getContentLength() {
+		return -1;
+	}
+
+	@Override
+	public boolean isChunked() {
+		return true;
+	}
+
+	@Override
+	public InputStream getContent() throws IOException {
+		return new CompressingInputStream(super.getContent(), codec);
+	}
+
+	@Override
+	public void writeTo(OutputStream outStream) throws IOException {
+		OutputStream encoder = codec.encode(outStream);
+		super.writeTo(encoder);
+		// 只在请求体完整写出后关闭, 写出压缩流的结尾
+		encoder.close();
+	}
+
+}
@@ -2,24 +2,83 @@ package cn.idea360.commons.http.apache;
 
 import cn.idea360.commons.http.Response;
 import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.MessageHeaders;
 import org.apache.hc.core5.http.io.HttpClientResponseHandler;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * @author cuishiying
  */
 public class CustomResponseHandler implements HttpClientResponseHandler<Response> {
 
+	/**
+	 * 默认编码为UTF-8的mime类型, 与httpcore5内置的ContentType表一致
+	 */
+	private static final Set<String> UTF_8_MIME_TYPES = Set.of("application/json", "application/xml",
+			"application/atom+xml", "application/svg+xml", "application/xhtml+xml", "text/xml");
+
 	@Override
 	public Response handleResponse(ClassicHttpResponse response) throws HttpException, IOException {
 		int statusCode = response.getCode();
 		String reasonPhrase = response.getReasonPhrase();
-		String responseBody = Objects.isNull(response.getEntity()) ? null : EntityUtils.toString(response.getEntity());
-		return new Response(statusCode, reasonPhrase, responseBody);
+		HttpEntity entity = response.getEntity();
+		Response result;
+		if (Objects.isNull(entity)) {
+			result = new Response(statusCode, reasonPhrase, null);
+		}
+		else {
+			// 保留原始字节, 字符串在首次访问时再解码
+			byte[] responseBody = EntityUtils.toByteArray(entity);
+			result = new Response(statusCode, reasonPhrase, responseBody, charset(entity.getContentType()));
+		}
+		result.setHeaders(headers(response));
+		return result;
+	}
+
+	/**
+	 * 转换响应头
+	 * @param message 响应
+	 * @return 响应头, key忽略大小写
+	 */
+	static Map<String, List<String>> headers(MessageHeaders message) {
+		Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (Header header : message.getHeaders()) {
+			headers.computeIfAbsent(header.getName(), key -> new ArrayList<>(1)).add(header.getValue());
+		}
+		return headers;
+	}
+
+	/**
+	 * 解析响应编码, 与EntityUtils.toString一致: 优先Content-Type中的charset, 其次mime类型的默认编码,
+	 * 最后ISO-8859-1
+	 * @param contentType Content-Type
+	 * @return 编码
+	 */
+	static Charset charset(String contentType) {
+		ContentType type = ContentType.parseLenient(contentType);
+		if (Objects.isNull(type)) {
+			return StandardCharsets.ISO_8859_1;
+		}
+		if (Objects.nonNull(type.getCharset())) {
+			return type.getCharset();
+		}
+		return UTF_8_MIME_TYPES.contains(type.getMimeType().toLowerCase(Locale.ROOT)) ? StandardCharsets.UTF_8
+				: StandardCharsets.ISO_8859_1;
 	}
 
 }
@@ -0,0 +1,68 @@
+package cn.idea360.commons.http.apache;
+
+import cn.idea360.commons.http.Response;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * 文件下载响应处理器, 2xx响应体通过channel直接写入文件, 其余响应体作为body返回
+ *
+ * @author cuishiying
+ */
+public class FileResponseHandler implements HttpClientResponseHandler<Response> {
+
+	private final Path target;
+
+	/**
+	 * 构造方法
+	 * @param target 目标文件
+	 */
+	public FileResponseHandler(Path target) {
+		this.target = target;
+	}
+
+	@Override
+	public Response handleResponse(ClassicHttpResponse response) throws HttpException, IOException {
+		int statusCode = response.getCode();
+		String reasonPhrase = response.getReasonPhrase();
+		HttpEntity entity = response.getEntity();
+		Response result;
+		if (Objects.isNull(entity)) {
+			result = new Response(statusCode, reasonPhrase, null);
+			result.setHeaders(CustomResponseHandler.headers(response));
+			return result;
+		}
+		if (statusCode / 100 != 2) {
+			result = new Response(statusCode, reasonPhrase, EntityUtils.toByteArray(entity),
+					CustomResponseHandler.charset(entity.getContentType()));
+			result.setHeaders(CustomResponseHandler.headers(response));
+			return result;
+		}
+		try (InputStream inputStream = entity.getContent();
+				ReadableByteChannel source = Channels.newChannel(inputStream);
+				FileChannel fileChannel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+			long position = 0;
+			long transferred;
+			while ((transferred = fileChannel.transferFrom(source, position, Long.MAX_VALUE)) > 0) {
+				position += transferred;
+			}
+		}
+		result = new Response(statusCode, reasonPhrase, null);
+		result.setHeaders(CustomResponseHandler.headers(response));
+		return result;
+	}
+
+}
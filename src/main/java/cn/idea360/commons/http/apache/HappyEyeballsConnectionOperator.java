@@ -0,0 +1,122 @@
+package cn.idea360.commons.http.apache;
+
+import cn.idea360.commons.http.dns.HappyEyeballs;
+import org.apache.hc.client5.http.ConnectExceptionSupport;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.UnsupportedSchemeException;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.io.DefaultHttpClientConnectionOperator;
+import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.config.Lookup;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.util.Objects;
+
+/**
+ * 多地址时使用{@link HappyEyeballs}并行建连的连接器. 默认实现按解析顺序逐个尝试, 不通的地址要等到连接超时才会尝试下一个.
+ * 单个地址、已指定IP或使用socks代理时退回默认实现
+ *
+ * @author cuishiying
+ */
+public class HappyEyeballsConnectionOperator extends DefaultHttpClientConnectionOperator {
+
+	private final Lookup<ConnectionSocketFactory> socketFactoryRegistry;
+
+	private final DnsResolver dnsResolver;
+
+	private final long attemptDelay;
+
+	/**
+	 * 构造方法
+	 * @param socketFactoryRegistry socket工厂
+	 * @param dnsResolver 域名解析
+	 * @param attemptDelay 连接尝试间隔(ms)
+	 */
+	public HappyEyeballsConnectionOperator(Lookup<ConnectionSocketFactory> socketFactoryRegistry,
+			DnsResolver dnsResolver, long attemptDelay) {
+		super(socketFactoryRegistry, DefaultSchemePortResolver.INSTANCE, dnsResolver);
+		this.socketFactoryRegistry = socketFactoryRegistry;
+		this.dnsResolver = dnsResolver;
+		this.attemptDelay = attemptDelay;
+	}
+
+	@Override
+	public void connect(ManagedHttpClientConnection conn, HttpHost host, InetSocketAddress localAddress,
+			Timeout connectTimeout, SocketConfig socketConfig, Object attachment, HttpContext context)
+			throws IOException {
+		if (Objects.nonNull(host.getAddress()) || Objects.nonNull(socketConfig.getSocksProxyAddress())) {
+			super.connect(conn, host, localAddress, connectTimeout, socketConfig, attachment, context);
+			return;
+		}
+		InetAddress[] addresses = dnsResolver.resolve(host.getHostName());
+		if (Objects.isNull(addresses) || addresses.length == 0) {
+			throw new UnknownHostException(host.getHostName());
+		}
+		if (addresses.length == 1) {
+			// 指定已解析的地址, 避免重复解析, TLS仍使用域名校验
+			super.connect(conn, new HttpHost(host.getSchemeName(), addresses[0], host.getHostName(), host.getPort()),
+					localAddress, connectTimeout, socketConfig, attachment, context);
+			return;
+		}
+		ConnectionSocketFactory socketFactory = socketFactoryRegistry.lookup(host.getSchemeName());
+		if (Objects.isNull(socketFactory)) {
+			throw new UnsupportedSchemeException(host.getSchemeName() + " protocol is not supported");
+		}
+		int port = DefaultSchemePortResolver.INSTANCE.resolve(host);
+		Socket socket;
+		try {
+			socket = HappyEyeballs.connect(addresses, attemptDelay, new HappyEyeballs.SocketConnector() {
+
+				@Override
+				public Socket createSocket() throws IOException {
+					return configure(socketFactory.createSocket(context), socketConfig);
+				}
+
+				@Override
+				public Socket connect(Socket socket, InetAddress address) throws IOException {
+					return socketFactory.connectSocket(socket, host, new InetSocketAddress(address, port), localAddress,
+							connectTimeout, attachment, context);
+				}
+
+			});
+		}
+		catch (IOException e) {
+			throw ConnectExceptionSupport.enhance(e, host, addresses);
+		}
+		conn.bind(socket);
+		conn.setSocketTimeout(socketConfig.getSoTimeout());
+	}
+
+	/**
+	 * 与默认实现相同的socket设置
+	 */
+	private static Socket configure(Socket socket, SocketConfig socketConfig) throws IOException {
+		if (Objects.nonNull(socketConfig.getSoTimeout())) {
+			socket.setSoTimeout(socketConfig.getSoTimeout().toMillisecondsIntBound());
+		}
+		socket.setReuseAddress(socketConfig.isSoReuseAddress());
+		socket.setTcpNoDelay(socketConfig.isTcpNoDelay());
+		socket.setKeepAlive(socketConfig.isSoKeepAlive());
+		if (socketConfig.getRcvBufSize() > 0) {
+			socket.setReceiveBufferSize(socketConfig.getRcvBufSize());
+		}
+		if (socketConfig.getSndBufSize() > 0) {
+			socket.setSendBufferSize(socketConfig.getSndBufSize());
+		}
+		int linger = socketConfig.getSoLinger().toMillisecondsIntBound();
+		if (linger >= 0) {
+			socket.setSoLinger(true, linger);
+		}
+		return socket;
+	}
+
+}
@@ -0,0 +1,37 @@
+package cn.idea360.commons.http.apache;
+
+import cn.idea360.commons.http.dns.HostResolver;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * 将{@link HostResolver}适配为Apache的DnsResolver
+ *
+ * @author cuishiying
+ */
+public class HostResolverDnsResolver implements DnsResolver {
+
+	private final HostResolver hostResolver;
+
+	/**
+	 * 构造方法
+	 * @param hostResolver 域名解析
+	 */
+	public HostResolverDnsResolver(HostResolver hostResolver) {
+		this.hostResolver = hostResolver;
+	}
+
+	@Override
+	public InetAddress[] resolve(String host) throws UnknownHostException {
+		return hostResolver.resolve(host);
+	}
+
+	@Override
+	public String resolveCanonicalHostname(String host) throws UnknownHostException {
+		return SystemDefaultDnsResolver.INSTANCE.resolveCanonicalHostname(host);
+	}
+
+}
@@ -0,0 +1,70 @@
+package cn.idea360.commons.http.apache;
+
+import cn.idea360.commons.http.metrics.HttpMetrics;
+import org.apache.hc.client5.http.HttpRequestRetryStrategy;
+import org.apache.hc.client5.http.RouteInfo;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * 重试策略装饰器, 在决定重试时上报{@link HttpMetrics#requestRetried}
+ *
+ * @author cuishiying
+ */
+public class MetricsRetryStrategy implements HttpRequestRetryStrategy {
+
+	private final HttpRequestRetryStrategy retryStrategy;
+
+	private final HttpMetrics metrics;
+
+	/**
+	 * 构造方法
+	 * @param retryStrategy 被装饰的重试策略
+	 * @param metrics 指标采集
+	 */
+	public MetricsRetryStrategy(HttpRequestRetryStrategy retryStrategy, HttpMetrics metrics) {
+		this.retryStrategy = retryStrategy;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public boolean retryRequest(HttpRequest request, IOException exception, int execCount, HttpContext context) {
+		boolean retry = retryStrategy.retryRequest(request, exception, execCount, context);
+		if (retry) {
+			metrics.requestRetried(request.getMethod(), route(context), execCount);
+		}
+		return retry;
+	}
+
+	@Override
+	public boolean retryRequest(HttpResponse response, int execCount, HttpContext context) {
+		boolean retry = retryStrategy.retryRequest(response, execCount, context);
+		if (retry) {
+			HttpRequest request = HttpClientContext.adapt(context).getRequest();
+			metrics.requestRetried(Objects.nonNull(request) ? request.getMethod() : null, route(context), execCount);
+		}
+		return retry;
+	}
+
+	@Override
+	public TimeValue getRetryInterval(HttpRequest request, IOException exception, int execCount, HttpContext context) {
+		return retryStrategy.getRetryInterval(request, exception, execCount, context);
+	}
+
+	@Override
+	public TimeValue getRetryInterval(HttpResponse response, int execCount, HttpContext context) {
+		return retryStrategy.getRetryInterval(response, execCount, context);
+	}
+
+	private static String route(HttpContext context) {
+		RouteInfo route = HttpClientContext.adapt(context).getHttpRoute();
+		return Objects.nonNull(route) ? route.getTargetHost().toURI() : null;
+	}
+
+}
@@ -0,0 +1,63 @@
+package cn.idea360.commons.http.apache;
+
+import cn.idea360.commons.http.retry.RetryPolicy;
+import org.apache.hc.client5.http.HttpRequestRetryStrategy;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.CancellableDependency;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * 将{@link RetryPolicy}适配为Apache的重试策略, 同步与异步客户端共用同一个策略与重试预算
+ *
+ * @author cuishiying
+ */
+public class RetryPolicyStrategy implements HttpRequestRetryStrategy {
+
+	private final RetryPolicy retryPolicy;
+
+	/**
+	 * 构造方法
+	 * @param retryPolicy 重试策略
+	 */
+	public RetryPolicyStrategy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
+
+	@Override
+	public boolean retryRequest(HttpRequest request, IOException exception, int execCount, HttpContext context) {
+		if (request instanceof CancellableDependency && ((CancellableDependency) request).isCancelled()) {
+			return false;
+		}
+		return retryPolicy.retryRequest(request.getMethod(), exception, execCount);
+	}
+
+	@Override
+	public boolean retryRequest(HttpResponse response, int execCount, HttpContext context) {
+		HttpRequest request = HttpClientContext.adapt(context).getRequest();
+		return Objects.nonNull(request)
+				&& retryPolicy.retryRequest(request.getMethod(), response.getCode(), retryAfter(response), execCount);
+	}
+
+	@Override
+	public TimeValue getRetryInterval(HttpRequest request, IOException exception, int execCount, HttpContext context) {
+		return TimeValue.ofMilliseconds(retryPolicy.getRetryInterval(execCount, null).toMillis());
+	}
+
+	@Override
+	public TimeValue getRetryInterval(HttpResponse response, int execCount, HttpContext context) {
+		return TimeValue.ofMilliseconds(retryPolicy.getRetryInterval(execCount, retryAfter(response)).toMillis());
+	}
+
+	private static String retryAfter(HttpResponse response) {
+		return Objects.nonNull(response.getFirstHeader(HttpHeaders.RETRY_AFTER))
+				? response.getFirstHeader(HttpHeaders.RETRY_AFTER).getValue() : null;
+	}
+
+}
@@ -0,0 +1,158 @@
+package cn.idea360.commons.http.apache;
+
+import cn.idea360.commons.http.Response;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.support.classic.SharedInputBuffer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * 流式响应消费者, 响应头到达即通过headCallback返回, 响应体通过有界缓冲区按需读取(读取速度反向控制网络接收窗口). 底层请求直到响应体接收完毕才结束,
+ * 因此提前关闭流可以取消请求并丢弃连接
+ *
+ * @author cuishiying
+ */
+public class StreamingResponseConsumer implements AsyncResponseConsumer<Response> {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final SharedInputBuffer buffer = new SharedInputBuffer(BUFFER_SIZE);
+
+	private final Consumer<Response> headCallback;
+
+	private Response result;
+
+	private FutureCallback<Response> resultCallback;
+
+	private volatile Exception failure;
+
+	private volatile Future<?> execution;
+
+	private volatile boolean closed;
+
+	/**
+	 * 构造方法
+	 * @param headCallback 响应头到达时的回调
+	 */
+	public StreamingResponseConsumer(Consumer<Response> headCallback) {
+		this.headCallback = headCallback;
+	}
+
+	/**
+	 * 绑定底层请求, 提前关闭流时取消请求以释放连接
+	 * @param execution 底层请求
+	 */
+	public void setExecution(Future<?> execution) {
+		this.execution = execution;
+		if (closed && !buffer.isEndStream()) {
+			execution.cancel(true);
+		}
+	}
+
+	@Override
+	public void consumeResponse(HttpResponse response, EntityDetails entityDetails, HttpContext context,
+			FutureCallback<Response> resultCallback) {
+		this.result = new Response(response.getCode(), response.getReasonPhrase(), null);
+		result.setHeaders(CustomResponseHandler.headers(response));
+		if (Objects.nonNull(entityDetails)) {
+			result.setContent(new ContentStream());
+			this.resultCallback = resultCallback;
+			headCallback.accept(result);
+		}
+		else {
+			buffer.markEndStream();
+			headCallback.accept(result);
+			resultCallback.completed(result);
+		}
+	}
+
+	@Override
+	public void informationResponse(HttpResponse response, HttpContext context) {
+	}
+
+	@Override
+	public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+		buffer.updateCapacity(capacityChannel);
+	}
+
+	@Override
+	public void consume(ByteBuffer src) {
+		buffer.fill(src);
+	}
+
+	@Override
+	public void streamEnd(List<? extends Header> trailers) {
+		buffer.markEndStream();
+		if (Objects.nonNull(resultCallback)) {
+			resultCallback.completed(result);
+		}
+	}
+
+	@Override
+	public void failed(Exception cause) {
+		this.failure = cause;
+		buffer.abort();
+	}
+
+	@Override
+	public void releaseResources() {
+	}
+
+	private class ContentStream extends InputStream {
+
+		@Override
+		public int read() throws IOException {
+			return checkFailure(buffer.read());
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			return checkFailure(buffer.read(b, off, len));
+		}
+
+		@Override
+		public int available() {
+			return buffer.length();
+		}
+
+		@Override
+		public void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			if (!buffer.isEndStream()) {
+				buffer.abort();
+				Future<?> future = execution;
+				if (Objects.nonNull(future)) {
+					future.cancel(true);
+				}
+			}
+		}
+
+		private int checkFailure(int result) throws IOException {
+			Exception cause = failure;
+			if (result == -1 && Objects.nonNull(cause)) {
+				throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+			}
+			return result;
+		}
+
+	}
+
+}
@@ -0,0 +1,136 @@
+package cn.idea360.commons.http.apache;
+
+import cn.idea360.commons.http.ConnectionLimiter;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 适配虚拟线程的连接管理器. PoolingHttpClientConnectionManager在synchronized方法中等待空闲连接,
+ * 会导致虚拟线程pin住载体线程. 这里在租用连接前先通过{@link ConnectionLimiter}排队, 许可与连接一一对应, 拿到许可后连接池不再需要等待
+ *
+ * @author cuishiying
+ */
+public class VirtualThreadConnectionManager implements HttpClientConnectionManager {
+
+	private final HttpClientConnectionManager connectionManager;
+
+	private final ConnectionLimiter limiter;
+
+	private final Map<ConnectionEndpoint, String> leased = new ConcurrentHashMap<>();
+
+	/**
+	 * 构造方法
+	 * @param connectionManager 实际的连接管理器
+	 * @param maxTotal 最大连接数, 与连接池保持一致
+	 * @param maxPerRoute 每个路由最大连接数, 与连接池保持一致
+	 */
+	public VirtualThreadConnectionManager(HttpClientConnectionManager connectionManager, int maxTotal,
+			int maxPerRoute) {
+		this(connectionManager, maxTotal, maxPerRoute, null);
+	}
+
+	/**
+	 * 构造方法, 允许按路由覆盖最大连接数
+	 * @param connectionManager 实际的连接管理器
+	 * @param maxTotal 最大连接数, 与连接池保持一致
+	 * @param maxPerRoute 每个路由默认最大连接数, 与连接池保持一致
+	 * @param routeOverrides 按路由覆盖的最大连接数, 与连接池保持一致
+	 */
+	public VirtualThreadConnectionManager(HttpClientConnectionManager connectionManager, int maxTotal, int maxPerRoute,
+			Map<String, Integer> routeOverrides) {
+		this.connectionManager = connectionManager;
+		this.limiter = new ConnectionLimiter(maxTotal, maxPerRoute, routeOverrides);
+	}
+
+	@Override
+	public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+		String key = route.getTargetHost().toURI();
+		return new LeaseRequest() {
+
+			private volatile LeaseRequest leaseRequest;
+
+			private volatile boolean cancelled;
+
+			@Override
+			public ConnectionEndpoint get(Timeout timeout)
+					throws InterruptedException, ExecutionException, TimeoutException {
+				long timeoutMillis = Objects.isNull(timeout) || timeout.isDisabled() ? 0 : timeout.toMilliseconds();
+				if (!limiter.acquire(key, timeoutMillis)) {
+					throw new TimeoutException("Timeout deadline: " + timeout + ", route: " + key);
+				}
+				boolean success = false;
+				try {
+					if (cancelled) {
+						throw new InterruptedException("Lease request cancelled");
+					}
+					leaseRequest = connectionManager.lease(id, route, requestTimeout, state);
+					ConnectionEndpoint endpoint = leaseRequest.get(timeout);
+					leased.put(endpoint, key);
+					success = true;
+					return endpoint;
+				}
+				finally {
+					if (!success) {
+						limiter.release(key);
+					}
+				}
+			}
+
+			@Override
+			public boolean cancel() {
+				cancelled = true;
+				LeaseRequest request = leaseRequest;
+				return Objects.isNull(request) || request.cancel();
+			}
+
+		};
+	}
+
+	@Override
+	public void release(ConnectionEndpoint endpoint, Object newState, TimeValue validDuration) {
+		String key = leased.remove(endpoint);
+		try {
+			connectionManager.release(endpoint, newState, validDuration);
+		}
+		finally {
+			// 连接归还连接池后再释放许可, 保证下一个获得许可的线程可以立即租到连接
+			if (Objects.nonNull(key)) {
+				limiter.release(key);
+			}
+		}
+	}
+
+	@Override
+	public void connect(ConnectionEndpoint endpoint, TimeValue connectTimeout, HttpContext context) throws IOException {
+		connectionManager.connect(endpoint, connectTimeout, context);
+	}
+
+	@Override
+	public void upgrade(ConnectionEndpoint endpoint, HttpContext context) throws IOException {
+		connectionManager.upgrade(endpoint, context);
+	}
+
+	@Override
+	public void close(CloseMode closeMode) {
+		connectionManager.close(closeMode);
+	}
+
+	@Override
+	public void close() throws IOException {
+		connectionManager.close();
+	}
+
+}
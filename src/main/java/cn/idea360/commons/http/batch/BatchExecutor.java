@@ -0,0 +1,348 @@
+package cn.idea360.commons.http.batch;
+
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.HttpMethod;
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.Response;
+import cn.idea360.commons.http.metrics.HttpMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 批量执行: 请求按路由分组, 各路由轮流发出, 总并发与每个路由的并发都有上限, 使连接池保持饱和而不在单个host上排队. 基于client的异步接口, 不占用额外线程,
+ * 请求完成时在完成线程上补发下一个请求
+ *
+ * @author cuishiying
+ */
+@Slf4j
+public final class BatchExecutor {
+
+	/**
+	 * 截止时间的定时任务, 批量完成时取消. 只负责把中断交给公共线程池执行, 监听器回调不占用定时线程
+	 */
+	private static final ScheduledThreadPoolExecutor DEADLINE_SCHEDULER;
+
+	static {
+		DEADLINE_SCHEDULER = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "batch-deadline");
+			thread.setDaemon(true);
+			return thread;
+		});
+		DEADLINE_SCHEDULER.setRemoveOnCancelPolicy(true);
+	}
+
+	private BatchExecutor() {
+	}
+
+	/**
+	 * 批量执行
+	 * @param client 执行请求的client
+	 * @param method 请求方法
+	 * @param requests 请求
+	 * @param options 配置
+	 * @return 与请求一一对应的结果, 所有请求完成(或超过截止时间)后完成, 不会异常完成; 取消时停止发送并取消执行中的请求
+	 */
+	public static CompletableFuture<List<BatchResult>> execute(HttpClientWrapper client, HttpMethod method,
+			List<Request> requests, BatchOptions options) {
+		if (requests.isEmpty()) {
+			return CompletableFuture.completedFuture(Collections.emptyList());
+		}
+		return new Batch(client, method, requests, Objects.isNull(options) ? new BatchOptions() : options).start();
+	}
+
+	private static final class Batch {
+
+		private final HttpClientWrapper client;
+
+		private final HttpMethod method;
+
+		private final Request[] requests;
+
+		private final BatchOptions options;
+
+		private final int maxConcurrencyPerHost;
+
+		private final BatchResult[] results;
+
+		/**
+		 * 执行中的请求, 用于截止时取消
+		 */
+		private final CompletableFuture<?>[] running;
+
+		private final Host[] hostOf;
+
+		private final List<Host> hosts;
+
+		/**
+		 * 有待发请求且未达并发上限的路由, 轮流取用
+		 */
+		private final ArrayDeque<Host> ready = new ArrayDeque<>();
+
+		private final CompletableFuture<List<BatchResult>> done = new CompletableFuture<>();
+
+		private final Lock lock = new ReentrantLock();
+
+		/**
+		 * 补发循环的重入计数, 立即完成的请求不会递归补发
+		 */
+		private final AtomicInteger wip = new AtomicInteger();
+
+		private int inFlight;
+
+		private int completed;
+
+		private Throwable abortCause;
+
+		Batch(HttpClientWrapper client, HttpMethod method, List<Request> requests, BatchOptions options) {
+			this.client = client;
+			this.method = method;
+			this.requests = requests.toArray(new Request[0]);
+			this.options = options;
+			this.maxConcurrencyPerHost = Math.max(1, options.getMaxConcurrencyPerHost());
+			this.results = new BatchResult[this.requests.length];
+			this.running = new CompletableFuture<?>[this.requests.length];
+			this.hostOf = new Host[this.requests.length];
+			Map<String, Host> hosts = new HashMap<>();
+			for (int i = 0; i < this.requests.length; i++) {
+				Host host = hosts.computeIfAbsent(route(this.requests[i]), route -> new Host());
+				host.pending.add(i);
+				hostOf[i] = host;
+			}
+			this.hosts = new ArrayList<>(hosts.values());
+			for (Host host : this.hosts) {
+				host.queued = true;
+				ready.add(host);
+			}
+		}
+
+		CompletableFuture<List<BatchResult>> start() {
+			if (options.getDeadline() > 0) {
+				ScheduledFuture<?> deadline = DEADLINE_SCHEDULER.schedule(
+						() -> ForkJoinPool.commonPool().execute(this::deadlineExceeded), options.getDeadline(),
+						TimeUnit.MILLISECONDS);
+				done.whenComplete((results, ex) -> deadline.cancel(false));
+			}
+			done.whenComplete((results, ex) -> {
+				if (done.isCancelled()) {
+					abort(new CancellationException("batch cancelled"));
+				}
+			});
+			drain();
+			return done;
+		}
+
+		private void drain() {
+			if (wip.getAndIncrement() != 0) {
+				return;
+			}
+			List<Integer> launches = new ArrayList<>();
+			do {
+				lock.lock();
+				try {
+					int maxConcurrency = Math.max(1, options.getMaxConcurrency());
+					while (Objects.isNull(abortCause) && inFlight < maxConcurrency && !ready.isEmpty()) {
+						Host host = ready.poll();
+						launches.add(host.pending.poll());
+						host.running++;
+						inFlight++;
+						host.queued = !host.pending.isEmpty() && host.running < maxConcurrencyPerHost;
+						if (host.queued) {
+							ready.add(host);
+						}
+					}
+				}
+				finally {
+					lock.unlock();
+				}
+				for (int index : launches) {
+					launch(index);
+				}
+				launches.clear();
+			}
+			while (wip.decrementAndGet() != 0);
+		}
+
+		private void launch(int index) {
+			CompletableFuture<Response> future;
+			try {
+				future = send(requests[index]);
+			}
+			catch (RuntimeException e) {
+				future = CompletableFuture.failedFuture(e);
+			}
+			boolean aborted;
+			lock.lock();
+			try {
+				aborted = Objects.nonNull(abortCause);
+				if (!aborted && Objects.isNull(results[index])) {
+					running[index] = future;
+				}
+			}
+			finally {
+				lock.unlock();
+			}
+			if (aborted) {
+				future.cancel(true);
+			}
+			future.whenComplete((response, ex) -> complete(index, response, ex));
+		}
+
+		private CompletableFuture<Response> send(Request request) {
+			switch (method) {
+			case GET:
+				return client.getAsync(request);
+			case POST:
+				return client.postAsync(request);
+			case PUT:
+				return client.putAsync(request);
+			case PATCH:
+				return client.patchAsync(request);
+			default:
+				return client.deleteAsync(request);
+			}
+		}
+
+		private void complete(int index, Response response, Throwable ex) {
+			if (ex instanceof CompletionException && Objects.nonNull(ex.getCause())) {
+				ex = ex.getCause();
+			}
+			BatchResult result;
+			boolean finished;
+			lock.lock();
+			try {
+				if (Objects.nonNull(results[index])) {
+					return;
+				}
+				if (Objects.nonNull(ex) && Objects.nonNull(abortCause)) {
+					// 被截止或取消中断的请求统一报告中断原因
+					ex = abortCause;
+				}
+				result = new BatchResult(index, requests[index], Objects.isNull(ex) ? response : null, ex);
+				results[index] = result;
+				running[index] = null;
+				completed++;
+				inFlight--;
+				Host host = hostOf[index];
+				host.running--;
+				if (!host.queued && !host.pending.isEmpty()) {
+					host.queued = true;
+					ready.add(host);
+				}
+				finished = completed == results.length;
+			}
+			finally {
+				lock.unlock();
+			}
+			notifyListener(result);
+			if (finished) {
+				done.complete(Collections.unmodifiableList(Arrays.asList(results)));
+			}
+			else {
+				drain();
+			}
+		}
+
+		private void deadlineExceeded() {
+			abort(new TimeoutException("batch deadline exceeded: " + options.getDeadline() + "ms"));
+		}
+
+		/**
+		 * 未发送的请求直接以cause失败, 执行中的请求被取消
+		 */
+		private void abort(Throwable cause) {
+			List<BatchResult> aborted = new ArrayList<>();
+			List<CompletableFuture<?>> cancels = new ArrayList<>();
+			boolean finished;
+			lock.lock();
+			try {
+				if (Objects.nonNull(abortCause) || completed == results.length) {
+					return;
+				}
+				abortCause = cause;
+				for (Host host : hosts) {
+					while (!host.pending.isEmpty()) {
+						int index = host.pending.poll();
+						results[index] = new BatchResult(index, requests[index], null, cause);
+						aborted.add(results[index]);
+						completed++;
+					}
+				}
+				for (CompletableFuture<?> future : running) {
+					if (Objects.nonNull(future)) {
+						cancels.add(future);
+					}
+				}
+				ready.clear();
+				finished = completed == results.length;
+			}
+			finally {
+				lock.unlock();
+			}
+			log.warn("批量请求中断: {}, 未发送{}个, 取消执行中{}个", cause.getMessage(), aborted.size(), cancels.size());
+			aborted.forEach(this::notifyListener);
+			cancels.forEach(future -> future.cancel(true));
+			if (finished) {
+				done.complete(Collections.unmodifiableList(Arrays.asList(results)));
+			}
+		}
+
+		private void notifyListener(BatchResult result) {
+			BatchListener listener = options.getListener();
+			if (Objects.isNull(listener)) {
+				return;
+			}
+			try {
+				listener.onComplete(result);
+			}
+			catch (RuntimeException e) {
+				log.error("批量请求回调异常, index: {}", result.getIndex(), e);
+			}
+		}
+
+		private static String route(Request request) {
+			try {
+				return HttpMetrics.route(new URI(request.getUrl()));
+			}
+			catch (URISyntaxException | RuntimeException e) {
+				// 非法url单独分组, 由client报告异常
+				return "";
+			}
+		}
+
+	}
+
+	private static final class Host {
+
+		private final ArrayDeque<Integer> pending = new ArrayDeque<>();
+
+		private int running;
+
+		/**
+		 * 是否在ready队列中
+		 */
+		private boolean queued;
+
+	}
+
+}
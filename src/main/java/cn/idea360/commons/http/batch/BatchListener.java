@@ -0,0 +1,17 @@
+package cn.idea360.commons.http.batch;
+
+/**
+ * 批量执行中单个请求完成的回调
+ *
+ * @author cuishiying
+ */
+@FunctionalInterface
+public interface BatchListener {
+
+	/**
+	 * 请求完成, 成功或失败都会回调且只回调一次
+	 * @param result 结果
+	 */
+	void onComplete(BatchResult result);
+
+}
@@ -0,0 +1,33 @@
+package cn.idea360.commons.http.batch;
+
+import lombok.Data;
+
+/**
+ * 批量执行配置
+ *
+ * @author cuishiying
+ */
+@Data
+public class BatchOptions {
+
+	/**
+	 * 整个批次同时执行的最大请求数
+	 */
+	private int maxConcurrency = 100;
+
+	/**
+	 * 每个路由(scheme+host+port)同时执行的最大请求数, 通常与连接池的defaultMaxPerRoute一致, HTTP/2多路复用时可适当增大
+	 */
+	private int maxConcurrencyPerHost = 20;
+
+	/**
+	 * 整个批次的截止时间(ms), 超时后未开始的请求不再发送, 执行中的请求被取消, 均以TimeoutException失败. 小于等于0时不限制
+	 */
+	private long deadline = 0;
+
+	/**
+	 * 单个请求完成时的回调, 按完成顺序调用, 在完成请求的线程(通常为IO线程)上执行, 不应阻塞
+	 */
+	private BatchListener listener;
+
+}
@@ -0,0 +1,49 @@
+package cn.idea360.commons.http.batch;
+
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.Response;
+import lombok.Getter;
+
+import java.util.Objects;
+
+/**
+ * 批量执行中单个请求的结果, response与error有且只有一个不为空
+ *
+ * @author cuishiying
+ */
+@Getter
+public class BatchResult {
+
+	/**
+	 * 请求在批次中的下标
+	 */
+	private final int index;
+
+	private final Request request;
+
+	/**
+	 * 响应, 非2xx同样视为成功收到响应
+	 */
+	private final Response response;
+
+	/**
+	 * 异常, 超过批次截止时间时为TimeoutException
+	 */
+	private final Throwable error;
+
+	BatchResult(int index, Request request, Response response, Throwable error) {
+		this.index = index;
+		this.request = request;
+		this.response = response;
+		this.error = error;
+	}
+
+	/**
+	 * 是否收到响应
+	 * @return true收到响应
+	 */
+	public boolean isSuccess() {
+		return Objects.isNull(error);
+	}
+
+}
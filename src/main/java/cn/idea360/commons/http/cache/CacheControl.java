@@ -0,0 +1,89 @@
+package cn.idea360.commons.http.cache;
+
+import lombok.Getter;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Cache-Control指令解析(RFC 9111 5.2), 仅保留客户端缓存需要的指令
+ *
+ * @author cuishiying
+ */
+@Getter
+public class CacheControl {
+
+	private static final CacheControl EMPTY = new CacheControl();
+
+	private boolean noStore;
+
+	private boolean noCache;
+
+	private boolean mustRevalidate;
+
+	private boolean isPublic;
+
+	/**
+	 * max-age(s), 未设置时为-1
+	 */
+	private long maxAge = -1;
+
+	/**
+	 * s-maxage(s), 未设置时为-1
+	 */
+	private long sMaxAge = -1;
+
+	private CacheControl() {
+	}
+
+	/**
+	 * 解析Cache-Control
+	 * @param value 头部值, 可以为null
+	 * @return 指令
+	 */
+	public static CacheControl parse(String value) {
+		if (Objects.isNull(value) || value.isEmpty()) {
+			return EMPTY;
+		}
+		CacheControl cacheControl = new CacheControl();
+		for (String directive : value.split(",")) {
+			int index = directive.indexOf('=');
+			String name = (index < 0 ? directive : directive.substring(0, index)).trim().toLowerCase(Locale.ROOT);
+			String argument = index < 0 ? null : directive.substring(index + 1).trim().replace("\"", "");
+			switch (name) {
+			case "no-store":
+				cacheControl.noStore = true;
+				break;
+			case "no-cache":
+				cacheControl.noCache = true;
+				break;
+			case "must-revalidate":
+				cacheControl.mustRevalidate = true;
+				break;
+			case "public":
+				cacheControl.isPublic = true;
+				break;
+			case "max-age":
+				cacheControl.maxAge = parseSeconds(argument);
+				break;
+			case "s-maxage":
+				cacheControl.sMaxAge = parseSeconds(argument);
+				break;
+			default:
+				break;
+			}
+		}
+		return cacheControl;
+	}
+
+	private static long parseSeconds(String argument) {
+		try {
+			return Objects.isNull(argument) ? 0 : Math.max(0, Long.parseLong(argument));
+		}
+		catch (NumberFormatException e) {
+			// 无法解析的max-age按已过期处理
+			return 0;
+		}
+	}
+
+}
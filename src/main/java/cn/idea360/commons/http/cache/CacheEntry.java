@@ -0,0 +1,369 @@
+package cn.idea360.commons.http.cache;
+
+import cn.idea360.commons.http.Response;
+import lombok.Getter;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * 缓存条目, 保存响应及计算新鲜度(RFC 9111 4.2)所需的时间信息
+ *
+ * @author cuishiying
+ */
+@Getter
+public class CacheEntry {
+
+	/**
+	 * 估算的对象头及字段开销, 用于按字节淘汰
+	 */
+	private static final int OVERHEAD = 256;
+
+	private final int statusCode;
+
+	private final String reasonPhrase;
+
+	private final byte[] body;
+
+	private final String charset;
+
+	private final TreeMap<String, List<String>> headers;
+
+	/**
+	 * Vary指定的请求头及其取值
+	 */
+	private final TreeMap<String, String> varyHeaders;
+
+	/**
+	 * 响应接收时间(ms)
+	 */
+	private final long responseTime;
+
+	/**
+	 * 响应进入缓存时已有的age(ms), 即corrected_initial_age
+	 */
+	private final long initialAge;
+
+	private final long freshnessLifetime;
+
+	CacheEntry(Response response, Map<String, String> varyHeaders, long requestTime, long responseTime) {
+		this(response.getStatusCode(), response.getReasonPhrase(), response.getBytes(), response.getCharset(),
+				copy(response.getHeaders()), varyHeaders, requestTime, responseTime);
+	}
+
+	private CacheEntry(int statusCode, String reasonPhrase, byte[] body, Charset charset,
+			TreeMap<String, List<String>> headers, Map<String, String> varyHeaders, long requestTime,
+			long responseTime) {
+		this.statusCode = statusCode;
+		this.reasonPhrase = reasonPhrase;
+		this.body = body;
+		this.charset = charset.name();
+		this.headers = headers;
+		this.varyHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		this.varyHeaders.putAll(varyHeaders);
+		this.responseTime = responseTime;
+		long date = parseDate(header("Date"));
+		long apparentAge = date < 0 ? 0 : Math.max(0, responseTime - date);
+		long correctedAgeValue = parseAge(header("Age")) * 1000 + (responseTime - requestTime);
+		this.initialAge = Math.max(apparentAge, correctedAgeValue);
+		this.freshnessLifetime = freshnessLifetime(date < 0 ? responseTime : date);
+	}
+
+	private CacheEntry(int statusCode, String reasonPhrase, byte[] body, String charset,
+			TreeMap<String, List<String>> headers, TreeMap<String, String> varyHeaders, long responseTime,
+			long initialAge, long freshnessLifetime) {
+		this.statusCode = statusCode;
+		this.reasonPhrase = reasonPhrase;
+		this.body = body;
+		this.charset = charset;
+		this.headers = headers;
+		this.varyHeaders = varyHeaders;
+		this.responseTime = responseTime;
+		this.initialAge = initialAge;
+		this.freshnessLifetime = freshnessLifetime;
+	}
+
+	/**
+	 * 304响应后更新缓存条目, 使用新的响应头刷新存储的响应头与时间
+	 * @param notModified 304响应
+	 * @param requestTime 请求发送时间
+	 * @param responseTime 响应接收时间
+	 * @return 新的缓存条目
+	 */
+	CacheEntry revalidate(Response notModified, long requestTime, long responseTime) {
+		TreeMap<String, List<String>> merged = copy(headers);
+		if (Objects.nonNull(notModified.getHeaders())) {
+			notModified.getHeaders().forEach((name, values) -> {
+				// 304不携带响应体, 保留原有的实体头
+				if (!"Content-Length".equalsIgnoreCase(name)) {
+					merged.put(name, new ArrayList<>(values));
+				}
+			});
+		}
+		return new CacheEntry(statusCode, reasonPhrase, body, Charset.forName(charset), merged, varyHeaders,
+				requestTime, responseTime);
+	}
+
+	/**
+	 * 当前age(ms)
+	 * @param now 当前时间
+	 * @return age
+	 */
+	public long currentAge(long now) {
+		return initialAge + Math.max(0, now - responseTime);
+	}
+
+	/**
+	 * 是否新鲜
+	 * @param now 当前时间
+	 * @return true新鲜, 可以不经验证直接使用
+	 */
+	public boolean isFresh(long now) {
+		return freshnessLifetime > currentAge(now) && !CacheControl.parse(header("Cache-Control")).isNoCache();
+	}
+
+	/**
+	 * 是否可以发送条件请求验证
+	 * @return true存在ETag或Last-Modified
+	 */
+	public boolean hasValidator() {
+		return Objects.nonNull(header("ETag")) || Objects.nonNull(header("Last-Modified"));
+	}
+
+	/**
+	 * 转换为响应, 每次返回新的对象, 响应体数组共享不复制
+	 * @param now 当前时间
+	 * @return 响应
+	 */
+	public Response toResponse(long now) {
+		Response response = new Response(statusCode, reasonPhrase, body, Charset.forName(charset));
+		TreeMap<String, List<String>> responseHeaders = copy(headers);
+		responseHeaders.put("Age", Collections.singletonList(String.valueOf(currentAge(now) / 1000)));
+		response.setHeaders(responseHeaders);
+		return response;
+	}
+
+	/**
+	 * 估算占用的字节数
+	 * @return 字节数
+	 */
+	public int weight() {
+		int weight = OVERHEAD + (Objects.isNull(body) ? 0 : body.length);
+		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+			weight += entry.getKey().length() * 2;
+			for (String value : entry.getValue()) {
+				weight += value.length() * 2;
+			}
+		}
+		return weight;
+	}
+
+	/**
+	 * 获取响应头的第一个值
+	 * @param name 名称
+	 * @return 值
+	 */
+	public String header(String name) {
+		List<String> values = headers.get(name);
+		return Objects.isNull(values) || values.isEmpty() ? null : values.get(0);
+	}
+
+	private long freshnessLifetime(long date) {
+		CacheControl cacheControl = CacheControl.parse(header("Cache-Control"));
+		if (cacheControl.getMaxAge() >= 0) {
+			return cacheControl.getMaxAge() * 1000;
+		}
+		String expires = header("Expires");
+		if (Objects.nonNull(expires)) {
+			long expiresTime = parseDate(expires);
+			// 无法解析的Expires按已过期处理
+			return expiresTime < 0 ? 0 : Math.max(0, expiresTime - date);
+		}
+		// 启发式新鲜度: Last-Modified距今时间的10%
+		long lastModified = parseDate(header("Last-Modified"));
+		if (lastModified >= 0 && HeuristicStatus.isCacheable(statusCode)) {
+			return Math.max(0, (date - lastModified) / 10);
+		}
+		return 0;
+	}
+
+	static long parseDate(String value) {
+		if (Objects.isNull(value)) {
+			return -1;
+		}
+		try {
+			return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+		}
+		catch (DateTimeParseException e) {
+			return -1;
+		}
+	}
+
+	private static long parseAge(String value) {
+		try {
+			return Objects.isNull(value) ? 0 : Math.max(0, Long.parseLong(value.trim()));
+		}
+		catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * 写出为不依赖Java序列化的二进制格式, 与{@link #read(DataInputStream)}对应
+	 * @param out 输出
+	 * @throws IOException 写出失败
+	 */
+	void write(DataOutput out) throws IOException {
+		out.writeInt(statusCode);
+		writeString(out, reasonPhrase);
+		writeBytes(out, body);
+		writeString(out, charset);
+		out.writeInt(headers.size());
+		for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+			writeString(out, header.getKey());
+			out.writeInt(header.getValue().size());
+			for (String value : header.getValue()) {
+				writeString(out, value);
+			}
+		}
+		out.writeInt(varyHeaders.size());
+		for (Map.Entry<String, String> vary : varyHeaders.entrySet()) {
+			writeString(out, vary.getKey());
+			writeString(out, vary.getValue());
+		}
+		out.writeLong(responseTime);
+		out.writeLong(initialAge);
+		out.writeLong(freshnessLifetime);
+	}
+
+	/**
+	 * 读取{@link #write(DataOutput)}写出的缓存条目
+	 * @param in 输入, available()须为剩余的准确字节数, 如基于内存中的字节数组
+	 * @return 缓存条目
+	 * @throws IOException 读取失败或格式错误
+	 */
+	static CacheEntry read(DataInputStream in) throws IOException {
+		int statusCode = in.readInt();
+		String reasonPhrase = readString(in);
+		byte[] body = readBytes(in);
+		String charset = readString(in);
+		if (Objects.isNull(charset) || !Charset.isSupported(charset)) {
+			throw new IOException("unsupported charset: " + charset);
+		}
+		TreeMap<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (int i = readCount(in); i > 0; i--) {
+			String name = readName(in);
+			List<String> values = new ArrayList<>();
+			for (int j = readCount(in); j > 0; j--) {
+				values.add(readString(in));
+			}
+			headers.put(name, values);
+		}
+		TreeMap<String, String> varyHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (int i = readCount(in); i > 0; i--) {
+			varyHeaders.put(readName(in), readString(in));
+		}
+		return new CacheEntry(statusCode, reasonPhrase, body, charset, headers, varyHeaders, in.readLong(),
+				in.readLong(), in.readLong());
+	}
+
+	private static void writeString(DataOutput out, String value) throws IOException {
+		writeBytes(out, Objects.isNull(value) ? null : value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void writeBytes(DataOutput out, byte[] value) throws IOException {
+		if (Objects.isNull(value)) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(value.length);
+		out.write(value);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = readBytes(in);
+		return Objects.isNull(bytes) ? null : new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static String readName(DataInputStream in) throws IOException {
+		String name = readString(in);
+		if (Objects.isNull(name)) {
+			throw new IOException("missing header name");
+		}
+		return name;
+	}
+
+	/**
+	 * 读取长度前缀的字节数组, 长度超出剩余字节时视为格式错误, 避免按损坏的长度分配内存
+	 */
+	private static byte[] readBytes(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < -1 || length > in.available()) {
+			throw new IOException("invalid length: " + length);
+		}
+		if (length == -1) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	private static int readCount(DataInputStream in) throws IOException {
+		int count = in.readInt();
+		if (count < 0 || count > in.available()) {
+			throw new IOException("invalid count: " + count);
+		}
+		return count;
+	}
+
+	private static TreeMap<String, List<String>> copy(Map<String, List<String>> headers) {
+		TreeMap<String, List<String>> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		if (Objects.nonNull(headers)) {
+			headers.forEach((name, values) -> copy.put(name, new ArrayList<>(values)));
+		}
+		return copy;
+	}
+
+	/**
+	 * 默认可缓存的状态码(RFC 9110 15.1)
+	 */
+	static final class HeuristicStatus {
+
+		private HeuristicStatus() {
+		}
+
+		static boolean isCacheable(int statusCode) {
+			switch (statusCode) {
+			case 200:
+			case 203:
+			case 204:
+			case 300:
+			case 301:
+			case 308:
+			case 404:
+			case 405:
+			case 410:
+			case 414:
+			case 501:
+				return true;
+			default:
+				return false;
+			}
+		}
+
+	}
+
+}
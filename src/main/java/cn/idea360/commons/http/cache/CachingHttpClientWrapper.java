@@ -0,0 +1,268 @@
+package cn.idea360.commons.http.cache;
+
+import cn.idea360.commons.http.DelegatingHttpClientWrapper;
+import cn.idea360.commons.http.Futures;
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.Response;
+import cn.idea360.commons.http.UrlEncoder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 缓存装饰器, 按RFC 9111缓存get请求: 新鲜的响应直接返回, 过期的响应通过If-None-Match/If-Modified-Since验证,
+ * 非安全方法(post/put/patch/delete)成功后使对应的缓存失效.
+ * <p>
+ * 缓存在所有调用方之间共享, 因此按共享缓存处理携带凭证(Authorization、Cookie或token请求头)的请求(RFC 9111 3.5):
+ * 只有响应声明了public、s-maxage或must-revalidate时才会存储
+ *
+ * @author cuishiying
+ */
+@Slf4j
+public class CachingHttpClientWrapper extends DelegatingHttpClientWrapper {
+
+	private final ResponseCache cache;
+
+	/**
+	 * token请求头名称, 可以为null
+	 */
+	private final String tokenHeader;
+
+	/**
+	 * 构造方法
+	 * @param delegate 被装饰的client
+	 * @param cache 缓存存储
+	 */
+	public CachingHttpClientWrapper(HttpClientWrapper delegate, ResponseCache cache) {
+		this(delegate, cache, null);
+	}
+
+	/**
+	 * 构造方法
+	 * @param delegate 被装饰的client
+	 * @param cache 缓存存储
+	 * @param tokenHeader token请求头名称, 与Authorization一样视为凭证, 可以为null
+	 */
+	public CachingHttpClientWrapper(HttpClientWrapper delegate, ResponseCache cache, String tokenHeader) {
+		super(delegate);
+		this.cache = cache;
+		this.tokenHeader = tokenHeader;
+	}
+
+	@Override
+	public Response get(Request request) throws IOException, URISyntaxException, InterruptedException {
+		if (!isCacheable(request)) {
+			return delegate.get(request);
+		}
+		String key = cacheKey(request);
+		long now = System.currentTimeMillis();
+		CacheEntry entry = lookup(key, request);
+		if (Objects.nonNull(entry) && isUsable(entry, request, now)) {
+			return entry.toResponse(now);
+		}
+		Response response = delegate.get(conditionalRequest(request, entry));
+		return handleResponse(key, request, entry, response, now);
+	}
+
+	@Override
+	public CompletableFuture<Response> getAsync(Request request) {
+		if (!isCacheable(request)) {
+			return delegate.getAsync(request);
+		}
+		String key = cacheKey(request);
+		long now = System.currentTimeMillis();
+		CacheEntry entry = lookup(key, request);
+		if (Objects.nonNull(entry) && isUsable(entry, request, now)) {
+			return CompletableFuture.completedFuture(entry.toResponse(now));
+		}
+		CompletableFuture<Response> future = delegate.getAsync(conditionalRequest(request, entry));
+		return Futures.propagateCancel(future.thenApply(response -> handleResponse(key, request, entry, response, now)),
+				future);
+	}
+
+	@Override
+	public Response post(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return invalidate(request, delegate.post(request));
+	}
+
+	@Override
+	public Response put(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return invalidate(request, delegate.put(request));
+	}
+
+	@Override
+	public Response patch(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return invalidate(request, delegate.patch(request));
+	}
+
+	@Override
+	public Response delete(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return invalidate(request, delegate.delete(request));
+	}
+
+	@Override
+	public CompletableFuture<Response> postAsync(Request request) {
+		CompletableFuture<Response> future = delegate.postAsync(request);
+		return Futures.propagateCancel(future.thenApply(response -> invalidate(request, response)), future);
+	}
+
+	@Override
+	public CompletableFuture<Response> putAsync(Request request) {
+		CompletableFuture<Response> future = delegate.putAsync(request);
+		return Futures.propagateCancel(future.thenApply(response -> invalidate(request, response)), future);
+	}
+
+	@Override
+	public CompletableFuture<Response> patchAsync(Request request) {
+		CompletableFuture<Response> future = delegate.patchAsync(request);
+		return Futures.propagateCancel(future.thenApply(response -> invalidate(request, response)), future);
+	}
+
+	@Override
+	public CompletableFuture<Response> deleteAsync(Request request) {
+		CompletableFuture<Response> future = delegate.deleteAsync(request);
+		return Futures.propagateCancel(future.thenApply(response -> invalidate(request, response)), future);
+	}
+
+	/**
+	 * 流式请求、请求方自带条件头或声明no-store的请求不经过缓存
+	 */
+	private boolean isCacheable(Request request) {
+		return !request.isStream() && Objects.isNull(header(request, "If-None-Match"))
+				&& Objects.isNull(header(request, "If-Modified-Since"))
+				&& !CacheControl.parse(header(request, "Cache-Control")).isNoStore();
+	}
+
+	private boolean isUsable(CacheEntry entry, Request request, long now) {
+		return entry.isFresh(now) && !CacheControl.parse(header(request, "Cache-Control")).isNoCache();
+	}
+
+	private CacheEntry lookup(String key, Request request) {
+		CacheEntry entry = cache.get(key);
+		if (Objects.isNull(entry)) {
+			return null;
+		}
+		// Vary指定的请求头不一致时视为未命中
+		for (Map.Entry<String, String> vary : entry.getVaryHeaders().entrySet()) {
+			if (!Objects.equals(vary.getValue(), header(request, vary.getKey()))) {
+				return null;
+			}
+		}
+		return entry;
+	}
+
+	private Request conditionalRequest(Request request, CacheEntry entry) {
+		if (Objects.isNull(entry) || !entry.hasValidator()) {
+			return request;
+		}
+		Request.RequestBuilder builder = request.toBuilder();
+		String etag = entry.header("ETag");
+		if (Objects.nonNull(etag)) {
+			builder.header("If-None-Match", etag);
+		}
+		String lastModified = entry.header("Last-Modified");
+		if (Objects.nonNull(lastModified)) {
+			builder.header("If-Modified-Since", lastModified);
+		}
+		return builder.build();
+	}
+
+	private Response handleResponse(String key, Request request, CacheEntry entry, Response response,
+			long requestTime) {
+		long responseTime = System.currentTimeMillis();
+		if (Objects.nonNull(entry) && response.getStatusCode() == 304) {
+			CacheEntry revalidated = entry.revalidate(response, requestTime, responseTime);
+			cache.put(key, revalidated);
+			return revalidated.toResponse(responseTime);
+		}
+		Map<String, String> varyHeaders = varyHeaders(request, response);
+		if (Objects.nonNull(varyHeaders) && isStorable(request, response)) {
+			cache.put(key, new CacheEntry(response, varyHeaders, requestTime, responseTime));
+		}
+		else if (Objects.nonNull(entry)) {
+			cache.remove(key);
+		}
+		return response;
+	}
+
+	private boolean isStorable(Request request, Response response) {
+		if (!CacheEntry.HeuristicStatus.isCacheable(response.getStatusCode())) {
+			return false;
+		}
+		CacheControl cacheControl = CacheControl.parse(response.getHeader("Cache-Control"));
+		if (cacheControl.isNoStore()) {
+			return false;
+		}
+		if (hasCredentials(request) && !cacheControl.isPublic() && cacheControl.getSMaxAge() < 0
+				&& !cacheControl.isMustRevalidate()) {
+			return false;
+		}
+		return cacheControl.getMaxAge() >= 0 || Objects.nonNull(response.getHeader("Expires"))
+				|| Objects.nonNull(response.getHeader("ETag")) || Objects.nonNull(response.getHeader("Last-Modified"));
+	}
+
+	private boolean hasCredentials(Request request) {
+		return Objects.nonNull(header(request, "Authorization")) || Objects.nonNull(header(request, "Cookie"))
+				|| (Objects.nonNull(tokenHeader) && Objects.nonNull(header(request, tokenHeader)));
+	}
+
+	/**
+	 * 提取Vary指定的请求头
+	 * @return 请求头, Vary为*时返回null表示不可缓存
+	 */
+	private Map<String, String> varyHeaders(Request request, Response response) {
+		String vary = response.getHeader("Vary");
+		if (Objects.isNull(vary)) {
+			return Collections.emptyMap();
+		}
+		Map<String, String> varyHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (String name : vary.split(",")) {
+			name = name.trim();
+			if ("*".equals(name)) {
+				return null;
+			}
+			if (!name.isEmpty()) {
+				varyHeaders.put(name, header(request, name));
+			}
+		}
+		return varyHeaders;
+	}
+
+	private Response invalidate(Request request, Response response) {
+		if (response.getStatusCode() < 400) {
+			// 表单请求的params在请求体中, 不属于url
+			cache.remove(request.isForm() ? request.getUrl() : cacheKey(request));
+		}
+		return response;
+	}
+
+	private String cacheKey(Request request) {
+		Map<String, Object> params = request.getParams();
+		if (Objects.isNull(params) || params.isEmpty()) {
+			return request.getUrl();
+		}
+		StringBuilder key = new StringBuilder(request.getUrl()).append('#');
+		UrlEncoder.appendParams(new TreeMap<>(params), key, false);
+		return key.toString();
+	}
+
+	private static String header(Request request, String name) {
+		if (Objects.isNull(request.getHeaders())) {
+			return null;
+		}
+		for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+			if (name.equalsIgnoreCase(header.getKey())) {
+				return header.getValue();
+			}
+		}
+		return null;
+	}
+
+}
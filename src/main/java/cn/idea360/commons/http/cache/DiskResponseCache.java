@@ -0,0 +1,202 @@
+package cn.idea360.commons.http.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * 磁盘缓存, 每个条目一个文件, 按文件大小限制容量, 超出时按LRU淘汰. 文件为固定的二进制格式(状态、响应头、响应体与时间), 不使用Java序列化,
+ * 缓存目录中的文件不会被反序列化为任意对象
+ *
+ * @author cuishiying
+ */
+@Slf4j
+public class DiskResponseCache implements ResponseCache {
+
+	private static final String SUFFIX = ".cache";
+
+	/**
+	 * 文件格式标识及版本, 格式变化时递增, 旧文件读取失败后删除
+	 */
+	private static final int MAGIC = 0x48435631;
+
+	private final Path directory;
+
+	private final long maxBytes;
+
+	/**
+	 * 文件名 -> 文件大小, 按访问顺序排列
+	 */
+	private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private long currentBytes;
+
+	/**
+	 * 构造方法, 加载目录中已有的缓存文件
+	 * @param directory 缓存目录
+	 * @param maxBytes 最大字节数
+	 */
+	public DiskResponseCache(Path directory, long maxBytes) {
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+		try {
+			Files.createDirectories(directory);
+			try (Stream<Path> files = Files.list(directory)) {
+				files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+						.sorted(Comparator.comparingLong(DiskResponseCache::lastModified)).forEach(file -> {
+							long size = size(file);
+							index.put(file.getFileName().toString(), size);
+							currentBytes += size;
+						});
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("init disk cache error: " + directory, e);
+		}
+	}
+
+	@Override
+	public CacheEntry get(String key) {
+		String fileName = fileName(key);
+		lock.lock();
+		try {
+			if (Objects.isNull(index.get(fileName))) {
+				return null;
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+		try (DataInputStream in = new DataInputStream(
+				new ByteArrayInputStream(Files.readAllBytes(directory.resolve(fileName))))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("unknown format: " + fileName);
+			}
+			// 校验key, 避免极小概率的hash冲突
+			return key.equals(in.readUTF()) ? CacheEntry.read(in) : null;
+		}
+		catch (NoSuchFileException e) {
+			return null;
+		}
+		catch (IOException e) {
+			log.warn("read disk cache error: " + e.getMessage());
+			remove(key);
+			return null;
+		}
+	}
+
+	@Override
+	public void put(String key, CacheEntry entry) {
+		String fileName = fileName(key);
+		Path file = directory.resolve(fileName);
+		try {
+			Path temp = Files.createTempFile(directory, "entry", ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeUTF(key);
+				entry.write(out);
+			}
+			long size = Files.size(temp);
+			if (size > maxBytes) {
+				Files.deleteIfExists(temp);
+				return;
+			}
+			lock.lock();
+			try {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				Long previous = index.put(fileName, size);
+				currentBytes += size - (Objects.isNull(previous) ? 0 : previous);
+				evict();
+			}
+			finally {
+				lock.unlock();
+			}
+		}
+		catch (IOException e) {
+			log.warn("write disk cache error: " + e.getMessage());
+		}
+	}
+
+	@Override
+	public void remove(String key) {
+		String fileName = fileName(key);
+		lock.lock();
+		try {
+			Long previous = index.remove(fileName);
+			if (Objects.nonNull(previous)) {
+				currentBytes -= previous;
+			}
+			Files.deleteIfExists(directory.resolve(fileName));
+		}
+		catch (IOException e) {
+			log.warn("remove disk cache error: " + e.getMessage());
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private void evict() throws IOException {
+		Iterator<Map.Entry<String, Long>> iterator = index.entrySet().iterator();
+		while (currentBytes > maxBytes && iterator.hasNext()) {
+			Map.Entry<String, Long> eldest = iterator.next();
+			iterator.remove();
+			currentBytes -= eldest.getValue();
+			Files.deleteIfExists(directory.resolve(eldest.getKey()));
+		}
+	}
+
+	private static String fileName(String key) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+			StringBuilder builder = new StringBuilder(digest.length * 2 + SUFFIX.length());
+			for (byte b : digest) {
+				builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return builder.append(SUFFIX).toString();
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static long lastModified(Path file) {
+		try {
+			return Files.getLastModifiedTime(file).toMillis();
+		}
+		catch (IOException e) {
+			return 0;
+		}
+	}
+
+	private static long size(Path file) {
+		try {
+			return Files.size(file);
+		}
+		catch (IOException e) {
+			return 0;
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+package cn.idea360.commons.http.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 内存缓存, 按估算字节数限制容量, 超出时按LRU淘汰
+ *
+ * @author cuishiying
+ */
+public class MemoryResponseCache implements ResponseCache {
+
+	private final long maxBytes;
+
+	private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private long currentBytes;
+
+	/**
+	 * 构造方法
+	 * @param maxBytes 最大字节数
+	 */
+	public MemoryResponseCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	@Override
+	public CacheEntry get(String key) {
+		lock.lock();
+		try {
+			return entries.get(key);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void put(String key, CacheEntry entry) {
+		int weight = entry.weight();
+		lock.lock();
+		try {
+			CacheEntry previous = entries.remove(key);
+			if (Objects.nonNull(previous)) {
+				currentBytes -= previous.weight();
+			}
+			// 单个条目超过容量时不缓存
+			if (weight > maxBytes) {
+				return;
+			}
+			entries.put(key, entry);
+			currentBytes += weight;
+			Iterator<Map.Entry<String, CacheEntry>> iterator = entries.entrySet().iterator();
+			while (currentBytes > maxBytes && iterator.hasNext()) {
+				currentBytes -= iterator.next().getValue().weight();
+				iterator.remove();
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void remove(String key) {
+		lock.lock();
+		try {
+			CacheEntry previous = entries.remove(key);
+			if (Objects.nonNull(previous)) {
+				currentBytes -= previous.weight();
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 当前占用的字节数
+	 * @return 字节数
+	 */
+	public long size() {
+		lock.lock();
+		try {
+			return currentBytes;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+}
@@ -0,0 +1,30 @@
+package cn.idea360.commons.http.cache;
+
+/**
+ * 响应缓存存储
+ *
+ * @author cuishiying
+ */
+public interface ResponseCache {
+
+	/**
+	 * 获取缓存
+	 * @param key 缓存key
+	 * @return 缓存条目, 不存在时返回null
+	 */
+	CacheEntry get(String key);
+
+	/**
+	 * 写入缓存
+	 * @param key 缓存key
+	 * @param entry 缓存条目
+	 */
+	void put(String key, CacheEntry entry);
+
+	/**
+	 * 删除缓存
+	 * @param key 缓存key
+	 */
+	void remove(String key);
+
+}
@@ -0,0 +1,50 @@
+package cn.idea360.commons.http.cache;
+
+import java.util.Objects;
+
+/**
+ * 两级缓存, 通常一级为内存缓存, 二级为磁盘缓存. 二级命中时回填一级
+ *
+ * @author cuishiying
+ */
+public class TieredResponseCache implements ResponseCache {
+
+	private final ResponseCache first;
+
+	private final ResponseCache second;
+
+	/**
+	 * 构造方法
+	 * @param first 一级缓存
+	 * @param second 二级缓存
+	 */
+	public TieredResponseCache(ResponseCache first, ResponseCache second) {
+		this.first = first;
+		this.second = second;
+	}
+
+	@Override
+	public CacheEntry get(String key) {
+		CacheEntry entry = first.get(key);
+		if (Objects.isNull(entry)) {
+			entry = second.get(key);
+			if (Objects.nonNull(entry)) {
+				first.put(key, entry);
+			}
+		}
+		return entry;
+	}
+
+	@Override
+	public void put(String key, CacheEntry entry) {
+		first.put(key, entry);
+		second.put(key, entry);
+	}
+
+	@Override
+	public void remove(String key) {
+		first.remove(key);
+		second.remove(key);
+	}
+
+}
@@ -0,0 +1,18 @@
+package cn.idea360.commons.http.circuitbreaker;
+
+import java.io.IOException;
+
+/**
+ * 路由并发调用数已达上限, 请求未发出
+ *
+ * @author cuishiying
+ */
+public class BulkheadFullException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public BulkheadFullException(String message) {
+		super(message);
+	}
+
+}
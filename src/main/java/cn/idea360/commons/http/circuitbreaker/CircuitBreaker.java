@@ -0,0 +1,189 @@
+package cn.idea360.commons.http.circuitbreaker;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个路由的熔断器, 基于调用次数的滑动窗口统计失败率与慢调用率:
+ *
+ * <ul>
+ * <li>CLOSED: 正常放行, 窗口内失败率或慢调用率达到阈值时转为OPEN</li>
+ * <li>OPEN: 拒绝所有调用, 持续waitDurationInOpenState后转为HALF_OPEN</li>
+ * <li>HALF_OPEN: 只放行有限的探测调用, 探测全部完成后按阈值转为CLOSED或OPEN</li>
+ * </ul>
+ *
+ * @author cuishiying
+ */
+@Slf4j
+public class CircuitBreaker {
+
+	public enum State {
+
+		CLOSED, OPEN, HALF_OPEN
+
+	}
+
+	private static final byte SUCCESS = 0;
+
+	private static final byte FAILURE = 1;
+
+	private static final byte SLOW = 2;
+
+	private static final byte SLOW_FAILURE = FAILURE | SLOW;
+
+	private final String name;
+
+	private final CircuitBreakerConfig config;
+
+	private final long slowCallNanos;
+
+	private final Lock lock = new ReentrantLock();
+
+	/**
+	 * 环形缓冲区, 保存最近的调用结果
+	 */
+	private final byte[] outcomes;
+
+	private int index;
+
+	private int calls;
+
+	private int failures;
+
+	private int slowCalls;
+
+	private State state = State.CLOSED;
+
+	private long openUntil;
+
+	private int halfOpenPermitted;
+
+	/**
+	 * 构造方法
+	 * @param name 名称, 通常为路由
+	 * @param config 配置
+	 */
+	public CircuitBreaker(String name, CircuitBreakerConfig config) {
+		this.name = name;
+		this.config = config;
+		this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowCallDurationThreshold());
+		this.outcomes = new byte[Math.max(1, config.getSlidingWindowSize())];
+	}
+
+	/**
+	 * 申请调用许可, 获得许可后必须调用{@link #onResult}或{@link #onIgnored}
+	 * @return true允许调用
+	 */
+	public boolean tryAcquirePermission() {
+		lock.lock();
+		try {
+			if (state == State.OPEN) {
+				if (System.nanoTime() - openUntil < 0) {
+					return false;
+				}
+				transitionTo(State.HALF_OPEN);
+			}
+			if (state == State.HALF_OPEN) {
+				if (halfOpenPermitted >= config.getPermittedNumberOfCallsInHalfOpenState()) {
+					return false;
+				}
+				halfOpenPermitted++;
+			}
+			return true;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 记录调用结果
+	 * @param durationNanos 耗时(ns)
+	 * @param failure 是否失败
+	 */
+	public void onResult(long durationNanos, boolean failure) {
+		byte outcome = (byte) ((failure ? FAILURE : SUCCESS) | (durationNanos >= slowCallNanos ? SLOW : SUCCESS));
+		lock.lock();
+		try {
+			// 熔断前发出的调用在熔断后返回, 不影响新的统计
+			if (state == State.OPEN) {
+				return;
+			}
+			record(outcome);
+			if (state == State.HALF_OPEN) {
+				if (calls >= config.getPermittedNumberOfCallsInHalfOpenState()) {
+					transitionTo(isThresholdExceeded() ? State.OPEN : State.CLOSED);
+				}
+			}
+			else if (calls >= config.getMinimumNumberOfCalls() && isThresholdExceeded()) {
+				transitionTo(State.OPEN);
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 调用被取消等无法判断结果的情况, 归还半开状态的探测许可
+	 */
+	public void onIgnored() {
+		lock.lock();
+		try {
+			if (state == State.HALF_OPEN && halfOpenPermitted > 0) {
+				halfOpenPermitted--;
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	public State getState() {
+		lock.lock();
+		try {
+			return state;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private void record(byte outcome) {
+		if (calls == outcomes.length) {
+			byte evicted = outcomes[index];
+			failures -= evicted & FAILURE;
+			slowCalls -= (evicted & SLOW) >> 1;
+		}
+		else {
+			calls++;
+		}
+		outcomes[index] = outcome;
+		index = (index + 1) % outcomes.length;
+		failures += outcome & FAILURE;
+		slowCalls += (outcome & SLOW) >> 1;
+	}
+
+	private boolean isThresholdExceeded() {
+		return failures * 100 >= config.getFailureRateThreshold() * calls
+				|| slowCalls * 100 >= config.getSlowCallRateThreshold() * calls;
+	}
+
+	private void transitionTo(State newState) {
+		log.warn("circuit breaker {}: {} -> {}, calls={}, failures={}, slowCalls={}", name, state, newState, calls,
+				failures, slowCalls);
+		state = newState;
+		index = 0;
+		calls = 0;
+		failures = 0;
+		slowCalls = 0;
+		halfOpenPermitted = 0;
+		if (newState == State.OPEN) {
+			openUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getWaitDurationInOpenState());
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+package cn.idea360.commons.http.circuitbreaker;
+
+import lombok.Data;
+
+/**
+ * 熔断配置, 每个路由(scheme+host+port)独立统计
+ *
+ * @author cuishiying
+ */
+@Data
+public class CircuitBreakerConfig {
+
+	/**
+	 * 滑动窗口大小(最近的调用次数)
+	 */
+	private int slidingWindowSize = 100;
+
+	/**
+	 * 窗口内至少有多少次调用才计算失败率
+	 */
+	private int minimumNumberOfCalls = 20;
+
+	/**
+	 * 失败率阈值(%), 达到时熔断. I/O异常与5xx响应计为失败
+	 */
+	private int failureRateThreshold = 50;
+
+	/**
+	 * 慢调用耗时阈值(ms)
+	 */
+	private long slowCallDurationThreshold = 2000;
+
+	/**
+	 * 慢调用率阈值(%), 达到时熔断
+	 */
+	private int slowCallRateThreshold = 80;
+
+	/**
+	 * 熔断持续时间(ms), 之后进入半开状态
+	 */
+	private long waitDurationInOpenState = 30000;
+
+	/**
+	 * 半开状态允许的探测调用次数, 全部完成后按失败率决定关闭或再次熔断
+	 */
+	private int permittedNumberOfCallsInHalfOpenState = 5;
+
+}
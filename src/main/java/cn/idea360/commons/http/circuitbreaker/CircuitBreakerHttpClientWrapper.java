@@ -0,0 +1,259 @@
+package cn.idea360.commons.http.circuitbreaker;
+
+import cn.idea360.commons.http.DelegatingHttpClientWrapper;
+import cn.idea360.commons.http.Futures;
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.Response;
+import cn.idea360.commons.http.metrics.HttpMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 熔断与舱壁装饰器, 适用于所有client实现, 按路由(scheme+host+port)隔离:
+ *
+ * <ul>
+ * <li>熔断: 某个路由的失败率或慢调用率达到阈值后直接抛出{@link CircuitBreakerOpenException}, 不再占用连接池等待超时</li>
+ * <li>舱壁: 限制每个路由的并发调用数, 超出时抛出{@link BulkheadFullException}, 一个依赖变慢不会耗尽调用方线程</li>
+ * </ul>
+ *
+ * I/O异常与5xx响应计为失败. 流式响应在收到响应头时即记录结果并归还舱壁许可
+ *
+ * @author cuishiying
+ */
+@Slf4j
+public class CircuitBreakerHttpClientWrapper extends DelegatingHttpClientWrapper {
+
+	private static final int SERVER_ERROR = 500;
+
+	private final CircuitBreakerConfig config;
+
+	private final int maxConcurrentCalls;
+
+	private final long maxWait;
+
+	private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, Semaphore> bulkheads = new ConcurrentHashMap<>();
+
+	/**
+	 * 构造方法
+	 * @param delegate 被装饰的client
+	 * @param config 熔断配置, 为null时不熔断
+	 * @param maxConcurrentCalls 每个路由的最大并发调用数, 小于等于0时不限制
+	 * @param maxWait 同步调用等待舱壁许可的最长时间(ms), 异步调用不等待
+	 */
+	public CircuitBreakerHttpClientWrapper(HttpClientWrapper delegate, CircuitBreakerConfig config,
+			int maxConcurrentCalls, long maxWait) {
+		super(delegate);
+		this.config = config;
+		this.maxConcurrentCalls = maxConcurrentCalls;
+		this.maxWait = maxWait;
+	}
+
+	/**
+	 * 获取路由的熔断器状态, 用于监控
+	 * @param route scheme://host:port
+	 * @return 状态, 未调用过或未开启熔断时返回CLOSED
+	 */
+	public CircuitBreaker.State getState(String route) {
+		CircuitBreaker circuitBreaker = circuitBreakers.get(route);
+		return Objects.isNull(circuitBreaker) ? CircuitBreaker.State.CLOSED : circuitBreaker.getState();
+	}
+
+	@Override
+	public Response get(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, delegate::get);
+	}
+
+	@Override
+	public Response post(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, delegate::post);
+	}
+
+	@Override
+	public Response put(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, delegate::put);
+	}
+
+	@Override
+	public Response patch(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, delegate::patch);
+	}
+
+	@Override
+	public Response delete(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, delegate::delete);
+	}
+
+	@Override
+	public Response download(Request request, Path target)
+			throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, r -> delegate.download(r, target));
+	}
+
+	@Override
+	public CompletableFuture<Response> getAsync(Request request) {
+		return executeAsync(request, delegate::getAsync);
+	}
+
+	@Override
+	public CompletableFuture<Response> postAsync(Request request) {
+		return executeAsync(request, delegate::postAsync);
+	}
+
+	@Override
+	public CompletableFuture<Response> putAsync(Request request) {
+		return executeAsync(request, delegate::putAsync);
+	}
+
+	@Override
+	public CompletableFuture<Response> patchAsync(Request request) {
+		return executeAsync(request, delegate::patchAsync);
+	}
+
+	@Override
+	public CompletableFuture<Response> deleteAsync(Request request) {
+		return executeAsync(request, delegate::deleteAsync);
+	}
+
+	private Response execute(Request request, Call call) throws IOException, URISyntaxException, InterruptedException {
+		String route = route(request);
+		Semaphore bulkhead = bulkhead(route);
+		if (Objects.nonNull(bulkhead) && !bulkhead.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+			throw new BulkheadFullException("bulkhead full: " + route);
+		}
+		try {
+			CircuitBreaker circuitBreaker = acquirePermission(route);
+			long start = System.nanoTime();
+			boolean recorded = false;
+			try {
+				Response response = call.execute(request);
+				record(circuitBreaker, start, response.getStatusCode() >= SERVER_ERROR);
+				recorded = true;
+				return response;
+			}
+			catch (IOException e) {
+				record(circuitBreaker, start, true);
+				recorded = true;
+				throw e;
+			}
+			finally {
+				if (!recorded && Objects.nonNull(circuitBreaker)) {
+					circuitBreaker.onIgnored();
+				}
+			}
+		}
+		finally {
+			if (Objects.nonNull(bulkhead)) {
+				bulkhead.release();
+			}
+		}
+	}
+
+	private CompletableFuture<Response> executeAsync(Request request,
+			Function<Request, CompletableFuture<Response>> call) {
+		String route;
+		try {
+			route = route(request);
+		}
+		catch (URISyntaxException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		Semaphore bulkhead = bulkhead(route);
+		if (Objects.nonNull(bulkhead) && !bulkhead.tryAcquire()) {
+			return CompletableFuture.failedFuture(new BulkheadFullException("bulkhead full: " + route));
+		}
+		CircuitBreaker circuitBreaker;
+		CompletableFuture<Response> future;
+		try {
+			circuitBreaker = acquirePermission(route);
+			future = call.apply(request);
+		}
+		catch (IOException | RuntimeException e) {
+			if (Objects.nonNull(bulkhead)) {
+				bulkhead.release();
+			}
+			return CompletableFuture.failedFuture(e);
+		}
+		long start = System.nanoTime();
+		return Futures.propagateCancel(future.whenComplete((response, ex) -> {
+			if (Objects.nonNull(bulkhead)) {
+				bulkhead.release();
+			}
+			if (Objects.isNull(circuitBreaker)) {
+				return;
+			}
+			if (Objects.isNull(ex)) {
+				record(circuitBreaker, start, response.getStatusCode() >= SERVER_ERROR);
+			}
+			else if (unwrap(ex) instanceof IOException) {
+				record(circuitBreaker, start, true);
+			}
+			else {
+				circuitBreaker.onIgnored();
+			}
+		}), future);
+	}
+
+	/**
+	 * 申请熔断许可
+	 * @return 熔断器, 未开启熔断时返回null
+	 */
+	private CircuitBreaker acquirePermission(String route) throws CircuitBreakerOpenException {
+		if (Objects.isNull(config)) {
+			return null;
+		}
+		CircuitBreaker circuitBreaker = circuitBreakers.computeIfAbsent(route, r -> new CircuitBreaker(r, config));
+		if (!circuitBreaker.tryAcquirePermission()) {
+			throw new CircuitBreakerOpenException("circuit breaker open: " + route);
+		}
+		return circuitBreaker;
+	}
+
+	private Semaphore bulkhead(String route) {
+		if (maxConcurrentCalls <= 0) {
+			return null;
+		}
+		return bulkheads.computeIfAbsent(route, r -> new Semaphore(maxConcurrentCalls));
+	}
+
+	private static void record(CircuitBreaker circuitBreaker, long start, boolean failure) {
+		if (Objects.nonNull(circuitBreaker)) {
+			circuitBreaker.onResult(System.nanoTime() - start, failure);
+		}
+	}
+
+	private static Throwable unwrap(Throwable ex) {
+		while ((ex instanceof CompletionException || ex instanceof CancellationException)
+				&& Objects.nonNull(ex.getCause())) {
+			ex = ex.getCause();
+		}
+		return ex;
+	}
+
+	private static String route(Request request) throws URISyntaxException {
+		return HttpMetrics.route(new URI(request.getUrl()));
+	}
+
+	@FunctionalInterface
+	private interface Call {
+
+		Response execute(Request request) throws IOException, URISyntaxException, InterruptedException;
+
+	}
+
+}
@@ -0,0 +1,18 @@
+package cn.idea360.commons.http.circuitbreaker;
+
+import java.io.IOException;
+
+/**
+ * 熔断中, 请求未发出
+ *
+ * @author cuishiying
+ */
+public class CircuitBreakerOpenException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	public CircuitBreakerOpenException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,188 @@
+package cn.idea360.commons.http.coalesce;
+
+import cn.idea360.commons.http.DelegatingHttpClientWrapper;
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.Response;
+import cn.idea360.commons.http.UrlEncoder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 请求合并装饰器(single-flight): 相同的get请求(url、参数、请求头均相同)并发执行时只发出一次上游请求, 其余调用方共享同一个响应.
+ * 流式请求的响应体只能被消费一次, 不参与合并
+ *
+ * @author cuishiying
+ */
+@Slf4j
+public class CoalescingHttpClientWrapper extends DelegatingHttpClientWrapper {
+
+	/**
+	 * 进行中的请求, 请求完成后移除
+	 */
+	private final ConcurrentMap<String, CompletableFuture<Response>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * 构造方法
+	 * @param delegate 被装饰的client
+	 */
+	public CoalescingHttpClientWrapper(HttpClientWrapper delegate) {
+		super(delegate);
+	}
+
+	@Override
+	public Response get(Request request) throws IOException, URISyntaxException, InterruptedException {
+		if (request.isStream()) {
+			return delegate.get(request);
+		}
+		String key = flightKey(request);
+		while (true) {
+			CompletableFuture<Response> flight = new CompletableFuture<>();
+			CompletableFuture<Response> existing = inFlight.putIfAbsent(key, flight);
+			if (Objects.isNull(existing)) {
+				return lead(key, flight, request);
+			}
+			log.debug("合并请求: {}", request.getUrl());
+			Response response = await(existing);
+			if (Objects.nonNull(response)) {
+				return response;
+			}
+		}
+	}
+
+	/**
+	 * 作为发起方执行请求, 先移除进行中的请求再通知等待方, 使等待方重试时可以成为新的发起方
+	 */
+	private Response lead(String key, CompletableFuture<Response> flight, Request request)
+			throws IOException, URISyntaxException, InterruptedException {
+		try {
+			Response response = delegate.get(request);
+			inFlight.remove(key, flight);
+			flight.complete(response);
+			return response;
+		}
+		catch (Throwable e) {
+			inFlight.remove(key, flight);
+			// 客户端可能把中断包装为InterruptedIOException, 以中断标记为准
+			boolean interrupted = e instanceof InterruptedException || Thread.currentThread().isInterrupted();
+			flight.completeExceptionally(interrupted ? new LeaderInterruptedException() : e);
+			throw e;
+		}
+	}
+
+	@Override
+	public CompletableFuture<Response> getAsync(Request request) {
+		if (request.isStream()) {
+			return delegate.getAsync(request);
+		}
+		String key = flightKey(request);
+		CompletableFuture<Response> flight = new CompletableFuture<>();
+		CompletableFuture<Response> existing = inFlight.putIfAbsent(key, flight);
+		if (Objects.nonNull(existing)) {
+			log.debug("合并请求: {}", request.getUrl());
+			return existing.thenApply(CoalescingHttpClientWrapper::copy);
+		}
+		CompletableFuture<Response> future;
+		try {
+			future = delegate.getAsync(request);
+		}
+		catch (RuntimeException e) {
+			// 同步抛出时也要移除, 否则后续相同请求会一直等待
+			inFlight.remove(key, flight);
+			flight.completeExceptionally(e);
+			return flight.copy();
+		}
+		future.whenComplete((response, ex) -> {
+			inFlight.remove(key, flight);
+			if (Objects.nonNull(ex)) {
+				flight.completeExceptionally(ex);
+			}
+			else {
+				flight.complete(response);
+			}
+		});
+		// 返回副本, 调用方取消时不影响共享同一请求的其它调用方
+		return flight.copy();
+	}
+
+	/**
+	 * 等待进行中的请求完成, 并还原其抛出的异常. 发起方线程被中断与等待方无关, 此时返回null由等待方重新发起请求
+	 * @return 响应, 发起方被中断时返回null
+	 * @throws InterruptedException 仅当前线程等待时被中断
+	 */
+	private static Response await(CompletableFuture<Response> flight)
+			throws IOException, URISyntaxException, InterruptedException {
+		try {
+			return copy(flight.get());
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof LeaderInterruptedException) {
+				return null;
+			}
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof URISyntaxException) {
+				throw (URISyntaxException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * 每个调用方获得独立的Response对象, 响应体字节数组共享
+	 */
+	private static Response copy(Response response) {
+		Response copy = new Response(response.getStatusCode(), response.getReasonPhrase(), response.getBytes(),
+				response.getCharset());
+		copy.setHeaders(response.getHeaders());
+		return copy;
+	}
+
+	/**
+	 * 发起方线程被中断, 仅用于通知等待方重新发起请求
+	 */
+	private static final class LeaderInterruptedException extends Exception {
+
+		private static final long serialVersionUID = 1L;
+
+		LeaderInterruptedException() {
+			super(null, null, false, false);
+		}
+
+	}
+
+	private static String flightKey(Request request) {
+		StringBuilder key = new StringBuilder(request.getUrl());
+		if (Objects.nonNull(request.getParams()) && !request.getParams().isEmpty()) {
+			key.append('?');
+			UrlEncoder.appendParams(new TreeMap<>(request.getParams()), key, false);
+		}
+		if (Objects.nonNull(request.getHeaders()) && !request.getHeaders().isEmpty()) {
+			Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+			headers.putAll(request.getHeaders());
+			key.append('\n');
+			headers.forEach(
+					(name, value) -> key.append(name.toLowerCase(Locale.ROOT)).append(':').append(value).append('\n'));
+		}
+		return key.toString();
+	}
+
+}
@@ -0,0 +1,105 @@
+package cn.idea360.commons.http.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 边读边压缩的输入流: 每次从原始输入流读取一块数据压缩后返回, 内存占用与请求体大小无关
+ *
+ * @author cuishiying
+ */
+public class CompressingInputStream extends InputStream {
+
+	private static final int CHUNK_SIZE = 8192;
+
+	private final InputStream source;
+
+	private final Buffer buffer = new Buffer();
+
+	private final OutputStream encoder;
+
+	private final byte[] chunk = new byte[CHUNK_SIZE];
+
+	private int position;
+
+	private boolean finished;
+
+	/**
+	 * 构造方法
+	 * @param source 原始输入流
+	 * @param codec 压缩编码
+	 * @throws IOException 创建压缩流失败
+	 */
+	public CompressingInputStream(InputStream source, ContentCodec codec) throws IOException {
+		this.source = source;
+		this.encoder = codec.encode(buffer);
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] one = new byte[1];
+		int n = read(one, 0, 1);
+		return n == -1 ? -1 : one[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		while (position == buffer.size()) {
+			if (finished) {
+				return -1;
+			}
+			fill();
+		}
+		int n = Math.min(len, buffer.size() - position);
+		System.arraycopy(buffer.array(), position, b, off, n);
+		position += n;
+		return n;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			source.close();
+		}
+		finally {
+			if (!finished) {
+				finished = true;
+				encoder.close();
+			}
+		}
+	}
+
+	/**
+	 * 读取并压缩下一块数据, 原始数据读完时写出压缩流的结尾
+	 */
+	private void fill() throws IOException {
+		buffer.reset();
+		position = 0;
+		int n = source.read(chunk);
+		if (n == -1) {
+			finished = true;
+			encoder.close();
+		}
+		else {
+			encoder.write(chunk, 0, n);
+		}
+	}
+
+	private static class Buffer extends ByteArrayOutputStream {
+
+		Buffer() {
+			super(CHUNK_SIZE);
+		}
+
+		byte[] array() {
+			return buf;
+		}
+
+	}
+
+}
@@ -0,0 +1,38 @@
+package cn.idea360.commons.http.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 内容编码SPI, 内置gzip与deflate. brotli、zstd等编码可实现此接口并通过
+ * {@code META-INF/services/cn.idea360.commons.http.compression.ContentCodec}注册,
+ * 注册后自动加入Accept-Encoding
+ *
+ * @author cuishiying
+ */
+public interface ContentCodec {
+
+	/**
+	 * 编码名称, 对应Content-Encoding, 如gzip
+	 * @return 编码名称
+	 */
+	String encoding();
+
+	/**
+	 * 解压
+	 * @param in 压缩的输入流
+	 * @return 解压后的输入流
+	 * @throws IOException 读取失败或格式错误
+	 */
+	InputStream decode(InputStream in) throws IOException;
+
+	/**
+	 * 压缩, 关闭返回的输出流时写出剩余数据并关闭out
+	 * @param out 压缩后数据的输出流
+	 * @return 压缩输出流
+	 * @throws IOException 写入失败
+	 */
+	OutputStream encode(OutputStream out) throws IOException;
+
+}
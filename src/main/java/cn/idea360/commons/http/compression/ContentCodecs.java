@@ -0,0 +1,142 @@
+package cn.idea360.commons.http.compression;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ServiceLoader;
+
+/**
+ * 内容编码注册表, 包含内置的gzip、deflate与通过ServiceLoader注册的编码
+ *
+ * @author cuishiying
+ */
+@Slf4j
+public final class ContentCodecs {
+
+	private static final Map<String, ContentCodec> CODECS;
+
+	private static final String ACCEPT_ENCODING;
+
+	static {
+		Map<String, ContentCodec> codecs = new LinkedHashMap<>();
+		register(codecs, new GzipCodec());
+		register(codecs, new DeflateCodec());
+		for (ContentCodec codec : ServiceLoader.load(ContentCodec.class, ContentCodecs.class.getClassLoader())) {
+			register(codecs, codec);
+		}
+		ACCEPT_ENCODING = String.join(", ", codecs.keySet());
+		// x-gzip与gzip相同, 只用于解压
+		codecs.putIfAbsent("x-gzip", codecs.get("gzip"));
+		CODECS = Collections.unmodifiableMap(codecs);
+	}
+
+	private ContentCodecs() {
+	}
+
+	/**
+	 * 所有支持的编码, 用作Accept-Encoding请求头
+	 * @return 如gzip, deflate
+	 */
+	public static String acceptEncoding() {
+		return ACCEPT_ENCODING;
+	}
+
+	/**
+	 * 按名称获取编码
+	 * @param encoding Content-Encoding, 忽略大小写
+	 * @return 编码, 不支持或为identity时返回null
+	 */
+	public static ContentCodec get(String encoding) {
+		if (Objects.isNull(encoding)) {
+			return null;
+		}
+		return CODECS.get(encoding.trim().toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * 所有编码名称(含别名)与编码
+	 * @return 只读map
+	 */
+	public static Map<String, ContentCodec> all() {
+		return CODECS;
+	}
+
+	/**
+	 * 解压完整的响应体
+	 * @param codec 编码
+	 * @param bytes 压缩的响应体
+	 * @return 解压后的响应体
+	 * @throws IOException 格式错误
+	 */
+	public static byte[] decode(ContentCodec codec, byte[] bytes) throws IOException {
+		if (bytes.length == 0) {
+			return bytes;
+		}
+		try (InputStream in = codec.decode(new ByteArrayInputStream(bytes))) {
+			return in.readAllBytes();
+		}
+	}
+
+	/**
+	 * 延迟解压: 首次读取时才创建解压流, 避免在收到响应头的线程上阻塞读取压缩头
+	 * @param codec 编码
+	 * @param in 压缩的输入流
+	 * @return 解压后的输入流, 关闭时关闭in
+	 */
+	public static InputStream decodeLazily(ContentCodec codec, InputStream in) {
+		return new FilterInputStream(in) {
+
+			private boolean decoding;
+
+			@Override
+			public int read() throws IOException {
+				return decoder().read();
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				return decoder().read(b, off, len);
+			}
+
+			@Override
+			public long skip(long n) throws IOException {
+				return decoder().skip(n);
+			}
+
+			@Override
+			public int available() throws IOException {
+				return decoding ? in.available() : 0;
+			}
+
+			@Override
+			public boolean markSupported() {
+				return false;
+			}
+
+			private InputStream decoder() throws IOException {
+				if (!decoding) {
+					in = codec.decode(in);
+					decoding = true;
+				}
+				return in;
+			}
+
+		};
+	}
+
+	private static void register(Map<String, ContentCodec> codecs, ContentCodec codec) {
+		String encoding = codec.encoding().toLowerCase(Locale.ROOT);
+		if (Objects.isNull(codecs.putIfAbsent(encoding, codec))) {
+			log.debug("content codec: {}", encoding);
+		}
+	}
+
+}
@@ -0,0 +1,70 @@
+package cn.idea360.commons.http.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * deflate, 按RFC 9110发送zlib格式. 部分服务端返回不带zlib头的原始deflate数据, 解压时根据头部自动识别
+ *
+ * @author cuishiying
+ */
+public class DeflateCodec implements ContentCodec {
+
+	@Override
+	public String encoding() {
+		return "deflate";
+	}
+
+	@Override
+	public InputStream decode(InputStream in) throws IOException {
+		PushbackInputStream pushback = new PushbackInputStream(in, 2);
+		byte[] header = new byte[2];
+		int n = pushback.readNBytes(header, 0, 2);
+		pushback.unread(header, 0, n);
+		return new InflaterInputStream(pushback, new Inflater(!isZlibHeader(header, n)), 8192) {
+
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				}
+				finally {
+					inf.end();
+				}
+			}
+
+		};
+	}
+
+	@Override
+	public OutputStream encode(OutputStream out) {
+		Deflater deflater = new Deflater();
+		return new DeflaterOutputStream(out, deflater, 8192) {
+
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				}
+				finally {
+					deflater.end();
+				}
+			}
+
+		};
+	}
+
+	/**
+	 * zlib头: 压缩方法为8, 且前两个字节组成的整数是31的倍数
+	 */
+	private static boolean isZlibHeader(byte[] header, int length) {
+		return length == 2 && (header[0] & 0x0f) == 8 && (((header[0] & 0xff) << 8) | (header[1] & 0xff)) % 31 == 0;
+	}
+
+}
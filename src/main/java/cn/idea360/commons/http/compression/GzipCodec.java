@@ -0,0 +1,31 @@
+package cn.idea360.commons.http.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip
+ *
+ * @author cuishiying
+ */
+public class GzipCodec implements ContentCodec {
+
+	@Override
+	public String encoding() {
+		return "gzip";
+	}
+
+	@Override
+	public InputStream decode(InputStream in) throws IOException {
+		return new GZIPInputStream(in, 8192);
+	}
+
+	@Override
+	public OutputStream encode(OutputStream out) throws IOException {
+		return new GZIPOutputStream(out, 8192);
+	}
+
+}
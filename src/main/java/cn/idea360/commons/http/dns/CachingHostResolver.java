@@ -0,0 +1,233 @@
+package cn.idea360.commons.http.dns;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 进程内DNS缓存. 结果在ttl内直接返回, 过了ttl的3/4后首次访问触发后台刷新, 刷新期间及刷新失败时继续返回旧结果直到过期, 请求线程只在首次解析或结果过期时阻塞;
+ * 同一域名的并发解析只执行一次. 缓存的域名数超过上限时先清除过期的结果, 仍超过时清除最早过期的结果. JDK无法获取DNS记录的TTL, 缓存时间由配置决定,
+ * 底层的系统解析另受安全属性networkaddress.cache.ttl影响
+ *
+ * @author cuishiying
+ */
+@Slf4j
+public class CachingHostResolver implements HostResolver {
+
+	/**
+	 * 默认最多缓存的域名数
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+	private static final ExecutorService REFRESH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "dns-refresh");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final HostResolver delegate;
+
+	private final long ttlNanos;
+
+	private final long negativeTtlNanos;
+
+	private final int maxEntries;
+
+	private final ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+
+	/**
+	 * 同一时间只有一个线程清理
+	 */
+	private final AtomicBoolean evicting = new AtomicBoolean();
+
+	/**
+	 * 构造方法, 最多缓存{@value #DEFAULT_MAX_ENTRIES}个域名
+	 * @param delegate 实际的解析
+	 * @param ttl 解析结果的缓存时间(ms)
+	 * @param negativeTtl 解析失败的缓存时间(ms), 小于等于0时不缓存失败
+	 */
+	public CachingHostResolver(HostResolver delegate, long ttl, long negativeTtl) {
+		this(delegate, ttl, negativeTtl, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * 构造方法
+	 * @param delegate 实际的解析
+	 * @param ttl 解析结果的缓存时间(ms)
+	 * @param negativeTtl 解析失败的缓存时间(ms), 小于等于0时不缓存失败
+	 * @param maxEntries 最多缓存的域名数
+	 */
+	public CachingHostResolver(HostResolver delegate, long ttl, long negativeTtl, int maxEntries) {
+		this.delegate = Objects.requireNonNull(delegate, "delegate");
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl);
+		this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, negativeTtl));
+		this.maxEntries = Math.max(1, maxEntries);
+	}
+
+	@Override
+	public InetAddress[] resolve(String host) throws UnknownHostException {
+		Entry entry = cache.get(host);
+		long now = System.nanoTime();
+		if (Objects.isNull(entry) || now - entry.expiresAt >= 0) {
+			entry = load(host);
+		}
+		else if (Objects.nonNull(entry.addresses) && now - entry.refreshAt >= 0
+				&& entry.refreshing.compareAndSet(false, true)) {
+			refreshAsync(host);
+		}
+		if (Objects.isNull(entry.addresses)) {
+			throw new UnknownHostException(entry.error);
+		}
+		return entry.addresses.clone();
+	}
+
+	/**
+	 * 清除缓存, 如已知服务端地址变更时
+	 * @param host 域名
+	 */
+	public void invalidate(String host) {
+		cache.remove(host);
+	}
+
+	private Entry load(String host) {
+		CompletableFuture<Entry> future = new CompletableFuture<>();
+		CompletableFuture<Entry> existing = loading.putIfAbsent(host, future);
+		if (Objects.nonNull(existing)) {
+			try {
+				return existing.join();
+			}
+			catch (CompletionException e) {
+				// 与执行解析的线程抛出相同的异常
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw e;
+			}
+		}
+		try {
+			Entry entry = lookup(host);
+			future.complete(entry);
+			return entry;
+		}
+		catch (RuntimeException | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		}
+		finally {
+			loading.remove(host, future);
+		}
+	}
+
+	private Entry lookup(String host) {
+		Entry entry;
+		try {
+			InetAddress[] addresses = delegate.resolve(host);
+			if (Objects.isNull(addresses) || addresses.length == 0) {
+				throw new UnknownHostException(host);
+			}
+			long now = System.nanoTime();
+			entry = new Entry(addresses, null, now + ttlNanos, now + ttlNanos / 4 * 3);
+		}
+		catch (UnknownHostException e) {
+			long now = System.nanoTime();
+			entry = new Entry(null, Objects.nonNull(e.getMessage()) ? e.getMessage() : host, now + negativeTtlNanos,
+					now + negativeTtlNanos);
+		}
+		store(host, entry);
+		return entry;
+	}
+
+	private void store(String host, Entry entry) {
+		cache.put(host, entry);
+		if (cache.size() > maxEntries && evicting.compareAndSet(false, true)) {
+			try {
+				evict();
+			}
+			finally {
+				evicting.set(false);
+			}
+		}
+	}
+
+	private void evict() {
+		long now = System.nanoTime();
+		cache.values().removeIf(entry -> now - entry.expiresAt >= 0);
+		int excess = cache.size() - maxEntries;
+		if (excess <= 0) {
+			return;
+		}
+		// 多清除1/4, 避免每次新增域名都要排序
+		excess += maxEntries / 4;
+		List<Map.Entry<String, Entry>> entries = new ArrayList<>(cache.entrySet());
+		entries.sort(Comparator.comparingLong(e -> e.getValue().expiresAt - now));
+		for (int i = 0; i < excess && i < entries.size(); i++) {
+			cache.remove(entries.get(i).getKey(), entries.get(i).getValue());
+		}
+	}
+
+	private void refreshAsync(String host) {
+		try {
+			REFRESH_EXECUTOR.execute(() -> {
+				try {
+					InetAddress[] addresses = delegate.resolve(host);
+					if (Objects.nonNull(addresses) && addresses.length > 0) {
+						long now = System.nanoTime();
+						store(host, new Entry(addresses, null, now + ttlNanos, now + ttlNanos / 4 * 3));
+					}
+				}
+				catch (UnknownHostException | RuntimeException e) {
+					// 保留旧结果直到过期, 过期后由请求线程重新解析
+					log.warn("DNS后台刷新失败: {}, {}", host, e.toString());
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			log.warn("DNS后台刷新未执行: {}", host);
+		}
+	}
+
+	private static final class Entry {
+
+		/**
+		 * 为null时表示解析失败
+		 */
+		private final InetAddress[] addresses;
+
+		private final String error;
+
+		private final long expiresAt;
+
+		private final long refreshAt;
+
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+
+		Entry(InetAddress[] addresses, String error, long expiresAt, long refreshAt) {
+			this.addresses = addresses;
+			this.error = error;
+			this.expiresAt = expiresAt;
+			this.refreshAt = refreshAt;
+		}
+
+	}
+
+}
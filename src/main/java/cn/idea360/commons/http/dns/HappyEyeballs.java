@@ -0,0 +1,251 @@
+package cn.idea360.commons.http.dns;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 多地址并行连接(RFC 8305 Happy Eyeballs): IPv6与IPv4地址交替排列, 每隔attemptDelay或上一个尝试失败时发起下一个连接,
+ * 先连上的胜出, 其余连接被关闭. 避免某个地址(通常是不通的IPv6)在连接超时前阻塞整个建连过程
+ *
+ * @author cuishiying
+ */
+public final class HappyEyeballs {
+
+	/**
+	 * RFC 8305推荐的连接尝试间隔(ms)
+	 */
+	public static final long DEFAULT_ATTEMPT_DELAY = 250;
+
+	private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "happy-eyeballs-connect");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private HappyEyeballs() {
+	}
+
+	/**
+	 * 单个地址的连接方式
+	 */
+	public interface SocketConnector {
+
+		/**
+		 * 创建未连接的socket, 胜出者确定后其余socket被关闭以中止连接
+		 * @return socket
+		 * @throws IOException 异常
+		 */
+		Socket createSocket() throws IOException;
+
+		/**
+		 * 连接, 可包含TLS握手
+		 * @param socket {@link #createSocket}创建的socket
+		 * @param address 目标地址
+		 * @return 连接完成的socket, 可以是包装了参数socket的新socket
+		 * @throws IOException 异常
+		 */
+		Socket connect(Socket socket, InetAddress address) throws IOException;
+
+	}
+
+	/**
+	 * 按RFC 8305交替排列地址族, 以第一个地址的地址族开头, 保持各地址族内的原有顺序
+	 * @param addresses 地址
+	 * @return 排列后的地址
+	 */
+	public static InetAddress[] interleave(InetAddress[] addresses) {
+		if (addresses.length < 2) {
+			return addresses;
+		}
+		boolean firstIpv6 = addresses[0] instanceof Inet6Address;
+		List<InetAddress> first = new ArrayList<>(addresses.length);
+		List<InetAddress> second = new ArrayList<>(addresses.length);
+		for (InetAddress address : addresses) {
+			((address instanceof Inet6Address) == firstIpv6 ? first : second).add(address);
+		}
+		if (second.isEmpty()) {
+			return addresses;
+		}
+		InetAddress[] result = new InetAddress[addresses.length];
+		int index = 0;
+		for (int i = 0; i < Math.max(first.size(), second.size()); i++) {
+			if (i < first.size()) {
+				result[index++] = first.get(i);
+			}
+			if (i < second.size()) {
+				result[index++] = second.get(i);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 并行连接
+	 * @param addresses 目标地址
+	 * @param attemptDelay 连接尝试间隔(ms)
+	 * @param connector 连接方式
+	 * @return 最先连接完成的socket
+	 * @throws IOException 全部地址连接失败时为最后一个异常, 其余异常作为suppressed
+	 */
+	public static Socket connect(InetAddress[] addresses, long attemptDelay, SocketConnector connector)
+			throws IOException {
+		return new Race(interleave(addresses), connector).run(attemptDelay);
+	}
+
+	private static final class Race {
+
+		private final InetAddress[] addresses;
+
+		private final SocketConnector connector;
+
+		private final Socket[] sockets;
+
+		private final BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+
+		/**
+		 * 胜出的下标, -1表示尚未决出, addresses.length表示已放弃
+		 */
+		private final AtomicInteger winner = new AtomicInteger(-1);
+
+		/**
+		 * 调用方已不再等待结果
+		 */
+		private volatile boolean abandoned;
+
+		Race(InetAddress[] addresses, SocketConnector connector) {
+			this.addresses = addresses;
+			this.connector = connector;
+			this.sockets = new Socket[addresses.length];
+		}
+
+		Socket run(long attemptDelay) throws IOException {
+			int started = 0;
+			int failed = 0;
+			IOException failure = null;
+			try {
+				start(started++);
+				while (true) {
+					Outcome outcome = started < addresses.length ? outcomes.poll(attemptDelay, TimeUnit.MILLISECONDS)
+							: outcomes.take();
+					if (Objects.isNull(outcome)) {
+						start(started++);
+						continue;
+					}
+					if (Objects.nonNull(outcome.socket)) {
+						closeOthers(outcome.index);
+						return outcome.socket;
+					}
+					if (Objects.nonNull(failure)) {
+						outcome.error.addSuppressed(failure);
+					}
+					failure = outcome.error;
+					if (++failed == addresses.length) {
+						throw failure;
+					}
+					if (started < addresses.length) {
+						start(started++);
+					}
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				abandon();
+				throw new InterruptedIOException("connect interrupted");
+			}
+		}
+
+		private void start(int index) {
+			EXECUTOR.execute(() -> {
+				Socket socket = null;
+				try {
+					socket = connector.createSocket();
+					synchronized (sockets) {
+						if (winner.get() != -1) {
+							closeQuietly(socket);
+							return;
+						}
+						sockets[index] = socket;
+					}
+					Socket connected = connector.connect(socket, addresses[index]);
+					if (winner.compareAndSet(-1, index)) {
+						outcomes.add(new Outcome(index, connected, null));
+						if (abandoned) {
+							closeQuietly(connected);
+						}
+					}
+					else {
+						closeQuietly(connected);
+					}
+				}
+				catch (IOException | RuntimeException e) {
+					closeQuietly(socket);
+					outcomes.add(
+							new Outcome(index, null, e instanceof IOException ? (IOException) e : new IOException(e)));
+				}
+			});
+		}
+
+		private void closeOthers(int index) {
+			synchronized (sockets) {
+				for (int i = 0; i < sockets.length; i++) {
+					if (i != index) {
+						closeQuietly(sockets[i]);
+					}
+				}
+			}
+		}
+
+		private void abandon() {
+			abandoned = true;
+			if (!winner.compareAndSet(-1, addresses.length)) {
+				// 已有连接胜出但调用方不再等待
+				for (Outcome outcome : outcomes) {
+					closeQuietly(outcome.socket);
+				}
+			}
+			closeOthers(-1);
+		}
+
+	}
+
+	private static final class Outcome {
+
+		private final int index;
+
+		private final Socket socket;
+
+		private final IOException error;
+
+		Outcome(int index, Socket socket, IOException error) {
+			this.index = index;
+			this.socket = socket;
+			this.error = error;
+		}
+
+	}
+
+	private static void closeQuietly(Socket socket) {
+		if (Objects.isNull(socket)) {
+			return;
+		}
+		try {
+			socket.close();
+		}
+		catch (IOException ignored) {
+			// ignore
+		}
+	}
+
+}
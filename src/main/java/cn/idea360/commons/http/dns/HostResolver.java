@@ -0,0 +1,27 @@
+package cn.idea360.commons.http.dns;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * 域名解析SPI, 通过{@code HttpConfig.setHostResolver}配置, 可接入服务发现或自定义DNS. 实现需线程安全
+ *
+ * @author cuishiying
+ */
+@FunctionalInterface
+public interface HostResolver {
+
+	/**
+	 * 系统解析, 即{@link InetAddress#getAllByName}
+	 */
+	HostResolver SYSTEM = InetAddress::getAllByName;
+
+	/**
+	 * 解析域名
+	 * @param host 域名或IP字面量
+	 * @return 地址, 至少一个
+	 * @throws UnknownHostException 无法解析
+	 */
+	InetAddress[] resolve(String host) throws UnknownHostException;
+
+}
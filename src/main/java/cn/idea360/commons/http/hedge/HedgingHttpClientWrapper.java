@@ -0,0 +1,158 @@
+package cn.idea360.commons.http.hedge;
+
+import cn.idea360.commons.http.DelegatingHttpClientWrapper;
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.Response;
+import cn.idea360.commons.http.metrics.HttpMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 对冲请求装饰器, 只作用于幂等的get请求: 请求发出后若在对冲延迟内没有响应, 再发出一个相同的请求, 先返回的成功响应胜出, 另一个被取消.
+ * 对冲延迟取该路由最近响应耗时的分位数(如p95), 额外负载约为(100 - 分位数)%. 两个请求都失败时才返回失败; 第一个请求在对冲前失败时直接返回失败,
+ * 失败重试由重试策略负责. 流式请求不参与对冲
+ *
+ * @author cuishiying
+ */
+@Slf4j
+public class HedgingHttpClientWrapper extends DelegatingHttpClientWrapper {
+
+	private final double percentile;
+
+	private final long minDelay;
+
+	private final ConcurrentMap<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "http-hedge");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * 构造方法
+	 * @param delegate 被装饰的client
+	 * @param percentile 对冲延迟取响应耗时的分位数, 如95
+	 * @param minDelay 最小对冲延迟(ms), 样本不足时使用
+	 */
+	public HedgingHttpClientWrapper(HttpClientWrapper delegate, double percentile, long minDelay) {
+		super(delegate);
+		this.percentile = percentile;
+		this.minDelay = minDelay;
+	}
+
+	@Override
+	public Response get(Request request) throws IOException, URISyntaxException, InterruptedException {
+		if (request.isStream()) {
+			return delegate.get(request);
+		}
+		CompletableFuture<Response> future = getAsync(request);
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			future.cancel(true);
+			throw e;
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof URISyntaxException) {
+				throw (URISyntaxException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	@Override
+	public CompletableFuture<Response> getAsync(Request request) {
+		if (request.isStream()) {
+			return delegate.getAsync(request);
+		}
+		LatencyTracker tracker;
+		try {
+			tracker = trackers.computeIfAbsent(HttpMetrics.route(new URI(request.getUrl())),
+					route -> new LatencyTracker(percentile, minDelay));
+		}
+		catch (URISyntaxException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		CompletableFuture<Response> result = new CompletableFuture<>();
+		// 未完成的请求数, 对冲请求发出前为1
+		AtomicInteger pending = new AtomicInteger(1);
+		CompletableFuture<Response> primary = attempt(request, tracker, result, pending);
+		ScheduledFuture<?> hedge = scheduler.schedule(() -> {
+			if (result.isDone() || pending.getAndIncrement() == 0) {
+				return;
+			}
+			log.debug("对冲请求: {}", request.getUrl());
+			CompletableFuture<Response> backup = attempt(request, tracker, result, pending);
+			result.whenComplete((response, ex) -> backup.cancel(true));
+		}, tracker.delayNanos(), TimeUnit.NANOSECONDS);
+		result.whenComplete((response, ex) -> {
+			hedge.cancel(false);
+			primary.cancel(true);
+		});
+		return result;
+	}
+
+	@Override
+	public void close() throws IOException {
+		scheduler.shutdownNow();
+		super.close();
+	}
+
+	private CompletableFuture<Response> attempt(Request request, LatencyTracker tracker,
+			CompletableFuture<Response> result, AtomicInteger pending) {
+		long start = System.nanoTime();
+		CompletableFuture<Response> future = delegate.getAsync(request);
+		future.whenComplete((response, ex) -> {
+			if (Objects.isNull(ex)) {
+				tracker.record(System.nanoTime() - start);
+				if (!result.complete(response)) {
+					discard(response);
+				}
+			}
+			// 所有请求都失败时才失败, 对冲请求发出前pending为1
+			else if (pending.decrementAndGet() == 0) {
+				result.completeExceptionally(ex);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * 落败的响应, 释放可能持有的资源
+	 */
+	private static void discard(Response response) {
+		try {
+			response.close();
+		}
+		catch (Exception e) {
+			log.debug("close response: " + e.getMessage());
+		}
+	}
+
+}
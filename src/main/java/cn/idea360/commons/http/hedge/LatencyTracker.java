@@ -0,0 +1,70 @@
+package cn.idea360.commons.http.hedge;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个路由的延迟统计, 保存最近的响应耗时并定期计算分位数作为对冲延迟
+ *
+ * @author cuishiying
+ */
+class LatencyTracker {
+
+	private static final int WINDOW_SIZE = 1000;
+
+	/**
+	 * 每记录多少次重新计算一次分位数
+	 */
+	private static final int RECOMPUTE_INTERVAL = 100;
+
+	private final double percentile;
+
+	private final long minDelayNanos;
+
+	private final long[] samples = new long[WINDOW_SIZE];
+
+	private int index;
+
+	private int count;
+
+	private int sinceRecompute;
+
+	private volatile long delayNanos;
+
+	LatencyTracker(double percentile, long minDelayMillis) {
+		this.percentile = percentile;
+		this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+		this.delayNanos = minDelayNanos;
+	}
+
+	/**
+	 * 对冲延迟, 样本不足时为最小延迟
+	 * @return 延迟(ns)
+	 */
+	long delayNanos() {
+		return delayNanos;
+	}
+
+	void record(long durationNanos) {
+		long[] snapshot = null;
+		synchronized (this) {
+			samples[index] = durationNanos;
+			index = (index + 1) % WINDOW_SIZE;
+			if (count < WINDOW_SIZE) {
+				count++;
+			}
+			if (++sinceRecompute >= RECOMPUTE_INTERVAL) {
+				sinceRecompute = 0;
+				snapshot = Arrays.copyOf(samples, count);
+			}
+		}
+		// 排序在锁外进行, 不阻塞其它请求
+		if (Objects.nonNull(snapshot)) {
+			Arrays.sort(snapshot);
+			int rank = (int) Math.ceil(percentile / 100 * snapshot.length) - 1;
+			delayNanos = Math.max(minDelayNanos, snapshot[Math.max(0, Math.min(rank, snapshot.length - 1))]);
+		}
+	}
+
+}
@@ -0,0 +1,18 @@
+package cn.idea360.commons.http.jdk;
+
+import java.net.http.HttpTimeoutException;
+
+/**
+ * 等待并发许可超时, 对应{@code HttpConfig.connectionRequestTimeout}, 通常意味着并发数已达上限
+ *
+ * @author cuishiying
+ */
+public class ConnectionRequestTimeoutException extends HttpTimeoutException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ConnectionRequestTimeoutException(String message) {
+		super(message);
+	}
+
+}
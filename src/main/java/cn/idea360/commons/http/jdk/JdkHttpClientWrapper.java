@@ -1,22 +1,55 @@
 package cn.idea360.commons.http.jdk;
 
+import cn.idea360.commons.http.ConnectionLimiter;
+import cn.idea360.commons.http.Futures;
 import cn.idea360.commons.http.HttpClientWrapper;
 import cn.idea360.commons.http.HttpConfig;
+import cn.idea360.commons.http.HttpProtocol;
 import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.RequestTemplate;
 import cn.idea360.commons.http.Response;
+import cn.idea360.commons.http.UrlEncoder;
+import cn.idea360.commons.http.VirtualThreads;
+import cn.idea360.commons.http.compression.CompressingInputStream;
+import cn.idea360.commons.http.compression.ContentCodec;
+import cn.idea360.commons.http.compression.ContentCodecs;
+import cn.idea360.commons.http.json.JsonCodec;
+import cn.idea360.commons.http.json.JsonCodecs;
+import cn.idea360.commons.http.metrics.HttpMetrics;
+import cn.idea360.commons.http.metrics.TimeoutType;
+import cn.idea360.commons.http.retry.RetryPolicy;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.*;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 /**
  * @author cuishiying
@@ -24,12 +57,56 @@ import java.util.stream.Collectors;
 @Slf4j
 public class JdkHttpClientWrapper implements HttpClientWrapper {
 
-	private final HttpClient httpClient;
+	/**
+	 * HttpClient对每个host只打开一个HTTP/2连接, 多个连接时创建多个HttpClient并轮询
+	 */
+	private final HttpClient[] httpClients;
+
+	private final AtomicInteger nextClient = new AtomicInteger();
+
+	/**
+	 * 虚拟线程池, 未启用虚拟线程时为null(使用HttpClient默认线程池)
+	 */
+	private final ExecutorService executor;
 
 	private final List<Consumer<HttpRequest.Builder>> requestInterceptors;
 
 	private final List<Consumer<Response>> responseInterceptors;
 
+	private final HttpMetrics metrics;
+
+	/**
+	 * 并发限制, 对应maxTotal与defaultMaxPerRoute. HttpClient没有连接池上限, HTTP/2下多个请求复用同一连接,
+	 * 因此限制的是进行中的请求数
+	 */
+	private final ConnectionLimiter connectionLimiter;
+
+	private final int connectionRequestTimeout;
+
+	private final int socketTimeout;
+
+	/**
+	 * 重试策略, 未开启重试时为null
+	 */
+	private final RetryPolicy retryPolicy;
+
+	/**
+	 * 是否发送Accept-Encoding并解压响应体
+	 */
+	private final boolean responseCompression;
+
+	/**
+	 * 请求体压缩编码, 未开启请求压缩时为null
+	 */
+	private final ContentCodec requestCodec;
+
+	private final long requestCompressionThreshold;
+
+	/**
+	 * 未配置时为null, 使用自动选择的默认编解码
+	 */
+	private final JsonCodec jsonCodec;
+
 	/**
 	 * 默认构造方法, 默认配置
 	 */
@@ -57,120 +134,742 @@ public class JdkHttpClientWrapper implements HttpClientWrapper {
 			httpConfig = new HttpConfig();
 		}
 		log.info("http配置: {}", httpConfig.toString());
-		this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(httpConfig.getConnectTimeout()))
-				.version(HttpClient.Version.HTTP_2).build();
+		HttpClient.Version version = httpConfig.getProtocol() == HttpProtocol.HTTP_1_1 ? HttpClient.Version.HTTP_1_1
+				: HttpClient.Version.HTTP_2;
+		HttpClient.Builder builder = HttpClient.newBuilder()
+				.connectTimeout(Duration.ofMillis(httpConfig.getConnectTimeout())).version(version);
+		this.executor = httpConfig.isVirtualThreads() ? VirtualThreads.newExecutor("jdk-httpclient-") : null;
+		if (Objects.nonNull(executor)) {
+			builder.executor(executor);
+		}
+		if (Objects.nonNull(httpConfig.getHostResolver()) || httpConfig.getDnsCacheTtl() > 0
+				|| httpConfig.getHappyEyeballsDelay() > 0) {
+			log.warn("JDK HttpClient不支持自定义域名解析与并行建连, hostResolver、dnsCacheTtl与happyEyeballsDelay不生效");
+		}
+		int clients = version == HttpClient.Version.HTTP_2 ? Math.max(1, httpConfig.getH2ConnectionsPerHost()) : 1;
+		this.httpClients = new HttpClient[clients];
+		for (int i = 0; i < clients; i++) {
+			httpClients[i] = builder.build();
+		}
 		this.requestInterceptors = requestInterceptors;
 		this.responseInterceptors = responseInterceptors;
+		this.metrics = Objects.isNull(httpConfig.getMetrics()) ? HttpMetrics.NOOP : httpConfig.getMetrics();
+		this.connectionLimiter = new ConnectionLimiter(httpConfig.getMaxTotal(), httpConfig.getDefaultMaxPerRoute(),
+				httpConfig.getMaxPerRoute());
+		this.connectionRequestTimeout = httpConfig.getConnectionRequestTimeout();
+		this.socketTimeout = httpConfig.getSocketTimeout();
+		this.retryPolicy = RetryPolicy.of(httpConfig);
+		this.responseCompression = httpConfig.isResponseCompression();
+		this.requestCompressionThreshold = httpConfig.getRequestCompressionThreshold();
+		this.jsonCodec = httpConfig.getJsonCodec();
+		this.requestCodec = requestCompressionThreshold > 0
+				? ContentCodecs.get(httpConfig.getRequestCompressionEncoding()) : null;
 		log.info("httpclient初始化完成");
 	}
 
+	@Override
+	public JsonCodec getJsonCodec() {
+		return Objects.nonNull(jsonCodec) ? jsonCodec : JsonCodecs.getDefault();
+	}
+
 	@Override
 	public Response get(Request request) throws IOException, URISyntaxException, InterruptedException {
-		URI uri = buildUri(request.getUrl(), request.getParams());
-		HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri).GET();
-		requestBuilder.header("Accept", "application/json").header("Content-Type", "application/x-www-form-urlencoded");
-		addHeaders(requestBuilder, request.getHeaders());
-		applyRequestInterceptors(requestBuilder);
-		return executeRequest(requestBuilder);
+		return executeRequest(newGetBuilder(request), request.isStream());
 	}
 
 	@Override
 	public Response post(Request request) throws IOException, URISyntaxException, InterruptedException {
-		URI uri = buildUri(request.getUrl(), request.getParams());
-		HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri)
-				.POST(Objects.nonNull(request.getBody())
-						? HttpRequest.BodyPublishers.ofString(request.getBody(), StandardCharsets.UTF_8)
-						: HttpRequest.BodyPublishers.noBody());
-		requestBuilder.header("Accept", "application/json").header("Content-Type", "application/json");
-		addHeaders(requestBuilder, request.getHeaders());
-		applyRequestInterceptors(requestBuilder);
-		return executeRequest(requestBuilder);
+		return executeRequest(newPostBuilder(request), request.isStream());
 	}
 
 	@Override
 	public Response put(Request request) throws IOException, URISyntaxException, InterruptedException {
-		URI uri = buildUri(request.getUrl(), request.getParams());
-		HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri)
-				.PUT(Objects.nonNull(request.getBody())
-						? HttpRequest.BodyPublishers.ofString(request.getBody(), StandardCharsets.UTF_8)
-						: HttpRequest.BodyPublishers.noBody());
-		requestBuilder.header("Accept", "application/json").header("Content-Type", "application/json");
-		addHeaders(requestBuilder, request.getHeaders());
-		applyRequestInterceptors(requestBuilder);
-		return executeRequest(requestBuilder);
+		return executeRequest(newPutBuilder(request), request.isStream());
 	}
 
 	@Override
 	public Response patch(Request request) throws IOException, URISyntaxException, InterruptedException {
-		URI uri = buildUri(request.getUrl(), request.getParams());
-		HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri).method("PATCH",
-				Objects.nonNull(request.getBody())
-						? HttpRequest.BodyPublishers.ofString(request.getBody(), StandardCharsets.UTF_8)
-						: HttpRequest.BodyPublishers.noBody());
-		requestBuilder.header("Accept", "application/json").header("Content-Type", "application/json");
-		addHeaders(requestBuilder, request.getHeaders());
-		applyRequestInterceptors(requestBuilder);
-		return executeRequest(requestBuilder);
+		return executeRequest(newPatchBuilder(request), request.isStream());
 	}
 
 	@Override
 	public Response delete(Request request) throws IOException, URISyntaxException, InterruptedException {
-		URI uri = buildUri(request.getUrl(), request.getParams());
-		HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri).DELETE();
-		requestBuilder.header("Accept", "application/json").header("Content-Type", "application/x-www-form-urlencoded");
-		addHeaders(requestBuilder, request.getHeaders());
+		return executeRequest(newDeleteBuilder(request), request.isStream());
+	}
+
+	@Override
+	public Response download(Request request, Path target)
+			throws IOException, URISyntaxException, InterruptedException {
+		HttpRequest.Builder requestBuilder = newGetBuilder(request);
+		if (responseCompression) {
+			// 响应体直接写入文件, 不解压
+			requestBuilder.setHeader("Accept-Encoding", "identity");
+		}
+		HttpRequest httpRequest = requestBuilder.build();
+		// 2xx响应体直接写入文件, 其余响应体作为字符串返回便于排查
+		HttpResponse<String> httpResponse = execute(httpRequest,
+				responseInfo -> responseInfo.statusCode() / 100 == 2 ? HttpResponse.BodySubscribers
+						.mapping(HttpResponse.BodySubscribers.ofFile(target), path -> null)
+						: HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8),
+				false);
+		Response response = new Response(httpResponse.statusCode(), null, httpResponse.body());
+		response.setHeaders(httpResponse.headers().map());
+		applyResponseInterceptors(response);
+		return response;
+	}
+
+	@Override
+	public CompletableFuture<Response> getAsync(Request request) {
+		try {
+			return executeRequestAsync(newGetBuilder(request), request.isStream());
+		}
+		catch (URISyntaxException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	@Override
+	public CompletableFuture<Response> postAsync(Request request) {
+		try {
+			return executeRequestAsync(newPostBuilder(request), request.isStream());
+		}
+		catch (URISyntaxException | IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	@Override
+	public CompletableFuture<Response> putAsync(Request request) {
+		try {
+			return executeRequestAsync(newPutBuilder(request), request.isStream());
+		}
+		catch (URISyntaxException | IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	@Override
+	public CompletableFuture<Response> patchAsync(Request request) {
+		try {
+			return executeRequestAsync(newPatchBuilder(request), request.isStream());
+		}
+		catch (URISyntaxException | IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	@Override
+	public CompletableFuture<Response> deleteAsync(Request request) {
+		try {
+			return executeRequestAsync(newDeleteBuilder(request), request.isStream());
+		}
+		catch (URISyntaxException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	private HttpRequest.Builder newGetBuilder(Request request) throws URISyntaxException {
+		HttpRequest.Builder requestBuilder = newRequestBuilder(request, true).GET();
+		addHeaders(requestBuilder, request, "application/x-www-form-urlencoded");
 		applyRequestInterceptors(requestBuilder);
-		return executeRequest(requestBuilder);
+		return requestBuilder;
+	}
+
+	private HttpRequest.Builder newPostBuilder(Request request) throws URISyntaxException, IOException {
+		HttpRequest.Builder requestBuilder = newRequestBuilder(request, !request.isForm());
+		requestBuilder.POST(bodyPublisher(requestBuilder, request));
+		addHeaders(requestBuilder, request, contentType(request));
+		applyRequestInterceptors(requestBuilder);
+		return requestBuilder;
+	}
+
+	private HttpRequest.Builder newPutBuilder(Request request) throws URISyntaxException, IOException {
+		HttpRequest.Builder requestBuilder = newRequestBuilder(request, !request.isForm());
+		requestBuilder.PUT(bodyPublisher(requestBuilder, request));
+		addHeaders(requestBuilder, request, contentType(request));
+		applyRequestInterceptors(requestBuilder);
+		return requestBuilder;
+	}
+
+	private HttpRequest.Builder newPatchBuilder(Request request) throws URISyntaxException, IOException {
+		HttpRequest.Builder requestBuilder = newRequestBuilder(request, !request.isForm());
+		requestBuilder.method("PATCH", bodyPublisher(requestBuilder, request));
+		addHeaders(requestBuilder, request, contentType(request));
+		applyRequestInterceptors(requestBuilder);
+		return requestBuilder;
+	}
+
+	private HttpRequest.Builder newDeleteBuilder(Request request) throws URISyntaxException {
+		HttpRequest.Builder requestBuilder = newRequestBuilder(request, true).DELETE();
+		addHeaders(requestBuilder, request, "application/x-www-form-urlencoded");
+		applyRequestInterceptors(requestBuilder);
+		return requestBuilder;
+	}
+
+	/**
+	 * 由模板创建的请求复制缓存在模板上的原型(超时、Accept与模板请求头), 原型只读, 每次请求复制一份. 其余请求新建
+	 * @param queryParams 是否将params拼接到url, 表单请求体为false
+	 */
+	private HttpRequest.Builder newRequestBuilder(Request request, boolean queryParams) throws URISyntaxException {
+		URI uri = buildUri(request, queryParams);
+		RequestTemplate template = request.getTemplate();
+		if (Objects.isNull(template)) {
+			return newRequestBuilder().uri(uri);
+		}
+		HttpRequest.Builder prototype = template.attachment(this, this::newPrototype);
+		return prototype.copy().uri(uri);
+	}
+
+	private HttpRequest.Builder newPrototype(RequestTemplate template) {
+		HttpRequest.Builder prototype = newRequestBuilder().header("Accept", "application/json");
+		addHeaders(prototype, template.getHeaders());
+		return prototype;
+	}
+
+	/**
+	 * 预热连接. HttpClient没有连接池接口, 通过并发的HEAD请求建立连接, 响应后连接留在HttpClient的连接池中.
+	 * HTTP/2的https路由每个HttpClient只建立一个连接, 其余路由按connections并发, 不超过该路由的并发上限
+	 */
+	@Override
+	public int warmUp(Collection<String> urls, int connections) throws InterruptedException {
+		List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+		for (String url : urls) {
+			URI uri;
+			try {
+				uri = new URI(url);
+			}
+			catch (URISyntaxException e) {
+				log.warn("预热地址无效: {}", url);
+				continue;
+			}
+			HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri).method("HEAD",
+					HttpRequest.BodyPublishers.noBody());
+			if (socketTimeout > 0) {
+				requestBuilder.timeout(Duration.ofMillis(socketTimeout));
+			}
+			HttpRequest request = requestBuilder.build();
+			boolean h2 = httpClients[0].version() == HttpClient.Version.HTTP_2
+					&& "https".equalsIgnoreCase(uri.getScheme());
+			if (h2) {
+				for (HttpClient client : httpClients) {
+					futures.add(warmUp(client, request));
+				}
+			}
+			else {
+				int count = Math.min(connections, connectionLimiter.maxPerRoute(HttpMetrics.route(uri)));
+				for (int i = 0; i < count; i++) {
+					futures.add(warmUp(httpClient(), request));
+				}
+			}
+		}
+		try {
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+		}
+		catch (ExecutionException e) {
+			// warmUp(client, request)不会异常完成
+		}
+		int warmed = (int) futures.stream().filter(CompletableFuture::join).count();
+		log.info("连接预热完成, 成功{}个, 共{}个", warmed, futures.size());
+		return warmed;
+	}
+
+	private CompletableFuture<Boolean> warmUp(HttpClient client, HttpRequest request) {
+		return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).handle((response, ex) -> {
+			if (Objects.nonNull(ex)) {
+				log.warn("连接预热失败: {}, {}", request.uri(), ex.toString());
+				return false;
+			}
+			return true;
+		});
+	}
+
+	private HttpClient httpClient() {
+		if (httpClients.length == 1) {
+			return httpClients[0];
+		}
+		return httpClients[Math.floorMod(nextClient.getAndIncrement(), httpClients.length)];
+	}
+
+	private HttpRequest.Builder newRequestBuilder() {
+		HttpRequest.Builder requestBuilder = HttpRequest.newBuilder();
+		if (socketTimeout > 0) {
+			requestBuilder.timeout(Duration.ofMillis(socketTimeout));
+		}
+		if (responseCompression) {
+			requestBuilder.header("Accept-Encoding", ContentCodecs.acceptEncoding());
+		}
+		return requestBuilder;
+	}
+
+	/**
+	 * 请求体, 超过压缩阈值时边读边压缩, 不缓存整个请求体
+	 */
+	private HttpRequest.BodyPublisher bodyPublisher(HttpRequest.Builder requestBuilder, Request request)
+			throws IOException {
+		HttpRequest.BodyPublisher publisher = bodyPublisher(request);
+		if (Objects.isNull(requestCodec) || publisher.contentLength() < requestCompressionThreshold) {
+			return publisher;
+		}
+		requestBuilder.header("Content-Encoding", requestCodec.encoding());
+		return HttpRequest.BodyPublishers.ofInputStream(() -> compress(request));
+	}
+
+	private InputStream compress(Request request) {
+		try {
+			InputStream source;
+			if (request.isForm()) {
+				source = new ByteArrayInputStream(
+						UrlEncoder.form(request.getParams()).getBytes(StandardCharsets.UTF_8));
+			}
+			else if (Objects.nonNull(request.getFile())) {
+				source = Files.newInputStream(request.getFile());
+			}
+			else if (Objects.nonNull(request.getBytes())) {
+				source = new ByteArrayInputStream(request.getBytes());
+			}
+			else if (Objects.nonNull(request.getJson())) {
+				source = new ByteArrayInputStream(getJsonCodec().encode(request.getJson()));
+			}
+			else {
+				source = new ByteArrayInputStream(request.getBody().getBytes(StandardCharsets.UTF_8));
+			}
+			return new CompressingInputStream(source, requestCodec);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private HttpRequest.BodyPublisher bodyPublisher(Request request) throws IOException {
+		if (request.isForm()) {
+			return HttpRequest.BodyPublishers.ofString(UrlEncoder.form(request.getParams()), StandardCharsets.UTF_8);
+		}
+		if (Objects.nonNull(request.getFile())) {
+			return HttpRequest.BodyPublishers.ofFile(request.getFile());
+		}
+		if (Objects.nonNull(request.getBytes())) {
+			return HttpRequest.BodyPublishers.ofByteArray(request.getBytes());
+		}
+		if (Objects.nonNull(request.getJson())) {
+			return HttpRequest.BodyPublishers.ofByteArray(getJsonCodec().encode(request.getJson()));
+		}
+		return Objects.nonNull(request.getBody())
+				? HttpRequest.BodyPublishers.ofString(request.getBody(), StandardCharsets.UTF_8)
+				: HttpRequest.BodyPublishers.noBody();
+	}
+
+	private String contentType(Request request) {
+		if (request.isForm()) {
+			return "application/x-www-form-urlencoded";
+		}
+		return Objects.nonNull(request.getFile()) || Objects.nonNull(request.getBytes()) ? "application/octet-stream"
+				: "application/json";
 	}
 
-	private Response executeRequest(HttpRequest.Builder requestBuilder) throws IOException, InterruptedException {
+	private Response executeRequest(HttpRequest.Builder requestBuilder, boolean stream)
+			throws IOException, InterruptedException {
 		HttpRequest request = requestBuilder.build();
+		Response response;
+		if (stream) {
+			response = toStreamResponse(execute(request, streamBodyHandler(request), true));
+		}
+		else {
+			response = toResponse(execute(request, byteArrayBodyHandler(), false));
+		}
+		applyResponseInterceptors(response);
+		return response;
+	}
+
+	/**
+	 * 执行请求, 按重试策略重试
+	 * @param holdPermit 为true时并发许可在响应流关闭时释放
+	 */
+	private <T> HttpResponse<T> execute(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler,
+			boolean holdPermit) throws IOException, InterruptedException {
+		if (Objects.nonNull(retryPolicy)) {
+			retryPolicy.onRequest();
+		}
+		for (int execCount = 1;; execCount++) {
+			HttpResponse<T> httpResponse;
+			try {
+				httpResponse = send(request, bodyHandler, holdPermit);
+			}
+			catch (IOException e) {
+				if (!retryRequest(request, e, execCount)) {
+					throw e;
+				}
+				Thread.sleep(retryPolicy.getRetryInterval(execCount, null).toMillis());
+				continue;
+			}
+			if (!retryRequest(httpResponse, execCount)) {
+				return httpResponse;
+			}
+			Duration interval = retryPolicy.getRetryInterval(execCount, retryAfter(httpResponse));
+			discard(httpResponse);
+			Thread.sleep(interval.toMillis());
+		}
+	}
+
+	private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler, boolean holdPermit)
+			throws IOException, InterruptedException {
+		String route = HttpMetrics.route(request.uri());
+		long start = System.nanoTime();
+		metrics.requestStarted(request.method(), route);
 		try {
-			HttpResponse<String> httpResponse = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-			Response response = new Response(httpResponse.statusCode(), null, httpResponse.body());
-			applyResponseInterceptors(response);
-			return response;
+			if (!connectionLimiter.acquire(route, connectionRequestTimeout)) {
+				throw new ConnectionRequestTimeoutException("Timeout waiting for connection permit: " + route);
+			}
+			HttpResponse<T> httpResponse = sendWithPermit(request, bodyHandler, route, holdPermit);
+			recordCompleted(request, route, httpResponse, start);
+			return httpResponse;
+		}
+		catch (ConnectionRequestTimeoutException e) {
+			log.error("Connection request timeout: " + e.getMessage());
+			recordFailed(request, route, e, start);
+			throw e;
 		}
 		catch (HttpConnectTimeoutException e) {
 			log.error("Connection timeout: " + e.getMessage());
+			recordFailed(request, route, e, start);
 			throw e;
 		}
 		catch (HttpTimeoutException e) {
 			log.error("Request timeout: " + e.getMessage());
+			recordFailed(request, route, e, start);
 			throw e;
 		}
 		catch (IOException e) {
 			log.error("I/O error: " + e.getMessage());
+			recordFailed(request, route, e, start);
 			throw e;
 		}
 		catch (InterruptedException e) {
 			log.error("Request interrupted: " + e.getMessage());
+			recordFailed(request, route, e, start);
 			throw e;
 		}
 		catch (Exception e) {
 			log.error("Unexpected error: " + e.getMessage());
+			recordFailed(request, route, e, start);
 			throw new IOException("Unexpected error", e);
 		}
 	}
 
-	private URI buildUri(String url, Map<String, Object> params) throws URISyntaxException {
-		URI uri = new URI(url);
-		String query = uri.getQuery() == null ? "" : uri.getQuery();
+	private <T> HttpResponse<T> sendWithPermit(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler,
+			String route, boolean holdPermit) throws IOException, InterruptedException {
+		boolean success = false;
+		try {
+			HttpResponse<T> httpResponse = httpClient().send(request, bodyHandler);
+			success = true;
+			return httpResponse;
+		}
+		finally {
+			if (!success || !holdPermit) {
+				connectionLimiter.release(route);
+			}
+		}
+	}
+
+	private <T> CompletableFuture<HttpResponse<T>> executeAsync(HttpRequest request,
+			HttpResponse.BodyHandler<T> bodyHandler, boolean holdPermit, int execCount) {
+		if (execCount == 1 && Objects.nonNull(retryPolicy)) {
+			retryPolicy.onRequest();
+		}
+		return Futures.handleCompose(sendAsync(request, bodyHandler, holdPermit), (httpResponse, ex) -> {
+			if (Objects.nonNull(ex)) {
+				Throwable cause = ex instanceof CompletionException && Objects.nonNull(ex.getCause()) ? ex.getCause()
+						: ex;
+				if (cause instanceof IOException && retryRequest(request, (IOException) cause, execCount)) {
+					return retryAsync(request, bodyHandler, holdPermit, execCount,
+							retryPolicy.getRetryInterval(execCount, null));
+				}
+				return CompletableFuture.<HttpResponse<T>>failedFuture(cause);
+			}
+			if (retryRequest(httpResponse, execCount)) {
+				Duration interval = retryPolicy.getRetryInterval(execCount, retryAfter(httpResponse));
+				discard(httpResponse);
+				return retryAsync(request, bodyHandler, holdPermit, execCount, interval);
+			}
+			return CompletableFuture.completedFuture(httpResponse);
+		});
+	}
 
-		if (params != null && !params.isEmpty()) {
-			String paramsString = params.entrySet().stream()
-					.map(e -> e.getKey() + "=" + e.getValue().toString())
-					.collect(Collectors.joining("&"));
+	private <T> CompletableFuture<HttpResponse<T>> retryAsync(HttpRequest request,
+			HttpResponse.BodyHandler<T> bodyHandler, boolean holdPermit, int execCount, Duration interval) {
+		Executor delayedExecutor = CompletableFuture.delayedExecutor(interval.toMillis(), TimeUnit.MILLISECONDS,
+				Objects.nonNull(executor) ? executor : ForkJoinPool.commonPool());
+		return Futures.thenCompose(CompletableFuture.runAsync(() -> {
+		}, delayedExecutor), ignored -> executeAsync(request, bodyHandler, holdPermit, execCount + 1));
+	}
 
-			if (query.isEmpty()) {
-				query = paramsString;
+	private <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+			HttpResponse.BodyHandler<T> bodyHandler, boolean holdPermit) {
+		String route = HttpMetrics.route(request.uri());
+		long start = System.nanoTime();
+		metrics.requestStarted(request.method(), route);
+		// 取消时退出许可排队, 或取消执行中的请求(JDK16+会中止exchange)
+		CompletableFuture<HttpResponse<T>> future = Futures
+				.thenCompose(connectionLimiter.acquireAsync(route, connectionRequestTimeout), acquired -> {
+					if (!acquired) {
+						return CompletableFuture.<HttpResponse<T>>failedFuture(new ConnectionRequestTimeoutException(
+								"Timeout waiting for connection permit: " + route));
+					}
+					CompletableFuture<HttpResponse<T>> exchange = httpClient().sendAsync(request, bodyHandler);
+					exchange.whenComplete((httpResponse, ex) -> {
+						if (Objects.nonNull(ex) || !holdPermit) {
+							connectionLimiter.release(route);
+						}
+					});
+					return exchange;
+				});
+		return Futures.propagateCancel(future.whenComplete((httpResponse, ex) -> {
+			if (Objects.nonNull(ex)) {
+				recordFailed(request, route, ex, start);
 			}
 			else {
-				query += "&" + paramsString;
+				recordCompleted(request, route, httpResponse, start);
 			}
+		}), future);
+	}
+
+	private void recordCompleted(HttpRequest request, String route, HttpResponse<?> httpResponse, long start) {
+		long bytesSent = request.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L);
+		// 流式响应与下载的响应体在此时尚未读取, 以Content-Length为准
+		long bytesReceived = httpResponse.body() instanceof byte[] ? ((byte[]) httpResponse.body()).length
+				: httpResponse.headers().firstValueAsLong("Content-Length").orElse(-1L);
+		metrics.requestCompleted(request.method(), route, httpResponse.statusCode(), System.nanoTime() - start,
+				bytesSent, bytesReceived);
+	}
+
+	private void recordFailed(HttpRequest request, String route, Throwable ex, long start) {
+		Throwable cause = ex instanceof CompletionException && Objects.nonNull(ex.getCause()) ? ex.getCause() : ex;
+		TimeoutType timeoutType = null;
+		if (cause instanceof ConnectionRequestTimeoutException) {
+			timeoutType = TimeoutType.CONNECTION_REQUEST;
+		}
+		else if (cause instanceof HttpConnectTimeoutException) {
+			timeoutType = TimeoutType.CONNECT;
 		}
+		else if (cause instanceof HttpTimeoutException) {
+			timeoutType = TimeoutType.RESPONSE;
+		}
+		metrics.requestFailed(request.method(), route, cause, timeoutType, System.nanoTime() - start);
+	}
 
-		return new URI(uri.getScheme(), uri.getAuthority(), uri.getPath(), query, uri.getFragment());
+	private CompletableFuture<Response> executeRequestAsync(HttpRequest.Builder requestBuilder, boolean stream) {
+		HttpRequest request = requestBuilder.build();
+		CompletableFuture<?> exchange;
+		CompletableFuture<Response> future;
+		if (stream) {
+			CompletableFuture<HttpResponse<InputStream>> streamExchange = executeAsync(request,
+					streamBodyHandler(request), true, 1);
+			exchange = streamExchange;
+			future = streamExchange.thenApply(this::toStreamResponse);
+		}
+		else {
+			CompletableFuture<HttpResponse<byte[]>> byteArrayExchange = executeAsync(request, byteArrayBodyHandler(),
+					false, 1);
+			exchange = byteArrayExchange;
+			future = byteArrayExchange.thenApply(this::toResponse);
+		}
+		return Futures.propagateCancel(future.handle((response, ex) -> {
+			if (Objects.nonNull(ex)) {
+				throw new CompletionException(logAsyncError(ex));
+			}
+			applyResponseInterceptors(response);
+			return response;
+		}), exchange);
+	}
+
+	private Response toResponse(HttpResponse<byte[]> httpResponse) {
+		Response response = new Response(httpResponse.statusCode(), null, httpResponse.body(),
+				charset(httpResponse.headers()));
+		response.setHeaders(responseHeaders(httpResponse.headers()));
+		return response;
+	}
+
+	/**
+	 * 响应体, 按Content-Encoding解压
+	 */
+	private HttpResponse.BodyHandler<byte[]> byteArrayBodyHandler() {
+		if (!responseCompression) {
+			return HttpResponse.BodyHandlers.ofByteArray();
+		}
+		return responseInfo -> {
+			ContentCodec codec = contentCodec(responseInfo.headers());
+			if (Objects.isNull(codec)) {
+				return HttpResponse.BodySubscribers.ofByteArray();
+			}
+			return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), bytes -> {
+				try {
+					return ContentCodecs.decode(codec, bytes);
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		};
+	}
+
+	/**
+	 * 响应体的压缩编码
+	 * @return 编码, 未开启响应压缩、未压缩或不支持的编码返回null
+	 */
+	private ContentCodec contentCodec(HttpHeaders headers) {
+		return responseCompression ? ContentCodecs.get(headers.firstValue("Content-Encoding").orElse(null)) : null;
+	}
+
+	/**
+	 * 已解压的响应去掉Content-Encoding与Content-Length, 与ApacheHttpClient一致
+	 */
+	private Map<String, List<String>> responseHeaders(HttpHeaders headers) {
+		if (Objects.isNull(contentCodec(headers))) {
+			return headers.map();
+		}
+		Map<String, List<String>> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		map.putAll(headers.map());
+		map.remove("Content-Encoding");
+		map.remove("Content-Length");
+		return map;
+	}
+
+	/**
+	 * 从Content-Type中解析响应编码, 与BodyHandlers.ofString一致默认UTF-8
+	 * @param headers 响应头
+	 * @return 编码
+	 */
+	private Charset charset(HttpHeaders headers) {
+		String contentType = headers.firstValue("Content-Type").orElse(null);
+		if (Objects.nonNull(contentType)) {
+			for (String parameter : contentType.split(";")) {
+				int index = parameter.indexOf('=');
+				if (index > 0 && "charset".equalsIgnoreCase(parameter.substring(0, index).trim())) {
+					try {
+						return Charset.forName(parameter.substring(index + 1).trim().replace("\"", ""));
+					}
+					catch (IllegalArgumentException e) {
+						log.warn("unsupported charset: " + contentType);
+					}
+				}
+			}
+		}
+		return StandardCharsets.UTF_8;
+	}
+
+	private Response toStreamResponse(HttpResponse<InputStream> httpResponse) {
+		Response response = new Response(httpResponse.statusCode(), null, null);
+		response.setHeaders(responseHeaders(httpResponse.headers()));
+		response.setContent(httpResponse.body());
+		return response;
+	}
+
+	private Throwable logAsyncError(Throwable ex) {
+		Throwable cause = ex instanceof CompletionException && Objects.nonNull(ex.getCause()) ? ex.getCause() : ex;
+		if (cause instanceof ConnectionRequestTimeoutException) {
+			log.error("Connection request timeout: " + cause.getMessage());
+		}
+		else if (cause instanceof HttpConnectTimeoutException) {
+			log.error("Connection timeout: " + cause.getMessage());
+		}
+		else if (cause instanceof HttpTimeoutException) {
+			log.error("Request timeout: " + cause.getMessage());
+		}
+		else if (cause instanceof IOException) {
+			log.error("I/O error: " + cause.getMessage());
+		}
+		else {
+			log.error("Unexpected error: " + cause.getMessage());
+		}
+		return cause;
+	}
+
+	private boolean retryRequest(HttpRequest request, IOException exception, int execCount) {
+		if (Objects.isNull(retryPolicy) || !retryPolicy.retryRequest(request.method(), exception, execCount)) {
+			return false;
+		}
+		log.warn("I/O error, retry {}: {}", execCount, request.uri());
+		metrics.requestRetried(request.method(), HttpMetrics.route(request.uri()), execCount);
+		return true;
+	}
+
+	private boolean retryRequest(HttpResponse<?> httpResponse, int execCount) {
+		HttpRequest request = httpResponse.request();
+		if (Objects.isNull(retryPolicy) || !retryPolicy.retryRequest(request.method(), httpResponse.statusCode(),
+				retryAfter(httpResponse), execCount)) {
+			return false;
+		}
+		log.warn("status {}, retry {}: {}", httpResponse.statusCode(), execCount, request.uri());
+		metrics.requestRetried(request.method(), HttpMetrics.route(request.uri()), execCount);
+		return true;
+	}
+
+	private String retryAfter(HttpResponse<?> httpResponse) {
+		return httpResponse.headers().firstValue("Retry-After").orElse(null);
+	}
+
+	/**
+	 * 丢弃需要重试的响应, 流式响应需要关闭以释放连接与并发许可
+	 */
+	private void discard(HttpResponse<?> httpResponse) {
+		if (httpResponse.body() instanceof Closeable) {
+			try {
+				((Closeable) httpResponse.body()).close();
+			}
+			catch (IOException e) {
+				log.debug("discard response: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * 流式响应体, 关闭响应流时释放并发许可. 压缩的响应体在首次读取时才创建解压流, 不阻塞HttpClient的线程
+	 */
+	private HttpResponse.BodyHandler<InputStream> streamBodyHandler(HttpRequest request) {
+		String route = HttpMetrics.route(request.uri());
+		return responseInfo -> {
+			ContentCodec codec = contentCodec(responseInfo.headers());
+			return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(),
+					in -> new FilterInputStream(Objects.isNull(codec) ? in : ContentCodecs.decodeLazily(codec, in)) {
+
+						private final AtomicBoolean released = new AtomicBoolean();
+
+						@Override
+						public void close() throws IOException {
+							try {
+								super.close();
+							}
+							finally {
+								if (released.compareAndSet(false, true)) {
+									connectionLimiter.release(route);
+								}
+							}
+						}
+
+					});
+		};
+	}
+
+	private URI buildUri(Request request, boolean queryParams) throws URISyntaxException {
+		// 参数编码后直接拼接, 只解析一次, url原有的查询串与编码保持不变
+		return new URI(queryParams ? UrlEncoder.appendQuery(request.getUrl(), request.getParams()) : request.getUrl());
+	}
+
+	/**
+	 * 默认请求头与自定义请求头, 自定义请求头优先. 模板请求的Accept与模板请求头已在原型中, 请求头未被修改时不再逐个设置
+	 */
+	private void addHeaders(HttpRequest.Builder requestBuilder, Request request, String contentType) {
+		RequestTemplate template = request.getTemplate();
+		if (Objects.isNull(template)) {
+			requestBuilder.header("Accept", "application/json").header("Content-Type", contentType);
+			addHeaders(requestBuilder, request.getHeaders());
+			return;
+		}
+		if (!template.hasContentType()) {
+			requestBuilder.header("Content-Type", contentType);
+		}
+		if (request.getHeaders() != template.getHeaders()) {
+			addHeaders(requestBuilder, request.getHeaders());
+		}
 	}
 
 	private void addHeaders(HttpRequest.Builder requestBuilder, Map<String, String> headers) {
@@ -195,4 +894,11 @@ public class JdkHttpClientWrapper implements HttpClientWrapper {
 		}
 	}
 
+	@Override
+	public void close() throws IOException {
+		if (Objects.nonNull(executor)) {
+			executor.shutdown();
+		}
+	}
+
 }
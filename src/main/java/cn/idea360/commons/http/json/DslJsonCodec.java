@@ -0,0 +1,52 @@
+package cn.idea360.commons.http.json;
+
+import com.dslplatform.json.DslJson;
+import com.dslplatform.json.runtime.Settings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * 基于DSL-JSON的JSON编解码, 默认使用运行时反射分析, 也可传入通过注解处理器生成转换器的DslJson
+ *
+ * @author cuishiying
+ */
+public class DslJsonCodec implements JsonCodec {
+
+	private final DslJson<Object> dslJson;
+
+	/**
+	 * 默认构造方法, 运行时分析类型并加载ServiceLoader注册的转换器
+	 */
+	public DslJsonCodec() {
+		this(new DslJson<>(Settings.withRuntime().includeServiceLoader()));
+	}
+
+	/**
+	 * 构造方法
+	 * @param dslJson 自定义的DslJson
+	 */
+	public DslJsonCodec(DslJson<Object> dslJson) {
+		this.dslJson = dslJson;
+	}
+
+	@Override
+	public void write(Object value, OutputStream out) throws IOException {
+		dslJson.serialize(value, out);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T read(InputStream in, Type type) throws IOException {
+		return (T) dslJson.deserialize(type, in);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T decode(byte[] bytes, Type type) throws IOException {
+		return (T) dslJson.deserialize(type, bytes, bytes.length);
+	}
+
+}
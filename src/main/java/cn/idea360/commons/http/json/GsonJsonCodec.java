@@ -0,0 +1,62 @@
+package cn.idea360.commons.http.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基于Gson的JSON编解码. Gson只支持字符流, 按UTF-8在字节流上解码与编码, 不生成完整的中间字符串
+ *
+ * @author cuishiying
+ */
+public class GsonJsonCodec implements JsonCodec {
+
+	private final Gson gson;
+
+	/**
+	 * 默认构造方法
+	 */
+	public GsonJsonCodec() {
+		this(new Gson());
+	}
+
+	/**
+	 * 构造方法
+	 * @param gson 自定义的Gson
+	 */
+	public GsonJsonCodec(Gson gson) {
+		this.gson = gson;
+	}
+
+	@Override
+	public void write(Object value, OutputStream out) throws IOException {
+		Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		try {
+			gson.toJson(value, writer);
+		}
+		catch (JsonIOException e) {
+			throw new IOException(e);
+		}
+		writer.flush();
+	}
+
+	@Override
+	public <T> T read(InputStream in, Type type) throws IOException {
+		try {
+			return gson.fromJson(new InputStreamReader(in, StandardCharsets.UTF_8), type);
+		}
+		catch (JsonIOException | JsonSyntaxException e) {
+			throw new IOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,65 @@
+package cn.idea360.commons.http.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * 基于Jackson的JSON编解码, 直接读写字节
+ *
+ * @author cuishiying
+ */
+public class JacksonJsonCodec implements JsonCodec {
+
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * 调用方负责关闭流
+	 */
+	private final ObjectWriter writer;
+
+	/**
+	 * 默认构造方法, 忽略未知字段
+	 */
+	public JacksonJsonCodec() {
+		this(new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false));
+	}
+
+	/**
+	 * 构造方法
+	 * @param objectMapper 自定义的ObjectMapper
+	 */
+	public JacksonJsonCodec(ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+		this.writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	}
+
+	@Override
+	public void write(Object value, OutputStream out) throws IOException {
+		writer.writeValue(out, value);
+	}
+
+	@Override
+	public <T> T read(InputStream in, Type type) throws IOException {
+		return objectMapper.readerFor(objectMapper.constructType(type)).without(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+				.readValue(in);
+	}
+
+	@Override
+	public byte[] encode(Object value) throws IOException {
+		return writer.writeValueAsBytes(value);
+	}
+
+	@Override
+	public <T> T decode(byte[] bytes, Type type) throws IOException {
+		return objectMapper.readValue(bytes, objectMapper.constructType(type));
+	}
+
+}
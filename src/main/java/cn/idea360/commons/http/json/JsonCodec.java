@@ -0,0 +1,59 @@
+package cn.idea360.commons.http.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * JSON编解码SPI, 内置Jackson、Gson与DSL-JSON实现. 请求体直接序列化为字节, 响应体直接从字节或输入流解析, 不经过中间字符串
+ *
+ * @author cuishiying
+ */
+public interface JsonCodec {
+
+	/**
+	 * 序列化到输出流, 不关闭out
+	 * @param value 对象
+	 * @param out 输出流
+	 * @throws IOException 序列化失败
+	 */
+	void write(Object value, OutputStream out) throws IOException;
+
+	/**
+	 * 从输入流解析, 不关闭in
+	 * @param in UTF-8编码的JSON
+	 * @param type 目标类型, 泛型使用{@link TypeRef}
+	 * @param <T> 目标类型
+	 * @return 对象
+	 * @throws IOException 读取或解析失败
+	 */
+	<T> T read(InputStream in, Type type) throws IOException;
+
+	/**
+	 * 序列化为字节
+	 * @param value 对象
+	 * @return UTF-8编码的JSON
+	 * @throws IOException 序列化失败
+	 */
+	default byte[] encode(Object value) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		write(value, out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * 从字节解析
+	 * @param bytes UTF-8编码的JSON
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 对象
+	 * @throws IOException 解析失败
+	 */
+	default <T> T decode(byte[] bytes, Type type) throws IOException {
+		return read(new ByteArrayInputStream(bytes), type);
+	}
+
+}
@@ -0,0 +1,114 @@
+package cn.idea360.commons.http.json;
+
+import cn.idea360.commons.http.HttpStatusException;
+import cn.idea360.commons.http.Response;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * 默认JSON编解码的选择与响应体解析
+ *
+ * @author cuishiying
+ */
+@Slf4j
+public final class JsonCodecs {
+
+	private JsonCodecs() {
+	}
+
+	/**
+	 * 按classpath自动选择: Jackson &gt; Gson &gt; DSL-JSON
+	 * @return 默认编解码
+	 * @throws IllegalStateException classpath中没有任何JSON库
+	 */
+	public static JsonCodec getDefault() {
+		if (Objects.isNull(Holder.DEFAULT)) {
+			throw new IllegalStateException("no json library found, add jackson-databind, gson or dsl-json");
+		}
+		return Holder.DEFAULT;
+	}
+
+	/**
+	 * 解析响应体, 流式响应直接从输入流解析并关闭, 其余响应从原始字节解析, 不解码为字符串. 响应声明了UTF-8以外的编码时先转码为UTF-8
+	 * @param codec 编解码
+	 * @param response 响应
+	 * @param type 目标类型
+	 * @param <T> 目标类型
+	 * @return 对象, 响应体为空时返回null
+	 * @throws HttpStatusException 非2xx响应
+	 * @throws IOException 读取或解析失败
+	 */
+	public static <T> T read(JsonCodec codec, Response response, Type type) throws IOException {
+		InputStream content = response.getContent();
+		try {
+			if (response.getStatusCode() / 100 != 2) {
+				String body = Objects.nonNull(content) ? new String(content.readAllBytes(), response.getCharset())
+						: response.getBody();
+				throw new HttpStatusException(response.getStatusCode(), response.getReasonPhrase(), body);
+			}
+			Charset charset = response.getCharset();
+			if (!StandardCharsets.UTF_8.equals(charset) && !StandardCharsets.US_ASCII.equals(charset)) {
+				// 编解码只接受UTF-8
+				byte[] bytes = Objects.nonNull(content) ? content.readAllBytes() : response.getBytes();
+				return Objects.isNull(bytes) || bytes.length == 0 ? null
+						: codec.decode(new String(bytes, charset).getBytes(StandardCharsets.UTF_8), type);
+			}
+			if (Objects.nonNull(content)) {
+				PushbackInputStream in = new PushbackInputStream(content, 1);
+				int first = in.read();
+				if (first == -1) {
+					return null;
+				}
+				in.unread(first);
+				return codec.read(in, type);
+			}
+			byte[] bytes = response.getBytes();
+			return Objects.isNull(bytes) || bytes.length == 0 ? null : codec.decode(bytes, type);
+		}
+		finally {
+			if (Objects.nonNull(content)) {
+				content.close();
+			}
+		}
+	}
+
+	/**
+	 * 首次使用时检测
+	 */
+	private static final class Holder {
+
+		private static final JsonCodec DEFAULT = detect();
+
+		private static JsonCodec detect() {
+			if (isPresent("com.fasterxml.jackson.databind.ObjectMapper")) {
+				return new JacksonJsonCodec();
+			}
+			if (isPresent("com.google.gson.Gson")) {
+				return new GsonJsonCodec();
+			}
+			if (isPresent("com.dslplatform.json.DslJson")) {
+				return new DslJsonCodec();
+			}
+			return null;
+		}
+
+		private static boolean isPresent(String className) {
+			try {
+				Class.forName(className, false, JsonCodecs.class.getClassLoader());
+				return true;
+			}
+			catch (ClassNotFoundException ex) {
+				return false;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,35 @@
+package cn.idea360.commons.http.json;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * 泛型类型引用, 用于解析List&lt;User&gt;等泛型响应
+ *
+ * <pre>
+ * static final TypeRef&lt;List&lt;User&gt;&gt; USERS = new TypeRef&lt;List&lt;User&gt;&gt;() {
+ * };
+ *
+ * List&lt;User&gt; users = client.get(request, USERS);
+ * </pre>
+ *
+ * @param <T> 目标类型
+ * @author cuishiying
+ */
+public abstract class TypeRef<T> {
+
+	private final Type type;
+
+	protected TypeRef() {
+		Type superclass = getClass().getGenericSuperclass();
+		if (!(superclass instanceof ParameterizedType)) {
+			throw new IllegalArgumentException("TypeRef must be created with actual type arguments");
+		}
+		this.type = ((ParameterizedType) superclass).getActualTypeArguments()[0];
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+}
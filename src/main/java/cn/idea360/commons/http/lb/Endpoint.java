@@ -0,0 +1,115 @@
+package cn.idea360.commons.http.lb;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 逻辑服务的一个实例, 记录进行中的请求数、响应耗时与连续失败次数, 供负载均衡与离群摘除使用
+ *
+ * @author cuishiying
+ */
+public class Endpoint {
+
+	/**
+	 * 耗时EWMA的平滑系数
+	 */
+	private static final double ALPHA = 0.3;
+
+	private final String url;
+
+	private final AtomicInteger outstanding = new AtomicInteger();
+
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+	private volatile double latencyNanos;
+
+	private volatile long ejectedUntil;
+
+	/**
+	 * 连续摘除次数, 摘除后请求成功时清零
+	 */
+	private volatile int ejections;
+
+	/**
+	 * 构造方法
+	 * @param url 实例地址, 如http://10.0.0.1:8080, 可带路径前缀
+	 */
+	public Endpoint(String url) {
+		this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+		// nanoTime的起点任意, 可能为负数, 不能以0表示未摘除
+		this.ejectedUntil = System.nanoTime();
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * 进行中的请求数
+	 * @return 请求数
+	 */
+	public int getOutstanding() {
+		return outstanding.get();
+	}
+
+	/**
+	 * 响应耗时的指数加权移动平均
+	 * @return 耗时(ns), 无样本时为0
+	 */
+	public double getLatencyNanos() {
+		return latencyNanos;
+	}
+
+	/**
+	 * 是否被摘除
+	 * @return true已摘除
+	 */
+	public boolean isEjected() {
+		return System.nanoTime() - ejectedUntil < 0;
+	}
+
+	void onStart() {
+		outstanding.incrementAndGet();
+	}
+
+	void onSuccess(long durationNanos) {
+		outstanding.decrementAndGet();
+		consecutiveFailures.set(0);
+		if (ejections != 0) {
+			synchronized (this) {
+				ejections = 0;
+			}
+		}
+		// 并发更新时丢失个别样本不影响结果, 不加锁
+		double latency = latencyNanos;
+		latencyNanos = latency == 0 ? durationNanos : latency + ALPHA * (durationNanos - latency);
+	}
+
+	/**
+	 * 记录失败, 连续失败达到阈值时摘除, 摘除时长随摘除次数递增
+	 */
+	void onFailure(int consecutiveFailureThreshold, long ejectionTimeMillis) {
+		outstanding.decrementAndGet();
+		if (consecutiveFailures.incrementAndGet() < consecutiveFailureThreshold) {
+			return;
+		}
+		synchronized (this) {
+			if (isEjected()) {
+				return;
+			}
+			consecutiveFailures.set(0);
+			ejections = Math.min(ejections + 1, 10);
+			ejectedUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ejectionTimeMillis * ejections);
+		}
+	}
+
+	void onIgnored() {
+		outstanding.decrementAndGet();
+	}
+
+	@Override
+	public String toString() {
+		return url;
+	}
+
+}
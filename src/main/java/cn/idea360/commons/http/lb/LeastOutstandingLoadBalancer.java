@@ -0,0 +1,30 @@
+package cn.idea360.commons.http.lb;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 最少进行中请求, 请求数相同时从随机位置开始选择, 避免总是命中第一个实例
+ *
+ * @author cuishiying
+ */
+public class LeastOutstandingLoadBalancer implements LoadBalancer {
+
+	@Override
+	public Endpoint choose(String service, List<Endpoint> endpoints) {
+		int size = endpoints.size();
+		int offset = ThreadLocalRandom.current().nextInt(size);
+		Endpoint chosen = null;
+		int least = Integer.MAX_VALUE;
+		for (int i = 0; i < size; i++) {
+			Endpoint endpoint = endpoints.get((offset + i) % size);
+			int outstanding = endpoint.getOutstanding();
+			if (outstanding < least) {
+				least = outstanding;
+				chosen = endpoint;
+			}
+		}
+		return chosen;
+	}
+
+}
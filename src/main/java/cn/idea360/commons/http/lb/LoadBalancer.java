@@ -0,0 +1,20 @@
+package cn.idea360.commons.http.lb;
+
+import java.util.List;
+
+/**
+ * 负载均衡策略, 实现需线程安全
+ *
+ * @author cuishiying
+ */
+public interface LoadBalancer {
+
+	/**
+	 * 选择一个实例
+	 * @param service 逻辑服务名
+	 * @param endpoints 可用实例, 不为空
+	 * @return 实例
+	 */
+	Endpoint choose(String service, List<Endpoint> endpoints);
+
+}
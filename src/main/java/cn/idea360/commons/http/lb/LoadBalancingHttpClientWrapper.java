@@ -0,0 +1,262 @@
+package cn.idea360.commons.http.lb;
+
+import cn.idea360.commons.http.DelegatingHttpClientWrapper;
+import cn.idea360.commons.http.Futures;
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.Response;
+import cn.idea360.commons.http.circuitbreaker.BulkheadFullException;
+import cn.idea360.commons.http.circuitbreaker.CircuitBreakerOpenException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 客户端负载均衡装饰器, 适用于所有client实现: url以{@code lb://}开头时, 将逻辑服务名替换为按策略选出的实例地址,
+ * 如{@code lb://user-service/users?id=1}转发到{@code http://10.0.0.1:8080/users?id=1}.
+ * I/O异常与5xx响应计为失败, 熔断与舱壁在本地拒绝的请求未发出, 不计入; 连续失败的实例被摘除一段时间; 所有实例都被摘除时仍从全部实例中选择. 每个实例是独立的路由,
+ * 连接由底层连接池按实例复用
+ *
+ * @author cuishiying
+ */
+@Slf4j
+public class LoadBalancingHttpClientWrapper extends DelegatingHttpClientWrapper {
+
+	/**
+	 * 逻辑服务地址前缀
+	 */
+	public static final String SCHEME = "lb://";
+
+	private static final int SERVER_ERROR = 500;
+
+	private final Map<String, List<Endpoint>> services;
+
+	private final LoadBalancer loadBalancer;
+
+	private final int consecutiveFailures;
+
+	private final long ejectionTime;
+
+	/**
+	 * 构造方法
+	 * @param delegate 被装饰的client
+	 * @param services 逻辑服务名与实例地址
+	 * @param loadBalancer 负载均衡策略
+	 * @param consecutiveFailures 连续失败多少次摘除实例
+	 * @param ejectionTime 摘除时长(ms), 随摘除次数递增
+	 */
+	public LoadBalancingHttpClientWrapper(HttpClientWrapper delegate, Map<String, List<String>> services,
+			LoadBalancer loadBalancer, int consecutiveFailures, long ejectionTime) {
+		super(delegate);
+		this.services = services.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> Collections
+				.unmodifiableList(e.getValue().stream().map(Endpoint::new).collect(Collectors.toList()))));
+		this.loadBalancer = loadBalancer;
+		this.consecutiveFailures = consecutiveFailures;
+		this.ejectionTime = ejectionTime;
+	}
+
+	/**
+	 * 获取逻辑服务的实例, 用于监控
+	 * @param service 逻辑服务名
+	 * @return 实例, 服务不存在时返回空列表
+	 */
+	public List<Endpoint> getEndpoints(String service) {
+		return services.getOrDefault(service, Collections.emptyList());
+	}
+
+	@Override
+	public Response get(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, delegate::get);
+	}
+
+	@Override
+	public Response post(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, delegate::post);
+	}
+
+	@Override
+	public Response put(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, delegate::put);
+	}
+
+	@Override
+	public Response patch(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, delegate::patch);
+	}
+
+	@Override
+	public Response delete(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, delegate::delete);
+	}
+
+	@Override
+	public Response download(Request request, Path target)
+			throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, r -> delegate.download(r, target));
+	}
+
+	@Override
+	public CompletableFuture<Response> getAsync(Request request) {
+		return executeAsync(request, delegate::getAsync);
+	}
+
+	@Override
+	public CompletableFuture<Response> postAsync(Request request) {
+		return executeAsync(request, delegate::postAsync);
+	}
+
+	@Override
+	public CompletableFuture<Response> putAsync(Request request) {
+		return executeAsync(request, delegate::putAsync);
+	}
+
+	@Override
+	public CompletableFuture<Response> patchAsync(Request request) {
+		return executeAsync(request, delegate::patchAsync);
+	}
+
+	@Override
+	public CompletableFuture<Response> deleteAsync(Request request) {
+		return executeAsync(request, delegate::deleteAsync);
+	}
+
+	private Response execute(Request request, Call call) throws IOException, URISyntaxException, InterruptedException {
+		if (!isLoadBalanced(request)) {
+			return call.execute(request);
+		}
+		String url = request.getUrl();
+		Endpoint endpoint = choose(url);
+		endpoint.onStart();
+		long start = System.nanoTime();
+		boolean recorded = false;
+		try {
+			Response response = call.execute(resolve(request, endpoint));
+			record(endpoint, start, response);
+			recorded = true;
+			return response;
+		}
+		catch (IOException e) {
+			if (!isRejectedLocally(e)) {
+				endpoint.onFailure(consecutiveFailures, ejectionTime);
+				recorded = true;
+			}
+			throw e;
+		}
+		finally {
+			if (!recorded) {
+				endpoint.onIgnored();
+			}
+		}
+	}
+
+	private CompletableFuture<Response> executeAsync(Request request,
+			Function<Request, CompletableFuture<Response>> call) {
+		if (!isLoadBalanced(request)) {
+			return call.apply(request);
+		}
+		Endpoint endpoint;
+		try {
+			endpoint = choose(request.getUrl());
+		}
+		catch (IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		endpoint.onStart();
+		long start = System.nanoTime();
+		CompletableFuture<Response> future;
+		try {
+			future = call.apply(resolve(request, endpoint));
+		}
+		catch (RuntimeException e) {
+			endpoint.onIgnored();
+			return CompletableFuture.failedFuture(e);
+		}
+		return Futures.propagateCancel(future.whenComplete((response, ex) -> {
+			Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+			if (Objects.isNull(ex)) {
+				record(endpoint, start, response);
+			}
+			else if (cause instanceof IOException && !isRejectedLocally(cause)) {
+				endpoint.onFailure(consecutiveFailures, ejectionTime);
+			}
+			else {
+				endpoint.onIgnored();
+			}
+		}), future);
+	}
+
+	/**
+	 * 熔断或舱壁已满时请求未发出, 不代表实例异常; 计为失败会使仅达到并发上限的正常实例被摘除, 负载转移后其余实例相继被摘除
+	 */
+	private static boolean isRejectedLocally(Throwable e) {
+		return e instanceof BulkheadFullException || e instanceof CircuitBreakerOpenException;
+	}
+
+	private void record(Endpoint endpoint, long start, Response response) {
+		if (response.getStatusCode() >= SERVER_ERROR) {
+			endpoint.onFailure(consecutiveFailures, ejectionTime);
+		}
+		else {
+			endpoint.onSuccess(System.nanoTime() - start);
+		}
+	}
+
+	private Endpoint choose(String url) throws UnknownHostException {
+		String service = url.substring(SCHEME.length(), serviceEnd(url));
+		List<Endpoint> endpoints = services.get(service);
+		if (Objects.isNull(endpoints) || endpoints.isEmpty()) {
+			throw new UnknownHostException("unknown service: " + service);
+		}
+		List<Endpoint> available = new ArrayList<>(endpoints.size());
+		for (Endpoint endpoint : endpoints) {
+			if (!endpoint.isEjected()) {
+				available.add(endpoint);
+			}
+		}
+		if (available.isEmpty()) {
+			log.warn("服务{}的所有实例均已摘除, 从全部实例中选择", service);
+			available = endpoints;
+		}
+		return loadBalancer.choose(service, available);
+	}
+
+	private static Request resolve(Request request, Endpoint endpoint) {
+		String url = request.getUrl();
+		return request.toBuilder().url(endpoint.getUrl() + url.substring(serviceEnd(url))).build();
+	}
+
+	private static int serviceEnd(String url) {
+		for (int i = SCHEME.length(); i < url.length(); i++) {
+			char c = url.charAt(i);
+			if (c == '/' || c == '?' || c == '#') {
+				return i;
+			}
+		}
+		return url.length();
+	}
+
+	private static boolean isLoadBalanced(Request request) {
+		String url = request.getUrl();
+		return Objects.nonNull(url) && url.regionMatches(true, 0, SCHEME, 0, SCHEME.length());
+	}
+
+	@FunctionalInterface
+	private interface Call {
+
+		Response execute(Request request) throws IOException, URISyntaxException, InterruptedException;
+
+	}
+
+}
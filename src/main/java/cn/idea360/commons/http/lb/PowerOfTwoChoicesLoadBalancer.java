@@ -0,0 +1,34 @@
+package cn.idea360.commons.http.lb;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 二选一(power of two choices): 随机选出两个实例, 取响应耗时×(进行中请求数+1)较小的一个. 无耗时样本的实例优先, 便于新实例预热统计
+ *
+ * @author cuishiying
+ */
+public class PowerOfTwoChoicesLoadBalancer implements LoadBalancer {
+
+	@Override
+	public Endpoint choose(String service, List<Endpoint> endpoints) {
+		int size = endpoints.size();
+		if (size == 1) {
+			return endpoints.get(0);
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(size);
+		int second = random.nextInt(size - 1);
+		if (second >= first) {
+			second++;
+		}
+		Endpoint a = endpoints.get(first);
+		Endpoint b = endpoints.get(second);
+		return cost(a) <= cost(b) ? a : b;
+	}
+
+	private static double cost(Endpoint endpoint) {
+		return endpoint.getLatencyNanos() * (endpoint.getOutstanding() + 1);
+	}
+
+}
@@ -0,0 +1,23 @@
+package cn.idea360.commons.http.lb;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 轮询
+ *
+ * @author cuishiying
+ */
+public class RoundRobinLoadBalancer implements LoadBalancer {
+
+	private final ConcurrentMap<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+
+	@Override
+	public Endpoint choose(String service, List<Endpoint> endpoints) {
+		int next = counters.computeIfAbsent(service, s -> new AtomicInteger()).getAndIncrement();
+		return endpoints.get(Math.floorMod(next, endpoints.size()));
+	}
+
+}
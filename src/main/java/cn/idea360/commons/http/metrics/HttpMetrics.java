@@ -0,0 +1,83 @@
+package cn.idea360.commons.http.metrics;
+
+import java.net.URI;
+import java.util.function.Supplier;
+
+/**
+ * 指标采集SPI, 由client在请求的各个阶段回调, 通过{@code HttpConfig.setMetrics}配置. 所有方法默认为空实现,
+ * 实现类只需覆盖关心的事件; 回调在请求线程或IO线程上同步执行, 实现需线程安全且不能阻塞
+ *
+ * @author cuishiying
+ */
+public interface HttpMetrics {
+
+	/**
+	 * 不采集任何指标
+	 */
+	HttpMetrics NOOP = new HttpMetrics() {
+	};
+
+	/**
+	 * 请求开始, 与{@link #requestCompleted}或{@link #requestFailed}成对出现
+	 * @param method 请求方法
+	 * @param route 路由, 如http://127.0.0.1:8080
+	 */
+	default void requestStarted(String method, String route) {
+	}
+
+	/**
+	 * 收到响应
+	 * @param method 请求方法
+	 * @param route 路由
+	 * @param statusCode 响应码
+	 * @param durationNanos 耗时(ns), 流式响应只统计到响应头
+	 * @param bytesSent 请求体字节数, 未知时为-1
+	 * @param bytesReceived 响应体字节数, 未知时为-1
+	 */
+	default void requestCompleted(String method, String route, int statusCode, long durationNanos, long bytesSent,
+			long bytesReceived) {
+	}
+
+	/**
+	 * 请求失败(未收到响应)
+	 * @param method 请求方法
+	 * @param route 路由
+	 * @param error 异常
+	 * @param timeoutType 超时类型, 非超时异常为null
+	 * @param durationNanos 耗时(ns)
+	 */
+	default void requestFailed(String method, String route, Throwable error, TimeoutType timeoutType,
+			long durationNanos) {
+	}
+
+	/**
+	 * 请求被重试
+	 * @param method 请求方法
+	 * @param route 路由
+	 * @param attempt 已执行次数
+	 */
+	default void requestRetried(String method, String route, int attempt) {
+	}
+
+	/**
+	 * 注册连接池, 实现类可按需读取连接池状态
+	 * @param pool 连接池名称
+	 * @param stats 连接池状态
+	 */
+	default void bindPool(String pool, Supplier<PoolStats> stats) {
+	}
+
+	/**
+	 * 从请求地址中提取路由
+	 * @param uri 请求地址
+	 * @return scheme://host:port, 未指定端口时补全http/https的默认端口
+	 */
+	static String route(URI uri) {
+		int port = uri.getPort();
+		if (port == -1) {
+			port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+		}
+		return uri.getScheme() + "://" + uri.getHost() + ":" + port;
+	}
+
+}
@@ -0,0 +1,110 @@
+package cn.idea360.commons.http.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Micrometer实现, 需要引入micrometer-core依赖. 指标名使用commons.http.client前缀, 不与Spring
+ * Boot的http.client.requests (标签不同)冲突. 注册的指标:
+ *
+ * <ul>
+ * <li>commons.http.client.requests: 请求耗时直方图,
+ * 标签method、route、status(2xx/4xx/IO_ERROR等)、exception</li>
+ * <li>commons.http.client.requests.active: 进行中的请求数, 标签route</li>
+ * <li>commons.http.client.requests.bytes.sent / received: 请求体/响应体字节数, 标签route</li>
+ * <li>commons.http.client.timeouts: 超时次数, 标签route、type</li>
+ * <li>commons.http.client.retries: 重试次数, 标签method、route</li>
+ * <li>commons.http.client.pool.leased / available / pending / max: 连接池状态, 标签pool</li>
+ * </ul>
+ *
+ * @author cuishiying
+ */
+public class MicrometerHttpMetrics implements HttpMetrics {
+
+	private final MeterRegistry registry;
+
+	private final ConcurrentMap<String, AtomicInteger> activeRequests = new ConcurrentHashMap<>();
+
+	/**
+	 * 构造方法
+	 * @param registry 指标注册中心
+	 */
+	public MicrometerHttpMetrics(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public void requestStarted(String method, String route) {
+		active(route).incrementAndGet();
+	}
+
+	@Override
+	public void requestCompleted(String method, String route, int statusCode, long durationNanos, long bytesSent,
+			long bytesReceived) {
+		active(route).decrementAndGet();
+		timer(method, route, statusCode / 100 + "xx", "none").record(durationNanos, TimeUnit.NANOSECONDS);
+		if (bytesSent >= 0) {
+			DistributionSummary.builder("commons.http.client.requests.bytes.sent").baseUnit("bytes")
+					.tags("route", route).register(registry).record(bytesSent);
+		}
+		if (bytesReceived >= 0) {
+			DistributionSummary.builder("commons.http.client.requests.bytes.received").baseUnit("bytes")
+					.tags("route", route).register(registry).record(bytesReceived);
+		}
+	}
+
+	@Override
+	public void requestFailed(String method, String route, Throwable error, TimeoutType timeoutType,
+			long durationNanos) {
+		active(route).decrementAndGet();
+		timer(method, route, "IO_ERROR", error.getClass().getSimpleName()).record(durationNanos, TimeUnit.NANOSECONDS);
+		if (Objects.nonNull(timeoutType)) {
+			Counter.builder("commons.http.client.timeouts").tags("route", route, "type", timeoutType.name())
+					.register(registry).increment();
+		}
+	}
+
+	@Override
+	public void requestRetried(String method, String route, int attempt) {
+		Counter.builder("commons.http.client.retries").tags("method", method, "route", route).register(registry)
+				.increment();
+	}
+
+	@Override
+	public void bindPool(String pool, Supplier<PoolStats> stats) {
+		gauge("commons.http.client.pool.leased", pool, stats, PoolStats::getLeased);
+		gauge("commons.http.client.pool.available", pool, stats, PoolStats::getAvailable);
+		gauge("commons.http.client.pool.pending", pool, stats, PoolStats::getPending);
+		gauge("commons.http.client.pool.max", pool, stats, PoolStats::getMax);
+	}
+
+	private Timer timer(String method, String route, String status, String exception) {
+		return Timer.builder("commons.http.client.requests")
+				.tags("method", method, "route", route, "status", status, "exception", exception)
+				.publishPercentileHistogram().register(registry);
+	}
+
+	private AtomicInteger active(String route) {
+		return activeRequests.computeIfAbsent(route, key -> registry.gauge("commons.http.client.requests.active",
+				Tags.of("route", key), new AtomicInteger()));
+	}
+
+	private void gauge(String name, String pool, Supplier<PoolStats> stats, ToIntFunction<PoolStats> value) {
+		// supplier只被gauge引用, 默认的弱引用会在GC后读到NaN
+		Gauge.builder(name, stats, supplier -> value.applyAsInt(supplier.get())).tags("pool", pool)
+				.strongReference(true).register(registry);
+	}
+
+}
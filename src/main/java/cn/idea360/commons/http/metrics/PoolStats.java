@@ -0,0 +1,33 @@
+package cn.idea360.commons.http.metrics;
+
+import lombok.Data;
+
+/**
+ * 连接池状态快照
+ *
+ * @author cuishiying
+ */
+@Data
+public class PoolStats {
+
+	/**
+	 * 已借出的连接数
+	 */
+	private final int leased;
+
+	/**
+	 * 空闲可用的连接数
+	 */
+	private final int available;
+
+	/**
+	 * 等待获取连接的请求数
+	 */
+	private final int pending;
+
+	/**
+	 * 最大连接数
+	 */
+	private final int max;
+
+}
@@ -0,0 +1,25 @@
+package cn.idea360.commons.http.metrics;
+
+/**
+ * 超时类型
+ *
+ * @author cuishiying
+ */
+public enum TimeoutType {
+
+	/**
+	 * 从连接池获取连接超时, 对应connectionRequestTimeout, 通常意味着连接池耗尽
+	 */
+	CONNECTION_REQUEST,
+
+	/**
+	 * 建立连接超时, 对应connectTimeout
+	 */
+	CONNECT,
+
+	/**
+	 * 等待响应超时, 对应socketTimeout
+	 */
+	RESPONSE
+
+}
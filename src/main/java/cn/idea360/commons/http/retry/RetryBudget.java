@@ -0,0 +1,57 @@
+package cn.idea360.commons.http.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 重试预算(令牌桶): 每个请求存入ratio个令牌, 每次重试取出1个令牌, 令牌不足时放弃重试, 使重试量不超过请求量的ratio. 上游部分故障时避免重试成倍放大流量
+ *
+ * @author cuishiying
+ */
+public class RetryBudget {
+
+	/**
+	 * 令牌以千分之一为单位保存, 便于无锁更新
+	 */
+	private static final long SCALE = 1000;
+
+	private final long deposit;
+
+	private final long capacity;
+
+	private final AtomicLong balance;
+
+	/**
+	 * 构造方法
+	 * @param ratio 允许重试的请求比例, 如0.1表示重试量最多为请求量的10%
+	 * @param burst 令牌桶容量, 即允许的突发重试次数, 初始为满
+	 */
+	public RetryBudget(double ratio, int burst) {
+		this.deposit = Math.round(ratio * SCALE);
+		this.capacity = burst * SCALE;
+		this.balance = new AtomicLong(capacity);
+	}
+
+	/**
+	 * 记录一次请求(不含重试), 存入令牌
+	 */
+	public void onRequest() {
+		balance.accumulateAndGet(deposit, (current, delta) -> Math.min(capacity, current + delta));
+	}
+
+	/**
+	 * 尝试为一次重试取出令牌
+	 * @return true允许重试
+	 */
+	public boolean tryAcquire() {
+		while (true) {
+			long current = balance.get();
+			if (current < SCALE) {
+				return false;
+			}
+			if (balance.compareAndSet(current, current - SCALE)) {
+				return true;
+			}
+		}
+	}
+
+}
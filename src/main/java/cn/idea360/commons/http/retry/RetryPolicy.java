@@ -0,0 +1,182 @@
+package cn.idea360.commons.http.retry;
+
+import cn.idea360.commons.http.HttpConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.net.ssl.SSLException;
+
+/**
+ * 与client实现无关的重试策略:
+ *
+ * <ul>
+ * <li>只重试幂等方法(GET、HEAD、PUT、DELETE、OPTIONS、TRACE)</li>
+ * <li>I/O异常重试, 超时、连接失败、DNS与SSL异常除外(重试通常无效, 只会放大故障)</li>
+ * <li>429、502、503、504响应重试, Retry-After超过最大间隔时放弃重试</li>
+ * <li>重试间隔为指数退避加全抖动: random(0, min(maxDelay, baseDelay * 2^(n-1))),
+ * 有Retry-After时不早于Retry-After</li>
+ * <li>重试受{@link RetryBudget}限制</li>
+ * </ul>
+ *
+ * @author cuishiying
+ */
+@Slf4j
+public class RetryPolicy {
+
+	private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS", "TRACE");
+
+	private static final Set<Integer> RETRIABLE_CODES = Set.of(429, 502, 503, 504);
+
+	private final int maxRetries;
+
+	private final long baseDelayMillis;
+
+	private final long maxDelayMillis;
+
+	private final RetryBudget budget;
+
+	/**
+	 * 构造方法
+	 * @param maxRetries 最大重试次数
+	 * @param baseDelayMillis 首次重试的退避上限(ms)
+	 * @param maxDelayMillis 最大重试间隔(ms)
+	 * @param budget 重试预算, 为null时不限制
+	 */
+	public RetryPolicy(int maxRetries, long baseDelayMillis, long maxDelayMillis, RetryBudget budget) {
+		this.maxRetries = maxRetries;
+		this.baseDelayMillis = baseDelayMillis;
+		this.maxDelayMillis = maxDelayMillis;
+		this.budget = budget;
+	}
+
+	/**
+	 * 按配置创建重试策略
+	 * @param httpConfig 配置
+	 * @return 重试策略, 未开启重试时返回null
+	 */
+	public static RetryPolicy of(HttpConfig httpConfig) {
+		if (httpConfig.getMaxRetries() <= 0) {
+			return null;
+		}
+		RetryBudget budget = httpConfig.getRetryBudgetRatio() > 0
+				? new RetryBudget(httpConfig.getRetryBudgetRatio(), httpConfig.getRetryBudgetBurst()) : null;
+		return new RetryPolicy(httpConfig.getMaxRetries(), httpConfig.getRetryBaseDelay(),
+				httpConfig.getRetryMaxDelay(), budget);
+	}
+
+	/**
+	 * 记录一次请求(不含重试), 用于累积重试预算
+	 */
+	public void onRequest() {
+		if (Objects.nonNull(budget)) {
+			budget.onRequest();
+		}
+	}
+
+	/**
+	 * 请求异常时是否重试
+	 * @param method 请求方法
+	 * @param exception 异常
+	 * @param execCount 已执行次数
+	 * @return true重试
+	 */
+	public boolean retryRequest(String method, IOException exception, int execCount) {
+		if (execCount > maxRetries || !isIdempotent(method) || !isRetriable(exception)) {
+			return false;
+		}
+		return acquireBudget();
+	}
+
+	/**
+	 * 收到响应时是否重试
+	 * @param method 请求方法
+	 * @param statusCode 响应码
+	 * @param retryAfter Retry-After响应头, 可以为null
+	 * @param execCount 已执行次数
+	 * @return true重试
+	 */
+	public boolean retryRequest(String method, int statusCode, String retryAfter, int execCount) {
+		if (execCount > maxRetries || !isIdempotent(method) || !RETRIABLE_CODES.contains(statusCode)) {
+			return false;
+		}
+		Duration delay = parseRetryAfter(retryAfter);
+		if (Objects.nonNull(delay) && delay.toMillis() > maxDelayMillis) {
+			log.debug("Retry-After {} exceeds max delay, give up retry", retryAfter);
+			return false;
+		}
+		return acquireBudget();
+	}
+
+	/**
+	 * 重试间隔
+	 * @param execCount 已执行次数
+	 * @param retryAfter Retry-After响应头, 可以为null
+	 * @return 间隔
+	 */
+	public Duration getRetryInterval(int execCount, String retryAfter) {
+		long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(execCount - 1, 30));
+		long backoff = ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+		Duration delay = parseRetryAfter(retryAfter);
+		if (Objects.nonNull(delay) && delay.toMillis() > backoff) {
+			return delay;
+		}
+		return Duration.ofMillis(backoff);
+	}
+
+	private boolean acquireBudget() {
+		if (Objects.isNull(budget) || budget.tryAcquire()) {
+			return true;
+		}
+		log.warn("retry budget exhausted, give up retry");
+		return false;
+	}
+
+	private static boolean isIdempotent(String method) {
+		return Objects.nonNull(method) && IDEMPOTENT_METHODS.contains(method.toUpperCase(Locale.ROOT));
+	}
+
+	private static boolean isRetriable(IOException exception) {
+		return !(exception instanceof InterruptedIOException || exception instanceof HttpTimeoutException
+				|| exception instanceof UnknownHostException || exception instanceof ConnectException
+				|| exception instanceof NoRouteToHostException || exception instanceof SSLException);
+	}
+
+	/**
+	 * 解析Retry-After, 支持秒数与HTTP日期
+	 * @return 间隔, 不存在或格式错误时返回null
+	 */
+	private static Duration parseRetryAfter(String retryAfter) {
+		if (Objects.isNull(retryAfter) || retryAfter.isBlank()) {
+			return null;
+		}
+		String value = retryAfter.trim();
+		try {
+			return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+		}
+		catch (NumberFormatException e) {
+			try {
+				Duration delay = Duration.between(ZonedDateTime.now(),
+						ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+				return delay.isNegative() ? Duration.ZERO : delay;
+			}
+			catch (DateTimeParseException ignored) {
+				return null;
+			}
+		}
+	}
+
+}
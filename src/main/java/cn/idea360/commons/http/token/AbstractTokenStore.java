@@ -4,18 +4,21 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.Instant;
+import java.util.Objects;
 
 /**
+ * 简单的token存储, 过期时由请求线程同步刷新, 并发请求可能同时刷新. 高并发场景使用{@link ConcurrentTokenStore}
+ *
  * @author cuishiying
  */
 @Slf4j
 public abstract class AbstractTokenStore implements TokenStore {
 
 	@Setter
-	private String token;
+	private volatile String token;
 
 	@Setter
-	private Long expiryTime = 0L;
+	private volatile Long expiryTime = 0L;
 
 	@Override
 	public String getToken() {
@@ -40,6 +43,13 @@ public abstract class AbstractTokenStore implements TokenStore {
 		this.expiryTime = 0L;
 	}
 
+	@Override
+	public void invalidate(String token) {
+		if (Objects.equals(this.token, token)) {
+			invalidate();
+		}
+	}
+
 	/**
 	 * 请求token, 并刷新token和expiryTime
 	 */
@@ -0,0 +1,237 @@
+package cn.idea360.commons.http.token;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 线程安全的token存储:
+ *
+ * <ul>
+ * <li>token与过期时间保存在不可变对象中, 通过{@link AtomicReference}发布, 读取无锁</li>
+ * <li>同一时间只有一个刷新请求, 进入刷新窗口后由后台线程刷新, 其余线程继续使用仍然有效的旧token</li>
+ * <li>开启主动续期时, 每次刷新成功后按刷新窗口安排下一次刷新(替换之前安排的刷新), 请求线程不再等待认证服务</li>
+ * </ul>
+ *
+ * 只有在没有有效token时(首次获取或已过期)请求线程才会等待, 且所有线程等待同一个刷新请求
+ *
+ * @author cuishiying
+ */
+@Slf4j
+public abstract class ConcurrentTokenStore implements TokenStore, AutoCloseable {
+
+	/**
+	 * 主动续期失败后的重试间隔
+	 */
+	private static final Duration RETRY_INTERVAL = Duration.ofSeconds(10);
+
+	private final AtomicReference<Holder> holder = new AtomicReference<>(Holder.EMPTY);
+
+	private final AtomicReference<CompletableFuture<Holder>> refreshing = new AtomicReference<>();
+
+	private final Duration refreshAhead;
+
+	private final boolean proactive;
+
+	private final ScheduledThreadPoolExecutor scheduler;
+
+	/**
+	 * 已安排的主动续期, 任何刷新完成后替换, 始终只有一个
+	 */
+	private final AtomicReference<ScheduledFuture<?>> renewal = new AtomicReference<>();
+
+	/**
+	 * 默认构造方法, 提前5min刷新, 不主动续期
+	 */
+	protected ConcurrentTokenStore() {
+		this(Duration.ofMinutes(5), false);
+	}
+
+	/**
+	 * 构造方法
+	 * @param refreshAhead 提前刷新的时间, 不超过token有效期的一半
+	 * @param proactive 是否在刷新窗口开始时主动续期
+	 */
+	protected ConcurrentTokenStore(Duration refreshAhead, boolean proactive) {
+		this.refreshAhead = refreshAhead;
+		this.proactive = proactive;
+		this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "token-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.scheduler.setRemoveOnCancelPolicy(true);
+	}
+
+	@Override
+	public String getToken() {
+		Holder current = holder.get();
+		Instant now = Instant.now();
+		if (current.isValid(now)) {
+			if (!now.isBefore(current.refreshAt)) {
+				refresh();
+			}
+			return current.token.getValue();
+		}
+		try {
+			return refresh().join().token.getValue();
+		}
+		catch (CompletionException e) {
+			throw new TokenRefreshException("token刷新失败", Objects.nonNull(e.getCause()) ? e.getCause() : e);
+		}
+	}
+
+	/**
+	 * 异步获取token, 没有有效token时直接等待刷新线程上进行中的刷新, 不占用executor
+	 * @param executor 未使用
+	 * @return token
+	 */
+	@Override
+	public CompletableFuture<String> getTokenAsync(Executor executor) {
+		Holder current = holder.get();
+		Instant now = Instant.now();
+		if (current.isValid(now)) {
+			if (!now.isBefore(current.refreshAt)) {
+				refresh();
+			}
+			return CompletableFuture.completedFuture(current.token.getValue());
+		}
+		return refresh().handle((refreshed, e) -> {
+			if (Objects.nonNull(e)) {
+				throw new TokenRefreshException("token刷新失败", e);
+			}
+			return refreshed.token.getValue();
+		});
+	}
+
+	@Override
+	public void invalidate() {
+		holder.set(Holder.EMPTY);
+	}
+
+	@Override
+	public void invalidate(String token) {
+		holder.updateAndGet(current -> current.isToken(token) ? Holder.EMPTY : current);
+	}
+
+	/**
+	 * 请求新的token, 在刷新线程上执行, 同一时间只有一个调用
+	 * @return token
+	 * @throws Exception 请求失败, 旧token仍然有效时继续使用旧token
+	 */
+	protected abstract Token fetchToken() throws Exception;
+
+	/**
+	 * 发起刷新, 已有刷新进行中时复用
+	 * @return 刷新结果
+	 */
+	private CompletableFuture<Holder> refresh() {
+		while (true) {
+			CompletableFuture<Holder> existing = refreshing.get();
+			if (Objects.nonNull(existing)) {
+				return existing;
+			}
+			CompletableFuture<Holder> future = new CompletableFuture<>();
+			if (refreshing.compareAndSet(null, future)) {
+				try {
+					scheduler.execute(() -> doRefresh(future));
+				}
+				catch (RejectedExecutionException e) {
+					// 已关闭时在当前线程刷新
+					doRefresh(future);
+				}
+				return future;
+			}
+		}
+	}
+
+	private void doRefresh(CompletableFuture<Holder> future) {
+		try {
+			Token token = fetchToken();
+			Holder refreshed = new Holder(token, refreshAt(token));
+			holder.set(refreshed);
+			refreshing.set(null);
+			future.complete(refreshed);
+			if (proactive) {
+				schedule(Duration.between(Instant.now(), refreshed.refreshAt));
+			}
+		}
+		catch (Throwable e) {
+			log.error("token刷新失败: " + e.getMessage());
+			refreshing.set(null);
+			future.completeExceptionally(e);
+			if (proactive && holder.get().isValid(Instant.now())) {
+				schedule(RETRY_INTERVAL);
+			}
+		}
+	}
+
+	private void schedule(Duration delay) {
+		if (scheduler.isShutdown()) {
+			return;
+		}
+		try {
+			ScheduledFuture<?> next = scheduler.schedule(this::refresh, Math.max(0, delay.toMillis()),
+					TimeUnit.MILLISECONDS);
+			ScheduledFuture<?> previous = renewal.getAndSet(next);
+			if (Objects.nonNull(previous)) {
+				previous.cancel(false);
+			}
+		}
+		catch (RejectedExecutionException e) {
+			// 并发关闭
+		}
+	}
+
+	/**
+	 * 刷新时间: 过期前refreshAhead, 有效期较短时取有效期的一半, 避免每次请求都进入刷新窗口
+	 */
+	private Instant refreshAt(Token token) {
+		Instant now = Instant.now();
+		Instant halfLife = now.plus(Duration.between(now, token.getExpiresAt()).dividedBy(2));
+		Instant ahead = token.getExpiresAt().minus(refreshAhead);
+		return ahead.isAfter(halfLife) ? ahead : halfLife;
+	}
+
+	/**
+	 * 停止主动续期
+	 */
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+
+	private static final class Holder {
+
+		private static final Holder EMPTY = new Holder(null, Instant.MIN);
+
+		private final Token token;
+
+		private final Instant refreshAt;
+
+		private Holder(Token token, Instant refreshAt) {
+			this.token = token;
+			this.refreshAt = refreshAt;
+		}
+
+		private boolean isToken(String value) {
+			return Objects.nonNull(token) && Objects.equals(token.getValue(), value);
+		}
+
+		private boolean isValid(Instant now) {
+			return Objects.nonNull(token) && Objects.nonNull(token.getValue()) && now.isBefore(token.getExpiresAt());
+		}
+
+	}
+
+}
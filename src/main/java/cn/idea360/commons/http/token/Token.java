@@ -0,0 +1,25 @@
+package cn.idea360.commons.http.token;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * 不可变的token, 值与过期时间一起发布, 避免读到新值与旧过期时间的组合
+ *
+ * @author cuishiying
+ */
+@Data
+public class Token {
+
+	/**
+	 * token值
+	 */
+	private final String value;
+
+	/**
+	 * 过期时间
+	 */
+	private final Instant expiresAt;
+
+}
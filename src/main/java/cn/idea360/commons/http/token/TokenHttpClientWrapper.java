@@ -0,0 +1,173 @@
+package cn.idea360.commons.http.token;
+
+import cn.idea360.commons.http.DelegatingHttpClientWrapper;
+import cn.idea360.commons.http.Futures;
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.Response;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * token装饰器, 适用于所有client实现: 为每个请求设置token请求头, 收到401时使被拒绝的token失效, 获取新token后重放一次请求.
+ * 并发的401只会使同一个token失效一次, 配合{@link ConcurrentTokenStore}时只触发一次刷新
+ *
+ * @author cuishiying
+ */
+@Slf4j
+public class TokenHttpClientWrapper extends DelegatingHttpClientWrapper {
+
+	private static final int UNAUTHORIZED = 401;
+
+	/**
+	 * 异步请求获取token的线程池, 获取可能等待认证服务, 不占用client的IO线程与公共ForkJoinPool
+	 */
+	private static final ExecutorService TOKEN_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "token-fetch");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final TokenStore tokenStore;
+
+	private final String header;
+
+	/**
+	 * 构造方法
+	 * @param delegate 被装饰的client
+	 * @param tokenStore token存储
+	 * @param header token请求头名称
+	 */
+	public TokenHttpClientWrapper(HttpClientWrapper delegate, TokenStore tokenStore, String header) {
+		super(delegate);
+		this.tokenStore = tokenStore;
+		this.header = header;
+	}
+
+	@Override
+	public Response get(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, delegate::get);
+	}
+
+	@Override
+	public Response post(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, delegate::post);
+	}
+
+	@Override
+	public Response put(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, delegate::put);
+	}
+
+	@Override
+	public Response patch(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, delegate::patch);
+	}
+
+	@Override
+	public Response delete(Request request) throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, delegate::delete);
+	}
+
+	@Override
+	public Response download(Request request, Path target)
+			throws IOException, URISyntaxException, InterruptedException {
+		return execute(request, authorized -> delegate.download(authorized, target));
+	}
+
+	@Override
+	public CompletableFuture<Response> getAsync(Request request) {
+		return executeAsync(request, delegate::getAsync);
+	}
+
+	@Override
+	public CompletableFuture<Response> postAsync(Request request) {
+		return executeAsync(request, delegate::postAsync);
+	}
+
+	@Override
+	public CompletableFuture<Response> putAsync(Request request) {
+		return executeAsync(request, delegate::putAsync);
+	}
+
+	@Override
+	public CompletableFuture<Response> patchAsync(Request request) {
+		return executeAsync(request, delegate::patchAsync);
+	}
+
+	@Override
+	public CompletableFuture<Response> deleteAsync(Request request) {
+		return executeAsync(request, delegate::deleteAsync);
+	}
+
+	private Response execute(Request request, Call call) throws IOException, URISyntaxException, InterruptedException {
+		String token = tokenStore.getToken();
+		Response response = call.execute(withToken(request, token));
+		if (response.getStatusCode() != UNAUTHORIZED) {
+			return response;
+		}
+		discard(response);
+		tokenStore.invalidate(token);
+		return call.execute(withToken(request, tokenStore.getToken()));
+	}
+
+	/**
+	 * 没有有效token时在token线程池上获取, 不阻塞调用线程(可能是client的IO线程); call同步抛出的异常转为失败的future
+	 */
+	private CompletableFuture<Response> executeAsync(Request request,
+			Function<Request, CompletableFuture<Response>> call) {
+		CompletableFuture<String> tokenFuture;
+		try {
+			tokenFuture = tokenStore.getTokenAsync(TOKEN_EXECUTOR);
+		}
+		catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		return Futures.thenCompose(tokenFuture,
+				token -> Futures.thenCompose(call.apply(withToken(request, token)), response -> {
+					if (response.getStatusCode() != UNAUTHORIZED) {
+						return CompletableFuture.completedFuture(response);
+					}
+					discard(response);
+					tokenStore.invalidate(token);
+					return Futures.thenCompose(tokenStore.getTokenAsync(TOKEN_EXECUTOR),
+							refreshed -> call.apply(withToken(request, refreshed)));
+				}));
+	}
+
+	private Request withToken(Request request, String token) {
+		if (Objects.isNull(token)) {
+			return request;
+		}
+		return request.toBuilder().header(header, token).build();
+	}
+
+	/**
+	 * 流式响应需要关闭以释放连接
+	 */
+	private void discard(Response response) {
+		log.warn("token被拒绝, 刷新后重试");
+		try {
+			response.close();
+		}
+		catch (Exception e) {
+			log.debug("close response: " + e.getMessage());
+		}
+	}
+
+	@FunctionalInterface
+	private interface Call {
+
+		Response execute(Request request) throws IOException, URISyntaxException, InterruptedException;
+
+	}
+
+}
@@ -0,0 +1,16 @@
+package cn.idea360.commons.http.token;
+
+/**
+ * 没有可用token且刷新失败
+ *
+ * @author cuishiying
+ */
+public class TokenRefreshException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public TokenRefreshException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
@@ -1,5 +1,8 @@
 package cn.idea360.commons.http.token;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * @author cuishiying
  */
@@ -11,9 +14,26 @@ public interface TokenStore {
 	 */
 	String getToken();
 
+	/**
+	 * 异步获取token, 不阻塞调用线程. 默认在executor上执行{@link #getToken()}, 支持异步刷新的实现可以直接返回刷新结果
+	 * @param executor 执行可能阻塞的获取操作的线程池
+	 * @return token
+	 */
+	default CompletableFuture<String> getTokenAsync(Executor executor) {
+		return CompletableFuture.supplyAsync(this::getToken, executor);
+	}
+
 	/**
 	 * 使token失效
 	 */
 	void invalidate();
 
+	/**
+	 * 仅当当前token与指定token相同时使其失效, 并发收到401时只有第一个调用生效, 避免刚刷新的token被再次作废
+	 * @param token 被拒绝的token
+	 */
+	default void invalidate(String token) {
+		invalidate();
+	}
+
 }
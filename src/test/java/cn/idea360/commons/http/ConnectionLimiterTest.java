@@ -0,0 +1,170 @@
+package cn.idea360.commons.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author cuishiying
+ */
+class ConnectionLimiterTest {
+
+	private static final String A = "http://a:80";
+
+	private static final String B = "http://b:80";
+
+	@Test
+	void limitsPerRouteAndTotal() {
+		ConnectionLimiter limiter = new ConnectionLimiter(3, 2);
+		assertTrue(limiter.tryAcquire(A));
+		assertTrue(limiter.tryAcquire(A));
+		assertFalse(limiter.tryAcquire(A));
+		assertTrue(limiter.tryAcquire(B));
+		assertFalse(limiter.tryAcquire(B));
+		limiter.release(A);
+		assertTrue(limiter.tryAcquire(B));
+	}
+
+	@Test
+	void routeOverrideIsNormalized() {
+		ConnectionLimiter limiter = new ConnectionLimiter(10, 1, Map.of("http://a", 3));
+		assertEquals(3, limiter.maxPerRoute(A));
+		assertEquals(1, limiter.maxPerRoute(B));
+	}
+
+	@Test
+	void asyncWaitersAreCompletedInOrderByRelease() {
+		ConnectionLimiter limiter = new ConnectionLimiter(1, 1);
+		assertTrue(limiter.tryAcquire(A));
+		CompletableFuture<Boolean> first = limiter.acquireAsync(A, 0);
+		CompletableFuture<Boolean> second = limiter.acquireAsync(A, 0);
+		assertFalse(first.isDone());
+		// 有调用方排队时不允许插队
+		assertFalse(limiter.tryAcquire(A));
+
+		limiter.release(A);
+		assertTrue(first.join());
+		assertFalse(second.isDone());
+		limiter.release(A);
+		assertTrue(second.join());
+	}
+
+	@Test
+	void waiterBlockedOnTotalIsServedByOtherRoute() {
+		ConnectionLimiter limiter = new ConnectionLimiter(1, 1);
+		assertTrue(limiter.tryAcquire(A));
+		CompletableFuture<Boolean> waiter = limiter.acquireAsync(B, 0);
+		assertFalse(waiter.isDone());
+		limiter.release(A);
+		assertTrue(waiter.join());
+		assertFalse(limiter.tryAcquire(A));
+	}
+
+	@Test
+	void asyncTimeoutCompletesWithFalse() {
+		ConnectionLimiter limiter = new ConnectionLimiter(1, 1);
+		assertTrue(limiter.tryAcquire(A));
+		long start = System.nanoTime();
+		assertFalse(limiter.acquireAsync(A, 50).join());
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 45);
+		// 超时的调用方已退出排队, 释放后许可可以直接获取
+		limiter.release(A);
+		assertTrue(limiter.tryAcquire(A));
+	}
+
+	@Test
+	void cancelledWaiterLeavesQueueAndReleasesRoutePermit() {
+		ConnectionLimiter limiter = new ConnectionLimiter(1, 2);
+		assertTrue(limiter.tryAcquire(B));
+		// 持有A的路由许可, 等待总许可
+		CompletableFuture<Boolean> cancelled = limiter.acquireAsync(A, 0);
+		CompletableFuture<Boolean> next = limiter.acquireAsync(A, 0);
+		cancelled.cancel(false);
+		limiter.release(B);
+		assertTrue(next.join());
+		limiter.release(A);
+		assertTrue(limiter.tryAcquire(A));
+		assertFalse(limiter.tryAcquire(A));
+	}
+
+	@Test
+	void syncAcquireTimesOut() throws InterruptedException {
+		ConnectionLimiter limiter = new ConnectionLimiter(1, 1);
+		assertTrue(limiter.acquire(A, 0));
+		assertFalse(limiter.acquire(A, 30));
+		limiter.release(A);
+		assertTrue(limiter.acquire(A, 30));
+	}
+
+	@Test
+	void interruptedSyncWaiterLeavesQueue() throws Exception {
+		ConnectionLimiter limiter = new ConnectionLimiter(1, 1);
+		assertTrue(limiter.tryAcquire(A));
+		AtomicInteger interrupted = new AtomicInteger();
+		Thread thread = new Thread(() -> {
+			try {
+				limiter.acquire(A, 0);
+			}
+			catch (InterruptedException e) {
+				interrupted.incrementAndGet();
+			}
+		});
+		thread.start();
+		Thread.sleep(50);
+		thread.interrupt();
+		thread.join(1000);
+		assertEquals(1, interrupted.get());
+		limiter.release(A);
+		assertTrue(limiter.tryAcquire(A));
+	}
+
+	@Test
+	void neverExceedsLimitsUnderContention() throws Exception {
+		ConnectionLimiter limiter = new ConnectionLimiter(4, 3);
+		String[] routes = { A, B, "http://c:80" };
+		AtomicInteger inUse = new AtomicInteger();
+		AtomicInteger[] routeInUse = { new AtomicInteger(), new AtomicInteger(), new AtomicInteger() };
+		AtomicInteger violations = new AtomicInteger();
+		AtomicInteger completed = new AtomicInteger();
+		int tasks = 2000;
+		CountDownLatch done = new CountDownLatch(tasks);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		for (int i = 0; i < tasks; i++) {
+			int index = i % routes.length;
+			limiter.acquireAsync(routes[index], i % 7 == 0 ? 1 : 0).thenAcceptAsync(acquired -> {
+				if (acquired) {
+					int total = inUse.incrementAndGet();
+					if (total > 4 | routeInUse[index].incrementAndGet() > 3) {
+						violations.incrementAndGet();
+					}
+					routeInUse[index].decrementAndGet();
+					inUse.decrementAndGet();
+					limiter.release(routes[index]);
+					completed.incrementAndGet();
+				}
+				done.countDown();
+			}, executor);
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		executor.shutdown();
+		assertEquals(0, violations.get());
+		assertTrue(completed.get() > 0);
+		// 所有许可均已归还
+		for (String route : routes) {
+			assertTrue(limiter.tryAcquire(route));
+		}
+		assertTrue(limiter.tryAcquire(A));
+		assertFalse(limiter.tryAcquire(B));
+	}
+
+}
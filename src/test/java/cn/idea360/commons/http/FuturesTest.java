@@ -0,0 +1,109 @@
+package cn.idea360.commons.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author cuishiying
+ */
+class FuturesTest {
+
+	@Test
+	void propagateCancelCancelsSource() {
+		CompletableFuture<String> source = new CompletableFuture<>();
+		CompletableFuture<Integer> derived = Futures.propagateCancel(source.thenApply(String::length), source);
+		derived.cancel(true);
+		assertTrue(source.isCancelled());
+	}
+
+	@Test
+	void propagateCancelKeepsResult() {
+		CompletableFuture<String> source = new CompletableFuture<>();
+		CompletableFuture<Integer> derived = Futures.propagateCancel(source.thenApply(String::length), source);
+		source.complete("abc");
+		assertEquals(3, derived.join());
+		assertFalse(source.isCancelled());
+	}
+
+	@Test
+	void thenComposeCancelsPendingSource() {
+		CompletableFuture<String> source = new CompletableFuture<>();
+		AtomicBoolean applied = new AtomicBoolean();
+		CompletableFuture<String> result = Futures.thenCompose(source, value -> {
+			applied.set(true);
+			return CompletableFuture.completedFuture(value);
+		});
+		result.cancel(true);
+		assertTrue(source.isCancelled());
+		assertFalse(applied.get());
+	}
+
+	@Test
+	void thenComposeCancelsPendingNextStage() {
+		CompletableFuture<String> source = new CompletableFuture<>();
+		CompletableFuture<String> next = new CompletableFuture<>();
+		CompletableFuture<String> result = Futures.thenCompose(source, value -> next);
+		source.complete("first");
+		result.cancel(true);
+		assertTrue(next.isCancelled());
+	}
+
+	@Test
+	void thenComposeCancelsNextStageCreatedAfterCancel() {
+		CompletableFuture<String> source = new CompletableFuture<>();
+		CompletableFuture<String> next = new CompletableFuture<>();
+		AtomicReference<CompletableFuture<String>> result = new AtomicReference<>();
+		result.set(Futures.thenCompose(source, value -> {
+			// 下一阶段创建过程中调用方取消
+			result.get().cancel(true);
+			return next;
+		}));
+		source.complete("first");
+		assertTrue(result.get().isCancelled());
+		assertTrue(next.isCancelled());
+	}
+
+	@Test
+	void thenComposeCompletesWithNextStage() {
+		CompletableFuture<String> source = new CompletableFuture<>();
+		CompletableFuture<Integer> result = Futures.thenCompose(source,
+				value -> CompletableFuture.supplyAsync(value::length));
+		source.complete("abcd");
+		assertEquals(4, result.join());
+	}
+
+	@Test
+	void thenComposePropagatesFailures() {
+		IOException failure = new IOException("boom");
+		CompletableFuture<String> source = new CompletableFuture<>();
+		CompletableFuture<String> result = Futures.thenCompose(source, CompletableFuture::completedFuture);
+		source.completeExceptionally(failure);
+		assertSame(failure, assertThrows(CompletionException.class, result::join).getCause());
+
+		IllegalStateException thrown = new IllegalStateException("fn");
+		CompletableFuture<String> failed = Futures.thenCompose(CompletableFuture.completedFuture("x"), value -> {
+			throw thrown;
+		});
+		assertSame(thrown, assertThrows(CompletionException.class, failed::join).getCause());
+	}
+
+	@Test
+	void handleComposeSeesSourceFailure() {
+		IOException failure = new IOException("boom");
+		CompletableFuture<String> result = Futures.handleCompose(CompletableFuture.failedFuture(failure),
+				(value, ex) -> CompletableFuture.completedFuture(ex.getMessage()));
+		assertEquals("boom", result.join());
+	}
+
+}
@@ -0,0 +1,41 @@
+package cn.idea360.commons.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author cuishiying
+ */
+class RequestTemplateTest {
+
+	private static final RequestTemplate TEMPLATE = RequestTemplate.builder("http://127.0.0.1/users/{id}?q={q}")
+			.header("app-id", "demo").build();
+
+	@Test
+	void bindEncodesVariables() {
+		Request request = TEMPLATE.bind("a/b c", "x&y=z").build();
+		assertEquals("http://127.0.0.1/users/a%2Fb%20c?q=x%26y%3Dz", request.getUrl());
+		assertSame(TEMPLATE, request.getTemplate());
+		assertSame(TEMPLATE.getHeaders(), request.getHeaders());
+	}
+
+	@Test
+	void attachmentIsCreatedOncePerOwner() {
+		RequestTemplate template = RequestTemplate.builder("http://127.0.0.1/{id}").build();
+		Object owner = new Object();
+		AtomicInteger created = new AtomicInteger();
+		String first = template.attachment(owner, t -> "v" + created.incrementAndGet());
+		String second = template.attachment(owner, t -> "v" + created.incrementAndGet());
+		assertSame(first, second);
+		assertEquals(1, created.get());
+
+		// 其它client使用时重新创建, 不会拿到不属于自己的数据
+		assertEquals("v2", template.attachment(new Object(), t -> "v" + created.incrementAndGet()));
+		assertEquals("v3", template.attachment(owner, t -> "v" + created.incrementAndGet()));
+	}
+
+}
@@ -0,0 +1,126 @@
+package cn.idea360.commons.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author cuishiying
+ */
+class UrlEncoderTest {
+
+	@Test
+	void keepsOnlyUnreservedCharacters() {
+		assertEquals("aZ09-._~", encode("aZ09-._~"));
+		assertEquals("%2F%3F%23%26%3D%2B%25%20%2A%27%21%3A%40", encode("/?#&=+% *'!:@"));
+	}
+
+	@Test
+	void encodesMultiByteCharactersAsUtf8() {
+		assertEquals("%C3%A9", encode("é"));
+		assertEquals("%E4%B8%AD%E6%96%87", encode("中文"));
+	}
+
+	@Test
+	void encodesSurrogatePairsAsOneCodePoint() {
+		// U+1F600, 4字节UTF-8
+		assertEquals("%F0%9F%98%80", encode("😀"));
+		assertEquals("a%F0%9F%98%80b%F0%A0%80%80", encode("a😀b𠀀"));
+	}
+
+	@Test
+	void replacesUnpairedSurrogatesLikeGetBytes() {
+		for (String text : new String[] { "\uD83D", "\uDE00", "a\uD83Db", "\uDE00\uD83D", "\uD83D😀" }) {
+			assertEquals(reference(text).replace("+", "%20"), encode(text), text);
+		}
+	}
+
+	@Test
+	void matchesUrlEncoderForFormBodies() {
+		String text = "a b+c&d=e/中😀~*";
+		assertEquals("k=" + reference(text), UrlEncoder.form(Map.of("k", text)));
+	}
+
+	@Test
+	void spaceIsPercentEncodedInUrlsAndPlusInForms() {
+		assertEquals("a%20b%2Bc", encode("a b+c"));
+		assertEquals("q=a+b%2Bc", UrlEncoder.form(Map.of("q", "a b+c")));
+		assertEquals("http://h/p?q=a%20b%2Bc", UrlEncoder.appendQuery("http://h/p", Map.of("q", "a b+c")));
+	}
+
+	@Test
+	void repeatsKeysForIterablesAndArrays() {
+		Map<String, Object> params = new LinkedHashMap<>();
+		params.put("id", List.of(1, 2));
+		params.put("tag", new String[] { "a b", "c" });
+		params.put("n", new int[] { 7 });
+		params.put("empty", List.of());
+		params.put("flag", null);
+		assertEquals("id=1&id=2&tag=a+b&tag=c&n=7&flag", UrlEncoder.form(params));
+	}
+
+	@Test
+	void integersAreWrittenDirectly() {
+		Map<String, Object> params = new LinkedHashMap<>();
+		params.put("i", -12);
+		params.put("l", Long.MIN_VALUE);
+		params.put("d", 1.5);
+		assertEquals("i=-12&l=" + Long.MIN_VALUE + "&d=1.5", UrlEncoder.form(params));
+	}
+
+	@Test
+	void appendQueryStartsOrExtendsQuery() {
+		Map<String, Object> params = Map.of("k", "v");
+		assertEquals("http://h/p?k=v", UrlEncoder.appendQuery("http://h/p", params));
+		assertEquals("http://h/p?k=v", UrlEncoder.appendQuery("http://h/p?", params));
+		assertEquals("http://h/p?a=1&k=v", UrlEncoder.appendQuery("http://h/p?a=1", params));
+		assertEquals("http://h/p?a=1&k=v", UrlEncoder.appendQuery("http://h/p?a=1&", params));
+	}
+
+	@Test
+	void appendQueryKeepsExistingEncodingAndFragment() {
+		Map<String, Object> params = Map.of("k", "v w");
+		assertEquals("http://h/a%2Fb?x=%20y&k=v%20w#frag",
+				UrlEncoder.appendQuery("http://h/a%2Fb?x=%20y#frag", params));
+		assertEquals("http://h/p?k=v%20w#frag", UrlEncoder.appendQuery("http://h/p#frag", params));
+		// 片段中的?不是查询串
+		assertEquals("http://h/p?k=v%20w#a?b", UrlEncoder.appendQuery("http://h/p#a?b", params));
+		assertEquals("http://h/p?k=v%20w#", UrlEncoder.appendQuery("http://h/p#", params));
+	}
+
+	@Test
+	void appendQueryWithoutParamsReturnsUrl() {
+		String url = "http://h/p?a=1#f";
+		assertSame(url, UrlEncoder.appendQuery(url, null));
+		assertSame(url, UrlEncoder.appendQuery(url, Map.of()));
+		assertEquals("", UrlEncoder.form(null));
+	}
+
+	@Test
+	void encodeAppendsToExistingBuilder() {
+		StringBuilder out = new StringBuilder("x=");
+		UrlEncoder.encode(new StringBuilder("中 a"), out);
+		assertEquals("x=%E4%B8%AD%20a", out.toString());
+	}
+
+	private static String encode(String text) {
+		StringBuilder out = new StringBuilder();
+		UrlEncoder.encode(text, out);
+		return out.toString();
+	}
+
+	/**
+	 * URLEncoder保留*并编码~, 其余与表单编码一致
+	 */
+	private static String reference(String text) {
+		return URLEncoder.encode(text, StandardCharsets.UTF_8).replace("*", "%2A").replace("%7E", "~");
+	}
+
+}
@@ -0,0 +1,102 @@
+package cn.idea360.commons.http.batch;
+
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.HttpMethod;
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author cuishiying
+ */
+class BatchExecutorTest {
+
+	@Test
+	void completesInRequestOrder() throws Exception {
+		StubClient client = new StubClient();
+		List<Request> requests = requests("http://a/1", "http://b/2", "http://a/3");
+		CompletableFuture<List<BatchResult>> future = BatchExecutor.execute(client, HttpMethod.GET, requests,
+				new BatchOptions());
+		client.complete("http://a/3");
+		client.complete("http://b/2");
+		client.complete("http://a/1");
+		List<BatchResult> results = future.get(1, TimeUnit.SECONDS);
+		for (int i = 0; i < requests.size(); i++) {
+			assertEquals(i, results.get(i).getIndex());
+			assertEquals(requests.get(i).getUrl(), results.get(i).getResponse().getBody());
+		}
+	}
+
+	@Test
+	void deadlineCancelsRunningAndFailsPendingRequests() throws Exception {
+		StubClient client = new StubClient();
+		BatchOptions options = new BatchOptions();
+		options.setMaxConcurrency(1);
+		options.setDeadline(50);
+		List<BatchResult> results = BatchExecutor
+				.execute(client, HttpMethod.GET, requests("http://a/1", "http://a/2"), options)
+				.get(1, TimeUnit.SECONDS);
+		assertInstanceOf(TimeoutException.class, results.get(0).getError());
+		assertInstanceOf(TimeoutException.class, results.get(1).getError());
+		assertTrue(client.calls.get("http://a/1").isCancelled());
+		assertEquals(1, client.calls.size());
+	}
+
+	@Test
+	void finishedBatchIsNotAbortedByDeadline() throws Exception {
+		StubClient client = new StubClient();
+		BatchOptions options = new BatchOptions();
+		options.setDeadline(50);
+		List<BatchResult> failed = new ArrayList<>();
+		options.setListener(result -> {
+			if (!result.isSuccess()) {
+				failed.add(result);
+			}
+		});
+		CompletableFuture<List<BatchResult>> future = BatchExecutor.execute(client, HttpMethod.GET,
+				requests("http://a/1"), options);
+		client.complete("http://a/1");
+		assertTrue(future.get(1, TimeUnit.SECONDS).get(0).isSuccess());
+		Thread.sleep(100);
+		assertTrue(failed.isEmpty());
+	}
+
+	private static List<Request> requests(String... urls) {
+		List<Request> requests = new ArrayList<>();
+		for (String url : urls) {
+			requests.add(Request.builder().url(url).build());
+		}
+		return requests;
+	}
+
+	/**
+	 * 请求由测试手动完成
+	 */
+	private static final class StubClient implements HttpClientWrapper {
+
+		private final Map<String, CompletableFuture<Response>> calls = new ConcurrentHashMap<>();
+
+		@Override
+		public CompletableFuture<Response> getAsync(Request request) {
+			return calls.computeIfAbsent(request.getUrl(), url -> new CompletableFuture<>());
+		}
+
+		void complete(String url) {
+			calls.get(url).complete(new Response(200, null, url));
+		}
+
+	}
+
+}
@@ -0,0 +1,47 @@
+package cn.idea360.commons.http.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author cuishiying
+ */
+class CacheControlTest {
+
+	@Test
+	void emptyValueHasNoDirectives() {
+		for (String value : new String[] { null, "" }) {
+			CacheControl cacheControl = CacheControl.parse(value);
+			assertFalse(cacheControl.isNoStore());
+			assertFalse(cacheControl.isNoCache());
+			assertFalse(cacheControl.isMustRevalidate());
+			assertFalse(cacheControl.isPublic());
+			assertEquals(-1, cacheControl.getMaxAge());
+			assertEquals(-1, cacheControl.getSMaxAge());
+		}
+	}
+
+	@Test
+	void parsesDirectivesIgnoringCaseAndQuotes() {
+		CacheControl cacheControl = CacheControl
+				.parse("Public, MAX-AGE=60, s-maxage=\"120\", must-revalidate, No-Cache, no-store, x-ext=1");
+		assertTrue(cacheControl.isPublic());
+		assertTrue(cacheControl.isMustRevalidate());
+		assertTrue(cacheControl.isNoCache());
+		assertTrue(cacheControl.isNoStore());
+		assertEquals(60, cacheControl.getMaxAge());
+		assertEquals(120, cacheControl.getSMaxAge());
+	}
+
+	@Test
+	void invalidMaxAgeIsTreatedAsExpired() {
+		assertEquals(0, CacheControl.parse("max-age=abc").getMaxAge());
+		assertEquals(0, CacheControl.parse("max-age=-5").getMaxAge());
+		assertEquals(0, CacheControl.parse("max-age").getMaxAge());
+		assertEquals(0, CacheControl.parse("s-maxage=").getSMaxAge());
+	}
+
+}
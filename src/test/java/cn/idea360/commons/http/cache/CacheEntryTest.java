@@ -0,0 +1,195 @@
+package cn.idea360.commons.http.cache;
+
+import cn.idea360.commons.http.Response;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author cuishiying
+ */
+class CacheEntryTest {
+
+	/**
+	 * 响应时间, 取整到秒, 与Date头的精度一致
+	 */
+	private static final long NOW = Instant.parse("2024-05-01T12:00:00Z").toEpochMilli();
+
+	@Test
+	void maxAgeDefinesFreshness() {
+		CacheEntry entry = entry(200, "Cache-Control", "max-age=60", "Date", date(NOW));
+		assertEquals(60_000, entry.getFreshnessLifetime());
+		assertTrue(entry.isFresh(NOW + 59_000));
+		assertFalse(entry.isFresh(NOW + 60_000));
+	}
+
+	@Test
+	void maxAgeTakesPrecedenceOverExpires() {
+		CacheEntry entry = entry(200, "Cache-Control", "max-age=10", "Date", date(NOW), "Expires",
+				date(NOW + 3_600_000));
+		assertEquals(10_000, entry.getFreshnessLifetime());
+	}
+
+	@Test
+	void ageHeaderAndResponseDelayCountTowardsCurrentAge() {
+		Response response = response(200, "Cache-Control", "max-age=60", "Date", date(NOW), "Age", "30");
+		CacheEntry entry = new CacheEntry(response, Collections.emptyMap(), NOW - 2_000, NOW);
+		// corrected_initial_age = age + response_delay
+		assertEquals(32_000, entry.currentAge(NOW));
+		assertEquals(42_000, entry.currentAge(NOW + 10_000));
+		assertTrue(entry.isFresh(NOW + 27_000));
+		assertFalse(entry.isFresh(NOW + 28_000));
+	}
+
+	@Test
+	void apparentAgeFromDateIsUsedWhenLarger() {
+		CacheEntry entry = entry(200, "Cache-Control", "max-age=60", "Date", date(NOW - 20_000));
+		assertEquals(20_000, entry.currentAge(NOW));
+	}
+
+	@Test
+	void expiresIsRelativeToDate() {
+		CacheEntry entry = entry(200, "Date", date(NOW - 5_000), "Expires", date(NOW + 15_000));
+		assertEquals(20_000, entry.getFreshnessLifetime());
+		assertTrue(entry.isFresh(NOW + 14_000));
+		assertFalse(entry.isFresh(NOW + 15_000));
+	}
+
+	@Test
+	void invalidExpiresMeansExpired() {
+		CacheEntry entry = entry(200, "Date", date(NOW), "Expires", "0");
+		assertEquals(0, entry.getFreshnessLifetime());
+		assertFalse(entry.isFresh(NOW));
+	}
+
+	@Test
+	void heuristicFreshnessIsTenPercentOfLastModifiedAge() {
+		CacheEntry entry = entry(200, "Date", date(NOW), "Last-Modified", date(NOW - 100_000));
+		assertEquals(10_000, entry.getFreshnessLifetime());
+		// 302默认不可缓存, 不使用启发式新鲜度
+		CacheEntry redirect = entry(302, "Date", date(NOW), "Last-Modified", date(NOW - 100_000));
+		assertEquals(0, redirect.getFreshnessLifetime());
+	}
+
+	@Test
+	void noCacheResponseIsNeverFresh() {
+		CacheEntry entry = entry(200, "Cache-Control", "max-age=60, no-cache", "Date", date(NOW));
+		assertFalse(entry.isFresh(NOW));
+	}
+
+	@Test
+	void validators() {
+		assertTrue(entry(200, "ETag", "\"v1\"").hasValidator());
+		assertTrue(entry(200, "Last-Modified", date(NOW)).hasValidator());
+		assertFalse(entry(200, "Cache-Control", "max-age=60").hasValidator());
+	}
+
+	@Test
+	void revalidateRefreshesHeadersAndKeepsBody() {
+		CacheEntry entry = entry(200, "Cache-Control", "max-age=60", "Date", date(NOW), "ETag", "\"v1\"",
+				"Content-Length", "5");
+		Response notModified = response(304, "Cache-Control", "max-age=120", "Date", date(NOW + 100_000),
+				"Content-Length", "0");
+		CacheEntry revalidated = entry.revalidate(notModified, NOW + 100_000, NOW + 100_000);
+		assertEquals("max-age=120", revalidated.header("Cache-Control"));
+		assertEquals("\"v1\"", revalidated.header("ETag"));
+		assertEquals("5", revalidated.header("Content-Length"));
+		assertEquals(200, revalidated.getStatusCode());
+		assertArrayEquals(entry.getBody(), revalidated.getBody());
+		assertTrue(revalidated.isFresh(NOW + 200_000));
+		assertFalse(revalidated.isFresh(NOW + 220_000));
+	}
+
+	@Test
+	void toResponseSetsAgeInSeconds() {
+		CacheEntry entry = entry(200, "Cache-Control", "max-age=60", "Date", date(NOW));
+		Response response = entry.toResponse(NOW + 12_500);
+		assertEquals("12", response.getHeader("Age"));
+		assertEquals("hello", response.getBody());
+		assertEquals(StandardCharsets.UTF_8, response.getCharset());
+	}
+
+	@Test
+	void writeAndReadRoundTrip() throws IOException {
+		Map<String, String> vary = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		vary.put("Accept-Language", "zh-CN");
+		vary.put("X-Missing", null);
+		Response response = response(200, "Cache-Control", "max-age=60", "Date", date(NOW), "Age", "3");
+		response.getHeaders().put("Set-Cookie", Arrays.asList("a=1", "b=2"));
+		CacheEntry entry = new CacheEntry(response, vary, NOW - 1_000, NOW);
+
+		CacheEntry copy = CacheEntry.read(input(bytes(entry)));
+		assertEquals(entry.getStatusCode(), copy.getStatusCode());
+		assertEquals(entry.getReasonPhrase(), copy.getReasonPhrase());
+		assertArrayEquals(entry.getBody(), copy.getBody());
+		assertEquals(entry.getCharset(), copy.getCharset());
+		assertEquals(entry.getHeaders(), copy.getHeaders());
+		assertEquals(Arrays.asList("a=1", "b=2"), copy.getHeaders().get("set-cookie"));
+		assertEquals(entry.getVaryHeaders(), copy.getVaryHeaders());
+		assertNull(copy.getVaryHeaders().get("x-missing"));
+		assertEquals(entry.getResponseTime(), copy.getResponseTime());
+		assertEquals(entry.getInitialAge(), copy.getInitialAge());
+		assertEquals(entry.getFreshnessLifetime(), copy.getFreshnessLifetime());
+		assertEquals(entry.currentAge(NOW + 5_000), copy.currentAge(NOW + 5_000));
+	}
+
+	@Test
+	void readRejectsTruncatedOrCorruptData() throws IOException {
+		byte[] bytes = bytes(entry(200, "Cache-Control", "max-age=60"));
+		assertThrows(IOException.class, () -> CacheEntry.read(input(Arrays.copyOf(bytes, bytes.length - 1))));
+		// 状态码之后的reasonPhrase长度改为远超剩余字节数
+		byte[] corrupt = bytes.clone();
+		corrupt[4] = 0x7f;
+		assertThrows(IOException.class, () -> CacheEntry.read(input(corrupt)));
+	}
+
+	static CacheEntry entry(int statusCode, String... headers) {
+		return new CacheEntry(response(statusCode, headers), Collections.emptyMap(), NOW, NOW);
+	}
+
+	static Response response(int statusCode, String... headers) {
+		Response response = new Response(statusCode, "OK", "hello".getBytes(StandardCharsets.UTF_8),
+				StandardCharsets.UTF_8);
+		Map<String, List<String>> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (int i = 0; i < headers.length; i += 2) {
+			map.put(headers[i], Collections.singletonList(headers[i + 1]));
+		}
+		response.setHeaders(map);
+		return response;
+	}
+
+	static String date(long millis) {
+		return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC));
+	}
+
+	private static byte[] bytes(CacheEntry entry) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		entry.write(new DataOutputStream(out));
+		return out.toByteArray();
+	}
+
+	private static DataInputStream input(byte[] bytes) {
+		return new DataInputStream(new ByteArrayInputStream(bytes));
+	}
+
+}
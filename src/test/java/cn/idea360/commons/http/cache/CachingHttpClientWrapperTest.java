@@ -0,0 +1,216 @@
+package cn.idea360.commons.http.cache;
+
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static cn.idea360.commons.http.cache.CacheEntryTest.date;
+import static cn.idea360.commons.http.cache.CacheEntryTest.response;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author cuishiying
+ */
+class CachingHttpClientWrapperTest {
+
+	private static final String URL = "http://example.com/users";
+
+	private final StubClient stub = new StubClient();
+
+	private final CachingHttpClientWrapper client = new CachingHttpClientWrapper(stub, new MemoryResponseCache(1 << 20),
+			"access-token");
+
+	@Test
+	void freshResponseIsServedFromCache() throws Exception {
+		stub.enqueue(ok("max-age=60", null));
+		assertEquals("hello", client.get(request()).getBody());
+		assertEquals("hello", client.get(request()).getBody());
+		assertEquals(1, stub.requests.size());
+	}
+
+	@Test
+	void staleEntryIsRevalidatedWith304() throws Exception {
+		stub.enqueue(ok("max-age=0", "\"v1\""));
+		client.get(request());
+
+		Response notModified = response(304, "Cache-Control", "max-age=60", "Date", date(System.currentTimeMillis()));
+		stub.enqueue(notModified);
+		Response revalidated = client.get(request());
+		assertEquals(200, revalidated.getStatusCode());
+		assertEquals("hello", revalidated.getBody());
+		assertEquals("\"v1\"", stub.requests.get(1).getHeaders().get("If-None-Match"));
+
+		// 304刷新了新鲜度, 之后直接命中
+		client.get(request());
+		assertEquals(2, stub.requests.size());
+	}
+
+	@Test
+	void staleEntryIsRevalidatedAsync() throws Exception {
+		stub.enqueue(ok("max-age=0", "\"v1\""));
+		client.getAsync(request()).get();
+		stub.enqueue(response(304, "Cache-Control", "max-age=60"));
+		assertEquals("hello", client.getAsync(request()).get().getBody());
+		assertEquals("\"v1\"", stub.requests.get(1).getHeaders().get("If-None-Match"));
+		client.getAsync(request()).get();
+		assertEquals(2, stub.requests.size());
+	}
+
+	@Test
+	void modifiedResponseReplacesEntry() throws Exception {
+		stub.enqueue(ok("max-age=0", "\"v1\""));
+		client.get(request());
+		Response changed = response(200, "Cache-Control", "max-age=60", "ETag", "\"v2\"");
+		changed.setBytes("world".getBytes());
+		stub.enqueue(changed);
+		assertEquals("world", client.get(request()).getBody());
+		assertEquals("world", client.get(request()).getBody());
+		assertEquals(2, stub.requests.size());
+	}
+
+	@Test
+	void requestWithoutValidatorIsNotConditional() throws Exception {
+		stub.enqueue(ok("max-age=0", null));
+		client.get(request());
+		stub.enqueue(ok("max-age=0", null));
+		client.get(request());
+		assertNull(stub.requests.get(1).getHeaders());
+	}
+
+	@Test
+	void varyMismatchIsCacheMiss() throws Exception {
+		Response response = ok("max-age=60", null);
+		response.getHeaders().put("Vary", List.of("Accept-Language"));
+		stub.enqueue(response);
+		stub.enqueue(ok("max-age=60", null));
+		client.get(request().toBuilder().header("Accept-Language", "zh").build());
+		client.get(request().toBuilder().header("accept-language", "zh").build());
+		assertEquals(1, stub.requests.size());
+		client.get(request().toBuilder().header("Accept-Language", "en").build());
+		assertEquals(2, stub.requests.size());
+	}
+
+	@Test
+	void varyStarIsNotStored() throws Exception {
+		Response response = ok("max-age=60", null);
+		response.getHeaders().put("Vary", List.of("*"));
+		stub.enqueue(response);
+		stub.enqueue(ok("max-age=60", null));
+		client.get(request());
+		client.get(request());
+		assertEquals(2, stub.requests.size());
+	}
+
+	@Test
+	void authorizedResponseIsNotStoredByDefault() throws Exception {
+		for (String credential : new String[] { "Authorization", "Cookie", "access-token" }) {
+			String url = URL + "?credential=" + credential;
+			stub.requests.clear();
+			stub.enqueue(ok("max-age=60", null));
+			stub.enqueue(ok("max-age=60", null));
+			client.get(Request.builder().url(url).header(credential, "secret").build());
+			client.get(Request.builder().url(url).build());
+			assertEquals(2, stub.requests.size(), credential);
+		}
+	}
+
+	@Test
+	void authorizedResponseIsStoredWhenExplicitlyShared() throws Exception {
+		for (String cacheControl : new String[] { "public, max-age=60", "s-maxage=60, max-age=60",
+				"must-revalidate, max-age=60" }) {
+			String url = URL + "?cc=" + cacheControl.hashCode();
+			stub.requests.clear();
+			stub.enqueue(ok(cacheControl, null));
+			client.get(Request.builder().url(url).header("Authorization", "Bearer a").build());
+			client.get(Request.builder().url(url).build());
+			assertEquals(1, stub.requests.size(), cacheControl);
+		}
+	}
+
+	@Test
+	void requestNoStoreBypassesCache() throws Exception {
+		stub.enqueue(ok("max-age=60", null));
+		stub.enqueue(ok("max-age=60", null));
+		client.get(request().toBuilder().header("Cache-Control", "no-store").build());
+		client.get(request().toBuilder().header("Cache-Control", "no-store").build());
+		assertEquals(2, stub.requests.size());
+	}
+
+	@Test
+	void unsafeMethodInvalidatesEntry() throws Exception {
+		stub.enqueue(ok("max-age=60", null));
+		client.get(request());
+		stub.enqueue(ok(null, null));
+		client.post(request());
+		stub.enqueue(ok("max-age=60", null));
+		client.get(request());
+		assertEquals(3, stub.requests.size());
+	}
+
+	@Test
+	void paramsArePartOfKey() throws Exception {
+		stub.enqueue(ok("max-age=60", null));
+		stub.enqueue(ok("max-age=60", null));
+		client.get(Request.builder().url(URL).param("a", 1).param("b", 2).build());
+		client.get(Request.builder().url(URL).param("b", 2).param("a", 1).build());
+		assertEquals(1, stub.requests.size());
+		client.get(Request.builder().url(URL).param("a", 2).build());
+		assertEquals(2, stub.requests.size());
+	}
+
+	private static Request request() {
+		return Request.builder().url(URL).build();
+	}
+
+	private static Response ok(String cacheControl, String etag) {
+		Response response = response(200);
+		if (cacheControl != null) {
+			response.getHeaders().put("Cache-Control", List.of(cacheControl));
+		}
+		if (etag != null) {
+			response.getHeaders().put("ETag", List.of(etag));
+		}
+		return response;
+	}
+
+	/**
+	 * 按顺序返回预设响应并记录收到的请求
+	 */
+	private static class StubClient implements HttpClientWrapper {
+
+		private final List<Request> requests = new ArrayList<>();
+
+		private final Deque<Response> responses = new ArrayDeque<>();
+
+		void enqueue(Response response) {
+			responses.add(response);
+		}
+
+		@Override
+		public Response get(Request request) {
+			requests.add(request);
+			return responses.remove();
+		}
+
+		@Override
+		public Response post(Request request) {
+			requests.add(request);
+			return responses.remove();
+		}
+
+		@Override
+		public CompletableFuture<Response> getAsync(Request request) {
+			return CompletableFuture.completedFuture(get(request));
+		}
+
+	}
+
+}
@@ -0,0 +1,81 @@
+package cn.idea360.commons.http.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static cn.idea360.commons.http.cache.CacheEntryTest.entry;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author cuishiying
+ */
+class DiskResponseCacheTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void entriesSurviveRestart() {
+		new DiskResponseCache(directory, 1 << 20).put("k", entry(200, "Cache-Control", "max-age=60", "ETag", "\"v\""));
+		CacheEntry entry = new DiskResponseCache(directory, 1 << 20).get("k");
+		assertNotNull(entry);
+		assertEquals("\"v\"", entry.header("ETag"));
+		assertEquals("hello", entry.toResponse(System.currentTimeMillis()).getBody());
+	}
+
+	@Test
+	void serializedObjectsAreNotDeserialized() throws IOException {
+		DiskResponseCache cache = new DiskResponseCache(directory, 1 << 20);
+		cache.put("k", entry(200, "Cache-Control", "max-age=60"));
+		Path file = single();
+		// 旧格式或被篡改的文件: Java序列化数据
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeUTF("k");
+			out.writeObject(new ArrayList<>(List.of("gadget")));
+		}
+		Files.write(file, bytes.toByteArray());
+
+		assertNull(cache.get("k"));
+		assertEquals(0, count());
+	}
+
+	@Test
+	void leastRecentlyUsedEntriesAreEvicted() throws IOException {
+		DiskResponseCache cache = new DiskResponseCache(directory, 1 << 20);
+		cache.put("a", entry(200));
+		long size = Files.size(single());
+		cache = new DiskResponseCache(directory, size * 2);
+		cache.put("b", entry(200));
+		cache.get("a");
+		cache.put("c", entry(200));
+		assertNotNull(cache.get("a"));
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("c"));
+		assertEquals(2, count());
+	}
+
+	private Path single() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.findFirst().orElseThrow();
+		}
+	}
+
+	private long count() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+}
@@ -0,0 +1,62 @@
+package cn.idea360.commons.http.coalesce;
+
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author cuishiying
+ */
+class CoalescingHttpClientWrapperTest {
+
+	private static final Request REQUEST = Request.builder().url("http://127.0.0.1/a").build();
+
+	@Test
+	void concurrentGetsShareOneRequest() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		CompletableFuture<Response> upstream = new CompletableFuture<>();
+		CoalescingHttpClientWrapper client = new CoalescingHttpClientWrapper(new HttpClientWrapper() {
+			@Override
+			public CompletableFuture<Response> getAsync(Request request) {
+				calls.incrementAndGet();
+				return upstream;
+			}
+		});
+		CompletableFuture<Response> first = client.getAsync(REQUEST);
+		CompletableFuture<Response> second = client.getAsync(REQUEST);
+		upstream.complete(new Response(200, null, "ok"));
+		assertEquals("ok", first.get(1, TimeUnit.SECONDS).getBody());
+		assertEquals("ok", second.get(1, TimeUnit.SECONDS).getBody());
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void synchronousFailureDoesNotBlockLaterRequests() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		CoalescingHttpClientWrapper client = new CoalescingHttpClientWrapper(new HttpClientWrapper() {
+			@Override
+			public CompletableFuture<Response> getAsync(Request request) {
+				if (calls.incrementAndGet() == 1) {
+					throw new IllegalStateException("rejected");
+				}
+				return CompletableFuture.completedFuture(new Response(200, null, "ok"));
+			}
+		});
+		ExecutionException e = assertThrows(ExecutionException.class,
+				() -> client.getAsync(REQUEST).get(1, TimeUnit.SECONDS));
+		assertInstanceOf(IllegalStateException.class, e.getCause());
+		assertEquals("ok", client.getAsync(REQUEST).get(1, TimeUnit.SECONDS).getBody());
+		assertEquals(2, calls.get());
+	}
+
+}
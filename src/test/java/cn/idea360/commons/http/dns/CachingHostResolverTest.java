@@ -0,0 +1,96 @@
+package cn.idea360.commons.http.dns;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author cuishiying
+ */
+class CachingHostResolverTest {
+
+	private static final InetAddress[] LOOPBACK = { InetAddress.getLoopbackAddress() };
+
+	@Test
+	void cachesWithinTtl() throws Exception {
+		AtomicInteger lookups = new AtomicInteger();
+		CachingHostResolver resolver = new CachingHostResolver(host -> {
+			lookups.incrementAndGet();
+			return LOOPBACK;
+		}, 60_000, 0);
+		resolver.resolve("a");
+		resolver.resolve("a");
+		assertEquals(1, lookups.get());
+		resolver.invalidate("a");
+		resolver.resolve("a");
+		assertEquals(2, lookups.get());
+	}
+
+	@Test
+	void boundsNumberOfHosts() throws Exception {
+		AtomicInteger lookups = new AtomicInteger();
+		CachingHostResolver resolver = new CachingHostResolver(host -> {
+			lookups.incrementAndGet();
+			return LOOPBACK;
+		}, 60_000, 0, 8);
+		for (int i = 0; i < 1000; i++) {
+			resolver.resolve("host-" + i);
+		}
+		// 最近解析的域名仍在缓存中, 最早的已被清除
+		resolver.resolve("host-999");
+		assertEquals(1000, lookups.get());
+		resolver.resolve("host-0");
+		assertEquals(1001, lookups.get());
+	}
+
+	@Test
+	void followerSeesSameExceptionAsLoader() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger lookups = new AtomicInteger();
+		CachingHostResolver resolver = new CachingHostResolver(host -> {
+			lookups.incrementAndGet();
+			started.countDown();
+			try {
+				release.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			throw new IllegalStateException("resolver down");
+		}, 60_000, 0);
+		List<Throwable> errors = new CopyOnWriteArrayList<>();
+		Runnable resolve = () -> {
+			try {
+				resolver.resolve("down");
+			}
+			catch (Throwable e) {
+				errors.add(e);
+			}
+		};
+		Thread loader = new Thread(resolve);
+		loader.start();
+		assertTrue(started.await(1, TimeUnit.SECONDS));
+		Thread follower = new Thread(resolve);
+		follower.start();
+		Thread.sleep(50);
+		release.countDown();
+		loader.join(1000);
+		follower.join(1000);
+		assertEquals(2, errors.size());
+		for (Throwable error : errors) {
+			assertInstanceOf(IllegalStateException.class, error);
+		}
+		assertEquals(1, lookups.get());
+	}
+
+}
@@ -0,0 +1,99 @@
+package cn.idea360.commons.http.json;
+
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.HttpStatusException;
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.Response;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author cuishiying
+ */
+class JsonCodecsTest {
+
+	private static final Request REQUEST = Request.builder().url("http://127.0.0.1/").build();
+
+	@Test
+	void readsClassAndTypeRef() throws Exception {
+		HttpClientWrapper client = new StubClient(json("[{\"name\":\"a\"}]", StandardCharsets.UTF_8));
+		List<Map<String, String>> users = client.get(REQUEST, new TypeRef<List<Map<String, String>>>() {
+		});
+		assertEquals("a", users.get(0).get("name"));
+		assertEquals(1, client.get(REQUEST, List.class).size());
+		assertEquals("a", client.getAsync(REQUEST, new TypeRef<List<Map<String, String>>>() {
+		}).get(1, TimeUnit.SECONDS).get(0).get("name"));
+	}
+
+	@Test
+	void transcodesDeclaredCharset() throws Exception {
+		Charset latin1 = StandardCharsets.ISO_8859_1;
+		Response response = json("{\"name\":\"café\"}", latin1);
+		assertEquals("café",
+				JsonCodecs.<Map<String, String>>read(JsonCodecs.getDefault(), response, Map.class).get("name"));
+
+		Response stream = new Response(200, null, (byte[]) null, latin1);
+		stream.setContent(new ByteArrayInputStream("{\"name\":\"café\"}".getBytes(latin1)));
+		assertEquals("café",
+				JsonCodecs.<Map<String, String>>read(JsonCodecs.getDefault(), stream, Map.class).get("name"));
+	}
+
+	@Test
+	void emptyBodyIsNullAndErrorStatusThrows() throws Exception {
+		assertNull(JsonCodecs.read(JsonCodecs.getDefault(), json("", StandardCharsets.ISO_8859_1), Map.class));
+		Response error = new Response(500, "Server Error", "oops");
+		HttpStatusException e = assertThrows(HttpStatusException.class,
+				() -> JsonCodecs.read(JsonCodecs.getDefault(), error, Map.class));
+		assertTrue(e.getMessage().contains("500"));
+	}
+
+	@Test
+	void cancellingTypedFutureCancelsRequest() {
+		CompletableFuture<Response> pending = new CompletableFuture<>();
+		HttpClientWrapper client = new HttpClientWrapper() {
+			@Override
+			public CompletableFuture<Response> getAsync(Request request) {
+				return pending;
+			}
+		};
+		client.getAsync(REQUEST, Map.class).cancel(true);
+		assertTrue(pending.isCancelled());
+	}
+
+	private static Response json(String body, Charset charset) {
+		return new Response(200, null, body.getBytes(charset), charset);
+	}
+
+	private static final class StubClient implements HttpClientWrapper {
+
+		private final Response response;
+
+		private StubClient(Response response) {
+			this.response = response;
+		}
+
+		@Override
+		public Response get(Request request) {
+			return response;
+		}
+
+		@Override
+		public CompletableFuture<Response> getAsync(Request request) {
+			return CompletableFuture.completedFuture(response);
+		}
+
+	}
+
+}
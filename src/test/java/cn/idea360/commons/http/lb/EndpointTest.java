@@ -0,0 +1,71 @@
+package cn.idea360.commons.http.lb;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author cuishiying
+ */
+class EndpointTest {
+
+	@Test
+	void newEndpointIsNotEjected() {
+		Endpoint endpoint = new Endpoint("http://10.0.0.1:8080/");
+		assertEquals("http://10.0.0.1:8080", endpoint.getUrl());
+		assertFalse(endpoint.isEjected());
+	}
+
+	@Test
+	void ejectedAfterConsecutiveFailures() {
+		Endpoint endpoint = new Endpoint("http://10.0.0.1:8080");
+		fail(endpoint, 2, 60_000);
+		assertFalse(endpoint.isEjected());
+		fail(endpoint, 1, 60_000);
+		assertTrue(endpoint.isEjected());
+		assertEquals(0, endpoint.getOutstanding());
+	}
+
+	@Test
+	void successResetsConsecutiveFailures() {
+		Endpoint endpoint = new Endpoint("http://10.0.0.1:8080");
+		fail(endpoint, 2, 60_000);
+		endpoint.onStart();
+		endpoint.onSuccess(1_000_000);
+		fail(endpoint, 2, 60_000);
+		assertFalse(endpoint.isEjected());
+	}
+
+	@Test
+	void ejectionTimeGrowsUntilSuccess() throws InterruptedException {
+		Endpoint endpoint = new Endpoint("http://10.0.0.1:8080");
+		fail(endpoint, 3, 100);
+		assertTrue(endpoint.isEjected());
+		Thread.sleep(150);
+		assertFalse(endpoint.isEjected());
+		// 第二次摘除时长翻倍
+		fail(endpoint, 3, 100);
+		Thread.sleep(150);
+		assertTrue(endpoint.isEjected());
+		Thread.sleep(100);
+		assertFalse(endpoint.isEjected());
+
+		// 成功后重新从一倍摘除时长开始
+		endpoint.onStart();
+		endpoint.onSuccess(1_000_000);
+		fail(endpoint, 3, 100);
+		assertTrue(endpoint.isEjected());
+		Thread.sleep(150);
+		assertFalse(endpoint.isEjected());
+	}
+
+	private static void fail(Endpoint endpoint, int times, long ejectionTimeMillis) {
+		for (int i = 0; i < times; i++) {
+			endpoint.onStart();
+			endpoint.onFailure(3, ejectionTimeMillis);
+		}
+	}
+
+}
@@ -0,0 +1,85 @@
+package cn.idea360.commons.http.lb;
+
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.Response;
+import cn.idea360.commons.http.circuitbreaker.BulkheadFullException;
+import cn.idea360.commons.http.circuitbreaker.CircuitBreakerOpenException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author cuishiying
+ */
+class LoadBalancingHttpClientWrapperTest {
+
+	private static final Request REQUEST = Request.builder().url("lb://user-service/users").build();
+
+	@Test
+	void localRejectionsDoNotEjectEndpoint() {
+		LoadBalancingHttpClientWrapper client = client(new HttpClientWrapper() {
+			@Override
+			public Response get(Request request) throws IOException {
+				throw new BulkheadFullException("bulkhead full");
+			}
+
+			@Override
+			public CompletableFuture<Response> getAsync(Request request) {
+				return CompletableFuture.failedFuture(new CircuitBreakerOpenException("open"));
+			}
+		});
+		for (int i = 0; i < 10; i++) {
+			assertThrows(BulkheadFullException.class, () -> client.get(REQUEST));
+			assertTrue(client.getAsync(REQUEST).isCompletedExceptionally());
+		}
+		Endpoint endpoint = client.getEndpoints("user-service").get(0);
+		assertFalse(endpoint.isEjected());
+		assertEquals(0, endpoint.getOutstanding());
+	}
+
+	@Test
+	void ioFailuresEjectEndpoint() {
+		LoadBalancingHttpClientWrapper client = client(new HttpClientWrapper() {
+			@Override
+			public CompletableFuture<Response> getAsync(Request request) {
+				return CompletableFuture.failedFuture(new IOException("connection refused"));
+			}
+		});
+		for (int i = 0; i < 3; i++) {
+			client.getAsync(REQUEST);
+		}
+		assertTrue(client.getEndpoints("user-service").get(0).isEjected());
+	}
+
+	@Test
+	void synchronousThrowBecomesFailedFuture() {
+		LoadBalancingHttpClientWrapper client = client(new HttpClientWrapper() {
+			@Override
+			public CompletableFuture<Response> getAsync(Request request) {
+				throw new IllegalStateException("rejected");
+			}
+		});
+		ExecutionException e = assertThrows(ExecutionException.class,
+				() -> client.getAsync(REQUEST).get(1, TimeUnit.SECONDS));
+		assertInstanceOf(IllegalStateException.class, e.getCause());
+		assertEquals(0, client.getEndpoints("user-service").get(0).getOutstanding());
+	}
+
+	private static LoadBalancingHttpClientWrapper client(HttpClientWrapper delegate) {
+		return new LoadBalancingHttpClientWrapper(delegate, Map.of("user-service", List.of("http://10.0.0.1:8080")),
+				new RoundRobinLoadBalancer(), 3, 60_000);
+	}
+
+}
@@ -0,0 +1,84 @@
+package cn.idea360.commons.http.retry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author cuishiying
+ */
+class RetryBudgetTest {
+
+	@Test
+	void startsFullAndExhausts() {
+		RetryBudget budget = new RetryBudget(0.1, 3);
+		assertTrue(budget.tryAcquire());
+		assertTrue(budget.tryAcquire());
+		assertTrue(budget.tryAcquire());
+		assertFalse(budget.tryAcquire());
+	}
+
+	@Test
+	void requestsRefillByRatio() {
+		RetryBudget budget = new RetryBudget(0.1, 1);
+		assertTrue(budget.tryAcquire());
+		for (int i = 0; i < 9; i++) {
+			budget.onRequest();
+			assertFalse(budget.tryAcquire(), "after " + (i + 1) + " requests");
+		}
+		budget.onRequest();
+		assertTrue(budget.tryAcquire());
+		assertFalse(budget.tryAcquire());
+	}
+
+	@Test
+	void balanceIsCappedAtBurst() {
+		RetryBudget budget = new RetryBudget(1, 2);
+		for (int i = 0; i < 100; i++) {
+			budget.onRequest();
+		}
+		assertTrue(budget.tryAcquire());
+		assertTrue(budget.tryAcquire());
+		assertFalse(budget.tryAcquire());
+	}
+
+	@Test
+	void zeroRatioNeverRefills() {
+		RetryBudget budget = new RetryBudget(0, 1);
+		assertTrue(budget.tryAcquire());
+		budget.onRequest();
+		assertFalse(budget.tryAcquire());
+	}
+
+	@Test
+	void concurrentAcquiresNeverOverdraw() throws InterruptedException {
+		RetryBudget budget = new RetryBudget(0.1, 50);
+		AtomicInteger acquired = new AtomicInteger();
+		int threads = 8;
+		CountDownLatch done = new CountDownLatch(threads);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		for (int t = 0; t < threads; t++) {
+			executor.execute(() -> {
+				for (int i = 0; i < 1000; i++) {
+					budget.onRequest();
+					if (budget.tryAcquire()) {
+						acquired.incrementAndGet();
+					}
+				}
+				done.countDown();
+			});
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		executor.shutdown();
+		// 最多为初始的50个令牌加8000个请求按10%存入的800个, 桶满时存入的令牌被丢弃
+		assertTrue(acquired.get() >= 50 && acquired.get() <= 850, String.valueOf(acquired.get()));
+	}
+
+}
@@ -0,0 +1,152 @@
+package cn.idea360.commons.http.retry;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import javax.net.ssl.SSLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author cuishiying
+ */
+class RetryPolicyTest {
+
+	private final RetryPolicy policy = new RetryPolicy(3, 100, 1000, null);
+
+	@Test
+	void onlyIdempotentMethodsAreRetried() {
+		for (String method : new String[] { "GET", "head", "Put", "DELETE", "options", "TRACE" }) {
+			assertTrue(policy.retryRequest(method, new IOException("reset"), 1), method);
+		}
+		for (String method : new String[] { "POST", "PATCH", "CONNECT", null }) {
+			assertFalse(policy.retryRequest(method, new IOException("reset"), 1), method);
+		}
+	}
+
+	@Test
+	void methodMatchingIgnoresDefaultLocale() {
+		Locale defaultLocale = Locale.getDefault();
+		try {
+			// 土耳其语下"options".toUpperCase()为"OPTİONS"
+			Locale.setDefault(new Locale("tr", "TR"));
+			assertTrue(policy.retryRequest("options", new IOException("reset"), 1));
+		}
+		finally {
+			Locale.setDefault(defaultLocale);
+		}
+	}
+
+	@Test
+	void timeoutsAndConnectionFailuresAreNotRetried() {
+		IOException[] exceptions = { new SocketTimeoutException(), new HttpTimeoutException("timeout"),
+				new UnknownHostException(), new ConnectException(), new NoRouteToHostException(),
+				new SSLException("handshake") };
+		for (IOException exception : exceptions) {
+			assertFalse(policy.retryRequest("GET", exception, 1), exception.getClass().getSimpleName());
+		}
+	}
+
+	@Test
+	void stopsAfterMaxRetries() {
+		assertTrue(policy.retryRequest("GET", new IOException(), 3));
+		assertFalse(policy.retryRequest("GET", new IOException(), 4));
+		assertTrue(policy.retryRequest("GET", 503, null, 3));
+		assertFalse(policy.retryRequest("GET", 503, null, 4));
+	}
+
+	@Test
+	void retriesOnlyTransientStatusCodes() {
+		for (int statusCode : new int[] { 429, 502, 503, 504 }) {
+			assertTrue(policy.retryRequest("GET", statusCode, null, 1), String.valueOf(statusCode));
+		}
+		for (int statusCode : new int[] { 200, 400, 401, 404, 500, 501 }) {
+			assertFalse(policy.retryRequest("GET", statusCode, null, 1), String.valueOf(statusCode));
+		}
+		assertFalse(policy.retryRequest("POST", 503, null, 1));
+	}
+
+	@Test
+	void retryAfterBeyondMaxDelayGivesUp() {
+		assertTrue(policy.retryRequest("GET", 503, "1", 1));
+		assertFalse(policy.retryRequest("GET", 503, "2", 1));
+		assertFalse(policy.retryRequest("GET", 503, httpDate(60), 1));
+		// 无法解析或已过去的Retry-After不影响重试
+		assertTrue(policy.retryRequest("GET", 503, "soon", 1));
+		assertTrue(policy.retryRequest("GET", 503, httpDate(-60), 1));
+	}
+
+	@Test
+	void backoffStaysWithinExponentialCeiling() {
+		RetryPolicy policy = new RetryPolicy(10, 100, 1000, null);
+		long[] ceilings = { 100, 200, 400, 800, 1000, 1000 };
+		for (int execCount = 1; execCount <= ceilings.length; execCount++) {
+			long max = 0;
+			for (int i = 0; i < 2000; i++) {
+				long delay = policy.getRetryInterval(execCount, null).toMillis();
+				assertTrue(delay >= 0 && delay <= ceilings[execCount - 1], execCount + ": " + delay);
+				max = Math.max(max, delay);
+			}
+			// 全抖动: 样本应覆盖区间的上半部分
+			assertTrue(max > ceilings[execCount - 1] / 2, execCount + ": " + max);
+		}
+	}
+
+	@Test
+	void backoffDoesNotOverflowForLargeAttempts() {
+		RetryPolicy policy = new RetryPolicy(100, 100, 1000, null);
+		for (int execCount : new int[] { 31, 32, 63, 64, 100, Integer.MAX_VALUE }) {
+			long delay = policy.getRetryInterval(execCount, null).toMillis();
+			assertTrue(delay >= 0 && delay <= 1000, execCount + ": " + delay);
+		}
+		assertEquals(Duration.ZERO, new RetryPolicy(3, 0, 1000, null).getRetryInterval(1, null));
+	}
+
+	@Test
+	void retryAfterIsALowerBound() {
+		assertEquals(Duration.ofSeconds(5), policy.getRetryInterval(1, "5"));
+		assertEquals(Duration.ofSeconds(5), policy.getRetryInterval(1, " 5 "));
+		long fromDate = policy.getRetryInterval(1, httpDate(10)).toMillis();
+		assertTrue(fromDate > 8_000 && fromDate <= 10_000, String.valueOf(fromDate));
+		// Retry-After小于退避值时使用退避值, 无法解析时忽略
+		assertTrue(policy.getRetryInterval(1, "0").toMillis() <= 100);
+		assertTrue(policy.getRetryInterval(1, "-3").toMillis() <= 100);
+		assertTrue(policy.getRetryInterval(1, "tomorrow").toMillis() <= 100);
+	}
+
+	@Test
+	void budgetLimitsRetries() {
+		RetryPolicy policy = new RetryPolicy(3, 0, 1000, new RetryBudget(0.5, 2));
+		assertTrue(policy.retryRequest("GET", new IOException(), 1));
+		assertTrue(policy.retryRequest("GET", 503, null, 1));
+		assertFalse(policy.retryRequest("GET", new IOException(), 1));
+		policy.onRequest();
+		assertFalse(policy.retryRequest("GET", new IOException(), 1));
+		policy.onRequest();
+		assertTrue(policy.retryRequest("GET", new IOException(), 1));
+		// 不重试的请求不消耗预算
+		policy.onRequest();
+		policy.onRequest();
+		assertFalse(policy.retryRequest("POST", new IOException(), 1));
+		assertTrue(policy.retryRequest("GET", new IOException(), 1));
+	}
+
+	private static String httpDate(long secondsFromNow) {
+		return DateTimeFormatter.RFC_1123_DATE_TIME
+				.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(secondsFromNow));
+	}
+
+}
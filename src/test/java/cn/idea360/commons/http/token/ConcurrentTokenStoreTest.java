@@ -0,0 +1,85 @@
+package cn.idea360.commons.http.token;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author cuishiying
+ */
+class ConcurrentTokenStoreTest {
+
+	@Test
+	void fetchesOnceAndCachesToken() {
+		try (CountingStore store = new CountingStore(Duration.ofMinutes(5), false, Duration.ofHours(1))) {
+			assertEquals("t1", store.getToken());
+			assertEquals("t1", store.getToken());
+			assertEquals(1, store.fetches.get());
+			store.invalidate("other");
+			assertEquals("t1", store.getToken());
+			store.invalidate("t1");
+			assertEquals("t2", store.getToken());
+		}
+	}
+
+	@Test
+	void invalidationDoesNotAddRenewalChains() throws Exception {
+		// 有效期400ms, 每200ms主动续期一次
+		try (CountingStore store = new CountingStore(Duration.ofMillis(100), true, Duration.ofMillis(400))) {
+			store.getToken();
+			for (int i = 0; i < 3; i++) {
+				// 错开时间, 否则多个续期任务同时触发会合并为一次刷新
+				Thread.sleep(50);
+				store.invalidate();
+				store.getToken();
+			}
+			int before = store.fetches.get();
+			Thread.sleep(1000);
+			int renewals = store.fetches.get() - before;
+			// 只有一个续期任务时约5次, 每次失效都新增任务时明显更多
+			assertTrue(renewals >= 2 && renewals <= 7, "renewals: " + renewals);
+		}
+	}
+
+	@Test
+	void failedFetchWithoutValidTokenThrows() {
+		try (ConcurrentTokenStore store = new ConcurrentTokenStore() {
+			@Override
+			protected Token fetchToken() {
+				throw new IllegalStateException("auth down");
+			}
+		}) {
+			assertThrows(TokenRefreshException.class, store::getToken);
+			CompletionException e = assertThrows(CompletionException.class,
+					() -> store.getTokenAsync(Runnable::run).join());
+			assertInstanceOf(TokenRefreshException.class, e.getCause());
+		}
+	}
+
+	private static final class CountingStore extends ConcurrentTokenStore {
+
+		private final AtomicInteger fetches = new AtomicInteger();
+
+		private final Duration ttl;
+
+		private CountingStore(Duration refreshAhead, boolean proactive, Duration ttl) {
+			super(refreshAhead, proactive);
+			this.ttl = ttl;
+		}
+
+		@Override
+		protected Token fetchToken() {
+			return new Token("t" + fetches.incrementAndGet(), Instant.now().plus(ttl));
+		}
+
+	}
+
+}
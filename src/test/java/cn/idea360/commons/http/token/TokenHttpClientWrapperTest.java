@@ -0,0 +1,101 @@
+package cn.idea360.commons.http.token;
+
+import cn.idea360.commons.http.HttpClientWrapper;
+import cn.idea360.commons.http.Request;
+import cn.idea360.commons.http.Response;
+import cn.idea360.commons.http.UnSupportException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author cuishiying
+ */
+class TokenHttpClientWrapperTest {
+
+	private static final Request REQUEST = Request.builder().url("http://127.0.0.1/a").build();
+
+	@Test
+	void asyncCallDoesNotWaitForTokenOnCallerThread() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> tokens = new CopyOnWriteArrayList<>();
+		try (BlockingStore store = new BlockingStore(release)) {
+			TokenHttpClientWrapper client = new TokenHttpClientWrapper(new HttpClientWrapper() {
+				@Override
+				public CompletableFuture<Response> getAsync(Request request) {
+					tokens.add(request.getHeaders().get("access-token"));
+					return CompletableFuture.completedFuture(new Response(200, null, "ok"));
+				}
+			}, store, "access-token");
+			CompletableFuture<Response> future = client.getAsync(REQUEST);
+			assertFalse(future.isDone());
+			release.countDown();
+			assertEquals("ok", future.get(1, TimeUnit.SECONDS).getBody());
+			assertEquals(List.of("t1"), tokens);
+		}
+	}
+
+	@Test
+	void unauthorizedResponseIsReplayedWithNewToken() throws Exception {
+		List<String> tokens = new CopyOnWriteArrayList<>();
+		CountDownLatch release = new CountDownLatch(0);
+		try (BlockingStore store = new BlockingStore(release)) {
+			TokenHttpClientWrapper client = new TokenHttpClientWrapper(new HttpClientWrapper() {
+				@Override
+				public CompletableFuture<Response> getAsync(Request request) {
+					String token = request.getHeaders().get("access-token");
+					tokens.add(token);
+					return CompletableFuture.completedFuture(new Response("t1".equals(token) ? 401 : 200, null, token));
+				}
+			}, store, "access-token");
+			assertEquals("t2", client.getAsync(REQUEST).get(1, TimeUnit.SECONDS).getBody());
+			assertEquals(List.of("t1", "t2"), tokens);
+		}
+	}
+
+	@Test
+	void synchronousThrowBecomesFailedFuture() {
+		try (BlockingStore store = new BlockingStore(new CountDownLatch(0))) {
+			TokenHttpClientWrapper client = new TokenHttpClientWrapper(new HttpClientWrapper() {
+			}, store, "access-token");
+			ExecutionException e = assertThrows(ExecutionException.class,
+					() -> client.getAsync(REQUEST).get(1, TimeUnit.SECONDS));
+			assertInstanceOf(UnSupportException.class, e.getCause());
+		}
+	}
+
+	/**
+	 * 获取token等待release
+	 */
+	private static final class BlockingStore extends ConcurrentTokenStore {
+
+		private final CountDownLatch release;
+
+		private final AtomicInteger fetches = new AtomicInteger();
+
+		private BlockingStore(CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		protected Token fetchToken() throws Exception {
+			release.await();
+			return new Token("t" + fetches.incrementAndGet(), Instant.now().plus(Duration.ofHours(1)));
+		}
+
+	}
+
+}